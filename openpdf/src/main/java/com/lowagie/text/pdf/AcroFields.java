@@ -2173,7 +2173,7 @@ public class AcroFields {
         }
         sorter.sort(new SorterComparator());
         if (!sorter.isEmpty()) {
-            if (((int[]) sorter.get(sorter.size() - 1)[1])[0] == reader.getFileLength()) {
+            if (((int[]) sorter.get(sorter.size() - 1)[1])[0] == reader.getFileLengthLong()) {
                 totalRevisions = sorter.size();
             } else {
                 totalRevisions = sorter.size() + 1;
@@ -2332,7 +2332,7 @@ public class AcroFields {
         if (!sigNames.containsKey(name)) {
             return false;
         }
-        return sigNames.get(name)[0] == reader.getFileLength();
+        return sigNames.get(name)[0] == reader.getFileLengthLong();
     }
 
     /**
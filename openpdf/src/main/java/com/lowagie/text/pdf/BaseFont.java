@@ -58,7 +58,6 @@ import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.StringTokenizer;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Base class for the several font types supported
@@ -324,9 +323,12 @@ public abstract class BaseFont {
     protected static final HashMap<String, PdfName> BuiltinFonts14 = new HashMap<>();
     /**
      * cache for the fonts already used.
+     * <p>
+     * This field was a <CODE>ConcurrentHashMap&lt;String, BaseFont&gt;</CODE> before, subclasses using it directly no
+     * longer compile and must use the methods of {@link FontResourceCache}.
      */
-    protected static ConcurrentHashMap<String, BaseFont> fontCache = new ConcurrentHashMap<>(
-            500, 0.85f, 64);
+    protected static final FontResourceCache<String, BaseFont> fontCache = new FontResourceCache<>(
+            128L << 20, BaseFont::getCacheWeight);
 
     static {
         BuiltinFonts14.put(COURIER, PdfName.COURIER);
@@ -699,7 +701,8 @@ public abstract class BaseFont {
      * @param forceRead in some cases (TrueTypeFont, Type1Font), the full font file will be read and kept in memory if
      *                  forceRead is true
      * @return returns a new font. This font may come from the cache but only if cached is true, otherwise it will
-     * always be created new
+     * always be created new. A cached font is the same instance for the same name, encoding and embedding as long as it
+     * is in the cache or in use, by a document for instance
      * @throws DocumentException the font is invalid
      * @throws IOException       the font file could not be read
      * @since 2.1.5
@@ -718,16 +721,25 @@ public abstract class BaseFont {
         } else if (encoding.equals(IDENTITY_H) || encoding.equals(IDENTITY_V)) {
             embedded = true;
         }
-        BaseFont fontFound = null;
-        BaseFont fontBuilt = null;
         String key = name + "\n" + encoding + "\n" + embedded;
         if (cached) {
-            fontFound = fontCache.get(key);
-            if (fontFound != null) {
-                LayoutProcessor.loadFont(fontFound, name);
-                return fontFound;
+            String fontEncoding = encoding;
+            boolean fontEmbedded = embedded;
+            BaseFont font = fontCache.get(key, () -> buildFont(name, fontEncoding, fontEmbedded, ttfAfm, pfb,
+                    noThrow, forceRead, isBuiltinFonts14, isCJKFont));
+            if (font != null) {
+                LayoutProcessor.loadFont(font, name);
             }
+            return font;
         }
+        return buildFont(name, encoding, embedded, ttfAfm, pfb, noThrow, forceRead, isBuiltinFonts14, isCJKFont);
+    }
+
+    private static BaseFont buildFont(String name, String encoding, boolean embedded, byte[] ttfAfm, byte[] pfb,
+            boolean noThrow, boolean forceRead, boolean isBuiltinFonts14, boolean isCJKFont)
+            throws DocumentException, IOException {
+        String nameBase = getBaseName(name);
+        BaseFont fontBuilt;
         if (isBuiltinFonts14 || name.toLowerCase().endsWith(".afm")
                 || name.toLowerCase().endsWith(".pfm")) {
             fontBuilt = new Type1Font(name, encoding, embedded, ttfAfm, pfb,
@@ -753,10 +765,6 @@ public abstract class BaseFont {
             throw new DocumentException(MessageLocalization.getComposedMessage(
                     "font.1.with.2.is.not.recognized", name, encoding));
         }
-        if (cached) {
-            fontCache.putIfAbsent(key, fontBuilt);
-            return fontCache.get(key);
-        }
         return fontBuilt;
     }
 
@@ -771,6 +779,26 @@ public abstract class BaseFont {
         return new DocumentFont(fontRef);
     }
 
+    /**
+     * Gets the cache of the fonts created with <CODE>cached</CODE> set. Its maximum weight, an estimate of the memory
+     * used by the fonts in bytes, can be changed and its counters read. The fonts evicted from the cache are created
+     * new the next time they are asked for, unless they are still in use.
+     *
+     * @return the font cache
+     */
+    public static FontResourceCache<String, BaseFont> getFontCache() {
+        return fontCache;
+    }
+
+    /**
+     * Estimates the memory used by this font, in bytes, to weigh it in the font cache.
+     *
+     * @return the estimated memory used by this font
+     */
+    long getCacheWeight() {
+        return 4096;
+    }
+
     /**
      * Gets the name without the modifiers Bold, Italic or BoldItalic.
      *
@@ -1800,6 +1828,21 @@ public abstract class BaseFont {
          */
         public StreamFont(byte[] contents, int[] lengths, int compressionLevel)
                 throws DocumentException {
+            this(contents, lengths, compressionLevel, null);
+        }
+
+        /**
+         * Generates the PDF stream with the Type1 and Truetype fonts to be added to a writer, the font being
+         * compressed on the compression executor of the writer if it has one.
+         *
+         * @param contents         the content of the stream
+         * @param lengths          an array of int that describes the several lengths of each part of the font
+         * @param compressionLevel the compression level of the Stream
+         * @param writer           the writer or <CODE>null</CODE>
+         * @throws DocumentException error in the stream compression
+         */
+        StreamFont(byte[] contents, int[] lengths, int compressionLevel, PdfWriter writer)
+                throws DocumentException {
             try {
                 bytes = contents;
                 put(PdfName.LENGTH, new PdfNumber(bytes.length));
@@ -1807,7 +1850,7 @@ public abstract class BaseFont {
                     put(new PdfName("Length" + (k + 1)), new PdfNumber(
                             lengths[k]));
                 }
-                flateCompress(compressionLevel);
+                flateCompress(compressionLevel, writer);
             } catch (Exception e) {
                 throw new DocumentException(e);
             }
@@ -1824,13 +1867,28 @@ public abstract class BaseFont {
          */
         public StreamFont(byte[] contents, String subType, int compressionLevel)
                 throws DocumentException {
+            this(contents, subType, compressionLevel, null);
+        }
+
+        /**
+         * Generates the PDF stream for a font to be added to a writer, the font being compressed on the compression
+         * executor of the writer if it has one.
+         *
+         * @param contents         the content of a stream
+         * @param subType          the subtype of the font.
+         * @param compressionLevel the compression level of the Stream
+         * @param writer           the writer or <CODE>null</CODE>
+         * @throws DocumentException error in the stream compression
+         */
+        StreamFont(byte[] contents, String subType, int compressionLevel, PdfWriter writer)
+                throws DocumentException {
             try {
                 bytes = contents;
                 put(PdfName.LENGTH, new PdfNumber(bytes.length));
                 if (subType != null) {
                     put(PdfName.SUBTYPE, new PdfName(subType));
                 }
-                flateCompress(compressionLevel);
+                flateCompress(compressionLevel, writer);
             } catch (Exception e) {
                 throw new DocumentException(e);
             }
@@ -51,12 +51,14 @@
 package com.lowagie.text.pdf;
 
 import com.lowagie.text.DocWriter;
+import com.lowagie.text.ExceptionConverter;
 import com.lowagie.text.error_messages.MessageLocalization;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -69,14 +71,17 @@ import java.util.Locale;
 public class ByteBuffer extends OutputStream {
 
     public static final byte ZERO = (byte) '0';
-    private static final char[] chars = new char[]{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
     private static final byte[] bytes = new byte[]{48, 49, 50, 51, 52, 53, 54, 55, 56, 57, 97, 98, 99, 100, 101, 102};
     private static final DecimalFormatSymbols dfs = new DecimalFormatSymbols(Locale.US);
     /**
-     * If <CODE>true</CODE> always output floating point numbers with 6 decimal digits. If <CODE>false</CODE> uses the
-     * faster, although less precise, representation.
+     * If <CODE>true</CODE> always output floating point numbers with 6 decimal digits, or the number set with
+     * {@link #setHighPrecisionDecimals(int)}. If <CODE>false</CODE> uses the faster, although less precise,
+     * representation.
      */
     public static boolean HIGH_PRECISION = false;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L};
+    private static int highPrecisionDecimals = 6;
     private static int byteCacheSize = 0;
     private static byte[][] byteCache = new byte[byteCacheSize][];
     /**
@@ -87,6 +92,16 @@ public class ByteBuffer extends OutputStream {
      * The buffer where the bytes are stored.
      */
     protected byte[] buf;
+    /**
+     * The pool the buffer takes its arrays from, or <CODE>null</CODE>.
+     */
+    private ByteBufferPool pool;
+    /**
+     * The file the start of the content goes to when the buffer is full, or <CODE>null</CODE>.
+     */
+    private ContentSpillFile spill;
+    private int spillSize;
+    private int spillLocks;
 
     /**
      * Creates new ByteBuffer with capacity 128
@@ -107,6 +122,20 @@ public class ByteBuffer extends OutputStream {
         buf = new byte[size];
     }
 
+    /**
+     * Creates a byte buffer that takes its arrays from a pool.
+     *
+     * @param size the initial capacity
+     * @param pool the pool, or <CODE>null</CODE> to allocate the arrays
+     */
+    ByteBuffer(int size, ByteBufferPool pool) {
+        if (size < 1) {
+            size = 128;
+        }
+        this.pool = pool;
+        buf = pool == null ? new byte[size] : pool.acquire(size);
+    }
+
     /**
      * Sets the cache size.
      * <p>
@@ -216,236 +245,201 @@ public class ByteBuffer extends OutputStream {
      * then the double is appended directly to the buffer and this methods returns <CODE>null</CODE>.
      */
     public static String formatDouble(double d, ByteBuffer buf) {
-        if (HIGH_PRECISION) {
-            DecimalFormat dn = new DecimalFormat("0.######", dfs);
-            String sform = dn.format(d);
-            if (buf == null) {
-                return sform;
-            } else {
-                buf.append(sform);
-                return null;
+        if (buf == null) {
+            if (HIGH_PRECISION && !Double.isFinite(d)) {
+                return formatFixed(d, highPrecisionDecimals);
             }
+            ByteBuffer b = new ByteBuffer(24);
+            b.appendNumber(d);
+            return b.toString();
+        }
+        buf.appendNumber(d);
+        return null;
+    }
+
+    /**
+     * Gets the number of decimal digits written when {@link #HIGH_PRECISION} is <CODE>true</CODE>.
+     *
+     * @return the number of decimal digits
+     */
+    public static int getHighPrecisionDecimals() {
+        return highPrecisionDecimals;
+    }
+
+    /**
+     * Sets the number of decimal digits written when {@link #HIGH_PRECISION} is <CODE>true</CODE>, the numbers being
+     * rounded half to even and written without trailing zeros.
+     *
+     * @param decimals the number of decimal digits, from 0 to 9, the default being 6
+     */
+    public static void setHighPrecisionDecimals(int decimals) {
+        highPrecisionDecimals = Math.max(0, Math.min(decimals, POWERS_OF_TEN.length - 1));
+    }
+
+    /**
+     * Writes a number straight into the buffer, with the fixed number of decimals of {@link #HIGH_PRECISION} or in the
+     * faster representation: five decimals below 1, two decimals up to 32767 and no decimals above.
+     */
+    private void appendNumber(double d) {
+        if (HIGH_PRECISION) {
+            appendFixed(d, highPrecisionDecimals);
+            return;
         }
-        boolean negative = false;
         if (Math.abs(d) < 0.000015) {
-            if (buf != null) {
-                buf.append(ZERO);
-                return null;
-            } else {
-                return "0";
-            }
+            append_i(ZERO);
+            return;
         }
+        boolean negative = false;
         if (d < 0) {
             negative = true;
             d = -d;
         }
+        reserve(21);
+        byte[] b = buf;
+        int c = count;
+        if (negative) {
+            b[c++] = (byte) '-';
+        }
         if (d < 1.0) {
             d += 0.000005;
             if (d >= 1) {
-                if (negative) {
-                    if (buf != null) {
-                        buf.append((byte) '-');
-                        buf.append((byte) '1');
-                        return null;
-                    } else {
-                        return "-1";
-                    }
-                } else {
-                    if (buf != null) {
-                        buf.append((byte) '1');
-                        return null;
-                    } else {
-                        return "1";
-                    }
-                }
+                b[c++] = (byte) '1';
+                count = c;
+                return;
             }
-            if (buf != null) {
-                int v = (int) (d * 100000);
-
-                if (negative) {
-                    buf.append((byte) '-');
-                }
-                buf.append((byte) '0');
-                buf.append((byte) '.');
-
-                buf.append((byte) (v / 10000 + ZERO));
-                if (v % 10000 != 0) {
-                    buf.append((byte) ((v / 1000) % 10 + ZERO));
-                    if (v % 1000 != 0) {
-                        buf.append((byte) ((v / 100) % 10 + ZERO));
-                        if (v % 100 != 0) {
-                            buf.append((byte) ((v / 10) % 10 + ZERO));
-                            if (v % 10 != 0) {
-                                buf.append((byte) ((v) % 10 + ZERO));
-                            }
-                        }
-                    }
-                }
-                return null;
-            } else {
-                int x = 100000;
-                int v = (int) (d * x);
-
-                StringBuilder res = new StringBuilder();
-                if (negative) {
-                    res.append('-');
-                }
-                res.append("0.");
-
-                while (v < x / 10) {
-                    res.append('0');
-                    x /= 10;
-                }
-                res.append(v);
-                int cut = res.length() - 1;
-                while (res.charAt(cut) == '0') {
-                    --cut;
-                }
-                res.setLength(cut + 1);
-                return res.toString();
+            int v = (int) (d * 100000);
+            b[c++] = (byte) '0';
+            b[c++] = (byte) '.';
+            // the decimals without the trailing zeros
+            b[c++] = (byte) (v / 10000 + ZERO);
+            for (int divisor = 1000, rest = v % 10000; rest != 0; divisor /= 10) {
+                b[c++] = (byte) (rest / divisor + ZERO);
+                rest %= divisor;
             }
+            count = c;
         } else if (d <= 32767) {
             d += 0.005;
             int v = (int) (d * 100);
-
             if (v < byteCacheSize && byteCache[v] != null) {
-                if (buf != null) {
-                    if (negative) {
-                        buf.append((byte) '-');
-                    }
-                    buf.append(byteCache[v]);
-                    return null;
-                } else {
-                    String tmp = PdfEncodings.convertToString(byteCache[v], null);
-                    if (negative) {
-                        tmp = "-" + tmp;
-                    }
-                    return tmp;
-                }
+                count = c;
+                append(byteCache[v]);
+                return;
             }
-            if (buf != null) {
-                if (v < byteCacheSize) {
-                    //create the cachebyte[]
-                    byte[] cache;
-                    int size = 0;
-                    if (v >= 1000000) {
-                        //the original number is >=10000, we need 5 more bytes
-                        size += 5;
-                    } else if (v >= 100000) {
-                        //the original number is >=1000, we need 4 more bytes
-                        size += 4;
-                    } else if (v >= 10000) {
-                        //the original number is >=100, we need 3 more bytes
-                        size += 3;
-                    } else if (v >= 1000) {
-                        //the original number is >=10, we need 2 more bytes
-                        size += 2;
-                    } else if (v >= 100) {
-                        //the original number is >=1, we need 1 more bytes
-                        size += 1;
-                    }
-
-                    //now we must check if we have a decimal number
-                    if (v % 100 != 0) {
-                        //yes, do not forget the "."
-                        size += 2;
-                    }
-                    if (v % 10 != 0) {
-                        size++;
-                    }
-                    cache = new byte[size];
-                    int add = 0;
-                    if (v >= 1000000) {
-                        cache[add++] = bytes[(v / 1000000)];
-                    }
-                    if (v >= 100000) {
-                        cache[add++] = bytes[(v / 100000) % 10];
-                    }
-                    if (v >= 10000) {
-                        cache[add++] = bytes[(v / 10000) % 10];
-                    }
-                    if (v >= 1000) {
-                        cache[add++] = bytes[(v / 1000) % 10];
-                    }
-                    if (v >= 100) {
-                        cache[add++] = bytes[(v / 100) % 10];
-                    }
-
-                    if (v % 100 != 0) {
-                        cache[add++] = (byte) '.';
-                        cache[add++] = bytes[(v / 10) % 10];
-                        if (v % 10 != 0) {
-                            cache[add++] = bytes[v % 10];
-                        }
-                    }
-                    byteCache[v] = cache;
+            int start = c;
+            c = writeDigits(b, c, v / 100);
+            if (v % 100 != 0) {
+                b[c++] = (byte) '.';
+                b[c++] = bytes[(v / 10) % 10];
+                if (v % 10 != 0) {
+                    b[c++] = bytes[v % 10];
                 }
+            }
+            count = c;
+            if (v < byteCacheSize) {
+                byteCache[v] = Arrays.copyOfRange(b, start, c);
+            }
+        } else {
+            d += 0.5;
+            count = writeDigits(b, c, (long) d);
+        }
+    }
 
-                if (negative) {
-                    buf.append((byte) '-');
-                }
-                if (v >= 1000000) {
-                    buf.append(bytes[(v / 1000000)]);
-                }
-                if (v >= 100000) {
-                    buf.append(bytes[(v / 100000) % 10]);
-                }
-                if (v >= 10000) {
-                    buf.append(bytes[(v / 10000) % 10]);
-                }
-                if (v >= 1000) {
-                    buf.append(bytes[(v / 1000) % 10]);
-                }
-                if (v >= 100) {
-                    buf.append(bytes[(v / 100) % 10]);
-                }
+    /**
+     * Writes a number rounded half to even to a number of decimals, as <CODE>DecimalFormat("0.######")</CODE> does
+     * for six decimals, without creating objects.
+     */
+    private void appendFixed(double d, int decimals) {
+        long scale = POWERS_OF_TEN[decimals];
+        double a = Math.abs(d);
+        double p = a * scale;
+        if (!(p < 0x1p52)) {
+            // infinite, not a number or too large to be scaled exactly
+            append(formatFixed(d, decimals));
+            return;
+        }
+        // a * scale is exactly p + error, the error deciding the rounding of the ties of p
+        double error = Math.fma(a, scale, -p);
+        double floor = Math.floor(p);
+        double fraction = p - floor;
+        long n = (long) floor;
+        if (fraction > 0.5 || fraction == 0.5 && (error > 0 || error == 0 && (n & 1) != 0)) {
+            ++n;
+        }
+        reserve(22);
+        byte[] b = buf;
+        int c = count;
+        if (Double.doubleToRawLongBits(d) < 0) {
+            b[c++] = (byte) '-';
+        }
+        c = writeDigits(b, c, n / scale);
+        long decimalPart = n % scale;
+        if (decimalPart != 0) {
+            b[c++] = (byte) '.';
+            for (long divisor = scale / 10; decimalPart != 0; divisor /= 10) {
+                b[c++] = (byte) (decimalPart / divisor + ZERO);
+                decimalPart %= divisor;
+            }
+        }
+        count = c;
+    }
 
-                if (v % 100 != 0) {
-                    buf.append((byte) '.');
-                    buf.append(bytes[(v / 10) % 10]);
-                    if (v % 10 != 0) {
-                        buf.append(bytes[v % 10]);
-                    }
-                }
-                return null;
-            } else {
-                StringBuilder res = new StringBuilder();
-                if (negative) {
-                    res.append('-');
-                }
-                if (v >= 1000000) {
-                    res.append(chars[(v / 1000000)]);
-                }
-                if (v >= 100000) {
-                    res.append(chars[(v / 100000) % 10]);
-                }
-                if (v >= 10000) {
-                    res.append(chars[(v / 10000) % 10]);
-                }
-                if (v >= 1000) {
-                    res.append(chars[(v / 1000) % 10]);
-                }
-                if (v >= 100) {
-                    res.append(chars[(v / 100) % 10]);
-                }
+    private static String formatFixed(double d, int decimals) {
+        StringBuilder pattern = new StringBuilder("0");
+        if (decimals > 0) {
+            pattern.append('.');
+            for (int k = 0; k < decimals; ++k) {
+                pattern.append('#');
+            }
+        }
+        return new DecimalFormat(pattern.toString(), dfs).format(d);
+    }
 
-                if (v % 100 != 0) {
-                    res.append('.');
-                    res.append(chars[(v / 10) % 10]);
-                    if (v % 10 != 0) {
-                        res.append(chars[v % 10]);
-                    }
+    /**
+     * Writes the decimal digits of a positive number.
+     *
+     * @return the position after the digits
+     */
+    private static int writeDigits(byte[] b, int c, long v) {
+        int length = 1;
+        for (long x = v; x >= 10; x /= 10) {
+            ++length;
+        }
+        int end = c + length;
+        for (int k = end - 1; k >= c; --k) {
+            b[k] = (byte) (v % 10 + ZERO);
+            v /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Makes room for bytes at the end of the buffer, first moving the content to the spill file if the buffer is full.
+     *
+     * @param len the number of bytes
+     */
+    private void reserve(int len) {
+        if (count + len > buf.length) {
+            if (spill != null && spillLocks == 0 && count >= spillSize) {
+                try {
+                    spill.write(buf, 0, count);
+                } catch (IOException e) {
+                    throw new ExceptionConverter(e);
                 }
-                return res.toString();
+                count = 0;
             }
-        } else {
-            StringBuilder res = new StringBuilder();
-            if (negative) {
-                res.append('-');
+            ensureCapacity(count + len);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            int size = Math.max(buf.length << 1, capacity);
+            byte[] newbuf = pool == null ? new byte[size] : pool.acquire(size);
+            System.arraycopy(buf, 0, newbuf, 0, count);
+            if (pool != null) {
+                pool.release(buf);
             }
-            d += 0.5;
-            long v = (long) d;
-            return res.append(v).toString();
+            buf = newbuf;
         }
     }
 
@@ -456,14 +450,8 @@ public class ByteBuffer extends OutputStream {
      * @return a reference to this <CODE>ByteBuffer</CODE> object
      */
     public ByteBuffer append_i(int b) {
-        int newcount = count + 1;
-        if (newcount > buf.length) {
-            byte[] newbuf = new byte[Math.max(buf.length << 1, newcount)];
-            System.arraycopy(buf, 0, newbuf, 0, count);
-            buf = newbuf;
-        }
-        buf[count] = (byte) b;
-        count = newcount;
+        reserve(1);
+        buf[count++] = (byte) b;
         return this;
     }
 
@@ -481,14 +469,9 @@ public class ByteBuffer extends OutputStream {
                 ((off + len) > b.length) || ((off + len) < 0) || len == 0) {
             return this;
         }
-        int newcount = count + len;
-        if (newcount > buf.length) {
-            byte[] newbuf = new byte[Math.max(buf.length << 1, newcount)];
-            System.arraycopy(buf, 0, newbuf, 0, count);
-            buf = newbuf;
-        }
+        reserve(len);
         System.arraycopy(b, off, buf, count, len);
-        count = newcount;
+        count += len;
         return this;
     }
 
@@ -583,7 +566,7 @@ public class ByteBuffer extends OutputStream {
      * @return a reference to this <CODE>ByteBuffer</CODE> object
      */
     public ByteBuffer append(double d) {
-        append(formatDouble(d, this));
+        appendNumber(d);
         return this;
     }
 
@@ -594,6 +577,55 @@ public class ByteBuffer extends OutputStream {
         count = 0;
     }
 
+    /**
+     * Moves the content to a file when the buffer is full and holds at least a number of bytes. The buffer then only
+     * holds the bytes written since, and the file the bytes before them.
+     *
+     * @param spill     the file or <CODE>null</CODE> to keep the whole content in the buffer
+     * @param spillSize the number of bytes
+     */
+    void setSpill(ContentSpillFile spill, int spillSize) {
+        this.spill = spill;
+        this.spillSize = spillSize;
+    }
+
+    /**
+     * Gets the file holding the start of the content.
+     *
+     * @return the file or <CODE>null</CODE>
+     */
+    ContentSpillFile getSpill() {
+        return spill;
+    }
+
+    /**
+     * Keeps the content in the buffer until {@link #unlockSpill()} is called, while positions in the buffer are in use.
+     */
+    void lockSpill() {
+        ++spillLocks;
+    }
+
+    /**
+     * Allows again the content to move to the spill file.
+     */
+    void unlockSpill() {
+        if (spillLocks > 0) {
+            --spillLocks;
+        }
+    }
+
+    /**
+     * Gives the array of the buffer back to its pool and empties the buffer. The buffer can still be used, with a new
+     * array. It does nothing if the buffer has no pool.
+     */
+    void release() {
+        if (pool != null) {
+            pool.release(buf);
+            buf = new byte[0];
+            count = 0;
+        }
+    }
+
     /**
      * Creates a newly allocated byte array. Its size is the current size of this output stream and the valid contents
      * of the buffer have been copied into it.
@@ -0,0 +1,174 @@
+package com.lowagie.text.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the byte arrays of the buffers a writer is done with, to give them to the next buffers instead of allocating
+ * new ones. The arrays come in size classes of powers of two and the pool keeps at most a number of bytes, the arrays
+ * over it being left to the garbage collector.
+ * <p>
+ * The pool is shared by the thread of the writer and the threads of its compression executor.
+ */
+final class ByteBufferPool {
+
+    /**
+     * The size of the smallest array in the pool, as a power of two.
+     */
+    private static final int MIN_SIZE_CLASS = 8;
+    /**
+     * The size of the largest array in the pool, as a power of two.
+     */
+    private static final int MAX_SIZE_CLASS = 30;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<byte[]>[] arrays = new ArrayDeque[MAX_SIZE_CLASS + 1];
+    private long maxRetainedBytes;
+    private long retainedBytes;
+
+    /**
+     * Creates a pool.
+     *
+     * @param maxRetainedBytes the most bytes the pool keeps
+     */
+    ByteBufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Gets an array of at least a size, from the pool or newly allocated.
+     *
+     * @param size the minimum size
+     * @return the array, of a power of two size unless it is too large for the pool
+     */
+    byte[] acquire(int size) {
+        int sizeClass = sizeClass(size);
+        if (sizeClass > MAX_SIZE_CLASS) {
+            return new byte[size];
+        }
+        synchronized (this) {
+            ArrayDeque<byte[]> free = arrays[sizeClass];
+            if (free != null && !free.isEmpty()) {
+                byte[] array = free.pop();
+                retainedBytes -= array.length;
+                return array;
+            }
+        }
+        return new byte[1 << sizeClass];
+    }
+
+    /**
+     * Gives an array back to the pool. The array must not be used afterwards.
+     *
+     * @param array the array
+     */
+    synchronized void release(byte[] array) {
+        int length = array.length;
+        if (length < 1 << MIN_SIZE_CLASS || Integer.bitCount(length) != 1
+                || retainedBytes + length > maxRetainedBytes) {
+            return;
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(length);
+        if (sizeClass > MAX_SIZE_CLASS) {
+            return;
+        }
+        if (arrays[sizeClass] == null) {
+            arrays[sizeClass] = new ArrayDeque<>();
+        }
+        arrays[sizeClass].push(array);
+        retainedBytes += length;
+    }
+
+    /**
+     * Gets the most bytes the pool keeps.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    /**
+     * Sets the most bytes the pool keeps, dropping the largest arrays over it.
+     *
+     * @param maxRetainedBytes the number of bytes
+     */
+    synchronized void setMaxRetainedBytes(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        for (int k = MAX_SIZE_CLASS; k >= MIN_SIZE_CLASS && retainedBytes > maxRetainedBytes; --k) {
+            ArrayDeque<byte[]> free = arrays[k];
+            while (free != null && !free.isEmpty() && retainedBytes > maxRetainedBytes) {
+                retainedBytes -= free.pop().length;
+            }
+        }
+    }
+
+    /**
+     * Gets the bytes of the arrays in the pool.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= 1 << MIN_SIZE_CLASS) {
+            return MIN_SIZE_CLASS;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * A <CODE>ByteArrayOutputStream</CODE> whose array grows with arrays of a pool and goes back to it when the stream
+     * is released.
+     */
+    static final class PooledOutputStream extends ByteArrayOutputStream {
+
+        private final ByteBufferPool pool;
+
+        PooledOutputStream(ByteBufferPool pool, int size) {
+            super(0);
+            this.pool = pool;
+            buf = pool.acquire(size);
+        }
+
+        ByteBufferPool getPool() {
+            return pool;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            ensureCapacity(count + 1);
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (len > 0 && off >= 0 && off <= b.length - len) {
+                ensureCapacity(count + len);
+            }
+            super.write(b, off, len);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buf.length) {
+                byte[] newbuf = pool.acquire(Math.max(buf.length << 1, capacity));
+                System.arraycopy(buf, 0, newbuf, 0, count);
+                pool.release(buf);
+                buf = newbuf;
+            }
+        }
+
+        /**
+         * Gives the array back to the pool and empties the stream.
+         */
+        synchronized void release() {
+            pool.release(buf);
+            buf = EMPTY;
+            count = 0;
+        }
+    }
+}
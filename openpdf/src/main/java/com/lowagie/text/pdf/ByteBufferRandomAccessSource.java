@@ -0,0 +1,64 @@
+package com.lowagie.text.pdf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link RandomAccessSource} over a {@link ByteBuffer}, for example a direct buffer holding a document that was
+ * never copied to the heap.
+ * <p>
+ * The buffer is read with absolute gets from a read-only duplicate, so neither its position nor its content is
+ * changed, and concurrent readers are supported.
+ */
+public class ByteBufferRandomAccessSource implements RandomAccessSource {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a source over the bytes between the position and the limit of <CODE>buffer</CODE>.
+     *
+     * @param buffer the buffer to read from
+     */
+    public ByteBufferRandomAccessSource(ByteBuffer buffer) {
+        this.buffer = buffer.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public int get(long position) {
+        if (position < 0 || position >= buffer.limit()) {
+            return -1;
+        }
+        return buffer.get((int) position) & 0xff;
+    }
+
+    @Override
+    public int get(long position, byte[] bytes, int off, int len) {
+        if (position < 0 || position >= buffer.limit()) {
+            return -1;
+        }
+        int n = (int) Math.min(len, buffer.limit() - position);
+        buffer.get((int) position, bytes, off, n);
+        return n;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+
+    /**
+     * Returns a read-only view of the underlying bytes.
+     *
+     * @return a duplicate of the buffer
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer.duplicate();
+    }
+
+    /**
+     * Does nothing, the buffer is owned by the caller.
+     */
+    @Override
+    public void close() {
+        // the buffer belongs to whoever created it
+    }
+}
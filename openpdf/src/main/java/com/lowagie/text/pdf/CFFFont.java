@@ -404,7 +404,7 @@ public class CFFFont {
 
     int getPosition() {
         try {
-            return buf.getFilePointer();
+            return (int) buf.getFilePointerLong();
         } catch (Exception e) {
             throw new ExceptionConverter(e);
         }
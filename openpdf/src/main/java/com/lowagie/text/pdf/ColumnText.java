@@ -1108,6 +1108,9 @@ public class ColumnText {
                 canvas.add(text);
             }
         }
+        if (text != null) {
+            text.releaseContent();
+        }
         return status;
     }
 
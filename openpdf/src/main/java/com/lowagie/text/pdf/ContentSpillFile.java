@@ -0,0 +1,105 @@
+package com.lowagie.text.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The temporary file holding the start of a content too large to be kept in memory. The file is created when the
+ * first bytes are written and deleted when the content is reset, or by the writer when writing the page fails and
+ * when the document is closed.
+ */
+final class ContentSpillFile {
+
+    private File file;
+    private OutputStream out;
+    private long length;
+    private final List<InputStream> readers = new ArrayList<>();
+
+    /**
+     * Appends bytes to the file.
+     *
+     * @param b   the bytes
+     * @param off the offset of the first byte
+     * @param len the number of bytes
+     * @throws IOException on error
+     */
+    void write(byte[] b, int off, int len) throws IOException {
+        if (out == null) {
+            if (file == null) {
+                file = Files.createTempFile("pdf", null).toFile();
+            }
+            out = new BufferedOutputStream(new FileOutputStream(file, true), 0x10000);
+        }
+        out.write(b, off, len);
+        length += len;
+    }
+
+    /**
+     * Gets the number of bytes in the file.
+     *
+     * @return the number of bytes
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Opens the file to read the bytes written so far.
+     *
+     * @return the stream, to be closed by the caller
+     * @throws IOException on error
+     */
+    InputStream openStream() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        InputStream in = new FileInputStream(file);
+        readers.add(in);
+        return in;
+    }
+
+    /**
+     * Gets the file holding the bytes.
+     *
+     * @return the file or <CODE>null</CODE> if no bytes were written since the file was last deleted
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Deletes the file, closing the streams opened on it. The next bytes written go to a new file.
+     */
+    void delete() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            // empty on purpose
+        }
+        for (InputStream in : readers) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // empty on purpose
+            }
+        }
+        readers.clear();
+        out = null;
+        length = 0;
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.lowagie.text.pdf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link RandomAccessSource} reading a file with positional {@link FileChannel} reads.
+ * <p>
+ * There is no shared file pointer, so any number of readers may use the same source at the same time. Nothing is
+ * mapped, which makes this source suitable for very large files and for servers opening many documents at once.
+ */
+public class FileChannelRandomAccessSource implements RandomAccessSource {
+
+    private final FileChannel channel;
+    private final long length;
+
+    /**
+     * Opens <CODE>path</CODE> for reading.
+     *
+     * @param path the file to read
+     * @throws IOException on error
+     */
+    public FileChannelRandomAccessSource(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Creates a source reading from an already opened channel. The channel is closed with the source.
+     *
+     * @param channel the channel to read from
+     * @throws IOException on error
+     */
+    public FileChannelRandomAccessSource(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+    }
+
+    /**
+     * Reads a single byte with its own read of the channel, nothing is buffered. A {@link RandomAccessFileOrArray}
+     * wrapping the source reads it through its own buffer instead.
+     */
+    @Override
+    public int get(long position) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        ByteBuffer dst = ByteBuffer.allocate(1);
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position) < 0) {
+                return -1;
+            }
+        }
+        return dst.get(0) & 0xff;
+    }
+
+    @Override
+    public int get(long position, byte[] bytes, int off, int len) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        len = (int) Math.min(len, length - position);
+        ByteBuffer dst = ByteBuffer.wrap(bytes, off, len);
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, position + dst.position() - off);
+            if (n < 0) {
+                break;
+            }
+        }
+        int read = dst.position() - off;
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the channel this source reads from.
+     *
+     * @return the channel
+     */
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -56,9 +56,7 @@ import java.awt.font.GlyphVector;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Each font in the document will have an instance of this class where the characters used will be represented.
@@ -97,10 +95,9 @@ class FontDetails {
      */
     byte[] shortTag;
     /**
-     * The map used with double byte encodings. The key is Integer(glyph) and the value is int[]{glyph, width, Unicode
-     * code}
+     * The glyphs used with double byte encodings, with their width and Unicode code
      */
-    HashMap<Integer, int[]> longTag;
+    UsedGlyphs longTag;
     /**
      * IntHashtable with CIDs of CJK glyphs that are used in the text.
      */
@@ -114,9 +111,9 @@ class FontDetails {
      */
     boolean symbolic;
     /**
-     * Contain glyphs that used but missing in Cmap. the value is int[]{glyph, Unicode code}
+     * Contain glyphs that used but missing in Cmap, with their Unicode code
      */
-    private Map<Integer, int[]> fillerCmap;
+    private UsedGlyphs fillerCmap;
 
 
     /**
@@ -142,20 +139,20 @@ class FontDetails {
                 cjkFont = (CJKFont) baseFont;
                 break;
             case BaseFont.FONT_TYPE_TTUNI:
-                longTag = new HashMap<>();
-                fillerCmap = new HashMap<>();
+                longTag = new UsedGlyphs();
+                fillerCmap = new UsedGlyphs();
                 ttu = (TrueTypeFontUnicode) baseFont;
                 symbolic = baseFont.isFontSpecific();
                 break;
         }
     }
 
-    Map<Integer, int[]> getFillerCmap() {
+    UsedGlyphs getFillerCmap() {
         return fillerCmap;
     }
 
-    void putFillerCmap(Integer key, int[] value) {
-        fillerCmap.put(key, value);
+    void putFillerCmap(int glyph, int code) {
+        fillerCmap.put(glyph, 0, code);
     }
 
     void addMissingCmapEntries(String text, GlyphVector glyphVector, BaseFont baseFont) {
@@ -164,7 +161,7 @@ class FontDetails {
             int[][] localCmap = trueTypeFont.getSentenceMissingCmap(text, glyphVector);
 
             for (int[] ints : localCmap) {
-                putFillerCmap(ints[0], new int[]{ints[0], ints[1]});
+                putFillerCmap(ints[0], ints[1]);
             }
         }
     }
@@ -244,8 +241,7 @@ class FontDetails {
                             if (metrics == null) {
                                 continue;
                             }
-                            longTag.put(metrics[0],
-                                    new int[]{metrics[0], metrics[1], ttu.getUnicodeDifferences(b[k] & 0xff)});
+                            longTag.put(metrics[0], metrics[1], ttu.getUnicodeDifferences(b[k] & 0xff));
                             glyph[i++] = (char) metrics[0];
                         }
                         String s = new String(glyph, 0, i);
@@ -288,10 +284,8 @@ class FontDetails {
             if (metrics == null) {
                 continue;
             }
-            int m0 = metrics[0];
-            int m1 = metrics[1];
-            longTag.computeIfAbsent(m0, key -> new int[]{m0, m1, val});
-            glyph[i++] = m0;
+            longTag.add(metrics[0], metrics[1], val);
+            glyph[i++] = metrics[0];
         }
         return getCJKEncodingBytes(glyph, i);
     }
@@ -324,13 +318,7 @@ class FontDetails {
                 return new byte[]{};
             }
             codePoints.add(glyphCode);
-            if (!longTag.containsKey(glyphCode)) {
-                int glyphWidth = ttu.getGlyphWidth(glyphCode);
-                Integer charCode = ttu.getCharacterCode(glyphCode);
-                int[] metrics = charCode != null ? new int[]{glyphCode, glyphWidth, charCode} : new int[]{
-                        glyphCode, glyphWidth};
-                longTag.put(glyphCode, metrics);
-            }
+            addGlyph(glyphCode);
         }
         return getBytesFromCodePoints(codePoints);
     }
@@ -357,19 +345,18 @@ class FontDetails {
                 continue;
             }
             codePoints.add(code);
-
-            Integer codeKey = code;
-            if (!longTag.containsKey(codeKey)) {
-                int glyphWidth = ttu.getGlyphWidth(code);
-                Integer charCode = ttu.getCharacterCode(code);
-                int[] metrics = charCode != null ? new int[]{code, glyphWidth, charCode} : new int[]{
-                        code, glyphWidth};
-                longTag.put(codeKey, metrics);
-            }
+            addGlyph(code);
         }
         return getBytesFromCodePoints(codePoints);
     }
 
+    private void addGlyph(int glyph) {
+        if (!longTag.contains(glyph)) {
+            Integer charCode = ttu.getCharacterCode(glyph);
+            longTag.put(glyph, ttu.getGlyphWidth(glyph), charCode != null ? charCode : UsedGlyphs.NO_CODE);
+        }
+    }
+
 
     /**
      * Writes the font definition to the document.
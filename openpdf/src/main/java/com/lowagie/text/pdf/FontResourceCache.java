@@ -0,0 +1,339 @@
+package com.lowagie.text.pdf;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.ExceptionConverter;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe cache for the fonts and the font data shared by all the documents. The cache holds the values up to a
+ * maximum weight, an estimate of their size in bytes, and evicts the least recently used ones beyond it. A value is
+ * loaded once even when several threads ask for it at the same time: the other threads wait for the first load. The
+ * loads that fail are not cached.
+ * <p>
+ * A value evicted, or too heavy to be cached, is still weakly referenced by the cache: as long as it is in use
+ * elsewhere, a document holding a font for instance, the cache gives that same instance for its key instead of loading
+ * a new one.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class FontResourceCache<K, V> {
+
+    private final ToLongFunction<? super V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<K, FutureTask<V>> loading = new HashMap<>();
+    private final Map<K, WeakValue<K, V>> inUse = new HashMap<>();
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+    private long maximumWeight;
+    private long weight;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maximumWeight the maximum weight of the values held
+     * @param weigher       gives the weight of a value, an estimate of its size in bytes
+     */
+    public FontResourceCache(long maximumWeight, ToLongFunction<? super V> weigher) {
+        this.weigher = Objects.requireNonNull(weigher);
+        setMaximumWeight(maximumWeight);
+    }
+
+    /**
+     * Gets a value from the cache, loading it if needed. A loader returning <CODE>null</CODE> caches nothing.
+     *
+     * @param key    the key of the value
+     * @param loader loads the value if it is not in the cache
+     * @return the value
+     * @throws DocumentException on error in the loader
+     * @throws IOException       on error in the loader
+     */
+    public V get(K key, Loader<? extends V> loader) throws DocumentException, IOException {
+        Objects.requireNonNull(key);
+        FutureTask<V> task;
+        boolean owner = false;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hitCount.increment();
+                return entry.value;
+            }
+            V value = getInUse(key);
+            if (value != null) {
+                hitCount.increment();
+                admit(key, value);
+                return value;
+            }
+            missCount.increment();
+            task = loading.get(key);
+            if (task == null) {
+                task = new FutureTask<>(loader::load);
+                loading.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            load(key, task);
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof DocumentException) {
+                throw (DocumentException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ExceptionConverter((Exception) cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExceptionConverter(e);
+        }
+    }
+
+    private void load(K key, FutureTask<V> task) {
+        long start = System.nanoTime();
+        task.run();
+        totalLoadTime.add(System.nanoTime() - start);
+        V value;
+        try {
+            value = task.get();
+            loadCount.increment();
+        } catch (ExecutionException | InterruptedException e) {
+            loadFailureCount.increment();
+            value = null;
+        }
+        synchronized (this) {
+            // the load is dropped if the key was invalidated meanwhile
+            if (loading.remove(key, task) && value != null) {
+                purge();
+                inUse.put(key, new WeakValue<>(key, value, collected));
+                admit(key, value);
+            }
+        }
+    }
+
+    private void admit(K key, V value) {
+        long valueWeight = Math.max(0, weigher.applyAsLong(value));
+        if (valueWeight <= maximumWeight) {
+            entries.put(key, new Entry<>(value, valueWeight));
+            weight += valueWeight;
+            evict();
+        }
+    }
+
+    /**
+     * Gets a value that is no longer held by the cache but still in use elsewhere.
+     */
+    private V getInUse(K key) {
+        purge();
+        WeakValue<K, V> ref = inUse.get(key);
+        return ref == null ? null : ref.get();
+    }
+
+    private void purge() {
+        Object ref;
+        while ((ref = collected.poll()) != null) {
+            WeakValue<?, ?> value = (WeakValue<?, ?>) ref;
+            inUse.remove(value.key, value);
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (weight > maximumWeight && it.hasNext()) {
+            weight -= it.next().weight;
+            it.remove();
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Removes a value from the cache. A load of this value in progress is not cached. The next request loads a new
+     * value, even if the old one is still in use.
+     *
+     * @param key the key of the value
+     */
+    public synchronized void invalidate(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+        loading.remove(key);
+        inUse.remove(key);
+    }
+
+    /**
+     * Removes all the values from the cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        loading.clear();
+        inUse.clear();
+        weight = 0;
+    }
+
+    /**
+     * Checks if a value is in the cache.
+     *
+     * @param key the key of the value
+     * @return <CODE>true</CODE> if the value is in the cache
+     */
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Gets the number of values in the cache.
+     *
+     * @return the number of values in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the weight of the values in the cache.
+     *
+     * @return the weight of the values in the cache
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets the maximum weight of the values in the cache.
+     *
+     * @return the maximum weight
+     */
+    public synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Sets the maximum weight of the values in the cache, evicting the least recently used ones beyond it. A value
+     * heavier than the maximum weight is never cached. A negative maximum weight is taken as 0.
+     *
+     * @param maximumWeight the maximum weight
+     */
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = Math.max(maximumWeight, 0);
+        evict();
+    }
+
+    /**
+     * Gets the number of values found in the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Gets the number of values not found in the cache, including the ones loaded by another thread.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Gets the number of values loaded.
+     *
+     * @return the number of successful loads
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * Gets the number of loads that failed.
+     *
+     * @return the number of failed loads
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    /**
+     * Gets the number of values evicted to keep the cache under its maximum weight.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Gets the time spent loading the values, in nanoseconds.
+     *
+     * @return the total load time in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    /**
+     * Loads a value missing from the cache.
+     *
+     * @param <V> the type of the value
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+
+        /**
+         * Loads the value.
+         *
+         * @return the value or <CODE>null</CODE> if there is none
+         * @throws DocumentException on error
+         * @throws IOException       on error
+         */
+        V load() throws DocumentException, IOException;
+    }
+
+    private static class WeakValue<K, V> extends WeakReference<V> {
+
+        final K key;
+
+        WeakValue(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    private static class Entry<V> {
+
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
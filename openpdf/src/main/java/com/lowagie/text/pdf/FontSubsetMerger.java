@@ -0,0 +1,657 @@
+package com.lowagie.text.pdf;
+
+import com.lowagie.text.ExceptionConverter;
+import com.lowagie.text.pdf.fonts.cmaps.CMap;
+import com.lowagie.text.pdf.fonts.cmaps.CMapParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merges the subsets of a TrueType font embedded by the documents copied into one. The subsets of a font keep the
+ * glyph numbers and all the tables of the font but <CODE>glyf</CODE> and <CODE>loca</CODE>, so the subsets of the same
+ * font are known by these tables. Their glyphs, widths, encodings and ToUnicode maps are gathered and the font is
+ * written once, when the copy is closed, as the subset of all the glyphs used. Only the fonts using the glyph numbers
+ * as codes (Identity-H) or a single byte encoding with the full <CODE>cmap</CODE> are merged; any difference between
+ * the glyphs, the widths or the mappings of two subsets keeps them apart.
+ */
+final class FontSubsetMerger {
+
+    private static final PdfName IDENTITY_H = new PdfName("Identity-H");
+    private static final int HEAD_LOCA_FORMAT_OFFSET = 50;
+    private static final int HEAD_CHECKSUM_ADJUSTMENT_OFFSET = 8;
+
+    private final PdfCopy copy;
+    private final Map<String, MergedFont> fonts = new LinkedHashMap<>();
+
+    /**
+     * Creates a merger for a copy.
+     *
+     * @param copy the copy writing the fonts
+     */
+    FontSubsetMerger(PdfCopy copy) {
+        this.copy = copy;
+    }
+
+    /**
+     * Adds a font of the document being copied.
+     *
+     * @param font the font dictionary
+     * @return the reference to the merged font or <CODE>null</CODE> if the font is to be copied as it is
+     * @throws IOException           on error
+     * @throws BadPdfFormatException on error
+     */
+    PdfIndirectReference add(PdfDictionary font) throws IOException, BadPdfFormatException {
+        if (!PdfName.FONT.equals(PdfReader.getPdfObjectRelease(font.get(PdfName.TYPE)))) {
+            return null;
+        }
+        Subset subset;
+        try {
+            subset = readSubset(font);
+        } catch (IOException | RuntimeException e) {
+            // a font that can't be read is copied as it is
+            subset = null;
+        }
+        if (subset == null) {
+            return null;
+        }
+        MergedFont merged = fonts.get(subset.key);
+        if (merged == null) {
+            merged = new MergedFont(subset);
+            fonts.put(subset.key, merged);
+        } else if (!merged.add(subset)) {
+            return null;
+        }
+        return merged.fontRef;
+    }
+
+    /**
+     * Writes the merged fonts.
+     *
+     * @throws IOException on error
+     */
+    void writeFonts() throws IOException {
+        for (MergedFont merged : fonts.values()) {
+            merged.write();
+        }
+        fonts.clear();
+    }
+
+    /**
+     * Reads a font that can be merged.
+     *
+     * @return the subset or <CODE>null</CODE> if the font can't be merged
+     */
+    private static Subset readSubset(PdfDictionary font) throws IOException {
+        PdfName subtype = font.getAsName(PdfName.SUBTYPE);
+        Subset subset = new Subset();
+        subset.font = font;
+        StringBuilder key = new StringBuilder();
+        if (PdfName.TYPE0.equals(subtype)) {
+            PdfName encoding = font.getAsName(PdfName.ENCODING);
+            PdfArray descendants = font.getAsArray(PdfName.DESCENDANTFONTS);
+            if (!IDENTITY_H.equals(encoding) || descendants == null || descendants.size() != 1) {
+                return null;
+            }
+            subset.cidFont = descendants.getAsDict(0);
+            if (subset.cidFont == null
+                    || !PdfName.CIDFONTTYPE2.equals(subset.cidFont.getAsName(PdfName.SUBTYPE))) {
+                return null;
+            }
+            PdfObject cidToGid = PdfReader.getPdfObjectRelease(subset.cidFont.get(PdfName.CIDTOGIDMAP));
+            if (cidToGid != null && !PdfName.IDENTITY.equals(cidToGid)) {
+                return null;
+            }
+            subset.descriptor = subset.cidFont.getAsDict(PdfName.FONTDESCRIPTOR);
+            key.append(encoding).append(PdfReader.getPdfObjectRelease(subset.cidFont.get(PdfName.DW)));
+            if (!readCidWidths(subset.cidFont.getAsArray(PdfName.W), subset.widths)) {
+                return null;
+            }
+        } else if (PdfName.TRUETYPE.equals(subtype)) {
+            subset.descriptor = font.getAsDict(PdfName.FONTDESCRIPTOR);
+            PdfObject encoding = PdfReader.getPdfObjectRelease(font.get(PdfName.ENCODING));
+            if (encoding != null && encoding.isDictionary()) {
+                PdfDictionary dic = (PdfDictionary) encoding;
+                key.append(PdfReader.getPdfObjectRelease(dic.get(PdfName.BASEENCODING)));
+                if (!readDifferences(dic.getAsArray(PdfName.DIFFERENCES), subset.differences)) {
+                    return null;
+                }
+                subset.encoding = dic;
+            } else {
+                key.append(encoding);
+            }
+            if (!readWidths(font, subset.widths)) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        PdfName baseFont = font.getAsName(PdfName.BASEFONT);
+        String name = baseFont == null ? "" : PdfName.decodeName(baseFont.toString());
+        if (subset.descriptor == null || !isSubsetName(name)) {
+            return null;
+        }
+        PdfObject fontFile = PdfReader.getPdfObjectRelease(subset.descriptor.get(PdfName.FONTFILE2));
+        if (!(fontFile instanceof PRStream)) {
+            return null;
+        }
+        if (!readProgram(PdfReader.getStreamBytes((PRStream) fontFile), subset)) {
+            return null;
+        }
+        PdfObject cidSet = PdfReader.getPdfObjectRelease(subset.descriptor.get(PdfName.CIDSET));
+        if (cidSet instanceof PRStream) {
+            subset.cidSet = PdfReader.getStreamBytes((PRStream) cidSet);
+        } else if (cidSet != null) {
+            return null;
+        }
+        PdfObject toUnicode = PdfReader.getPdfObjectRelease(font.get(PdfName.TOUNICODE));
+        if (toUnicode instanceof PRStream) {
+            CMap cmap = new CMapParser().parse(
+                    new ByteArrayInputStream(PdfReader.getStreamBytes((PRStream) toUnicode)));
+            subset.toUnicode.putAll(subset.cidFont == null ? cmap.getSingleByteMappings()
+                    : cmap.getDoubleByteMappings());
+            subset.hasToUnicode = true;
+        }
+        key.append(subtype).append(name.substring(7));
+        subset.key = key.append(subset.tablesDigest).toString();
+        return subset;
+    }
+
+    private static boolean isSubsetName(String name) {
+        if (name.length() < 8 || name.charAt(6) != '+') {
+            return false;
+        }
+        for (int k = 0; k < 6; ++k) {
+            if (name.charAt(k) < 'A' || name.charAt(k) > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean readCidWidths(PdfArray w, Map<Integer, Float> widths) {
+        if (w == null) {
+            return true;
+        }
+        for (int k = 0; k < w.size(); ) {
+            PdfNumber first = w.getAsNumber(k++);
+            PdfObject next = k < w.size() ? w.getDirectObject(k++) : null;
+            if (first == null || next == null) {
+                return false;
+            }
+            if (next.isArray()) {
+                PdfArray list = (PdfArray) next;
+                for (int j = 0; j < list.size(); ++j) {
+                    PdfNumber width = list.getAsNumber(j);
+                    if (width == null) {
+                        return false;
+                    }
+                    widths.put(first.intValue() + j, width.floatValue());
+                }
+            } else {
+                PdfNumber width = k < w.size() ? w.getAsNumber(k++) : null;
+                if (!next.isNumber() || width == null
+                        || ((PdfNumber) next).intValue() - first.intValue() > 0xffff) {
+                    return false;
+                }
+                for (int c = first.intValue(); c <= ((PdfNumber) next).intValue(); ++c) {
+                    widths.put(c, width.floatValue());
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean readWidths(PdfDictionary font, Map<Integer, Float> widths) {
+        PdfNumber firstChar = font.getAsNumber(PdfName.FIRSTCHAR);
+        PdfArray array = font.getAsArray(PdfName.WIDTHS);
+        if (firstChar == null || array == null) {
+            return false;
+        }
+        for (int k = 0; k < array.size(); ++k) {
+            PdfNumber width = array.getAsNumber(k);
+            if (width != null && width.floatValue() != 0) {
+                widths.put(firstChar.intValue() + k, width.floatValue());
+            }
+        }
+        return true;
+    }
+
+    private static boolean readDifferences(PdfArray array, Map<Integer, PdfName> differences) {
+        if (array == null) {
+            return true;
+        }
+        int code = 0;
+        for (int k = 0; k < array.size(); ++k) {
+            PdfObject obj = array.getDirectObject(k);
+            if (obj.isNumber()) {
+                code = ((PdfNumber) obj).intValue();
+            } else if (obj.isName()) {
+                differences.put(code++, (PdfName) obj);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the tables of a font program, keeping the glyphs apart.
+     *
+     * @return <CODE>false</CODE> if the program isn't a TrueType font
+     */
+    private static boolean readProgram(byte[] b, Subset subset) {
+        try {
+            if (b.length < 12 || getInt(b, 0) != 0x00010000 && getInt(b, 0) != 0x74727565) {
+                return false;
+            }
+            int numTables = getShort(b, 4);
+            TreeMap<String, byte[]> tables = new TreeMap<>();
+            for (int k = 0; k < numTables; ++k) {
+                int entry = 12 + 16 * k;
+                String tag = new String(b, entry, 4, StandardCharsets.ISO_8859_1);
+                int offset = getInt(b, entry + 8);
+                int length = getInt(b, entry + 12);
+                if (offset < 0 || length < 0 || offset > b.length - length) {
+                    return false;
+                }
+                byte[] table = new byte[length];
+                System.arraycopy(b, offset, table, 0, length);
+                tables.put(tag, table);
+            }
+            byte[] head = tables.get("head");
+            byte[] loca = tables.remove("loca");
+            byte[] glyf = tables.remove("glyf");
+            if (head == null || loca == null || glyf == null || head.length < 54) {
+                return false;
+            }
+            boolean shortLoca = getShort(head, HEAD_LOCA_FORMAT_OFFSET) == 0;
+            int numGlyphs = loca.length / (shortLoca ? 2 : 4) - 1;
+            subset.glyphs = new byte[numGlyphs][];
+            int start = shortLoca ? getShort(loca, 0) * 2 : getInt(loca, 0);
+            for (int k = 0; k < numGlyphs; ++k) {
+                int end = shortLoca ? getShort(loca, 2 * k + 2) * 2 : getInt(loca, 4 * k + 4);
+                if (start < 0 || end > glyf.length) {
+                    return false;
+                }
+                if (end > start) {
+                    subset.glyphs[k] = new byte[end - start];
+                    System.arraycopy(glyf, start, subset.glyphs[k], 0, end - start);
+                }
+                start = end;
+            }
+            head = head.clone();
+            putInt(head, HEAD_CHECKSUM_ADJUSTMENT_OFFSET, 0);
+            tables.put("head", head);
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, byte[]> table : tables.entrySet()) {
+                md.update(table.getKey().getBytes(StandardCharsets.ISO_8859_1));
+                md.update(table.getValue());
+            }
+            StringBuilder digest = new StringBuilder();
+            for (byte d : md.digest()) {
+                digest.append(Integer.toHexString((d & 0xff) | 0x100).substring(1));
+            }
+            subset.tables = tables;
+            subset.tablesDigest = digest.toString();
+            return true;
+        } catch (IndexOutOfBoundsException e) {
+            return false;
+        } catch (NoSuchAlgorithmException e) {
+            throw new ExceptionConverter(e);
+        }
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        return ((b[offset] & 0xff) << 24) | ((b[offset + 1] & 0xff) << 16) | ((b[offset + 2] & 0xff) << 8)
+                | (b[offset + 3] & 0xff);
+    }
+
+    private static int getShort(byte[] b, int offset) {
+        return ((b[offset] & 0xff) << 8) | (b[offset + 1] & 0xff);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+    private static void putShort(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 8);
+        b[offset + 1] = (byte) value;
+    }
+
+    private static int checksum(byte[] b, int offset, int length) {
+        int sum = 0;
+        for (int k = 0; k < length; k += 4) {
+            int v = 0;
+            for (int j = 0; j < 4; ++j) {
+                v <<= 8;
+                if (k + j < length) {
+                    v |= b[offset + k + j] & 0xff;
+                }
+            }
+            sum += v;
+        }
+        return sum;
+    }
+
+    private static String toHex(int code, int digits) {
+        String s = Integer.toHexString(code | (1 << (4 * digits))).substring(1);
+        return "<" + s + ">";
+    }
+
+    /**
+     * A font of one of the documents copied.
+     */
+    private static class Subset {
+
+        String key;
+        PdfDictionary font;
+        PdfDictionary cidFont;
+        PdfDictionary descriptor;
+        PdfDictionary encoding;
+        TreeMap<String, byte[]> tables;
+        String tablesDigest;
+        byte[][] glyphs;
+        byte[] cidSet;
+        final Map<Integer, Float> widths = new HashMap<>();
+        final Map<Integer, PdfName> differences = new HashMap<>();
+        final Map<Integer, String> toUnicode = new HashMap<>();
+        boolean hasToUnicode;
+    }
+
+    /**
+     * A font written once for all its subsets.
+     */
+    private class MergedFont {
+
+        private final boolean composite;
+        private final TreeMap<String, byte[]> tables;
+        private final byte[][] glyphs;
+        private final TreeMap<Integer, Float> widths = new TreeMap<>();
+        private final TreeMap<Integer, PdfName> differences = new TreeMap<>();
+        private final TreeMap<Integer, String> toUnicode = new TreeMap<>();
+        private boolean hasToUnicode;
+        private final PdfIndirectReference fontRef;
+        private final PdfIndirectReference cidFontRef;
+        private final PdfIndirectReference descriptorRef;
+        private final PdfDictionary font = new PdfDictionary();
+        private final PdfDictionary cidFont = new PdfDictionary();
+        private final PdfDictionary descriptor = new PdfDictionary();
+        private final PdfDictionary encoding;
+        private byte[] cidSet;
+
+        /**
+         * Starts a merged font with its first subset, copying the entries that stay the same.
+         */
+        MergedFont(Subset subset) throws IOException, BadPdfFormatException {
+            composite = subset.cidFont != null;
+            tables = subset.tables;
+            glyphs = subset.glyphs;
+            fontRef = copy.getPdfIndirectReference();
+            cidFontRef = composite ? copy.getPdfIndirectReference() : null;
+            descriptorRef = copy.getPdfIndirectReference();
+            cidSet = subset.cidSet;
+            copyEntries(subset.font, font, PdfName.DESCENDANTFONTS, PdfName.TOUNICODE, PdfName.FONTDESCRIPTOR,
+                    PdfName.WIDTHS, PdfName.FIRSTCHAR, PdfName.LASTCHAR, subset.encoding == null ? null
+                            : PdfName.ENCODING);
+            if (composite) {
+                copyEntries(subset.cidFont, cidFont, PdfName.FONTDESCRIPTOR, PdfName.W);
+            }
+            copyEntries(subset.descriptor, descriptor, PdfName.FONTFILE2, PdfName.CIDSET);
+            if (subset.encoding == null) {
+                encoding = null;
+            } else {
+                encoding = new PdfDictionary();
+                copyEntries(subset.encoding, encoding, PdfName.DIFFERENCES);
+            }
+            addMappings(subset);
+        }
+
+        private void copyEntries(PdfDictionary from, PdfDictionary to, PdfName... skipped)
+                throws IOException, BadPdfFormatException {
+            for (PdfName key : from.getKeys()) {
+                boolean skip = false;
+                for (PdfName name : skipped) {
+                    skip |= key.equals(name);
+                }
+                if (!skip) {
+                    to.put(key, copy.copyObject(from.get(key)));
+                }
+            }
+        }
+
+        /**
+         * Adds a subset of the same font.
+         *
+         * @return <CODE>false</CODE> if the subset doesn't agree with the others
+         */
+        boolean add(Subset subset) {
+            if (subset.glyphs.length != glyphs.length || (subset.cidSet == null) != (cidSet == null)) {
+                return false;
+            }
+            for (int k = 0; k < glyphs.length; ++k) {
+                if (subset.glyphs[k] != null && glyphs[k] != null
+                        && !Arrays.equals(subset.glyphs[k], glyphs[k])) {
+                    return false;
+                }
+            }
+            if (!agrees(widths, subset.widths) || !agrees(differences, subset.differences)
+                    || !agrees(toUnicode, subset.toUnicode)) {
+                return false;
+            }
+            for (int k = 0; k < glyphs.length; ++k) {
+                if (glyphs[k] == null) {
+                    glyphs[k] = subset.glyphs[k];
+                }
+            }
+            if (cidSet != null) {
+                byte[] bits = Arrays.copyOf(cidSet, Math.max(cidSet.length, subset.cidSet.length));
+                for (int k = 0; k < subset.cidSet.length; ++k) {
+                    bits[k] |= subset.cidSet[k];
+                }
+                cidSet = bits;
+            }
+            addMappings(subset);
+            return true;
+        }
+
+        private <T> boolean agrees(Map<Integer, T> merged, Map<Integer, T> added) {
+            for (Map.Entry<Integer, T> entry : added.entrySet()) {
+                T value = merged.get(entry.getKey());
+                if (value != null && !value.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addMappings(Subset subset) {
+            widths.putAll(subset.widths);
+            differences.putAll(subset.differences);
+            toUnicode.putAll(subset.toUnicode);
+            hasToUnicode |= subset.hasToUnicode;
+        }
+
+        /**
+         * Writes the font program and the dictionaries of the font.
+         */
+        void write() throws IOException {
+            PdfStream program = new PdfStream(buildProgram());
+            program.put(PdfName.LENGTH1, new PdfNumber(program.getBytes().length));
+            program.flateCompress(copy.getCompressionLevel());
+            descriptor.put(PdfName.FONTFILE2, copy.addToBody(program).getIndirectReference());
+            if (cidSet != null) {
+                PdfStream stream = new PdfStream(cidSet);
+                stream.flateCompress(copy.getCompressionLevel());
+                descriptor.put(PdfName.CIDSET, copy.addToBody(stream).getIndirectReference());
+            }
+            copy.addToBody(descriptor, descriptorRef);
+            if (hasToUnicode) {
+                font.put(PdfName.TOUNICODE, copy.addToBody(buildToUnicode()).getIndirectReference());
+            }
+            if (composite) {
+                cidFont.put(PdfName.FONTDESCRIPTOR, descriptorRef);
+                if (!widths.isEmpty()) {
+                    cidFont.put(PdfName.W, buildCidWidths());
+                }
+                copy.addToBody(cidFont, cidFontRef);
+                font.put(PdfName.DESCENDANTFONTS, new PdfArray(cidFontRef));
+            } else {
+                font.put(PdfName.FONTDESCRIPTOR, descriptorRef);
+                int firstChar = widths.isEmpty() ? 0 : widths.firstKey();
+                int lastChar = widths.isEmpty() ? 0 : widths.lastKey();
+                PdfArray array = new PdfArray();
+                for (int k = firstChar; k <= lastChar; ++k) {
+                    Float width = widths.get(k);
+                    array.add(new PdfNumber(width == null ? 0 : width));
+                }
+                font.put(PdfName.FIRSTCHAR, new PdfNumber(firstChar));
+                font.put(PdfName.LASTCHAR, new PdfNumber(lastChar));
+                font.put(PdfName.WIDTHS, array);
+                if (encoding != null) {
+                    PdfArray dif = new PdfArray();
+                    int last = -2;
+                    for (Map.Entry<Integer, PdfName> entry : differences.entrySet()) {
+                        if (entry.getKey() != last + 1) {
+                            dif.add(new PdfNumber(entry.getKey()));
+                        }
+                        dif.add(entry.getValue());
+                        last = entry.getKey();
+                    }
+                    encoding.put(PdfName.DIFFERENCES, dif);
+                    font.put(PdfName.ENCODING, encoding);
+                }
+            }
+            copy.addToBody(font, fontRef);
+        }
+
+        private PdfArray buildCidWidths() {
+            PdfArray w = new PdfArray();
+            PdfArray run = null;
+            int last = -2;
+            for (Map.Entry<Integer, Float> entry : widths.entrySet()) {
+                if (run == null || entry.getKey() != last + 1) {
+                    w.add(new PdfNumber(entry.getKey()));
+                    run = new PdfArray();
+                    w.add(run);
+                }
+                run.add(new PdfNumber(entry.getValue()));
+                last = entry.getKey();
+            }
+            return w;
+        }
+
+        private PdfStream buildToUnicode() {
+            int digits = composite ? 4 : 2;
+            StringBuilder buf = new StringBuilder(
+                    "/CIDInit /ProcSet findresource begin\n"
+                            + "12 dict begin\n"
+                            + "begincmap\n"
+                            + "/CIDSystemInfo\n"
+                            + "<< /Registry (TTX+0)\n"
+                            + "/Ordering (T42UV)\n"
+                            + "/Supplement 0\n"
+                            + ">> def\n"
+                            + "/CMapName /TTX+0 def\n"
+                            + "/CMapType 2 def\n"
+                            + "1 begincodespacerange\n")
+                    .append(toHex(0, digits)).append(toHex((1 << (4 * digits)) - 1, digits))
+                    .append("\nendcodespacerange\n");
+            List<Map.Entry<Integer, String>> entries = new ArrayList<>(toUnicode.entrySet());
+            for (int k = 0; k < entries.size(); k += 100) {
+                int size = Math.min(100, entries.size() - k);
+                buf.append(size).append(" beginbfchar\n");
+                for (int j = k; j < k + size; ++j) {
+                    buf.append(toHex(entries.get(j).getKey(), digits)).append('<');
+                    for (char c : entries.get(j).getValue().toCharArray()) {
+                        buf.append(Integer.toHexString(c | 0x10000).substring(1));
+                    }
+                    buf.append(">\n");
+                }
+                buf.append("endbfchar\n");
+            }
+            buf.append("endcmap\n"
+                    + "CMapName currentdict /CMap defineresource pop\n"
+                    + "end end\n");
+            PdfStream stream = new PdfStream(PdfEncodings.convertToBytes(buf.toString(), null));
+            stream.flateCompress(copy.getCompressionLevel());
+            return stream;
+        }
+
+        /**
+         * Builds the font program with all the glyphs gathered.
+         */
+        private byte[] buildProgram() {
+            int glyfLength = 0;
+            for (byte[] glyph : glyphs) {
+                if (glyph != null) {
+                    glyfLength += glyph.length;
+                }
+            }
+            byte[] head = tables.get("head").clone();
+            boolean shortLoca = getShort(head, HEAD_LOCA_FORMAT_OFFSET) == 0 && glyfLength <= 0x1fffe;
+            putShort(head, HEAD_LOCA_FORMAT_OFFSET, shortLoca ? 0 : 1);
+            byte[] glyf = new byte[glyfLength];
+            byte[] loca = new byte[(glyphs.length + 1) * (shortLoca ? 2 : 4)];
+            int offset = 0;
+            for (int k = 0; k <= glyphs.length; ++k) {
+                if (shortLoca) {
+                    putShort(loca, 2 * k, offset / 2);
+                } else {
+                    putInt(loca, 4 * k, offset);
+                }
+                if (k < glyphs.length && glyphs[k] != null) {
+                    System.arraycopy(glyphs[k], 0, glyf, offset, glyphs[k].length);
+                    offset += glyphs[k].length;
+                }
+            }
+            TreeMap<String, byte[]> all = new TreeMap<>(tables);
+            all.put("head", head);
+            all.put("glyf", glyf);
+            all.put("loca", loca);
+            int numTables = all.size();
+            int size = 12 + 16 * numTables;
+            for (byte[] table : all.values()) {
+                size += (table.length + 3) & ~3;
+            }
+            byte[] b = new byte[size];
+            putInt(b, 0, 0x00010000);
+            putShort(b, 4, numTables);
+            int selector = 31 - Integer.numberOfLeadingZeros(numTables);
+            putShort(b, 6, (1 << selector) * 16);
+            putShort(b, 8, selector);
+            putShort(b, 10, numTables * 16 - (1 << selector) * 16);
+            int entry = 12;
+            int headOffset = 0;
+            offset = 12 + 16 * numTables;
+            for (Map.Entry<String, byte[]> table : all.entrySet()) {
+                byte[] bytes = table.getValue();
+                System.arraycopy(table.getKey().getBytes(StandardCharsets.ISO_8859_1), 0, b, entry, 4);
+                putInt(b, entry + 4, checksum(bytes, 0, bytes.length));
+                putInt(b, entry + 8, offset);
+                putInt(b, entry + 12, bytes.length);
+                System.arraycopy(bytes, 0, b, offset, bytes.length);
+                if ("head".equals(table.getKey())) {
+                    headOffset = offset;
+                }
+                entry += 16;
+                offset += (bytes.length + 3) & ~3;
+            }
+            putInt(b, headOffset + HEAD_CHECKSUM_ADJUSTMENT_OFFSET, 0xb1b0afba - checksum(b, 0, b.length));
+            return b;
+        }
+    }
+}
@@ -32,6 +32,16 @@ public class FopGlyphProcessor {
 
     public static byte[] convertToBytesWithGlyphs(BaseFont font, String text, String fileName,
             Map<Integer, int[]> longTag, String language) throws UnsupportedEncodingException {
+        UsedGlyphs usedGlyphs = new UsedGlyphs();
+        byte[] b = convertToBytesWithGlyphs(font, text, fileName, usedGlyphs, language);
+        for (int[] metric : usedGlyphs.getMetrics()) {
+            longTag.putIfAbsent(metric[0], metric);
+        }
+        return b;
+    }
+
+    static byte[] convertToBytesWithGlyphs(BaseFont font, String text, String fileName, UsedGlyphs longTag,
+            String language) throws UnsupportedEncodingException {
         TrueTypeFontUnicode ttu = (TrueTypeFontUnicode) font;
         IntBuffer charBuffer = IntBuffer.allocate(text.length());
         IntBuffer glyphBuffer = IntBuffer.allocate(text.length());
@@ -65,10 +75,9 @@ public class FopGlyphProcessor {
 
         for (int i = 0; i < limit; i++) {
             charEncodedGlyphCodes[i] = (char) processedChars[i];
-            Integer glyphCode = processedChars[i];
-            if (!longTag.containsKey(glyphCode)) {
-                longTag.put(glyphCode,
-                        new int[]{processedChars[i], ttu.getGlyphWidth(processedChars[i]), charBuffer.get(i)});
+            int glyphCode = processedChars[i];
+            if (!longTag.contains(glyphCode)) {
+                longTag.add(glyphCode, ttu.getGlyphWidth(glyphCode), charBuffer.get(i));
             }
         }
         return new String(charEncodedGlyphCodes).getBytes(CJKFont.CJK_ENCODING);
@@ -0,0 +1,140 @@
+package com.lowagie.text.pdf;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link RandomAccessSource} that maps a file in fixed size windows instead of mapping it as a whole.
+ * <p>
+ * Only the windows that are actually read are mapped, and at most <CODE>maxWindows</CODE> of them are kept. The least
+ * recently used window is unmapped with {@link MappedRandomAccessFile#clean(java.nio.ByteBuffer)} when another one is
+ * needed, so the address space used per document stays bounded and files larger than 2 GB can be read.
+ * <p>
+ * Reads are synchronized on the source, a window is never unmapped while bytes are copied out of it.
+ */
+public class MappedWindowRandomAccessSource implements RandomAccessSource {
+
+    /**
+     * The default size of a mapped window, 16 MB.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 24;
+
+    /**
+     * The default number of windows kept mapped at the same time.
+     */
+    public static final int DEFAULT_MAX_WINDOWS = 8;
+
+    private final FileChannel channel;
+    private final long length;
+    private final int windowSize;
+    private final LinkedHashMap<Long, MappedByteBuffer> windows;
+
+    /**
+     * Maps <CODE>path</CODE> with the default window size and window count.
+     *
+     * @param path the file to read
+     * @throws IOException on error
+     */
+    public MappedWindowRandomAccessSource(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_WINDOWS);
+    }
+
+    /**
+     * Maps <CODE>path</CODE> in windows of <CODE>windowSize</CODE> bytes, keeping at most <CODE>maxWindows</CODE>
+     * of them mapped.
+     *
+     * @param path       the file to read
+     * @param windowSize the size of each mapped window in bytes
+     * @param maxWindows the maximum number of windows mapped at the same time
+     * @throws IOException on error
+     */
+    public MappedWindowRandomAccessSource(Path path, int windowSize, final int maxWindows) throws IOException {
+        if (windowSize <= 0 || maxWindows <= 0) {
+            throw new IllegalArgumentException("Window size and window count must be positive.");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.length = channel.size();
+        this.windowSize = windowSize;
+        this.windows = new LinkedHashMap<>(maxWindows + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                if (size() > maxWindows) {
+                    MappedRandomAccessFile.clean(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private MappedByteBuffer getWindow(long index) throws IOException {
+        MappedByteBuffer window = windows.get(index);
+        if (window == null) {
+            long start = index * windowSize;
+            long size = Math.min(windowSize, length - start);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            windows.put(index, window);
+        }
+        return window;
+    }
+
+    @Override
+    public synchronized int get(long position) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        MappedByteBuffer window = getWindow(position / windowSize);
+        return window.get((int) (position % windowSize)) & 0xff;
+    }
+
+    @Override
+    public synchronized int get(long position, byte[] bytes, int off, int len) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        len = (int) Math.min(len, length - position);
+        int read = 0;
+        while (read < len) {
+            MappedByteBuffer window = getWindow(position / windowSize);
+            int inWindow = (int) (position % windowSize);
+            int n = Math.min(len - read, window.limit() - inWindow);
+            window.get(inWindow, bytes, off + read, n);
+            read += n;
+            position += n;
+        }
+        return read;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns the channel this source maps.
+     *
+     * @return the channel
+     */
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Unmaps all windows and closes the file.
+     *
+     * @throws IOException on error
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer window : windows.values()) {
+            MappedRandomAccessFile.clean(window);
+        }
+        windows.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.lowagie.text.pdf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The offsets of the object streams of a document read partially. The numbers of the object streams are marked while
+ * the cross reference is read and their offsets are then kept in sorted primitive arrays.
+ */
+final class ObjectStreamOffsets {
+
+    private final BitSet marked = new BitSet();
+    private int[] numbers = new int[0];
+    private long[] offsets = new long[0];
+
+    /**
+     * Marks an object as an object stream.
+     *
+     * @param number the object number
+     */
+    void mark(int number) {
+        if (number >= 0) {
+            marked.set(number);
+        }
+    }
+
+    /**
+     * Takes the offsets of the object streams marked from the cross reference, where they are then removed.
+     *
+     * @param xref the cross reference, a pair of entries by object
+     */
+    void resolve(long[] xref) {
+        int objects = xref.length / 2;
+        numbers = marked.stream().filter(n -> n < objects).toArray();
+        offsets = new long[numbers.length];
+        for (int k = 0; k < numbers.length; ++k) {
+            int n2 = numbers[k] * 2;
+            offsets[k] = xref[n2];
+            xref[n2] = -1;
+        }
+    }
+
+    /**
+     * Gets the offset of an object stream.
+     *
+     * @param number the object number of the object stream
+     * @return the offset or 0 if the object is not an object stream
+     */
+    long get(int number) {
+        int k = Arrays.binarySearch(numbers, number);
+        return k < 0 ? 0 : offsets[k];
+    }
+}
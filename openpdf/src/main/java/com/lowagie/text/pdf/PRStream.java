@@ -61,7 +61,7 @@ import java.util.zip.DeflaterOutputStream;
 public class PRStream extends PdfStream {
 
     protected PdfReader reader;
-    protected int offset;
+    protected long offset;
     protected int length;
 
     //added by ujihara for decryption
@@ -91,6 +91,10 @@ public class PRStream extends PdfStream {
     }
 
     public PRStream(PdfReader reader, int offset) {
+        this(reader, (long) offset);
+    }
+
+    public PRStream(PdfReader reader, long offset) {
         this.reader = reader;
         this.offset = offset;
     }
@@ -182,7 +186,18 @@ public class PRStream extends PdfStream {
         setData(data, true);
     }
 
+    /**
+     * Gets the offset of the data of the stream in the file.
+     *
+     * @return the offset
+     * @deprecated the offset may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getOffsetLong()}
+     */
+    @Deprecated
     public int getOffset() {
+        return RandomAccessFileOrArray.toIntOffset(offset);
+    }
+
+    public long getOffsetLong() {
         return offset;
     }
 
@@ -217,19 +232,28 @@ public class PRStream extends PdfStream {
     }
 
     public void toPdf(PdfWriter writer, OutputStream os) throws IOException {
-        byte[] b = PdfReader.getStreamBytesRaw(this);
         PdfEncryption crypto = null;
         if (writer != null) {
             crypto = writer.getEncryption();
         }
+        if (offset >= 0 && crypto == null && reader.getDecrypt() == null) {
+            transferToPdf(writer, os);
+            return;
+        }
+        byte[] b = PdfReader.getStreamBytesRaw(this);
         PdfObject objLen = get(PdfName.LENGTH);
         int nn = b.length;
         if (crypto != null) {
             nn = crypto.calculateStreamSize(nn);
         }
-        put(PdfName.LENGTH, new PdfNumber(nn));
+        // the length is only changed while writing
+        hashMap.put(PdfName.LENGTH, new PdfNumber(nn));
         superToPdf(writer, os);
-        put(PdfName.LENGTH, objLen);
+        if (objLen == null) {
+            hashMap.remove(PdfName.LENGTH);
+        } else {
+            hashMap.put(PdfName.LENGTH, objLen);
+        }
         os.write(STARTSTREAM);
         if (length > 0) {
             if (crypto != null && !crypto.isEmbeddedFilesOnly()) {
@@ -239,4 +263,34 @@ public class PRStream extends PdfStream {
         }
         os.write(ENDSTREAM);
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes a stream unchanged and not encrypted, its bytes going from the file of the reader to the output without
+     * being loaded.
+     */
+    private void transferToPdf(PdfWriter writer, OutputStream os) throws IOException {
+        PdfObject objLen = get(PdfName.LENGTH);
+        hashMap.put(PdfName.LENGTH, new PdfNumber(length));
+        superToPdf(writer, os);
+        if (objLen == null) {
+            hashMap.remove(PdfName.LENGTH);
+        } else {
+            hashMap.put(PdfName.LENGTH, objLen);
+        }
+        os.write(STARTSTREAM);
+        if (length > 0) {
+            RandomAccessFileOrArray file = reader.getSafeFile();
+            try {
+                file.reOpen();
+                file.transferTo(offset, length, os);
+            } finally {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    // empty on purpose
+                }
+            }
+        }
+        os.write(ENDSTREAM);
+    }
+}
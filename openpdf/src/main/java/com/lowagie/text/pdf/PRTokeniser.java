@@ -52,6 +52,8 @@ package com.lowagie.text.pdf;
 import com.lowagie.text.error_messages.MessageLocalization;
 import com.lowagie.text.exceptions.InvalidPdfException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * @author Paulo Soares (psoares@consiste.pt)
@@ -99,6 +101,13 @@ public class PRTokeniser implements AutoCloseable {
 
     static final String EMPTY = "";
 
+    /**
+     * The powers of ten that are exact doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
 
     protected RandomAccessFileOrArray file;
     protected int type;
@@ -107,6 +116,22 @@ public class PRTokeniser implements AutoCloseable {
     protected int generation;
     protected boolean hexString;
 
+    /**
+     * The bytes of the current name, number, string or other token, valid up to <CODE>tokenLength</CODE>. The buffer
+     * is reused by the next token.
+     */
+    private byte[] tokenBytes = new byte[64];
+    private int tokenLength;
+    /**
+     * Set when a name holds a <CODE>#</CODE> escape with invalid hexadecimal digits, its value is then only held by
+     * <CODE>stringValue</CODE>.
+     */
+    private boolean malformedName;
+    private byte[] savedNumber = new byte[16];
+    private int savedNumberLength;
+    private byte[] savedGeneration = new byte[16];
+    private int savedGenerationLength;
+
     public PRTokeniser(String filename) throws IOException {
         file = new RandomAccessFileOrArray(filename);
     }
@@ -119,6 +144,15 @@ public class PRTokeniser implements AutoCloseable {
         this.file = file;
     }
 
+    /**
+     * Creates a tokeniser reading from a {@link RandomAccessSource}. The source is not closed by {@link #close()}.
+     *
+     * @param source the source of the bytes
+     */
+    public PRTokeniser(RandomAccessSource source) {
+        this.file = new RandomAccessFileOrArray(source);
+    }
+
     public static final boolean isWhitespace(int ch) {
         return (ch == 0 || ch == 9 || ch == 10 || ch == 12 || ch == 13 || ch == 32);
     }
@@ -160,7 +194,7 @@ public class PRTokeniser implements AutoCloseable {
             if (!tk.nextToken()) {
                 return null;
             }
-            if (!tk.getStringValue().equals("obj")) {
+            if (!tk.tokenEquals("obj")) {
                 return null;
             }
             return new int[]{num, gen};
@@ -174,18 +208,46 @@ public class PRTokeniser implements AutoCloseable {
         file.seek(pos);
     }
 
+    public void seek(long pos) throws IOException {
+        file.seek(pos);
+    }
+
+    /**
+     * Returns the current offset in the file.
+     *
+     * @return the offset
+     * @throws IOException on error
+     * @deprecated the offset may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getFilePointerLong()}
+     */
+    @Deprecated
     public int getFilePointer() throws IOException {
         return file.getFilePointer();
     }
 
+    public long getFilePointerLong() throws IOException {
+        return file.getFilePointerLong();
+    }
+
     public void close() throws IOException {
         file.close();
     }
 
+    /**
+     * Returns the length of the file.
+     *
+     * @return the length
+     * @throws IOException on error
+     * @deprecated the length may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #lengthLong()}
+     */
+    @Deprecated
     public int length() throws IOException {
         return file.length();
     }
 
+    public long lengthLong() throws IOException {
+        return file.lengthLong();
+    }
+
     public int read() throws IOException {
         return file.read();
     }
@@ -216,9 +278,53 @@ public class PRTokeniser implements AutoCloseable {
     }
 
     public String getStringValue() {
+        if (stringValue == null) {
+            stringValue = new String(tokenBytes, 0, tokenLength, StandardCharsets.ISO_8859_1);
+        }
         return stringValue;
     }
 
+    /**
+     * Gets the bytes of the current token: the decoded bytes of a name or a string, the characters of a number or of
+     * another token. The buffer is only valid up to {@link #getTokenLength()} and is overwritten by the next token;
+     * reading the token from it avoids building the <CODE>String</CODE> of {@link #getStringValue()}.
+     *
+     * @return the buffer holding the token
+     */
+    public byte[] getTokenBytes() {
+        return tokenBytes;
+    }
+
+    /**
+     * Gets the number of bytes of the current token in {@link #getTokenBytes()}.
+     *
+     * @return the length of the token
+     */
+    public int getTokenLength() {
+        return tokenLength;
+    }
+
+    /**
+     * Compares the current token with a value without building its <CODE>String</CODE>.
+     *
+     * @param value the value, made of characters from 0 to 255
+     * @return <CODE>true</CODE> if the token equals the value
+     */
+    public boolean tokenEquals(String value) {
+        if (stringValue != null) {
+            return stringValue.equals(value);
+        }
+        if (value.length() != tokenLength) {
+            return false;
+        }
+        for (int k = 0; k < tokenLength; ++k) {
+            if ((tokenBytes[k] & 0xff) != value.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public int getReference() {
         return reference;
     }
@@ -235,7 +341,7 @@ public class PRTokeniser implements AutoCloseable {
 
     public void throwError(String error) throws IOException {
         throw new InvalidPdfException(MessageLocalization.getComposedMessage("1.at.file.pointer.2", error,
-                String.valueOf(file.getFilePointer())));
+                String.valueOf(file.getFilePointerLong())));
     }
 
     public char checkPdfHeader() throws IOException {
@@ -259,10 +365,22 @@ public class PRTokeniser implements AutoCloseable {
         file.setStartOffset(idx);
     }
 
+    /**
+     * Finds the offset of the last cross reference.
+     *
+     * @return the offset of the last cross reference
+     * @throws IOException on error
+     * @deprecated the offset may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getStartxrefLong()}
+     */
+    @Deprecated
     public int getStartxref() throws IOException {
+        return RandomAccessFileOrArray.toIntOffset(getStartxrefLong());
+    }
+
+    public long getStartxrefLong() throws IOException {
         int step = 1024; // packet size to read the file from the end
         int delta = 8; // delta to provide packets overlapping in case 'startxref' appears split between two packets
-        int pos = file.length() - delta;
+        long pos = file.lengthLong() - delta;
         int idx;
         do {
             pos = Math.max(0, pos - step);
@@ -278,9 +396,7 @@ public class PRTokeniser implements AutoCloseable {
 
     public void nextValidToken() throws IOException {
         int level = 0;
-        String n1 = null;
-        String n2 = null;
-        int ptr = 0;
+        long ptr = 0;
         while (nextToken() || level == 2) {
             if (type == TK_COMMENT) {
                 continue;
@@ -290,41 +406,40 @@ public class PRTokeniser implements AutoCloseable {
                     if (type != TK_NUMBER) {
                         return;
                     }
-                    ptr = file.getFilePointer();
-                    n1 = stringValue;
+                    ptr = file.getFilePointerLong();
+                    savedNumber = saveToken(savedNumber);
+                    savedNumberLength = tokenLength;
                     ++level;
                     break;
                 }
                 case 1: {
                     if (type != TK_NUMBER) {
                         file.seek(ptr);
-                        type = TK_NUMBER;
-                        stringValue = n1;
+                        restoreNumber();
                         return;
                     }
-                    n2 = stringValue;
+                    savedGeneration = saveToken(savedGeneration);
+                    savedGenerationLength = tokenLength;
                     ++level;
                     break;
                 }
                 default: {
-                    if (type != TK_OTHER || !stringValue.equals("R")) {
+                    if (type != TK_OTHER || !tokenEquals("R")) {
                         file.seek(ptr);
-                        type = TK_NUMBER;
-                        stringValue = n1;
+                        restoreNumber();
                         return;
                     }
                     type = TK_REF;
-                    reference = Integer.parseInt(n1);
-                    generation = Integer.parseInt(n2);
+                    reference = parseInt(savedNumber, savedNumberLength);
+                    generation = parseInt(savedGeneration, savedGenerationLength);
                     return;
                 }
             }
         }
         // http://bugs.debian.org/cgi-bin/bugreport.cgi?bug=687669#20
         if (level > 0) {
-            type = TK_NUMBER;
             file.seek(ptr);
-            stringValue = n1;
+            restoreNumber();
             return;
         }
 //                if (type == TK_ENDOFFILE && level > 0)
@@ -340,6 +455,31 @@ public class PRTokeniser implements AutoCloseable {
         // case can occur inside an Object Stream.
     }
 
+    private byte[] saveToken(byte[] saved) {
+        if (saved.length < tokenLength) {
+            saved = new byte[tokenLength];
+        }
+        System.arraycopy(tokenBytes, 0, saved, 0, tokenLength);
+        return saved;
+    }
+
+    private void restoreNumber() {
+        type = TK_NUMBER;
+        tokenLength = 0;
+        for (int k = 0; k < savedNumberLength; ++k) {
+            appendToken(savedNumber[k]);
+        }
+        stringValue = null;
+        malformedName = false;
+    }
+
+    private void appendToken(int b) {
+        if (tokenLength == tokenBytes.length) {
+            tokenBytes = Arrays.copyOf(tokenBytes, tokenLength * 2);
+        }
+        tokenBytes[tokenLength++] = (byte) b;
+    }
+
     public boolean nextToken() throws IOException {
         int ch = 0;
         do {
@@ -353,8 +493,11 @@ public class PRTokeniser implements AutoCloseable {
         // Note:  We have to initialize stringValue here, after we've looked for the end of the stream,
         // to ensure that we don't lose the value of a token that might end exactly at the end
         // of the stream
-        StringBuffer outBuf = null;
+        boolean buffered = false;
+        StringBuilder malformed = null;
         stringValue = EMPTY;
+        tokenLength = 0;
+        malformedName = false;
 
         switch (ch) {
             case '[':
@@ -364,7 +507,7 @@ public class PRTokeniser implements AutoCloseable {
                 type = TK_END_ARRAY;
                 break;
             case '/': {
-                outBuf = new StringBuffer();
+                buffered = true;
                 type = TK_NAME;
                 while (true) {
                     ch = file.read();
@@ -373,8 +516,15 @@ public class PRTokeniser implements AutoCloseable {
                     }
                     if (ch == '#') {
                         ch = (getHex(file.read()) << 4) + getHex(file.read());
+                        if (ch < 0 && malformed == null) {
+                            malformed = new StringBuilder(new String(tokenBytes, 0, tokenLength,
+                                    StandardCharsets.ISO_8859_1));
+                        }
+                    }
+                    if (malformed != null) {
+                        malformed.append((char) ch);
                     }
-                    outBuf.append((char) ch);
+                    appendToken(ch);
                 }
                 backOnePosition(ch);
                 break;
@@ -395,7 +545,7 @@ public class PRTokeniser implements AutoCloseable {
                     type = TK_START_DIC;
                     break;
                 }
-                outBuf = new StringBuffer();
+                buffered = true;
                 type = TK_STRING;
                 hexString = true;
                 int v2 = 0;
@@ -416,7 +566,7 @@ public class PRTokeniser implements AutoCloseable {
                     }
                     if (v2 == '>') {
                         ch = v1 << 4;
-                        outBuf.append((char) ch);
+                        appendToken(ch);
                         break;
                     }
                     v2 = getHex(v2);
@@ -424,7 +574,7 @@ public class PRTokeniser implements AutoCloseable {
                         break;
                     }
                     ch = (v1 << 4) + v2;
-                    outBuf.append((char) ch);
+                    appendToken(ch);
                     v1 = file.read();
                 }
                 if (v1 < 0 || v2 < 0) {
@@ -439,7 +589,7 @@ public class PRTokeniser implements AutoCloseable {
                 } while (ch != -1 && ch != '\r' && ch != '\n');
                 break;
             case '(': {
-                outBuf = new StringBuffer();
+                buffered = true;
                 type = TK_STRING;
                 hexString = false;
                 int nesting = 0;
@@ -527,7 +677,7 @@ public class PRTokeniser implements AutoCloseable {
                     if (nesting == -1) {
                         break;
                     }
-                    outBuf.append((char) ch);
+                    appendToken(ch);
                 }
                 if (ch == -1) {
                     throwError(MessageLocalization.getComposedMessage("error.reading.string"));
@@ -535,17 +685,17 @@ public class PRTokeniser implements AutoCloseable {
                 break;
             }
             default: {
-                outBuf = new StringBuffer();
+                buffered = true;
                 if (ch == '-' || ch == '+' || ch == '.' || (ch >= '0' && ch <= '9')) {
                     type = TK_NUMBER;
                     do {
-                        outBuf.append((char) ch);
+                        appendToken(ch);
                         ch = file.read();
                     } while (ch != -1 && ((ch >= '0' && ch <= '9') || ch == '.'));
                 } else {
                     type = TK_OTHER;
                     do {
-                        outBuf.append((char) ch);
+                        appendToken(ch);
                         ch = file.read();
                     } while (!delims[ch + 1]);
                 }
@@ -553,14 +703,180 @@ public class PRTokeniser implements AutoCloseable {
                 break;
             }
         }
-        if (outBuf != null) {
-            stringValue = outBuf.toString();
+        if (malformed != null) {
+            stringValue = malformed.toString();
+            malformedName = true;
+        } else if (buffered) {
+            stringValue = null;
         }
         return true;
     }
 
     public int intValue() {
-        return Integer.parseInt(stringValue);
+        return parseInt(tokenBytes, tokenLength);
+    }
+
+    /**
+     * Returns the current numeric token as a <CODE>double</CODE>, parsed from its bytes.
+     *
+     * @return the value of the token
+     */
+    public double doubleValue() {
+        double value = parseReal(tokenBytes, tokenLength);
+        if (Double.isNaN(value)) {
+            value = Double.parseDouble(getStringValue());
+        }
+        return value;
+    }
+
+    /**
+     * Creates a number object from the current numeric token, keeping its characters as content.
+     *
+     * @return the number
+     */
+    PdfNumber getPdfNumber() {
+        double value = parseReal(tokenBytes, tokenLength);
+        if (Double.isNaN(value)) {
+            return new PdfNumber(getStringValue());
+        }
+        return new PdfNumber(Arrays.copyOf(tokenBytes, tokenLength), value);
+    }
+
+    /**
+     * Creates a name object from the current name token.
+     *
+     * @return the name
+     */
+    PdfName getPdfName() {
+        if (malformedName) {
+            return new PdfName(stringValue, false);
+        }
+        return new PdfName(PdfName.encodeName(tokenBytes, tokenLength));
+    }
+
+    /**
+     * Gets the name of the current name token, the constant of {@link PdfName} when there is one so that the well-known
+     * names can be compared by identity.
+     *
+     * @return the name
+     */
+    PdfName getCanonicalName() {
+        PdfName name = getStaticName();
+        return name != null ? name : getPdfName();
+    }
+
+    /**
+     * Gets the constant of {@link PdfName} equal to the current name token.
+     *
+     * @return the constant or <CODE>null</CODE> if the name is not one of the constants
+     */
+    PdfName getStaticName() {
+        if (malformedName) {
+            return PdfName.staticNames.get(stringValue);
+        }
+        return PdfName.findStaticName(tokenBytes, tokenLength);
+    }
+
+    /**
+     * Parses a decimal integer from bytes, as {@link Integer#parseInt(String)} does.
+     *
+     * @param b   the bytes
+     * @param len the number of bytes
+     * @return the value
+     * @throws NumberFormatException if the bytes are not an integer
+     */
+    static int parseInt(byte[] b, int len) {
+        int k = len > 0 && (b[0] == '-' || b[0] == '+') ? 1 : 0;
+        if (len == k || len - k > 9) {
+            return Integer.parseInt(new String(b, 0, len, StandardCharsets.ISO_8859_1));
+        }
+        int value = 0;
+        for (int i = k; i < len; ++i) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(new String(b, 0, len, StandardCharsets.ISO_8859_1));
+            }
+            value = value * 10 + digit;
+        }
+        return b[0] == '-' ? -value : value;
+    }
+
+    /**
+     * Parses a decimal integer from bytes, as {@link Long#parseLong(String)} does.
+     *
+     * @param b   the bytes
+     * @param len the number of bytes
+     * @return the value
+     * @throws NumberFormatException if the bytes are not an integer
+     */
+    static long parseLong(byte[] b, int len) {
+        int k = len > 0 && (b[0] == '-' || b[0] == '+') ? 1 : 0;
+        if (len == k || len - k > 18) {
+            return Long.parseLong(new String(b, 0, len, StandardCharsets.ISO_8859_1));
+        }
+        long value = 0;
+        for (int i = k; i < len; ++i) {
+            int digit = b[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(new String(b, 0, len, StandardCharsets.ISO_8859_1));
+            }
+            value = value * 10 + digit;
+        }
+        return b[0] == '-' ? -value : value;
+    }
+
+    /**
+     * Parses a number of at most 15 significant digits and 22 decimals from bytes. Both the digits and the power of
+     * ten are then exact doubles and their quotient is rounded as {@link Double#parseDouble(String)} rounds.
+     *
+     * @param b   the bytes
+     * @param len the number of bytes
+     * @return the value or <CODE>NaN</CODE> if the number has to be parsed by {@link Double#parseDouble(String)}
+     */
+    static double parseReal(byte[] b, int len) {
+        int k = len > 0 && (b[0] == '-' || b[0] == '+') ? 1 : 0;
+        long mantissa = 0;
+        int significant = 0;
+        int decimals = -1;
+        boolean digits = false;
+        for (; k < len; ++k) {
+            int c = b[k];
+            if (c == '.') {
+                if (decimals >= 0) {
+                    return Double.NaN;
+                }
+                decimals = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.NaN;
+            }
+            digits = true;
+            if (decimals >= 0 && ++decimals > 22) {
+                return Double.NaN;
+            }
+            if (mantissa != 0 || digit != 0) {
+                if (++significant > 15) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + digit;
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+        return b[0] == '-' ? -value : value;
+    }
+
+    /**
+     * Returns the current numeric token as a <CODE>long</CODE>, as needed for file offsets beyond 2 GB.
+     *
+     * @return the value of the token
+     */
+    public long longValue() {
+        return parseLong(tokenBytes, tokenLength);
     }
 
     public boolean readLineSegment(byte[] input) throws IOException {
@@ -584,7 +900,7 @@ public class PRTokeniser implements AutoCloseable {
                     break;
                 case '\r':
                     eol = true;
-                    int cur = getFilePointer();
+                    long cur = getFilePointerLong();
                     if ((read()) != '\n') {
                         seek(cur);
                     }
@@ -611,7 +927,7 @@ public class PRTokeniser implements AutoCloseable {
                         break;
                     case '\r':
                         eol = true;
-                        int cur = getFilePointer();
+                        long cur = getFilePointerLong();
                         if ((read()) != '\n') {
                             seek(cur);
                         }
@@ -210,6 +210,7 @@ public class PdfArray extends PdfObject {
      * @since 2.1.5
      */
     public PdfObject set(int idx, PdfObject obj) {
+        markChanged();
         return arrayList.set(idx, obj);
     }
 
@@ -224,6 +225,7 @@ public class PdfArray extends PdfObject {
      * @since 2.1.5
      */
     public PdfObject remove(int idx) {
+        markChanged();
         return arrayList.remove(idx);
     }
 
@@ -235,11 +237,15 @@ public class PdfArray extends PdfObject {
      * @param object to be removed.
      */
     public boolean remove(PdfObject object) {
-        return this.arrayList.remove(object);
+        boolean removed = this.arrayList.remove(object);
+        if (removed) {
+            markChanged();
+        }
+        return removed;
     }
 
     /**
-     * Get a copy the internal list for this PdfArray.
+     * Get a copy the internal list for this PdfArray. Changing the copy doesn't change the array.
      *
      * @return a copy of the the internal List.
      */
@@ -275,6 +281,7 @@ public class PdfArray extends PdfObject {
      * @return always <CODE>true</CODE>
      */
     public boolean add(PdfObject object) {
+        markChanged();
         return arrayList.add(object);
     }
 
@@ -292,6 +299,7 @@ public class PdfArray extends PdfObject {
         for (float value : values) {
             arrayList.add(new PdfNumber(value));
         }
+        markChanged();
         return true;
     }
 
@@ -309,6 +317,7 @@ public class PdfArray extends PdfObject {
         for (int value : values) {
             arrayList.add(new PdfNumber(value));
         }
+        markChanged();
         return true;
     }
 
@@ -325,6 +334,7 @@ public class PdfArray extends PdfObject {
      */
     public void add(int index, PdfObject element) {
         arrayList.add(index, element);
+        markChanged();
     }
 
     /**
@@ -338,6 +348,7 @@ public class PdfArray extends PdfObject {
      */
     public void addFirst(PdfObject object) {
         arrayList.add(0, object);
+        markChanged();
     }
 
     /**
@@ -352,12 +363,13 @@ public class PdfArray extends PdfObject {
     }
 
     /**
-     * Returns the list iterator for the array.
+     * Returns the list iterator for the array. Changes made through the iterator are recorded like the changes made
+     * with the other methods of the array.
      *
      * @return a ListIterator
      */
     public ListIterator<PdfObject> listIterator() {
-        return arrayList.listIterator();
+        return new ChangeTrackingIterator(arrayList.listIterator());
     }
 
     /**
@@ -543,4 +555,64 @@ public class PdfArray extends PdfObject {
         }
         return ref;
     }
+
+    /**
+     * A list iterator telling the array when an element is set, added or removed.
+     */
+    private class ChangeTrackingIterator implements ListIterator<PdfObject> {
+
+        private final ListIterator<PdfObject> iterator;
+
+        ChangeTrackingIterator(ListIterator<PdfObject> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public PdfObject next() {
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return iterator.hasPrevious();
+        }
+
+        @Override
+        public PdfObject previous() {
+            return iterator.previous();
+        }
+
+        @Override
+        public int nextIndex() {
+            return iterator.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return iterator.previousIndex();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            markChanged();
+        }
+
+        @Override
+        public void set(PdfObject obj) {
+            iterator.set(obj);
+            markChanged();
+        }
+
+        @Override
+        public void add(PdfObject obj) {
+            iterator.add(obj);
+            markChanged();
+        }
+    }
 }
@@ -171,7 +171,7 @@ public class PdfContentByte {
     /**
      * This is the actual content
      */
-    protected ByteBuffer content = new ByteBuffer();
+    protected ByteBuffer content;
     /**
      * This is the writer
      */
@@ -216,6 +216,8 @@ public class PdfContentByte {
             writer = wr;
             pdf = writer.getPdfDocument();
         }
+        // a template is kept until the document is closed and may be written more than once, it is not pooled
+        content = new ByteBuffer(128, wr == null || this instanceof PdfTemplate ? null : wr.getByteBufferPool());
     }
 
     // constructors
@@ -403,6 +405,14 @@ public class PdfContentByte {
         return content;
     }
 
+    /**
+     * Gives the array of the content back to the buffer pool of the writer, once the content was added elsewhere. The
+     * content is then empty.
+     */
+    void releaseContent() {
+        content.release();
+    }
+
     /**
      * Returns the PDF representation of this <CODE>PdfContentByte</CODE>-object.
      *
@@ -1573,6 +1583,9 @@ public class PdfContentByte {
      */
     public void reset(boolean validateContent) {
         content.reset();
+        if (content.getSpill() != null) {
+            content.getSpill().delete();
+        }
         if (validateContent) {
             sanityCheck();
         }
@@ -1889,12 +1902,16 @@ public class PdfContentByte {
     }
 
     /**
-     * Gets the size of this content.
+     * Gets the size of this content, with the bytes flushed to a temporary file.
      *
      * @return the size of the content
      */
     int size() {
-        return content.size();
+        ContentSpillFile spill = content.getSpill();
+        if (spill == null) {
+            return content.size();
+        }
+        return (int) Math.min(spill.length() + content.size(), Integer.MAX_VALUE);
     }
 
     /**
@@ -52,6 +52,7 @@ package com.lowagie.text.pdf;
 import com.lowagie.text.error_messages.MessageLocalization;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -140,7 +141,7 @@ public class PdfContentParser {
             if (tokeniser.getTokenType() != PRTokeniser.TK_NAME) {
                 throw new IOException(MessageLocalization.getComposedMessage("dictionary.key.is.not.a.name"));
             }
-            PdfName name = new PdfName(tokeniser.getStringValue(), false);
+            PdfName name = tokeniser.getCanonicalName();
             PdfObject obj = readPRObject();
             int type = obj.type();
             if (-type == PRTokeniser.TK_END_DIC) {
@@ -198,11 +199,12 @@ public class PdfContentParser {
                 PdfString str = new PdfString(tokeniser.getStringValue(), null).setHexWriting(tokeniser.isHexString());
                 return str;
             case PRTokeniser.TK_NAME:
-                return new PdfName(tokeniser.getStringValue(), false);
+                return tokeniser.getCanonicalName();
             case PRTokeniser.TK_NUMBER:
-                return new PdfNumber(tokeniser.getStringValue());
+                return tokeniser.getPdfNumber();
             case PRTokeniser.TK_OTHER:
-                return new PdfLiteral(COMMAND_TYPE, tokeniser.getStringValue());
+                return new PdfLiteral(COMMAND_TYPE,
+                        Arrays.copyOf(tokeniser.getTokenBytes(), tokeniser.getTokenLength()));
             default:
                 return new PdfLiteral(-type, tokeniser.getStringValue());
         }
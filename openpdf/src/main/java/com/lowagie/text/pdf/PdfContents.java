@@ -52,8 +52,15 @@ package com.lowagie.text.pdf;
 import com.lowagie.text.DocWriter;
 import com.lowagie.text.Document;
 import com.lowagie.text.Rectangle;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
@@ -85,17 +92,34 @@ class PdfContents extends PdfStream {
     PdfContents(PdfContentByte under, PdfContentByte content, PdfContentByte text, PdfContentByte secondContent,
             Rectangle page) throws BadPdfFormatException {
         super();
+        PdfWriter writer = secondContent.getPdfWriter();
+        // with a compression executor the content is compressed after it is complete, maybe on another thread
+        boolean deferred = writer.getCompressionExecutor() != null;
+        // with direct contents flushed to files the content is read from them when the stream is written
+        boolean spilled = isSpilled(under) || isSpilled(secondContent);
         try {
             OutputStream out = null;
             Deflater deflater = null;
-            streamBytes = new ByteArrayOutputStream();
-            if (Document.compress) {
-                compressed = true;
-                compressionLevel = text.getPdfWriter().getCompressionLevel();
-                deflater = new Deflater(compressionLevel);
-                out = new DeflaterOutputStream(streamBytes, deflater);
+            if (spilled) {
+                // the content is compressed when it is written
+                out = new ContentSequence();
             } else {
-                out = streamBytes;
+                ByteBufferPool pool = writer.getByteBufferPool();
+                if (pool == null) {
+                    streamBytes = new ByteArrayOutputStream();
+                } else {
+                    int size = under.size() + content.size() + secondContent.size() + (text == null ? 0
+                            : text.size());
+                    streamBytes = new ByteBufferPool.PooledOutputStream(pool, deferred ? size + 64 : size >> 2);
+                }
+                if (Document.compress && !deferred) {
+                    compressed = true;
+                    compressionLevel = writer.getCompressionLevel();
+                    deflater = new Deflater(compressionLevel);
+                    out = new DeflaterOutputStream(streamBytes, deflater);
+                } else {
+                    out = streamBytes;
+                }
             }
             int rotation = page.getRotation();
             switch (rotation) {
@@ -123,7 +147,7 @@ class PdfContents extends PdfStream {
             }
             if (under.size() > 0) {
                 out.write(SAVESTATE);
-                under.getInternalBuffer().writeTo(out);
+                writeContent(under, out);
                 out.write(RESTORESTATE);
             }
             if (content.size() > 0) {
@@ -137,18 +161,85 @@ class PdfContents extends PdfStream {
                 out.write(RESTORESTATE);
             }
             if (secondContent.size() > 0) {
-                secondContent.getInternalBuffer().writeTo(out);
+                writeContent(secondContent, out);
             }
             out.close();
             if (deflater != null) {
                 deflater.end();
             }
+            if (spilled) {
+                inputStream = ((ContentSequence) out).toInputStream();
+            }
         } catch (Exception e) {
             throw new BadPdfFormatException(e.getMessage());
         }
+        if (spilled) {
+            this.writer = writer;
+            ref = writer.getPdfIndirectReference();
+            put(PdfName.LENGTH, ref);
+            flateCompress(writer.getCompressionLevel());
+            return;
+        }
         put(PdfName.LENGTH, new PdfNumber(streamBytes.size()));
         if (compressed) {
             put(PdfName.FILTER, PdfName.FLATEDECODE);
+        } else if (deferred) {
+            flateCompress(writer.getCompressionLevel(), writer);
+        }
+    }
+
+    /**
+     * Writes the indirect length of a content read from the files of the direct contents, once the stream is written.
+     *
+     * @throws IOException on error
+     */
+    void writeSpilledLength() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+            writeLength();
+        }
+    }
+
+    private static boolean isSpilled(PdfContentByte cb) {
+        ContentSpillFile spill = cb.getInternalBuffer().getSpill();
+        return spill != null && spill.length() > 0;
+    }
+
+    private static void writeContent(PdfContentByte cb, OutputStream out) throws IOException {
+        ByteBuffer content = cb.getInternalBuffer();
+        if (isSpilled(cb)) {
+            ((ContentSequence) out).append(content.getSpill().openStream());
+        }
+        content.writeTo(out);
+    }
+
+    /**
+     * The parts of a content kept in memory and in files, to be read one after the other.
+     */
+    private static final class ContentSequence extends OutputStream {
+
+        private final List<InputStream> parts = new ArrayList<>();
+        private ByteArrayOutputStream part = new ByteArrayOutputStream();
+
+        void append(InputStream in) {
+            parts.add(new ByteArrayInputStream(part.toByteArray()));
+            parts.add(in);
+            part = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void write(int b) {
+            part.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            part.write(b, off, len);
+        }
+
+        InputStream toInputStream() {
+            parts.add(new ByteArrayInputStream(part.toByteArray()));
+            return new SequenceInputStream(Collections.enumeration(parts));
         }
     }
 }
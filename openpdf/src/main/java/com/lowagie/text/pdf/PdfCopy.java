@@ -54,10 +54,16 @@ import com.lowagie.text.ExceptionConverter;
 import com.lowagie.text.Rectangle;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Make copies of PDF documents. Documents can be edited after reading and before writing them out.
@@ -79,6 +85,21 @@ public class PdfCopy extends PdfWriter {
      */
     private boolean rotateContents = true;
 
+    /**
+     * The most documents prepared by <CODE>addDocuments</CODE> ahead of the one being copied.
+     */
+    private static final int MAX_PREPARED_DOCUMENTS = 16;
+
+    /**
+     * Holds value of property mergeFontSubsets.
+     */
+    private boolean mergeFontSubsets;
+
+    /**
+     * Merges the font subsets while <CODE>mergeFontSubsets</CODE> is set.
+     */
+    private FontSubsetMerger fontMerger;
+
     /**
      * Constructor
      *
@@ -111,6 +132,26 @@ public class PdfCopy extends PdfWriter {
         this.rotateContents = rotateContents;
     }
 
+    /**
+     * Getter for property mergeFontSubsets.
+     *
+     * @return Value of property mergeFontSubsets.
+     */
+    public boolean isMergeFontSubsets() {
+        return mergeFontSubsets;
+    }
+
+    /**
+     * Merges the subsets of the same TrueType font embedded by the documents copied. The font is then written once,
+     * when the copy is closed, with the glyphs, widths and ToUnicode mappings of all its subsets. Only the subsets
+     * keeping the glyph numbers of the font, as the ones of this library, are merged.
+     *
+     * @param mergeFontSubsets New value of property mergeFontSubsets.
+     */
+    public void setMergeFontSubsets(boolean mergeFontSubsets) {
+        this.mergeFontSubsets = mergeFontSubsets;
+    }
+
     /**
      * Grabs a page from the input document
      *
@@ -147,6 +188,10 @@ public class PdfCopy extends PdfWriter {
      * @throws BadPdfFormatException on error with the Pdf format
      */
     protected PdfIndirectReference copyIndirect(PRIndirectReference in) throws IOException, BadPdfFormatException {
+        PdfIndirectReference fontRef = copyMergedFont(in);
+        if (fontRef != null) {
+            return fontRef;
+        }
         PdfIndirectReference theRef;
         RefKey key = new RefKey(in);
         IndirectReferences iRef = indirects.get(key);
@@ -173,6 +218,44 @@ public class PdfCopy extends PdfWriter {
         return theRef;
     }
 
+    /**
+     * Hands a font to the font merger when <CODE>mergeFontSubsets</CODE> is set.
+     *
+     * @param in the PRIndirectReference to translate
+     * @return the reference to the merged font or <CODE>null</CODE> if the object is to be copied as it is
+     * @throws IOException           on error
+     * @throws BadPdfFormatException on error with the Pdf format
+     */
+    protected PdfIndirectReference copyMergedFont(PRIndirectReference in) throws IOException, BadPdfFormatException {
+        if (!mergeFontSubsets) {
+            return null;
+        }
+        RefKey key = new RefKey(in);
+        IndirectReferences iRef = indirects.get(key);
+        if (iRef != null && iRef.getCopied()) {
+            return null;
+        }
+        PdfObject obj = PdfReader.getPdfObjectRelease(in);
+        if (obj == null || !obj.isDictionary()) {
+            return null;
+        }
+        if (fontMerger == null) {
+            fontMerger = new FontSubsetMerger(this);
+        }
+        PdfIndirectReference ref = fontMerger.add((PdfDictionary) obj);
+        if (ref == null) {
+            return null;
+        }
+        if (iRef == null) {
+            iRef = new IndirectReferences(ref);
+            indirects.put(key, iRef);
+        } else {
+            iRef.theRef = ref;
+        }
+        iRef.setCopied();
+        return ref;
+    }
+
     /**
      * Translate a PRDictionary to a PdfDictionary. Also translate all of the objects contained in it.
      *
@@ -307,20 +390,29 @@ public class PdfCopy extends PdfWriter {
         if (indirects == null) {
             indirects = new HashMap<>();
             indirectMap.put(reader, indirects);
-            PdfDictionary catalog = reader.getCatalog();
-            PRIndirectReference ref;
-            PdfObject o = catalog.get(PdfName.ACROFORM);
-            if (o == null || o.type() != PdfObject.INDIRECT) {
-                return;
-            }
-            ref = (PRIndirectReference) o;
-            if (acroForm == null) {
-                acroForm = body.getPdfIndirectReference();
-            }
-            indirects.put(new RefKey(ref), new IndirectReferences(acroForm));
+            mapAcroForm(reader);
         }
     }
 
+    /**
+     * Maps the acroform of a reader to the one acroform of the copy.
+     *
+     * @param reader the PdfReader
+     */
+    private void mapAcroForm(PdfReader reader) {
+        PdfDictionary catalog = reader.getCatalog();
+        PRIndirectReference ref;
+        PdfObject o = catalog.get(PdfName.ACROFORM);
+        if (o == null || o.type() != PdfObject.INDIRECT) {
+            return;
+        }
+        ref = (PRIndirectReference) o;
+        if (acroForm == null) {
+            acroForm = body.getPdfIndirectReference();
+        }
+        indirects.put(new RefKey(ref), new IndirectReferences(acroForm));
+    }
+
     /**
      * Add an imported page to our output
      *
@@ -369,6 +461,155 @@ public class PdfCopy extends PdfWriter {
         ++currentPageNumber;
     }
 
+    /**
+     * Adds all the pages of several documents, in the order of the list. Each source is called on the executor to open
+     * its reader; the objects used by its pages are then read and given a place in the renumbering map of the reader
+     * on the same thread, so that only the copy itself is left to the calling thread. At most
+     * <CODE>MAX_PREPARED_DOCUMENTS</CODE> documents are prepared ahead of the one being copied. The readers are freed
+     * once copied. If a document fails, its reader and the readers of the documents prepared ahead are closed before
+     * the exception is thrown.
+     *
+     * @param sources  the sources of the readers
+     * @param executor the executor or <CODE>null</CODE> to open the readers on the calling thread
+     * @throws IOException           on error
+     * @throws BadPdfFormatException on error
+     */
+    public void addDocuments(List<? extends Callable<PdfReader>> sources, Executor executor)
+            throws IOException, BadPdfFormatException {
+        if (executor == null) {
+            for (Callable<PdfReader> source : sources) {
+                addDocument(prepareDocument(source));
+            }
+            return;
+        }
+        ArrayDeque<CompletableFuture<PreparedDocument>> prepared = new ArrayDeque<>();
+        Iterator<? extends Callable<PdfReader>> it = sources.iterator();
+        try {
+            while (it.hasNext() || !prepared.isEmpty()) {
+                while (it.hasNext() && prepared.size() < MAX_PREPARED_DOCUMENTS) {
+                    Callable<PdfReader> source = it.next();
+                    prepared.add(CompletableFuture.supplyAsync(() -> prepareDocument(source), executor));
+                }
+                PreparedDocument document;
+                try {
+                    document = prepared.remove().join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw (RuntimeException) e.getCause();
+                }
+                addDocument(document);
+            }
+        } finally {
+            // the documents prepared ahead are closed before returning, a failed preparation closed its reader
+            for (CompletableFuture<PreparedDocument> future : prepared) {
+                try {
+                    future.join().reader.close();
+                } catch (CompletionException e) {
+                    // empty on purpose
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a reader and reads the objects its pages use, giving each a place in a new renumbering map. The pages
+     * themselves are left out, they are numbered as they are added. The reader is closed if reading fails.
+     */
+    private static PreparedDocument prepareDocument(Callable<PdfReader> source) {
+        PdfReader reader;
+        try {
+            reader = source.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExceptionConverter(e);
+        }
+        PreparedDocument document = new PreparedDocument(reader);
+        try {
+            mapPageObjects(document);
+        } catch (RuntimeException | Error e) {
+            reader.close();
+            throw e;
+        }
+        return document;
+    }
+
+    /**
+     * Gives a place in the renumbering map of a prepared document to each object its pages use.
+     */
+    private static void mapPageObjects(PreparedDocument document) {
+        PdfReader reader = document.reader;
+        ArrayDeque<PdfObject> stack = new ArrayDeque<>();
+        for (int page = reader.getNumberOfPages(); page > 0; --page) {
+            stack.push(reader.getPageN(page));
+        }
+        while (!stack.isEmpty()) {
+            PdfObject obj = stack.pop();
+            switch (obj.type()) {
+                case PdfObject.INDIRECT:
+                    RefKey key = new RefKey((PRIndirectReference) obj);
+                    if (document.indirects.containsKey(key)) {
+                        break;
+                    }
+                    PdfObject target = PdfReader.getPdfObject(obj);
+                    if (target == null || target.isDictionary()
+                            && PdfName.PAGE.equals(PdfReader.getPdfObject(((PdfDictionary) target).get(PdfName.TYPE)))) {
+                        break;
+                    }
+                    IndirectReferences iRef = new IndirectReferences(null);
+                    document.indirects.put(key, iRef);
+                    document.references.add(iRef);
+                    stack.push(target);
+                    break;
+                case PdfObject.DICTIONARY:
+                case PdfObject.STREAM:
+                    PdfDictionary dic = (PdfDictionary) obj;
+                    boolean page = PdfName.PAGE.equals(PdfReader.getPdfObject(dic.get(PdfName.TYPE)));
+                    for (Map.Entry<PdfName, PdfObject> entry : dic.getKeysAndValues()) {
+                        if (entry.getValue() != null && (!page || !entry.getKey().equals(PdfName.B)
+                                && !entry.getKey().equals(PdfName.PARENT))) {
+                            stack.push(entry.getValue());
+                        }
+                    }
+                    break;
+                case PdfObject.ARRAY:
+                    for (PdfObject element : ((PdfArray) obj).getElements()) {
+                        if (element != null) {
+                            stack.push(element);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Numbers the objects of a prepared document, adds its pages and frees its reader. The reader is closed even if
+     * the copy fails.
+     */
+    private void addDocument(PreparedDocument document) throws IOException, BadPdfFormatException {
+        PdfReader reader = document.reader;
+        try {
+            for (IndirectReferences iRef : document.references) {
+                iRef.theRef = body.getPdfIndirectReference();
+            }
+            this.reader = reader;
+            indirects = document.indirects;
+            indirectMap.put(reader, indirects);
+            mapAcroForm(reader);
+            for (int page = 1; page <= reader.getNumberOfPages(); ++page) {
+                addPage(getImportedPage(reader, page));
+            }
+        } finally {
+            freeReader(reader);
+            reader.close();
+        }
+    }
+
     /**
      * Copy the acroform for an input document. Note that you can only have one, we make no effort to merge them.
      *
@@ -475,6 +716,13 @@ public class PdfCopy extends PdfWriter {
 
     public void close() {
         if (open) {
+            if (fontMerger != null) {
+                try {
+                    fontMerger.writeFonts();
+                } catch (IOException e) {
+                    throw new ExceptionConverter(e);
+                }
+            }
             PdfReaderInstance ri = currentPdfReaderInstance;
             pdf.close();
             super.close();
@@ -560,6 +808,20 @@ public class PdfCopy extends PdfWriter {
         }
     }
 
+    /**
+     * A reader opened by <CODE>addDocuments</CODE>, with the renumbering map of the objects its pages use.
+     */
+    private static class PreparedDocument {
+
+        final PdfReader reader;
+        final HashMap<RefKey, IndirectReferences> indirects = new HashMap<>();
+        final List<IndirectReferences> references = new ArrayList<>();
+
+        PreparedDocument(PdfReader reader) {
+            this.reader = reader;
+        }
+    }
+
     /**
      * A key to allow us to hash indirect references
      */
@@ -669,7 +931,7 @@ public class PdfCopy extends PdfWriter {
                 out.append(PdfContents.SAVESTATE);
             }
             PdfStream stream = new PdfStream(out.toByteArray());
-            stream.flateCompress(cstp.getCompressionLevel());
+            stream.flateCompress(cstp.getCompressionLevel(), cstp);
             PdfIndirectReference ref1 = cstp.addToBody(stream).getIndirectReference();
             ar.addFirst(ref1);
             out.reset();
@@ -681,7 +943,7 @@ public class PdfCopy extends PdfWriter {
                 out.append(over.getInternalBuffer());
                 out.append(PdfContents.RESTORESTATE);
                 stream = new PdfStream(out.toByteArray());
-                stream.flateCompress(cstp.getCompressionLevel());
+                stream.flateCompress(cstp.getCompressionLevel(), cstp);
                 ar.add(cstp.addToBody(stream).getIndirectReference());
             }
             pageN.put(PdfName.RESOURCES, pageResources.getResources());
@@ -221,6 +221,16 @@ public class PdfCopyFields
         fc.setFullCompression();
     }
 
+    /**
+     * Sets how the objects are packed in object streams in full compression mode.
+     *
+     * @param objectStreamPolicy the policy or <CODE>null</CODE> for the default policy
+     * @see PdfWriter#setObjectStreamPolicy(PdfObjectStreamPolicy)
+     */
+    public void setObjectStreamPolicy(PdfObjectStreamPolicy objectStreamPolicy) {
+        fc.setObjectStreamPolicy(objectStreamPolicy);
+    }
+
     /**
      * @see com.lowagie.text.pdf.interfaces.PdfEncryptionSettings#setEncryption(byte[], byte[], int, int)
      */
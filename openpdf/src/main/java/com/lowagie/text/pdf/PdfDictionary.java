@@ -192,11 +192,19 @@ public class PdfDictionary extends PdfObject {
      *               <VAR>key</VAR>
      */
     public void put(PdfName key, PdfObject object) {
+        PdfObject old;
         if (object == null || object.isNull()) {
-            hashMap.remove(key);
+            old = hashMap.remove(key);
+            if (old == null) {
+                return;
+            }
         } else {
-            hashMap.put(key, object);
+            old = hashMap.put(key, object);
+            if (object.equals(old)) {
+                return;
+            }
         }
+        markChanged();
     }
 
     /**
@@ -229,6 +237,7 @@ public class PdfDictionary extends PdfObject {
      */
     public void putAll(PdfDictionary dic) {
         hashMap.putAll(dic.hashMap);
+        markChanged();
     }
 
     /**
@@ -238,7 +247,9 @@ public class PdfDictionary extends PdfObject {
      * @param key a <CODE>PdfName</CODE>
      */
     public void remove(PdfName key) {
-        hashMap.remove(key);
+        if (hashMap.remove(key) != null) {
+            markChanged();
+        }
     }
 
     /**
@@ -246,6 +257,7 @@ public class PdfDictionary extends PdfObject {
      */
     public void clear() {
         this.hashMap.clear();
+        markChanged();
     }
 
     /**
@@ -365,16 +377,29 @@ public class PdfDictionary extends PdfObject {
 
     public void merge(PdfDictionary other) {
         hashMap.putAll(other.hashMap);
+        markChanged();
     }
 
     public void mergeDifferent(PdfDictionary other) {
         for (PdfName key : other.hashMap.keySet()) {
             if (!hashMap.containsKey(key)) {
                 hashMap.put(key, other.hashMap.get(key));
+                markChanged();
             }
         }
     }
 
+    /**
+     * Associates a value to a key without recording a change. Used by the reader for the attributes it completes the
+     * pages with, like the ones inherited from the page tree, which are not changes to the document.
+     *
+     * @param key   a <CODE>PdfName</CODE>
+     * @param value the <CODE>PdfObject</CODE> to be associated to the <VAR>key</VAR>
+     */
+    void putUntracked(PdfName key, PdfObject value) {
+        hashMap.put(key, value);
+    }
+
     // DOWNCASTING GETTERS
     // @author Mark A Storer (2/17/06)
 
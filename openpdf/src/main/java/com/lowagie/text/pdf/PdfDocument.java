@@ -845,6 +845,7 @@ public class PdfDocument extends Document {
             calculateOutlineCount();
             writeOutlines();
         } catch (Exception e) {
+            writer.deleteSpillFiles();
             throw new ExceptionConverter(e);
         }
 
@@ -981,8 +982,12 @@ public class PdfDocument extends Document {
                 int pageIdValue = writer.getStructureTreeRoot()
                         .getOrCreatePageKey(writer.getCurrentPageNumber() - 1);
                 page.put(PdfName.STRUCTPARENTS, new PdfNumber(pageIdValue));
+                if (writer.isIncrementalStructures()) {
+                    writer.getStructureTreeRoot().flushPage(writer.getCurrentPageNumber() - 1);
+                }
             }
 
+            PdfContentByte pageText = text;
             if (text.size() > textEmptySize) {
                 text.endText();
             } else {
@@ -990,6 +995,9 @@ public class PdfDocument extends Document {
             }
             writer.add(page, new PdfContents(writer.getDirectContentUnder(), graphics, text, writer.getDirectContent(),
                     pageSize));
+            // the page is written, its buffers go to the next pages
+            graphics.releaseContent();
+            pageText.releaseContent();
             // we initialize the new page
             initPage();
         } catch (DocumentException | IOException de) {
@@ -1919,7 +1927,7 @@ public class PdfDocument extends Document {
      * Updates the count in the outlines.
      */
     void calculateOutlineCount() {
-        if (rootOutline.getKids().size() == 0) {
+        if (rootOutline.getKids().size() == 0 || writer.isIncrementalStructures()) {
             return;
         }
         traverseOutlineCount(rootOutline);
@@ -1959,6 +1967,11 @@ public class PdfDocument extends Document {
         if (rootOutline.getKids().size() == 0) {
             return;
         }
+        if (writer.isIncrementalStructures()) {
+            // the counts are already known and only the last outlines are left
+            rootOutline.writeOutline(null);
+            return;
+        }
         outlineTree(rootOutline);
         writer.addToBody(rootOutline, rootOutline.indirectReference());
     }
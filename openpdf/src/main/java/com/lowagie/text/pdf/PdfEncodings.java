@@ -48,6 +48,7 @@
 package com.lowagie.text.pdf;
 
 
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.ExceptionConverter;
 import com.lowagie.text.error_messages.MessageLocalization;
 import java.io.BufferedReader;
@@ -119,8 +120,8 @@ public class PdfEncodings {
             244, 245, 246, 247, 248, 249, 250, 251, 252, 253, 254, 255};
     static final IntHashtable winansi = new IntHashtable();
     static final IntHashtable pdfEncoding = new IntHashtable();
-    static final ConcurrentHashMap<String, char[][]> cmaps = new ConcurrentHashMap<>(
-            100, 0.85f, 64);
+    static final FontResourceCache<String, char[][]> cmaps = new FontResourceCache<>(16L << 20,
+            PdfEncodings::getCmapWeight);
     static ConcurrentHashMap<String, ExtraEncoding> extraEncodings = new ConcurrentHashMap<>(
             200, 0.85f, 64);
 
@@ -352,12 +353,30 @@ public class PdfEncodings {
      */
     public static void clearCmap(String name) {
         if (name.length() == 0) {
-            cmaps.clear();
+            cmaps.invalidateAll();
         } else {
-            cmaps.remove(name);
+            cmaps.invalidate(name);
         }
     }
 
+    /**
+     * Gets the cache of the CJK cmaps. Its maximum weight, the memory used by the cmaps in bytes, can be changed and
+     * its counters read.
+     *
+     * @return the cache of the CJK cmaps
+     */
+    public static FontResourceCache<String, char[][]> getCmapCache() {
+        return cmaps;
+    }
+
+    private static long getCmapWeight(char[][] planes) {
+        long weight = 16L * planes.length;
+        for (char[] plane : planes) {
+            weight += 2L * plane.length;
+        }
+        return weight;
+    }
+
     /**
      * Loads a CJK cmap to the cache with the option of associating sequences to the newline.
      *
@@ -366,13 +385,8 @@ public class PdfEncodings {
      */
     public static void loadCmap(String name, byte[][] newline) {
         try {
-            char[][] planes = null;
-            planes = cmaps.get(name);
-            if (planes == null) {
-                planes = readCmap(name, newline);
-                cmaps.putIfAbsent(name, planes);
-            }
-        } catch (IOException e) {
+            cmaps.get(name, () -> readCmap(name, newline));
+        } catch (IOException | DocumentException e) {
             throw new ExceptionConverter(e);
         }
     }
@@ -404,14 +418,9 @@ public class PdfEncodings {
     public static String convertCmap(String name, byte[] seq, int start,
             int length) {
         try {
-            char[][] planes = null;
-            planes = cmaps.get(name);
-            if (planes == null) {
-                planes = readCmap(name, (byte[][]) null);
-                cmaps.putIfAbsent(name, planes);
-            }
+            char[][] planes = cmaps.get(name, () -> readCmap(name, (byte[][]) null));
             return decodeSequence(seq, start, length, planes);
-        } catch (IOException e) {
+        } catch (IOException | DocumentException e) {
             throw new ExceptionConverter(e);
         }
     }
@@ -989,6 +989,8 @@ public class PdfGraphics2D extends Graphics2D {
         PdfGraphics2D g2 = createChild();
         if (kids == null) {
             kids = new ArrayList<>();
+            // the positions of the kids stay in the buffer until it is disposed
+            cb.getInternalBuffer().lockSpill();
         }
         kids.add(cb.getInternalBuffer().size());
         kids.add(g2);
@@ -1364,6 +1366,7 @@ public class PdfGraphics2D extends Graphics2D {
                 ByteBuffer buf2 = cb.getInternalBuffer();
                 buf2.reset();
                 buf2.append(buf);
+                buf2.unlockSpill();
             }
         }
     }
@@ -82,6 +82,20 @@ public class PdfImage extends PdfStream {
      */
 
     public PdfImage(Image image, String name, PdfIndirectReference maskRef) throws BadPdfFormatException {
+        this(image, name, maskRef, null);
+    }
+
+    /**
+     * Constructs a <CODE>PdfImage</CODE>-object to be added to a writer, the raw image data being compressed on the
+     * compression executor of the writer if it has one.
+     *
+     * @param image   the <CODE>Image</CODE>-object
+     * @param name    the <CODE>PdfName</CODE> for this image
+     * @param maskRef the <CODE>PdfIndirectReference</CODE>
+     * @param writer  the writer or <CODE>null</CODE>
+     * @throws BadPdfFormatException on error
+     */
+    PdfImage(Image image, String name, PdfIndirectReference maskRef, PdfWriter writer) throws BadPdfFormatException {
         super();
         this.name = new PdfName(name);
         put(PdfName.TYPE, PdfName.XOBJECT);
@@ -183,7 +197,7 @@ public class PdfImage extends PdfStream {
                     if (image.isDeflated()) {
                         put(PdfName.FILTER, PdfName.FLATEDECODE);
                     } else {
-                        flateCompress(image.getCompressionLevel());
+                        flateCompress(image.getCompressionLevel(), writer);
                     }
                 }
                 return;
@@ -0,0 +1,280 @@
+package com.lowagie.text.pdf;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The properties of a document needed to classify it, read without loading the document.
+ * <p>
+ * Only the cross reference chain, the trailer, the catalog, the information dictionary and the metadata stream are
+ * read, as with a {@link PdfReader} in partial mode. The page count is taken from the <CODE>/Count</CODE> of the page
+ * tree root when it agrees with the counts of its kids, the page tree is walked otherwise.
+ * <pre>
+ * PdfInspection inspection = PdfInspection.inspect("document.pdf");
+ * int pages = inspection.getNumberOfPages();
+ * </pre>
+ */
+public final class PdfInspection {
+
+    private final int numberOfPages;
+    private final boolean pageCountFromTree;
+    private final char pdfVersion;
+    private final PdfName catalogVersion;
+    private final Map<String, String> info;
+    private final byte[] metadata;
+    private final boolean encrypted;
+    private final int permissions;
+    private final int cryptoMode;
+    private final boolean openedWithFullPermissions;
+    private final boolean rebuilt;
+    private final long fileLength;
+
+    private PdfInspection(PdfReader reader) throws IOException {
+        int count = reader.getNumberOfPages();
+        boolean fromTree = reader.isRebuilt() || !isCountConsistent(reader.getCatalog(), count);
+        this.pageCountFromTree = fromTree;
+        this.numberOfPages = fromTree ? countPages(reader.getCatalog()) : count;
+        this.pdfVersion = reader.getPdfVersion();
+        this.catalogVersion = reader.getCatalog().getAsName(PdfName.VERSION);
+        this.info = Collections.unmodifiableMap(reader.getInfo());
+        this.metadata = reader.getMetadata();
+        this.encrypted = reader.isEncrypted();
+        this.permissions = reader.getPermissions();
+        this.cryptoMode = reader.getCryptoMode();
+        this.openedWithFullPermissions = reader.isOpenedWithFullPermissions();
+        this.rebuilt = reader.isRebuilt();
+        this.fileLength = reader.getFileLengthLong();
+    }
+
+    /**
+     * Inspects a document file.
+     *
+     * @param filename the file name of the document
+     * @return the properties of the document
+     * @throws IOException on error
+     */
+    public static PdfInspection inspect(String filename) throws IOException {
+        return inspect(filename, null);
+    }
+
+    /**
+     * Inspects a document file.
+     *
+     * @param filename      the file name of the document
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @return the properties of the document
+     * @throws IOException on error
+     */
+    public static PdfInspection inspect(String filename, byte[] ownerPassword) throws IOException {
+        try (RandomAccessSource source = new FileChannelRandomAccessSource(Paths.get(filename))) {
+            return inspect(source, ownerPassword);
+        }
+    }
+
+    /**
+     * Inspects a document held in memory.
+     *
+     * @param pdfIn         the byte array with the document
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @return the properties of the document
+     * @throws IOException on error
+     */
+    public static PdfInspection inspect(byte[] pdfIn, byte[] ownerPassword) throws IOException {
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(pdfIn), ownerPassword)) {
+            return new PdfInspection(reader);
+        }
+    }
+
+    /**
+     * Inspects a document read from a source. The source is not closed.
+     *
+     * @param source        the document location
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @return the properties of the document
+     * @throws IOException on error
+     */
+    public static PdfInspection inspect(RandomAccessSource source, byte[] ownerPassword) throws IOException {
+        try (PdfReader reader = new PdfReader(source, ownerPassword, true)) {
+            return new PdfInspection(reader);
+        }
+    }
+
+    /**
+     * Checks the <CODE>/Count</CODE> of the page tree root against the counts of its kids, a kid without
+     * <CODE>/Kids</CODE> being a single page.
+     */
+    private static boolean isCountConsistent(PdfDictionary catalog, int count) {
+        if (count < 0) {
+            return false;
+        }
+        PdfDictionary root = catalog.getAsDict(PdfName.PAGES);
+        if (root == null) {
+            return false;
+        }
+        PdfArray kids = root.getAsArray(PdfName.KIDS);
+        if (kids == null) {
+            return count == 0;
+        }
+        long total = 0;
+        for (int k = 0; k < kids.size(); ++k) {
+            PdfObject kid = PdfReader.getPdfObjectRelease(kids.getPdfObject(k));
+            if (kid == null || !kid.isDictionary()) {
+                return false;
+            }
+            PdfDictionary dic = (PdfDictionary) kid;
+            if (dic.get(PdfName.KIDS) == null) {
+                ++total;
+            } else {
+                PdfObject kidCount = PdfReader.getPdfObjectRelease(dic.get(PdfName.COUNT));
+                if (kidCount == null || !kidCount.isNumber() || ((PdfNumber) kidCount).intValue() < 0) {
+                    return false;
+                }
+                total += ((PdfNumber) kidCount).intValue();
+            }
+        }
+        return total == count;
+    }
+
+    /**
+     * Counts the leaves of the page tree, each node being visited once.
+     */
+    private static int countPages(PdfDictionary catalog) {
+        int pages = 0;
+        Set<Integer> visited = new HashSet<>();
+        ArrayDeque<PdfObject> nodes = new ArrayDeque<>();
+        nodes.push(catalog.get(PdfName.PAGES));
+        while (!nodes.isEmpty()) {
+            PdfObject ref = nodes.pop();
+            if (ref instanceof PRIndirectReference && !visited.add(((PRIndirectReference) ref).getNumber())) {
+                continue;
+            }
+            PdfObject node = PdfReader.getPdfObjectRelease(ref);
+            if (node == null || !node.isDictionary()) {
+                continue;
+            }
+            PdfObject kids = PdfReader.getPdfObjectRelease(((PdfDictionary) node).get(PdfName.KIDS));
+            if (kids == null || !kids.isArray()) {
+                ++pages;
+                continue;
+            }
+            for (PdfObject kid : ((PdfArray) kids).getElements()) {
+                nodes.push(kid);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Gets the number of pages of the document.
+     *
+     * @return the number of pages
+     */
+    public int getNumberOfPages() {
+        return numberOfPages;
+    }
+
+    /**
+     * Tells whether the page count was found by walking the page tree because the <CODE>/Count</CODE> entries could
+     * not be trusted.
+     *
+     * @return <CODE>true</CODE> if the page tree was walked
+     */
+    public boolean isPageCountFromTree() {
+        return pageCountFromTree;
+    }
+
+    /**
+     * Gets the PDF version from the file header, as {@link PdfReader#getPdfVersion()}.
+     *
+     * @return the version, a character from '2' to '7'
+     */
+    public char getPdfVersion() {
+        return pdfVersion;
+    }
+
+    /**
+     * Gets the <CODE>/Version</CODE> entry of the catalog that overrides the header version.
+     *
+     * @return the version or <CODE>null</CODE> if the catalog has none
+     */
+    public PdfName getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    /**
+     * Gets the content of the document information dictionary, as {@link PdfReader#getInfo()}.
+     *
+     * @return an unmodifiable map of the entries
+     */
+    public Map<String, String> getInfo() {
+        return info;
+    }
+
+    /**
+     * Gets the XMP metadata of the catalog, as {@link PdfReader#getMetadata()}.
+     *
+     * @return the metadata or <CODE>null</CODE> if there is none
+     */
+    public byte[] getMetadata() {
+        return metadata == null ? null : metadata.clone();
+    }
+
+    /**
+     * Tells whether the document is encrypted.
+     *
+     * @return <CODE>true</CODE> if the document is encrypted
+     */
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    /**
+     * Gets the encryption permissions, as {@link PdfReader#getPermissions()}.
+     *
+     * @return the permissions
+     */
+    public int getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * Gets the encryption type, as {@link PdfReader#getCryptoMode()}.
+     *
+     * @return the crypto mode or -1 if the document is not encrypted
+     */
+    public int getCryptoMode() {
+        return cryptoMode;
+    }
+
+    /**
+     * Tells whether the document could be modified with the given password.
+     *
+     * @return <CODE>true</CODE> if the document was opened with full permissions
+     */
+    public boolean isOpenedWithFullPermissions() {
+        return openedWithFullPermissions;
+    }
+
+    /**
+     * Tells whether the cross reference was damaged and had to be rebuilt.
+     *
+     * @return <CODE>true</CODE> if the cross reference was rebuilt
+     */
+    public boolean isRebuilt() {
+        return rebuilt;
+    }
+
+    /**
+     * Gets the length of the file.
+     *
+     * @return the length in bytes
+     */
+    public long getFileLength() {
+        return fileLength;
+    }
+}
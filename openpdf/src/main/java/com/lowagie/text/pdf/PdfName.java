@@ -50,9 +50,8 @@
 package com.lowagie.text.pdf;
 
 import com.lowagie.text.error_messages.MessageLocalization;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -73,6 +72,22 @@ import java.util.Map;
 
 public class PdfName extends PdfObject implements Comparable<PdfName> {
 
+    /**
+     * map strings to all known static names
+     *
+     * @since 2.1.6
+     */
+    public static Map<String, PdfName> staticNames = new HashMap<>();
+
+    /**
+     * The constants of this class keyed by their decoded bytes, in an open addressing table with linear probing. The
+     * constants register themselves while the class is initialized, so these fields come first.
+     */
+    private static byte[][] staticNameKeys = new byte[2048][];
+    private static PdfName[] staticNameValues = new PdfName[2048];
+    private static int staticNameCount;
+    private static boolean initializing = true;
+
     // CLASS CONSTANTS (a variety of standard names used in PDF))
     /**
      * A name.
@@ -2601,6 +2616,10 @@ public class PdfName extends PdfObject implements Comparable<PdfName> {
      * A name
      */
     public static final PdfName STRIKEOUT = new PdfName("StrikeOut");
+    /**
+     * The type of a structure element.
+     */
+    public static final PdfName STRUCTELEM = new PdfName("StructElem");
     /**
      * (Required if the annotation is a structural content item) The integer key of the annotation's entry in the
      * structural parent tree.
@@ -3199,13 +3218,6 @@ public class PdfName extends PdfObject implements Comparable<PdfName> {
      */
     public static final PdfName ZOOM = new PdfName("Zoom");
 
-    /**
-     * map strings to all known static names
-     *
-     * @since 2.1.6
-     */
-    public static Map<String, PdfName> staticNames;
-
     /**
      * List of names used for widget annotations
      */
@@ -3217,27 +3229,12 @@ public class PdfName extends PdfObject implements Comparable<PdfName> {
     private static final ArrayList<PdfName> formfieldNames;
 
     /*
-     * Use reflection to cache all the static public final names so
+     * The static public final names were registered by their constructors, so
      * future <code>PdfName</code> additions don't have to be "added twice".
-     * A bit less efficient (around 50ms spent here on a 2.2ghz machine),
-     *  but Much Less error prone.
      * @since 2.1.6
      */
     static {
-        Field[] fields = PdfName.class.getDeclaredFields();
-        staticNames = new HashMap<>(fields.length);
-        final int flags = Modifier.STATIC | Modifier.PUBLIC | Modifier.FINAL;
-        try {
-            for (Field curFld : fields) {
-                if ((curFld.getModifiers() & flags) == flags &&
-                        curFld.getType().equals(PdfName.class)) {
-                    PdfName name = (PdfName) curFld.get(null);
-                    staticNames.put(decodeName(name.toString()), name);
-                }
-            }
-        } catch (Exception e) {
-            throw new IllegalStateException("The pdfname map could not be initialized!", e);
-        }
+        initializing = false;
 
         widgetNames = new ArrayList<>();
         formfieldNames = new ArrayList<>();
@@ -3272,6 +3269,9 @@ public class PdfName extends PdfObject implements Comparable<PdfName> {
                             String.valueOf(length)));
         }
         bytes = encodeName(name);
+        if (initializing) {
+            registerStaticName(name, this);
+        }
     }
 
     // CLASS VARIABLES
@@ -3367,45 +3367,147 @@ public class PdfName extends PdfObject implements Comparable<PdfName> {
      */
     public static byte[] encodeName(String name) {
         int length = name.length();
+        byte[] plain = new byte[length + 1];
+        plain[0] = '/';
+        for (int k = 0; k < length && plain != null; k++) {
+            char c = (char) (name.charAt(k) & 0xff);
+            if (needsEscape(c)) {
+                plain = null;
+            } else {
+                plain[k + 1] = (byte) c;
+            }
+        }
+        if (plain != null) {
+            return plain;
+        }
         ByteBuffer buf = new ByteBuffer(length + 20);
         buf.append('/');
-        char c;
         char[] chars = name.toCharArray();
         for (int k = 0; k < length; k++) {
-            c = (char) (chars[k] & 0xff);
-            // Escape special characters
-            switch (c) {
-                case ' ':
-                case '%':
-                case '(':
-                case ')':
-                case '<':
-                case '>':
-                case '[':
-                case ']':
-                case '{':
-                case '}':
-                case '/':
-                case '#':
-                    buf.append('#');
-                    buf.append(Integer.toString(c, 16));
-                    break;
-                default:
-                    if (c >= 32 && c <= 126) {
-                        buf.append(c);
-                    } else {
-                        buf.append('#');
-                        if (c < 16) {
-                            buf.append('0');
-                        }
-                        buf.append(Integer.toString(c, 16));
-                    }
-                    break;
-            }
+            appendEncoded(buf, (char) (chars[k] & 0xff));
         }
         return buf.toByteArray();
     }
 
+    /**
+     * Encodes a plain name given by its unescaped bytes, as {@link #encodeName(String)} does.
+     *
+     * @param name   the bytes of the name
+     * @param length the number of bytes
+     * @return the encoded name
+     */
+    static byte[] encodeName(byte[] name, int length) {
+        boolean plain = true;
+        for (int k = 0; k < length && plain; ++k) {
+            plain = !needsEscape((char) (name[k] & 0xff));
+        }
+        if (plain) {
+            byte[] encoded = new byte[length + 1];
+            encoded[0] = '/';
+            System.arraycopy(name, 0, encoded, 1, length);
+            return encoded;
+        }
+        ByteBuffer buf = new ByteBuffer(length + 20);
+        buf.append('/');
+        for (int k = 0; k < length; k++) {
+            appendEncoded(buf, (char) (name[k] & 0xff));
+        }
+        return buf.toByteArray();
+    }
+
+    private static boolean needsEscape(char c) {
+        switch (c) {
+            case ' ':
+            case '%':
+            case '(':
+            case ')':
+            case '<':
+            case '>':
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+            case '/':
+            case '#':
+                return true;
+            default:
+                return c < 32 || c > 126;
+        }
+    }
+
+    private static void appendEncoded(ByteBuffer buf, char c) {
+        if (!needsEscape(c)) {
+            buf.append(c);
+            return;
+        }
+        buf.append('#');
+        if (c < 16) {
+            buf.append('0');
+        }
+        buf.append(Integer.toString(c, 16));
+    }
+
+    /**
+     * Finds the constant of this class with a name given by its unescaped bytes, without building a
+     * <CODE>String</CODE>.
+     *
+     * @param name   the bytes of the name
+     * @param length the number of bytes
+     * @return the constant or <CODE>null</CODE> if there is none
+     */
+    static PdfName findStaticName(byte[] name, int length) {
+        int mask = staticNameKeys.length - 1;
+        int slot = hashBytes(name, length) & mask;
+        byte[] key;
+        while ((key = staticNameKeys[slot]) != null) {
+            if (key.length == length && Arrays.equals(key, 0, length, name, 0, length)) {
+                return staticNameValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static void registerStaticName(String key, PdfName name) {
+        staticNames.put(key, name);
+        if (staticNameCount * 2 >= staticNameKeys.length) {
+            byte[][] keys = staticNameKeys;
+            PdfName[] values = staticNameValues;
+            staticNameKeys = new byte[keys.length * 2][];
+            staticNameValues = new PdfName[keys.length * 2];
+            staticNameCount = 0;
+            for (int k = 0; k < keys.length; ++k) {
+                if (keys[k] != null) {
+                    putStaticName(keys[k], values[k]);
+                }
+            }
+        }
+        putStaticName(PdfEncodings.convertToBytes(key, null), name);
+    }
+
+    private static void putStaticName(byte[] key, PdfName name) {
+        int mask = staticNameKeys.length - 1;
+        int slot = hashBytes(key, key.length) & mask;
+        while (staticNameKeys[slot] != null) {
+            if (Arrays.equals(staticNameKeys[slot], key)) {
+                staticNameValues[slot] = name;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        staticNameKeys[slot] = key;
+        staticNameValues[slot] = name;
+        ++staticNameCount;
+    }
+
+    private static int hashBytes(byte[] b, int length) {
+        int h = 0;
+        for (int k = 0; k < length; ++k) {
+            h = 31 * h + (b[k] & 0xff);
+        }
+        return h ^ (h >>> 16);
+    }
+
     /**
      * Decodes an escaped name given in the form "/AB#20CD" into "AB CD".
      *
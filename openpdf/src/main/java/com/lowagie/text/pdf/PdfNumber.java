@@ -89,6 +89,17 @@ public class PdfNumber extends PdfObject implements Comparable<PdfNumber> {
         }
     }
 
+    /**
+     * Constructs a <CODE>PdfNumber</CODE>-object from the characters of a parsed number and their value.
+     *
+     * @param content the characters of the number
+     * @param value   the value of the characters
+     */
+    PdfNumber(byte[] content, double value) {
+        super(NUMBER, content);
+        this.value = value;
+    }
+
     /**
      * Constructs a new <CODE>PdfNumber</CODE>-object of type integer.
      *
@@ -142,6 +153,15 @@ public class PdfNumber extends PdfObject implements Comparable<PdfNumber> {
         return (int) value;
     }
 
+    /**
+     * Returns the primitive <CODE>long</CODE> value of this object.
+     *
+     * @return The value as <CODE>long</CODE>
+     */
+    public long longValue() {
+        return (long) value;
+    }
+
     /**
      * Returns the primitive <CODE>double</CODE> value of this object.
      *
@@ -415,4 +415,14 @@ public abstract class PdfObject {
     public void setIndRef(PRIndirectReference indRef) {
         this.indRef = indRef;
     }
+
+    /**
+     * Tells the reader this object was read from that it was changed, to write it again when the reader is stamped
+     * in append mode.
+     */
+    void markChanged() {
+        if (indRef != null) {
+            indRef.getReader().markChanged(indRef.getNumber());
+        }
+    }
 }
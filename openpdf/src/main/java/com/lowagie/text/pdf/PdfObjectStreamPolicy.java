@@ -0,0 +1,146 @@
+package com.lowagie.text.pdf;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tells how the objects of a writer in full compression mode are packed in object streams.
+ * <p>
+ * An object stream is written when it holds {@link #getMaxObjects()} objects or when the next object would make it
+ * longer than {@link #getMaxBytes()}. The objects that cannot be packed, like the streams, the catalog and the
+ * encryption dictionary, are always written on their own. The policy applies to {@link PdfWriter}, {@link PdfCopy} and
+ * {@link PdfStamper} alike.
+ * <pre>
+ * PdfObjectStreamPolicy policy = new PdfObjectStreamPolicy();
+ * policy.setMaxObjects(1000);
+ * policy.setDeduplicating(true);
+ * policy.excludeType(PdfName.PAGE);
+ * writer.setFullCompression();
+ * writer.setObjectStreamPolicy(policy);
+ * </pre>
+ */
+public class PdfObjectStreamPolicy {
+
+    /**
+     * The default number of objects in an object stream.
+     */
+    public static final int DEFAULT_MAX_OBJECTS = 200;
+
+    /**
+     * The most objects an object stream can index, the index of an object being written in two bytes in the cross
+     * reference stream.
+     */
+    public static final int MAX_OBJECTS_LIMIT = 65535;
+
+    private int maxObjects = DEFAULT_MAX_OBJECTS;
+    private int maxBytes;
+    private boolean deduplicating;
+    private final Set<PdfName> excludedTypes = new HashSet<>();
+
+    /**
+     * Gets the most objects in an object stream.
+     *
+     * @return the number of objects
+     */
+    public int getMaxObjects() {
+        return maxObjects;
+    }
+
+    /**
+     * Sets the most objects in an object stream. A value below 1 sets the default {@link #DEFAULT_MAX_OBJECTS} and a
+     * value above {@link #MAX_OBJECTS_LIMIT} sets the limit.
+     *
+     * @param maxObjects the number of objects
+     */
+    public void setMaxObjects(int maxObjects) {
+        if (maxObjects < 1) {
+            this.maxObjects = DEFAULT_MAX_OBJECTS;
+        } else {
+            this.maxObjects = Math.min(maxObjects, MAX_OBJECTS_LIMIT);
+        }
+    }
+
+    /**
+     * Gets the most bytes of objects in an object stream, before compression.
+     *
+     * @return the number of bytes or 0 if only the number of objects is limited
+     */
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the most bytes of objects in an object stream, before compression. An object longer than this is still
+     * packed, alone in its stream.
+     *
+     * @param maxBytes the number of bytes or 0 to limit only the number of objects, the default
+     */
+    public void setMaxBytes(int maxBytes) {
+        this.maxBytes = Math.max(maxBytes, 0);
+    }
+
+    /**
+     * Tells whether the identical objects packed in object streams share one reference.
+     *
+     * @return <CODE>true</CODE> if the objects are deduplicated
+     */
+    public boolean isDeduplicating() {
+        return deduplicating;
+    }
+
+    /**
+     * Sets whether the identical objects packed in object streams share one reference. An object added to the writer
+     * without a reference, as with {@link PdfWriter#addToBody(PdfObject)}, is given the reference of the first identical
+     * object packed before it, in any object stream, and is not written again. The objects are compared by a digest of
+     * their bytes. The objects added under a reference given out before are always written.
+     *
+     * @param deduplicating <CODE>true</CODE> to deduplicate the objects, the default is <CODE>false</CODE>
+     */
+    public void setDeduplicating(boolean deduplicating) {
+        this.deduplicating = deduplicating;
+    }
+
+    /**
+     * Keeps the dictionaries with a <CODE>/Type</CODE> out of the object streams, for instance {@link PdfName#PAGE},
+     * {@link PdfName#ANNOT}, {@link PdfName#FONTDESCRIPTOR} or {@link PdfName#STRUCTELEM}.
+     *
+     * @param type the value of <CODE>/Type</CODE>
+     */
+    public void excludeType(PdfName type) {
+        excludedTypes.add(type);
+    }
+
+    /**
+     * Packs again the dictionaries with a <CODE>/Type</CODE> excluded with {@link #excludeType(PdfName)}.
+     *
+     * @param type the value of <CODE>/Type</CODE>
+     */
+    public void includeType(PdfName type) {
+        excludedTypes.remove(type);
+    }
+
+    /**
+     * Gets the values of <CODE>/Type</CODE> of the dictionaries kept out of the object streams.
+     *
+     * @return an unmodifiable set of the types
+     */
+    public Set<PdfName> getExcludedTypes() {
+        return Collections.unmodifiableSet(excludedTypes);
+    }
+
+    /**
+     * Tells whether an object that can be in an object stream is packed. It is called once for each object added to
+     * the body and can be overridden to select the objects otherwise than by type.
+     *
+     * @param object the object
+     * @return <CODE>true</CODE> to pack the object, <CODE>false</CODE> to write it on its own
+     */
+    public boolean canPack(PdfObject object) {
+        if (excludedTypes.isEmpty() || !object.isDictionary()) {
+            return true;
+        }
+        PdfName type = ((PdfDictionary) object).getAsName(PdfName.TYPE);
+        return type == null || !excludedTypes.contains(type);
+    }
+}
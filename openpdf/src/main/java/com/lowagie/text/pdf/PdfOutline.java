@@ -50,8 +50,10 @@
 package com.lowagie.text.pdf;
 
 import com.lowagie.text.Chunk;
+import com.lowagie.text.ExceptionConverter;
 import com.lowagie.text.Font;
 import com.lowagie.text.Paragraph;
+import com.lowagie.text.error_messages.MessageLocalization;
 import java.awt.Color;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -113,6 +115,11 @@ public class PdfOutline extends PdfDictionary {
      */
     private int style = 0;
 
+    /**
+     * <CODE>true</CODE> if the outline was written by a writer with incremental structures.
+     */
+    private boolean written;
+
     // constructors
 
     /**
@@ -460,9 +467,61 @@ public class PdfOutline extends PdfDictionary {
      * @param outline the PdfOutline to add a kid to
      */
     public void addKid(PdfOutline outline) {
+        if (writer != null && writer.isIncrementalStructures()) {
+            if (written) {
+                throw new IllegalStateException(MessageLocalization.getComposedMessage(
+                        "the.outline.1.was.already.written", String.valueOf(get(PdfName.TITLE))));
+            }
+            // the previous kid is complete, it is written and only the last kid is kept
+            try {
+                if (reference == null) {
+                    reference = writer.getPdfIndirectReference();
+                }
+                outline.setIndirectReference(writer.getPdfIndirectReference());
+                if (kids.isEmpty()) {
+                    put(PdfName.FIRST, outline.indirectReference());
+                } else {
+                    PdfOutline previous = kids.remove(kids.size() - 1);
+                    outline.put(PdfName.PREV, previous.indirectReference());
+                    previous.writeOutline(outline.indirectReference());
+                }
+            } catch (IOException e) {
+                throw new ExceptionConverter(e);
+            }
+        }
         kids.add(outline);
     }
 
+    /**
+     * Writes the outline with its last kid, the other kids being already written, and adds the count of the outline
+     * to its parent.
+     *
+     * @param next the reference to the next sibling or <CODE>null</CODE>
+     * @throws IOException on error
+     */
+    void writeOutline(PdfIndirectReference next) throws IOException {
+        if (!kids.isEmpty()) {
+            PdfOutline last = kids.get(kids.size() - 1);
+            last.writeOutline(null);
+            put(PdfName.LAST, last.indirectReference());
+        }
+        if (parent != null) {
+            if (kids.isEmpty()) {
+                parent.count++;
+            } else if (open) {
+                parent.count += count + 1;
+            } else {
+                parent.count++;
+                count = -count;
+            }
+            if (next != null) {
+                put(PdfName.NEXT, next);
+            }
+        }
+        written = true;
+        writer.addToBody(this, reference);
+    }
+
     /**
      * Returns the kids of this outline
      *
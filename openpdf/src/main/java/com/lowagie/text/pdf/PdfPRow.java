@@ -278,6 +278,8 @@ public class PdfPRow {
         }
         for (int k = 0; k < last; ++k) {
             ByteBuffer bb = canvases[k].getInternalBuffer();
+            // the positions stay in the buffer until the canvases are restored
+            bb.lockSpill();
             canvasesPos[k * 2] = bb.size();
             canvases[k].saveState();
             canvases[k].concatCTM(a, b, c, d, e, f);
@@ -298,6 +300,7 @@ public class PdfPRow {
             if (p1 == canvasesPos[k * 2 + 1]) {
                 bb.setSize(canvasesPos[k * 2]);
             }
+            bb.unlockSpill();
         }
     }
 
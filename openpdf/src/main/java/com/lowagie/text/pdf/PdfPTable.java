@@ -839,6 +839,9 @@ public class PdfPTable implements LargeElement {
         PdfContentByte[] canvases = beginWritingRows(canvas);
         float y = writeSelectedRows(colStart, colEnd, rowStart, rowEnd, xPos, yPos, canvases);
         endWritingRows(canvases);
+        for (int k = BACKGROUNDCANVAS; k <= TEXTCANVAS; ++k) {
+            canvases[k].releaseContent();
+        }
 
         if (clip) {
             canvas.restoreState();
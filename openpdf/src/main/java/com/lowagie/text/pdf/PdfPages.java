@@ -72,6 +72,14 @@ public class PdfPages {
     private final PdfWriter writer;
     private int leafSize = 10;
     private PdfIndirectReference topParent;
+    private int pageCount;
+    /**
+     * When set, <CODE>pages</CODE> only holds the kids of the last leaf, <CODE>parents</CODE> holds the last node of
+     * each level of the tree, the leaf first, and <CODE>levelKids</CODE> holds the kids of the last nodes above the
+     * leaf. A node is written when it is full and a sibling is needed.
+     */
+    private boolean incremental;
+    private final ArrayList<ArrayList<PdfIndirectReference>> levelKids = new ArrayList<>();
 
     // constructors
 
@@ -83,16 +91,26 @@ public class PdfPages {
         this.writer = writer;
     }
 
+    /**
+     * Writes the leaves of the page tree as soon as they are full instead of keeping the tree to the end. It must be
+     * set before the first page is added.
+     *
+     * @param incremental <CODE>true</CODE> to write the leaves as they fill
+     */
+    void setIncremental(boolean incremental) {
+        if (pageCount == 0) {
+            this.incremental = incremental;
+        }
+    }
+
     void addPage(PdfDictionary page) {
         try {
-            if ((pages.size() % leafSize) == 0) {
-                parents.add(writer.getPdfIndirectReference());
-            }
-            PdfIndirectReference parent = parents.get(parents.size() - 1);
+            PdfIndirectReference parent = nextParent();
             page.put(PdfName.PARENT, parent);
             PdfIndirectReference current = writer.getCurrentPage();
             writer.addToBody(page, current);
             pages.add(current);
+            ++pageCount;
         } catch (Exception e) {
             throw new ExceptionConverter(e);
         }
@@ -100,21 +118,99 @@ public class PdfPages {
 
     PdfIndirectReference addPageRef(PdfIndirectReference pageRef) {
         try {
+            PdfIndirectReference parent = nextParent();
+            pages.add(pageRef);
+            ++pageCount;
+            return parent;
+        } catch (Exception e) {
+            throw new ExceptionConverter(e);
+        }
+    }
+
+    private PdfIndirectReference nextParent() throws IOException {
+        if (!incremental) {
             if ((pages.size() % leafSize) == 0) {
                 parents.add(writer.getPdfIndirectReference());
             }
-            pages.add(pageRef);
             return parents.get(parents.size() - 1);
-        } catch (Exception e) {
-            throw new ExceptionConverter(e);
         }
+        if (parents.isEmpty()) {
+            parents.add(writer.getPdfIndirectReference());
+        } else if (pages.size() == leafSize) {
+            writeFullNode(0);
+            parents.set(0, writer.getPdfIndirectReference());
+        }
+        return parents.get(0);
+    }
+
+    /**
+     * Writes the last node of a level, full.
+     *
+     * @param level the level, 0 for the leaf
+     * @throws IOException on error
+     */
+    private void writeFullNode(int level) throws IOException {
+        PdfIndirectReference parent = addToParent(level);
+        ArrayList<PdfIndirectReference> kids = level == 0 ? pages : levelKids.get(level - 1);
+        long count = 1;
+        for (int k = 0; k <= level; ++k) {
+            count *= leafSize;
+        }
+        writeNode(kids, count, parents.get(level), parent);
+        kids.clear();
+    }
+
+    /**
+     * Makes the last node of a level a kid of the last node of the level above, writing that one first if it is full.
+     *
+     * @param level the level, 0 for the leaf
+     * @return the parent
+     * @throws IOException on error
+     */
+    private PdfIndirectReference addToParent(int level) throws IOException {
+        if (parents.size() == level + 1) {
+            parents.add(writer.getPdfIndirectReference());
+            levelKids.add(new ArrayList<>());
+        } else if (levelKids.get(level).size() == leafSize) {
+            writeFullNode(level + 1);
+            parents.set(level + 1, writer.getPdfIndirectReference());
+        }
+        levelKids.get(level).add(parents.get(level));
+        return parents.get(level + 1);
+    }
+
+    private void writeNode(ArrayList<PdfIndirectReference> kids, long count, PdfIndirectReference ref,
+            PdfIndirectReference parent) throws IOException {
+        PdfDictionary node = new PdfDictionary(PdfName.PAGES);
+        node.put(PdfName.COUNT, new PdfNumber(count));
+        node.put(PdfName.KIDS, new PdfArray(kids));
+        if (parent != null) {
+            node.put(PdfName.PARENT, parent);
+        }
+        writer.addToBody(node, ref);
     }
 
     // returns the top parent to include in the catalog
     PdfIndirectReference writePageTree() throws IOException {
-        if (pages.isEmpty()) {
+        if (pageCount == 0) {
             throw new IOException(MessageLocalization.getComposedMessage("the.document.has.no.pages"));
         }
+        if (incremental) {
+            // the last nodes of the levels hold what is left
+            long leaf = 1;
+            for (int level = 0; level < parents.size(); ++level) {
+                leaf *= leafSize;
+                long count = pageCount % leaf;
+                if (count == 0) {
+                    count = leaf;
+                }
+                ArrayList<PdfIndirectReference> kids = level == 0 ? pages : levelKids.get(level - 1);
+                PdfIndirectReference parent = level + 1 < parents.size() ? addToParent(level) : null;
+                writeNode(kids, count, parents.get(level), parent);
+            }
+            topParent = parents.get(parents.size() - 1);
+            return topParent;
+        }
         int leaf = 1;
         ArrayList<PdfIndirectReference> tParents = parents;
         ArrayList<PdfIndirectReference> tPages = pages;
@@ -175,7 +271,7 @@ public class PdfPages {
 
     int reorderPages(int[] order) throws DocumentException {
         if (order == null) {
-            return pages.size();
+            return pageCount;
         }
         if (parents.size() > 1) {
             throw new DocumentException(MessageLocalization.getComposedMessage(
@@ -62,7 +62,6 @@ import com.lowagie.text.pdf.internal.PdfViewerPreferencesImp;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -71,13 +70,14 @@ import java.security.MessageDigest;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.Executor;
 import java.util.zip.InflaterInputStream;
 
 /**
@@ -91,6 +91,11 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     static final PdfName[] pageInhCandidates = {PdfName.MEDIABOX,
             PdfName.ROTATE, PdfName.RESOURCES, PdfName.CROPBOX};
 
+    /**
+     * The number of decoded object streams kept when the object streams are read lazily.
+     */
+    private static final int DECODED_OBJECT_STREAMS = 4;
+
     private static final byte[] endstream = PdfEncodings
             .convertToBytes("endstream", null);
     private static final byte[] endobj = PdfEncodings.convertToBytes("endobj", null);
@@ -100,9 +105,11 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     // type 0 -> -1, 0
     // type 1 -> offset, 0
     // type 2 -> index, obj num
-    protected int[] xref;
+    // the positions are longs since 2.0.4, this was an int[] before
+    protected long[] xref;
     protected Map<Integer, IntHashtable> objStmMark;
-    protected IntHashtable objStmToOffset;
+    // replaces the protected IntHashtable objStmToOffset since 2.0.4
+    ObjectStreamOffsets objStmToOffset;
     protected boolean newXrefType;
     protected PdfDictionary trailer;
     protected PdfDictionary catalog;
@@ -113,8 +120,8 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     protected boolean rebuilt = false;
     protected int freeXref;
     protected boolean tampered = false;
-    protected int lastXref;
-    protected int eofPos;
+    protected long lastXref;
+    protected long eofPos;
     protected char pdfVersion;
     protected PdfEncryption decrypt;
     protected byte[] password = null; // added by ujihara for decryption
@@ -130,7 +137,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     protected int rValue;
     protected int pValue;
     PdfDictionary rootPages;
-    private List<PdfObject> xrefObj;
+    private XrefObjectCache xrefObj;
     // certificate decryption
     private boolean ownerPasswordUsed;
     // allow the PDF to be modified even if the owner password was not supplied
@@ -138,7 +145,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     private boolean modificationAllowedWithoutOwnerPassword = true;
     private int objNum;
     private int objGen;
-    private int fileLength;
+    private long fileLength;
     private boolean hybridXref;
     private int lastXrefPartial = -1;
     private boolean partial;
@@ -149,14 +156,81 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * Holds value of property appendable.
      */
     private boolean appendable;
+    /**
+     * The numbers of the objects changed since the reader was made appendable.
+     */
+    private IntHashtable changedObjects;
     // Track how deeply nested the current object is, so
     // we know when to return an individual null or boolean, or
     // reuse one of the static ones.
     private int readDepth = 0;
+    /**
+     * The reader the parsed objects belong to. It is this reader except for the parsers of a concurrent reader.
+     */
+    private PdfReader owner = this;
+    private volatile boolean concurrentAccess;
+    /**
+     * One parser per thread when the concurrent access is enabled, each with its own file pointer.
+     */
+    private ThreadLocal<PdfReader> parsers;
+    private List<PdfReader> allParsers;
+    private boolean readObjectStreamsLazily;
+    private boolean parallelXrefRebuild;
+    private Executor xrefRebuildExecutor;
+    /**
+     * The object streams by object number, when they are read lazily.
+     */
+    private Map<Integer, PRStream> objectStreams;
+    private Map<Integer, DecodedObjectStream> decodedObjectStreams;
+    private RandomAccessFileOrArray objectStreamsFile;
 
     protected PdfReader() {
     }
 
+    /**
+     * Creates a parser reading objects on behalf of <CODE>owner</CODE> in a concurrent reader. It shares the cross
+     * reference, the object table, the decryption and the open file of the owner but has its own tokeniser.
+     *
+     * @param owner the reader the objects belong to
+     * @return the parser
+     */
+    private static PdfReader newParser(PdfReader owner) {
+        try {
+            return newParser(owner, new PRTokeniser(owner.tokens.getFile().getSharedCopy()));
+        } catch (IOException e) {
+            throw new ExceptionConverter(e);
+        }
+    }
+
+    /**
+     * Creates a parser reading the objects of a decoded object stream on behalf of <CODE>owner</CODE>, so the
+     * tokeniser of the owner is never swapped while another thread may be using it.
+     *
+     * @param owner the reader the objects belong to
+     * @param b     the decoded object stream
+     * @return the parser
+     */
+    private static PdfReader newObjectStreamParser(PdfReader owner, byte[] b) {
+        PdfReader parser = newParser(owner, new PRTokeniser(b));
+        // the strings of an object stream are not encrypted
+        parser.strings = null;
+        return parser;
+    }
+
+    private static PdfReader newParser(PdfReader owner, PRTokeniser tokens) {
+        PdfReader parser = new PdfReader();
+        parser.owner = owner;
+        parser.tokens = tokens;
+        parser.xref = owner.xref;
+        parser.objStmToOffset = owner.objStmToOffset;
+        parser.xrefObj = owner.xrefObj;
+        parser.decrypt = owner.decrypt;
+        parser.encrypted = owner.encrypted;
+        parser.partial = owner.partial;
+        parser.fileLength = owner.fileLength;
+        return parser;
+    }
+
     /**
      * Reads and parses a PDF document.
      *
@@ -175,7 +249,20 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @throws IOException on error
      */
     public PdfReader(String filename, byte[] ownerPassword) throws IOException {
+        this(filename, ownerPassword, null);
+    }
+
+    /**
+     * Reads and parses a PDF document.
+     *
+     * @param filename      the file name of the document
+     * @param ownerPassword the password to read the document
+     * @param options       the options or <CODE>null</CODE> for the default options
+     * @throws IOException on error
+     */
+    public PdfReader(String filename, byte[] ownerPassword, PdfReaderOptions options) throws IOException {
         password = ownerPassword;
+        setOptions(options);
         tokens = new PRTokeniser(filename);
         readPdf();
     }
@@ -198,7 +285,20 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @throws IOException on error
      */
     public PdfReader(byte[] pdfIn, byte[] ownerPassword) throws IOException {
+        this(pdfIn, ownerPassword, null);
+    }
+
+    /**
+     * Reads and parses a PDF document.
+     *
+     * @param pdfIn         the byte array with the document
+     * @param ownerPassword the password to read the document
+     * @param options       the options or <CODE>null</CODE> for the default options
+     * @throws IOException on error
+     */
+    public PdfReader(byte[] pdfIn, byte[] ownerPassword, PdfReaderOptions options) throws IOException {
         password = ownerPassword;
+        setOptions(options);
         tokens = new PRTokeniser(pdfIn);
         readPdf();
     }
@@ -279,12 +379,74 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     public PdfReader(RandomAccessFileOrArray raf, byte[] ownerPassword)
             throws IOException {
+        this(raf, ownerPassword, null);
+    }
+
+    /**
+     * Reads and parses a pdf document in "partial" mode, as {@link #PdfReader(RandomAccessFileOrArray, byte[])} does.
+     *
+     * @param raf           the document location
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @param options       the options or <CODE>null</CODE> for the default options
+     * @throws IOException on error
+     */
+    public PdfReader(RandomAccessFileOrArray raf, byte[] ownerPassword, PdfReaderOptions options)
+            throws IOException {
         password = ownerPassword;
         partial = true;
+        setOptions(options);
         tokens = new PRTokeniser(raf);
         readPdfPartial();
     }
 
+    /**
+     * Reads and parses a PDF document from a {@link RandomAccessSource}, for example a
+     * {@link MappedWindowRandomAccessSource} for very large files or a {@link ByteBufferRandomAccessSource} for
+     * documents held off-heap. With <CODE>partial</CODE> set only the xref is read into memory and the objects are
+     * read as needed, as with {@link #PdfReader(RandomAccessFileOrArray, byte[])}.
+     * <p>
+     * The source is not closed by the reader, the caller must close it once the reader is no longer used.
+     *
+     * @param source        the document location
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @param partial       <CODE>true</CODE> to read the objects on demand
+     * @throws IOException on error
+     */
+    public PdfReader(RandomAccessSource source, byte[] ownerPassword, boolean partial) throws IOException {
+        this(source, ownerPassword, partial, null);
+    }
+
+    /**
+     * Reads and parses a PDF document from a {@link RandomAccessSource}, as
+     * {@link #PdfReader(RandomAccessSource, byte[], boolean)} does.
+     *
+     * @param source        the document location
+     * @param ownerPassword the password or <CODE>null</CODE> for no password
+     * @param partial       <CODE>true</CODE> to read the objects on demand
+     * @param options       the options or <CODE>null</CODE> for the default options
+     * @throws IOException on error
+     */
+    public PdfReader(RandomAccessSource source, byte[] ownerPassword, boolean partial, PdfReaderOptions options)
+            throws IOException {
+        password = ownerPassword;
+        this.partial = partial;
+        setOptions(options);
+        tokens = new PRTokeniser(source);
+        if (partial) {
+            readPdfPartial();
+        } else {
+            readPdf();
+        }
+    }
+
+    private void setOptions(PdfReaderOptions options) {
+        if (options != null) {
+            readObjectStreamsLazily = options.isLazyObjectStreams();
+            parallelXrefRebuild = options.isParallelXrefRebuild();
+            xrefRebuildExecutor = options.getXrefRebuildExecutor();
+        }
+    }
+
     /**
      * Creates an independent duplicate.
      *
@@ -308,7 +470,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         }
         this.pValue = reader.pValue;
         this.rValue = reader.rValue;
-        this.xrefObj = new ArrayList<>(reader.xrefObj);
+        this.xrefObj = new XrefObjectCache(reader.xrefObj.size());
         for (int k = 0; k < reader.xrefObj.size(); ++k) {
             this.xrefObj.set(k,
                     duplicatePdfObject(reader.xrefObj.get(k), this));
@@ -322,6 +484,16 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         this.hybridXref = reader.hybridXref;
         this.objStmToOffset = reader.objStmToOffset;
         this.xref = reader.xref;
+        if (reader.objectStreams != null) {
+            synchronized (reader.objectStreams) {
+                this.xref = reader.xref.clone();
+                this.objectStreams = new HashMap<>();
+                for (Map.Entry<Integer, PRStream> entry : reader.objectStreams.entrySet()) {
+                    this.objectStreams.put(entry.getKey(), (PRStream) duplicatePdfObject(entry.getValue(), this));
+                }
+                this.decodedObjectStreams = newDecodedObjectStreams();
+            }
+        }
         this.cryptoRef = (PRIndirectReference) duplicatePdfObject(reader.cryptoRef,
                 this);
         this.ownerPasswordUsed = reader.ownerPasswordUsed;
@@ -423,6 +595,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                             obj = new PdfName(obj.getBytes());
                             break;
                     }
+                    if (obj.getIndRef() == null) {
+                        setIndRefToDirectObjects(obj, ref);
+                    }
                     obj.setIndRef(ref);
                 }
                 return obj;
@@ -477,6 +652,33 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         return getPdfObject(obj);
     }
 
+    /**
+     * Gives the reference of an object to the dictionaries and arrays it holds directly, to track their changes in
+     * append mode.
+     *
+     * @param obj the object
+     * @param ref the reference of the object
+     */
+    private static void setIndRefToDirectObjects(PdfObject obj, PRIndirectReference ref) {
+        if (obj.isArray()) {
+            for (Iterator<PdfObject> i = ((PdfArray) obj).listIterator(); i.hasNext(); ) {
+                setIndRefToDirectObject(i.next(), ref);
+            }
+        } else if (obj.isDictionary() || obj.isStream()) {
+            PdfDictionary dic = (PdfDictionary) obj;
+            for (PdfName key : dic.getKeys()) {
+                setIndRefToDirectObject(dic.get(key), ref);
+            }
+        }
+    }
+
+    private static void setIndRefToDirectObject(PdfObject obj, PRIndirectReference ref) {
+        if (obj != null && (obj.isArray() || obj.isDictionary())) {
+            obj.setIndRef(ref);
+            setIndRefToDirectObjects(obj, ref);
+        }
+    }
+
     /**
      * Returns {@link #getPdfObject(PdfObject, PdfObject)} with applied {@link #convertPdfNull(PdfObject)}.
      */
@@ -485,6 +687,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     }
 
     /**
+     * Frees the object read last in partial mode if it is the object referenced. Nothing is freed while the concurrent
+     * access is enabled.
+     *
      * @param obj an object of {@link PdfObject}
      */
     public static void releaseLastXrefPartial(PdfObject obj) {
@@ -499,6 +704,10 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         }
 
         PdfReader reader = ref.getReader();
+        if (reader.concurrentAccess) {
+            // another thread may be resolving the same object, the slot is shared
+            return;
+        }
         if (reader.partial && reader.lastXrefPartial != -1
                 && reader.lastXrefPartial == ref.getNumber()) {
             reader.xrefObj.set(reader.lastXrefPartial, null);
@@ -536,132 +745,18 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @return the decoded data
      */
     public static byte[] FlateDecode(byte[] in) {
-        byte[] b = FlateDecode(in, true);
-        if (b == null) {
-            return FlateDecode(in, false);
-        }
-        return b;
+        return PdfStreamDecoder.inflate(in, -1);
     }
 
     /**
+     * Applies the PNG or TIFF predictor of the decode parameters, as {@link #getStreamBytes(PRStream)} does.
+     *
      * @param in     the input data
      * @param dicPar an object of {@link PdfObject}
      * @return a byte array
      */
     public static byte[] decodePredictor(byte[] in, PdfObject dicPar) {
-        if (dicPar == null || !dicPar.isDictionary()) {
-            return in;
-        }
-        PdfDictionary dic = (PdfDictionary) dicPar;
-        PdfObject obj = getPdfObject(dic.get(PdfName.PREDICTOR));
-        if (obj == null || !obj.isNumber()) {
-            return in;
-        }
-        int predictor = ((PdfNumber) obj).intValue();
-        if (predictor < 10) {
-            return in;
-        }
-        int width = 1;
-        obj = getPdfObject(dic.get(PdfName.COLUMNS));
-        if (obj != null && obj.isNumber()) {
-            width = ((PdfNumber) obj).intValue();
-        }
-        int colors = 1;
-        obj = getPdfObject(dic.get(PdfName.COLORS));
-        if (obj != null && obj.isNumber()) {
-            colors = ((PdfNumber) obj).intValue();
-        }
-        int bpc = 8;
-        obj = getPdfObject(dic.get(PdfName.BITSPERCOMPONENT));
-        if (obj != null && obj.isNumber()) {
-            bpc = ((PdfNumber) obj).intValue();
-        }
-        DataInputStream dataStream = new DataInputStream(new ByteArrayInputStream(
-                in));
-        ByteArrayOutputStream fout = new ByteArrayOutputStream(in.length);
-        int bytesPerPixel = colors * bpc / 8;
-        int bytesPerRow = (colors * width * bpc + 7) / 8;
-        byte[] curr = new byte[bytesPerRow];
-        byte[] prior = new byte[bytesPerRow];
-
-        // Decode the (sub)image row-by-row
-        while (true) {
-            // Read the filter type byte and a row of data
-            int filter;
-            try {
-                filter = dataStream.read();
-                if (filter < 0) {
-                    return fout.toByteArray();
-                }
-                dataStream.readFully(curr, 0, bytesPerRow);
-            } catch (Exception e) {
-                return fout.toByteArray();
-            }
-
-            switch (filter) {
-                case 0: // PNG_FILTER_NONE
-                    break;
-                case 1: // PNG_FILTER_SUB
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] += curr[i - bytesPerPixel];
-                    }
-                    break;
-                case 2: // PNG_FILTER_UP
-                    for (int i = 0; i < bytesPerRow; i++) {
-                        curr[i] += prior[i];
-                    }
-                    break;
-                case 3: // PNG_FILTER_AVERAGE
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += (byte) (prior[i] / (byte) 2);
-                    }
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        curr[i] = (byte) ((curr[i] + (curr[i - bytesPerPixel] & 0xff) + (prior[i] & 0xff)) / 2);
-                    }
-                    break;
-                case 4: // PNG_FILTER_PAETH
-                    for (int i = 0; i < bytesPerPixel; i++) {
-                        curr[i] += prior[i];
-                    }
-
-                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
-                        int a = curr[i - bytesPerPixel] & 0xff;
-                        int b = prior[i] & 0xff;
-                        int c = prior[i - bytesPerPixel] & 0xff;
-
-                        int p = a + b - c;
-                        int pa = Math.abs(p - a);
-                        int pb = Math.abs(p - b);
-                        int pc = Math.abs(p - c);
-
-                        int ret;
-
-                        if ((pa <= pb) && (pa <= pc)) {
-                            ret = a;
-                        } else if (pb <= pc) {
-                            ret = b;
-                        } else {
-                            ret = c;
-                        }
-                        curr[i] += (byte) (ret);
-                    }
-                    break;
-                default:
-                    // Error -- unknown filter type
-                    throw new RuntimeException(
-                            MessageLocalization.getComposedMessage("png.filter.unknown"));
-            }
-            try {
-                fout.write(curr);
-            } catch (IOException ioe) {
-                // Never happens
-            }
-
-            // Swap curr and prior
-            byte[] tmp = prior;
-            prior = curr;
-            curr = tmp;
-        }
+        return PdfStreamDecoder.decodePredictor(in, dicPar, false);
     }
 
     /**
@@ -700,7 +795,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @return the decoded data
      */
     public static byte[] ASCIIHexDecode(byte[] in) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.length / 2 + 1);
         boolean first = true;
         int n1 = 0;
         for (byte b : in) {
@@ -737,7 +832,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @return the decoded data
      */
     public static byte[] ASCII85Decode(byte[] in) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.length * 4 / 5 + 4);
         int state = 0;
         int[] chn = new int[5];
         for (byte b : in) {
@@ -806,7 +901,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @return the decoded data
      */
     public static byte[] LZWDecode(byte[] in) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(in.length * 2);
         LZWDecoder lzw = new LZWDecoder();
         lzw.decode(in, out);
         return out.toByteArray();
@@ -822,35 +917,22 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     public static byte[] getStreamBytes(PRStream stream,
             RandomAccessFileOrArray file) throws IOException {
-        PdfObject filter = getPdfObjectRelease(stream.get(PdfName.FILTER));
+        List<PdfObject> filters = PdfStreamDecoder.getFilters(stream);
         byte[] b = getStreamBytesRaw(stream, file);
-        List<PdfObject> filters = new ArrayList<>();
-        filters = addFilters(filters, filter);
-        List<PdfObject> dp = new ArrayList<>();
-        PdfObject dpo = getPdfObjectRelease(stream.get(PdfName.DECODEPARMS));
-        if (dpo == null || (!dpo.isDictionary() && !dpo.isArray())) {
-            dpo = getPdfObjectRelease(stream.get(PdfName.DP));
-        }
-        if (dpo != null) {
-            if (dpo.isDictionary()) {
-                dp.add(dpo);
-            } else if (dpo.isArray()) {
-                dp = ((PdfArray) dpo).getElements();
-            }
-        }
+        List<PdfObject> dp = PdfStreamDecoder.getDecodeParms(stream);
         String name;
         for (int j = 0; j < filters.size(); ++j) {
             name = getPdfObjectRelease(filters.get(j))
                     .toString();
+            // /DL is the length of the final output, the predictor that may follow the last filter changes it
+            PdfObject dicParam = j < dp.size() ? dp.get(j) : null;
+            int sizeHint = j == filters.size() - 1 && !PdfStreamDecoder.hasPredictor(dicParam)
+                    ? PdfStreamDecoder.getDecodedLengthHint(stream) : -1;
             switch (name) {
                 case "/FlateDecode":
                 case "/Fl": {
-                    b = FlateDecode(b);
-                    PdfObject dicParam;
-                    if (j < dp.size()) {
-                        dicParam = dp.get(j);
-                        b = decodePredictor(b, dicParam);
-                    }
+                    b = PdfStreamDecoder.inflate(b, sizeHint);
+                    b = PdfStreamDecoder.decodePredictor(b, dicParam, true);
                     break;
                 }
                 case "/ASCIIHexDecode":
@@ -863,11 +945,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     break;
                 case "/LZWDecode": {
                     b = LZWDecode(b);
-                    PdfObject dicParam;
-                    if (j < dp.size()) {
-                        dicParam = dp.get(j);
-                        b = decodePredictor(b, dicParam);
-                    }
+                    b = PdfStreamDecoder.decodePredictor(b, dicParam, true);
                     break;
                 }
                 case "/Crypt":
@@ -913,11 +991,11 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             RandomAccessFileOrArray file) throws IOException {
         PdfReader reader = stream.getReader();
         byte[] b;
-        if (stream.getOffset() < 0) {
+        if (stream.getOffsetLong() < 0) {
             b = stream.getBytes();
         } else {
             b = new byte[stream.getLength()];
-            file.seek(stream.getOffset());
+            file.seek(stream.getOffsetLong());
             file.readFully(b);
             PdfEncryption decrypt = reader.getDecrypt();
             if (decrypt != null) {
@@ -933,8 +1011,10 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     }
                 }
                 if (!skip) {
-                    decrypt.setHashKey(stream.getObjNum(), stream.getObjGen());
-                    b = decrypt.decryptByteArray(b);
+                    synchronized (decrypt) {
+                        decrypt.setHashKey(stream.getObjNum(), stream.getObjGen());
+                        b = decrypt.decryptByteArray(b);
+                    }
                 }
             }
         }
@@ -1323,7 +1403,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
 
     protected void readPdf() throws IOException {
         try {
-            fileLength = tokens.getFile().length();
+            fileLength = tokens.getFile().lengthLong();
             pdfVersion = tokens.checkPdfHeader();
             try {
                 readXref();
@@ -1357,7 +1437,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             strings.clear();
             readPages();
             //eliminateSharedStreams();
-            removeUnusedObjects();
+            if (objectStreams == null) {
+                removeUnusedObjects();
+            }
         } finally {
             try {
                 tokens.close();
@@ -1369,7 +1451,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
 
     protected void readPdfPartial() throws IOException {
         try {
-            fileLength = tokens.getFile().length();
+            fileLength = tokens.getFile().lengthLong();
             pdfVersion = tokens.checkPdfHeader();
             try {
                 readXref();
@@ -1729,11 +1811,14 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     public PdfObject getPdfObject(int idx) {
         try {
+            if (concurrentAccess) {
+                return getPdfObjectConcurrent(idx);
+            }
             lastXrefPartial = -1;
             if (idx < 0 || idx >= xrefObj.size()) {
                 return null;
             }
-            PdfObject obj = xrefObj.get(idx);
+            PdfObject obj = getLoadedObject(idx);
             if (!partial || obj != null) {
                 return obj;
             }
@@ -1751,6 +1836,20 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         }
     }
 
+    private PdfObject getPdfObjectConcurrent(int idx) throws IOException {
+        if (idx < 0 || idx >= xrefObj.size()) {
+            return null;
+        }
+        PdfObject obj = getLoadedObject(idx);
+        if (!partial || obj != null) {
+            return obj;
+        }
+        if (idx * 2 >= xref.length) {
+            return null;
+        }
+        return parsers.get().readSingleObject(idx);
+    }
+
     /**
      *
      */
@@ -1759,9 +1858,13 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     }
 
     /**
-     *
+     * Frees the object read last in partial mode. Nothing is freed while the concurrent access is enabled.
      */
     public void releaseLastXrefPartial() {
+        if (owner.concurrentAccess) {
+            // another thread may be resolving the same object, the slot is shared
+            return;
+        }
         if (partial && lastXrefPartial != -1) {
             xrefObj.set(lastXrefPartial, null);
             lastXrefPartial = -1;
@@ -1780,8 +1883,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * @return an indirect reference
      */
     public PRIndirectReference addPdfObject(PdfObject obj) {
-        xrefObj.add(obj);
-        return new PRIndirectReference(this, xrefObj.size() - 1);
+        return new PRIndirectReference(this, xrefObj.add(obj));
     }
 
     protected void readPages() throws IOException {
@@ -1791,27 +1893,22 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     }
 
     protected void readDocObjPartial() throws IOException {
-        xrefObj = new ArrayList<>(xref.length / 2);
-        xrefObj.addAll(Collections.nCopies(xref.length / 2, null));
+        xrefObj = new XrefObjectCache(xref.length / 2);
         readDecryptedDocObj();
         if (objStmToOffset != null) {
-            int[] keys = objStmToOffset.getKeys();
-            for (int n : keys) {
-                objStmToOffset.put(n, xref[n * 2]);
-                xref[n * 2] = -1;
-            }
+            objStmToOffset.resolve(xref);
         }
     }
 
     protected PdfObject readSingleObject(int k) throws IOException {
         strings.clear();
         int k2 = k * 2;
-        int pos = xref[k2];
+        long pos = xref[k2];
         if (pos < 0) {
             return null;
         }
         if (xref[k2 + 1] > 0) {
-            pos = objStmToOffset.get(xref[k2 + 1]);
+            pos = objStmToOffset.get((int) xref[k2 + 1]);
         }
         if (pos == 0) {
             return null;
@@ -1830,7 +1927,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         }
         objGen = tokens.intValue();
         tokens.nextValidToken();
-        if (!tokens.getStringValue().equals("obj")) {
+        if (!tokens.tokenEquals("obj")) {
             tokens.throwError(MessageLocalization
                     .getComposedMessage("token.obj.expected"));
         }
@@ -1848,9 +1945,16 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             obj = null;
         }
         if (xref[k2 + 1] > 0) {
-            obj = readOneObjStm((PRStream) obj, xref[k2]);
+            obj = readOneObjStm((PRStream) obj, (int) xref[k2]);
+        }
+        if (owner.concurrentAccess && obj != null) {
+            obj = xrefObj.setIfAbsent(k, obj);
+        } else {
+            xrefObj.set(k, obj);
+        }
+        if (obj != null) {
+            xrefObj.loaded(k, obj);
         }
-        xrefObj.set(k, obj);
         return obj;
     }
 
@@ -1858,40 +1962,36 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             throws IOException {
         int first = stream.getAsNumber(PdfName.FIRST).intValue();
         byte[] b = getStreamBytes(stream, tokens.getFile());
-        PRTokeniser saveTokens = tokens;
-        tokens = new PRTokeniser(b);
-        try {
-            int address = 0;
-            boolean ok = true;
-            ++idx;
-            for (int k = 0; k < idx; ++k) {
-                ok = tokens.nextToken();
-                if (!ok) {
-                    break;
-                }
-                if (tokens.getTokenType() != PRTokeniser.TK_NUMBER) {
-                    ok = false;
-                    break;
-                }
-                ok = tokens.nextToken();
-                if (!ok) {
-                    break;
-                }
-                if (tokens.getTokenType() != PRTokeniser.TK_NUMBER) {
-                    ok = false;
-                    break;
-                }
-                address = tokens.intValue() + first;
+        PdfReader parser = newObjectStreamParser(owner, b);
+        PRTokeniser objStmTokens = parser.tokens;
+        int address = 0;
+        boolean ok = true;
+        ++idx;
+        for (int k = 0; k < idx; ++k) {
+            ok = objStmTokens.nextToken();
+            if (!ok) {
+                break;
+            }
+            if (objStmTokens.getTokenType() != PRTokeniser.TK_NUMBER) {
+                ok = false;
+                break;
             }
+            ok = objStmTokens.nextToken();
             if (!ok) {
-                throw new InvalidPdfException(
-                        MessageLocalization.getComposedMessage("error.reading.objstm"));
+                break;
             }
-            tokens.seek(address);
-            return readPRObject();
-        } finally {
-            tokens = saveTokens;
+            if (objStmTokens.getTokenType() != PRTokeniser.TK_NUMBER) {
+                ok = false;
+                break;
+            }
+            address = objStmTokens.intValue() + first;
+        }
+        if (!ok) {
+            throw new InvalidPdfException(
+                    MessageLocalization.getComposedMessage("error.reading.objstm"));
         }
+        objStmTokens.seek(address);
+        return parser.readPRObject();
     }
 
     /**
@@ -1899,8 +1999,8 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     public double dumpPerc() {
         int total = 0;
-        for (PdfObject aXrefObj : xrefObj) {
-            if (aXrefObj != null) {
+        for (int k = 0; k < xrefObj.size(); ++k) {
+            if (xrefObj.get(k) != null) {
                 ++total;
             }
         }
@@ -1909,10 +2009,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
 
     protected void readDocObj() throws IOException {
         List<PdfObject> streams = new ArrayList<>();
-        xrefObj = new ArrayList<>(xref.length / 2);
-        xrefObj.addAll(Collections.nCopies(xref.length / 2, null));
+        xrefObj = new XrefObjectCache(xref.length / 2);
         for (int k = 2; k < xref.length; k += 2) {
-            int pos = xref[k];
+            long pos = xref[k];
             if (pos <= 0 || ((xref.length > k + 1) && (xref[k + 1] > 0))) {
                 continue;
             }
@@ -1930,7 +2029,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             }
             objGen = tokens.intValue();
             tokens.nextValidToken();
-            if (!tokens.getStringValue().equals("obj")) {
+            if (!tokens.tokenEquals("obj")) {
                 tokens.throwError(MessageLocalization
                         .getComposedMessage("token.obj.expected"));
             }
@@ -1949,6 +2048,23 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             checkPRStreamLength((PRStream) stream);
         }
         readDecryptedDocObj();
+        if (objStmMark != null && readObjectStreamsLazily) {
+            Map<Integer, PRStream> lazyStreams = new HashMap<>();
+            for (Integer n : objStmMark.keySet()) {
+                PdfObject stream = xrefObj.get(n);
+                if (stream == null || !stream.isStream()) {
+                    throw new InvalidPdfException(
+                            MessageLocalization.getComposedMessage("error.reading.objstm"));
+                }
+                lazyStreams.put(n, (PRStream) stream);
+                xrefObj.set(n, null);
+            }
+            objectStreams = lazyStreams;
+            decodedObjectStreams = newDecodedObjectStreams();
+            objStmMark = null;
+            // the compressed entries of the cross reference locate the objects
+            return;
+        }
         if (objStmMark != null) {
             for (Object o : objStmMark.entrySet()) {
                 Map.Entry entry = (Map.Entry) o;
@@ -1962,9 +2078,89 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         xref = null;
     }
 
+    /**
+     * Gets an object already read or, if the object streams are read lazily, an object not read yet from an object
+     * stream.
+     *
+     * @param idx the object number
+     * @return the object or <CODE>null</CODE>
+     * @throws IOException on error
+     */
+    private PdfObject getLoadedObject(int idx) throws IOException {
+        PdfObject obj = xrefObj.get(idx);
+        if (obj != null || objectStreams == null) {
+            return obj;
+        }
+        return readCompressedObject(idx);
+    }
+
+    private PdfObject readCompressedObject(int idx) throws IOException {
+        synchronized (objectStreams) {
+            PdfObject obj = xrefObj.get(idx);
+            int k2 = idx * 2;
+            if (obj != null || k2 + 1 >= xref.length || xref[k2 + 1] <= 0) {
+                return obj;
+            }
+            int streamNumber = (int) xref[k2 + 1];
+            int index = (int) xref[k2];
+            DecodedObjectStream decoded = getDecodedObjectStream(streamNumber);
+            if (decoded == null || index < 0 || index >= decoded.addresses.length) {
+                return null;
+            }
+            PdfReader parser = newObjectStreamParser(owner, decoded.bytes);
+            parser.tokens.seek(decoded.addresses[index]);
+            obj = parser.readPRObject();
+            xrefObj.set(idx, obj);
+            // an object is read from its object stream only once, an object that failed is read again when needed
+            xref[k2] = -1;
+            xref[k2 + 1] = 0;
+            return obj;
+        }
+    }
+
+    private DecodedObjectStream getDecodedObjectStream(int streamNumber) throws IOException {
+        DecodedObjectStream decoded = decodedObjectStreams.get(streamNumber);
+        if (decoded != null) {
+            return decoded;
+        }
+        PRStream stream = objectStreams.get(streamNumber);
+        if (stream == null) {
+            return null;
+        }
+        int first = stream.getAsNumber(PdfName.FIRST).intValue();
+        int n = stream.getAsNumber(PdfName.N).intValue();
+        if (objectStreamsFile == null) {
+            objectStreamsFile = getSafeFile();
+            objectStreamsFile.reOpen();
+        }
+        byte[] b = getStreamBytes(stream, objectStreamsFile);
+        PRTokeniser header = new PRTokeniser(b);
+        int[] addresses = new int[n];
+        for (int k = 0; k < n; ++k) {
+            if (!header.nextToken() || header.getTokenType() != PRTokeniser.TK_NUMBER
+                    || !header.nextToken() || header.getTokenType() != PRTokeniser.TK_NUMBER) {
+                throw new InvalidPdfException(
+                        MessageLocalization.getComposedMessage("error.reading.objstm"));
+            }
+            addresses[k] = header.intValue() + first;
+        }
+        decoded = new DecodedObjectStream(b, addresses);
+        decodedObjectStreams.put(streamNumber, decoded);
+        return decoded;
+    }
+
+    private static Map<Integer, DecodedObjectStream> newDecodedObjectStreams() {
+        return new LinkedHashMap<>(DECODED_OBJECT_STREAMS * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DecodedObjectStream> eldest) {
+                return size() > DECODED_OBJECT_STREAMS;
+            }
+        };
+    }
+
     private void checkPRStreamLength(PRStream stream) throws IOException {
-        int fileLength = tokens.length();
-        int start = stream.getOffset();
+        long fileLength = tokens.lengthLong();
+        long start = stream.getOffsetLong();
         boolean calc = false;
         int streamLength = 0;
         PdfObject obj = getPdfObjectRelease(stream.get(PdfName.LENGTH));
@@ -1988,12 +2184,12 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             byte[] tline = new byte[16];
             tokens.seek(start);
             while (true) {
-                int pos = tokens.getFilePointer();
+                long pos = tokens.getFilePointerLong();
                 if (!tokens.readLineSegment(tline)) {
                     break;
                 }
                 if (equalsn(tline, endstream)) {
-                    streamLength = pos - start;
+                    streamLength = (int) (pos - start);
                     break;
                 }
                 if (equalsn(tline, endobj)) {
@@ -2003,7 +2199,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     if (index >= 0) {
                         pos = pos - 16 + index;
                     }
-                    streamLength = pos - start;
+                    streamLength = (int) (pos - start);
                     break;
                 }
             }
@@ -2063,10 +2259,10 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             return;
         }
         if (xref == null) {
-            xref = new int[size];
+            xref = new long[size];
         } else {
             if (xref.length < size) {
-                int[] xref2 = new int[size];
+                long[] xref2 = new long[size];
                 System.arraycopy(xref, 0, xref2, 0, xref.length);
                 xref = xref2;
             }
@@ -2076,9 +2272,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     protected void readXref() throws IOException {
         hybridXref = false;
         newXrefType = false;
-        tokens.seek(tokens.getStartxref());
+        tokens.seek(tokens.getStartxrefLong());
         tokens.nextToken();
-        if (!tokens.getStringValue().equals("startxref")) {
+        if (!tokens.tokenEquals("startxref")) {
             throw new InvalidPdfException(
                     MessageLocalization.getComposedMessage("startxref.not.found"));
         }
@@ -2088,9 +2284,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     MessageLocalization
                             .getComposedMessage("startxref.is.not.followed.by.a.number"));
         }
-        int startxref = tokens.intValue();
+        long startxref = tokens.longValue();
         lastXref = startxref;
-        eofPos = tokens.getFilePointer();
+        eofPos = tokens.getFilePointerLong();
         try {
             if (readXRefStream(startxref)) {
                 newXrefType = true;
@@ -2107,29 +2303,29 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             if (prev == null) {
                 break;
             }
-            if (prev.intValue() == startxref) {
+            if (prev.longValue() == startxref) {
                 throw new InvalidPdfException(
                         MessageLocalization
                                 .getComposedMessage("xref.infinite.loop"));
             }
-            tokens.seek(prev.intValue());
+            tokens.seek(prev.longValue());
             trailer2 = readXrefSection();
         }
     }
 
     protected PdfDictionary readXrefSection() throws IOException {
         tokens.nextValidToken();
-        if (!tokens.getStringValue().equals("xref")) {
+        if (!tokens.tokenEquals("xref")) {
             tokens.throwError(MessageLocalization
                     .getComposedMessage("xref.subsection.not.found"));
         }
         int start;
         int end;
-        int pos;
+        long pos;
         int gen;
         while (true) {
             tokens.nextValidToken();
-            if (tokens.getStringValue().equals("trailer")) {
+            if (tokens.tokenEquals("trailer")) {
                 break;
             }
             if (tokens.getTokenType() != PRTokeniser.TK_NUMBER) {
@@ -2147,9 +2343,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             }
             end = tokens.intValue() + start;
             if (start == 1) { // fix incorrect start number
-                int back = tokens.getFilePointer();
+                long back = tokens.getFilePointerLong();
                 tokens.nextValidToken();
-                pos = tokens.intValue();
+                pos = tokens.longValue();
                 tokens.nextValidToken();
                 gen = tokens.intValue();
                 if (pos == 0 && gen == PdfWriter.GENERATION_MAX) {
@@ -2161,17 +2357,17 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             ensureXrefSize(end * 2);
             for (int k = start; k < end; ++k) {
                 tokens.nextValidToken();
-                pos = tokens.intValue();
+                pos = tokens.longValue();
                 tokens.nextValidToken();
                 tokens.nextValidToken();
                 int p = k * 2;
-                if (tokens.getStringValue().equals("n")) {
+                if (tokens.tokenEquals("n")) {
                     if (xref[p] == 0 && xref[p + 1] == 0) {
                         // if (pos == 0)
                         // tokens.throwError(MessageLocalization.getComposedMessage("file.position.0.cross.reference.entry.in.this.xref.subsection"));
                         xref[p] = pos;
                     }
-                } else if (tokens.getStringValue().equals("f")) {
+                } else if (tokens.tokenEquals("f")) {
                     if (xref[p] == 0 && xref[p + 1] == 0) {
                         xref[p] = -1;
                     }
@@ -2187,7 +2383,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         ensureXrefSize(xrefSize.intValue() * 2);
         PdfObject xrs = trailer.get(PdfName.XREFSTM);
         if (xrs != null && xrs.isNumber()) {
-            int loc = ((PdfNumber) xrs).intValue();
+            long loc = ((PdfNumber) xrs).longValue();
             try {
                 readXRefStream(loc);
                 newXrefType = true;
@@ -2200,7 +2396,28 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         return trailer;
     }
 
+    /**
+     * Reads a cross-reference stream.
+     *
+     * @param ptr the address of the stream
+     * @return <CODE>true</CODE> if a cross-reference stream was read
+     * @throws IOException on error
+     * @deprecated the address may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #readXRefStream(long)}. The reader
+     * only calls {@link #readXRefStream(long)}, overriding this method has no effect
+     */
+    @Deprecated
     protected boolean readXRefStream(int ptr) throws IOException {
+        return readXRefStream((long) ptr);
+    }
+
+    /**
+     * Reads a cross-reference stream and the streams it points to with /Prev.
+     *
+     * @param ptr the address of the stream
+     * @return <CODE>true</CODE> if a cross-reference stream was read
+     * @throws IOException on error
+     */
+    protected boolean readXRefStream(long ptr) throws IOException {
         tokens.seek(ptr);
         int thisStream;
         if (!tokens.nextToken()) {
@@ -2213,7 +2430,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         if (!tokens.nextToken() || tokens.getTokenType() != PRTokeniser.TK_NUMBER) {
             return false;
         }
-        if (!tokens.nextToken() || !tokens.getStringValue().equals("obj")) {
+        if (!tokens.nextToken() || !tokens.tokenEquals("obj")) {
             return false;
         }
         PdfObject object = readPRObject();
@@ -2241,10 +2458,10 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             index = (PdfArray) obj;
         }
         PdfArray w = (PdfArray) stm.get(PdfName.W);
-        int prev = -1;
+        long prev = -1;
         obj = stm.get(PdfName.PREV);
         if (obj != null) {
-            prev = ((PdfNumber) obj).intValue();
+            prev = ((PdfNumber) obj).longValue();
         }
         // Each xref pair is a position
         // type 0 -> -1, 0
@@ -2255,7 +2472,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             objStmMark = new HashMap<>();
         }
         if (objStmToOffset == null && partial) {
-            objStmToOffset = new IntHashtable();
+            objStmToOffset = new ObjectStreamOffsets();
         }
         byte[] b = getStreamBytes(stm, tokens.getFile());
         int bptr = 0;
@@ -2275,7 +2492,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                         type = (type << 8) + (b[bptr++] & 0xff);
                     }
                 }
-                int field2 = 0;
+                long field2 = 0;
                 for (int k = 0; k < wc[1]; ++k) {
                     field2 = (field2 << 8) + (b[bptr++] & 0xff);
                 }
@@ -2296,9 +2513,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                             xref[base] = field3;
                             xref[base + 1] = field2;
                             if (partial) {
-                                objStmToOffset.put(field2, 0);
+                                objStmToOffset.mark((int) field2);
                             } else {
-                                Integer on = field2;
+                                Integer on = (int) field2;
                                 IntHashtable seq = objStmMark.get(on);
                                 if (seq == null) {
                                     seq = new IntHashtable();
@@ -2328,13 +2545,17 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
     protected void rebuildXref() throws IOException {
         hybridXref = false;
         newXrefType = false;
+        if (parallelXrefRebuild) {
+            rebuildXref(XrefScanner.scan(tokens.getFile(), xrefRebuildExecutor));
+            return;
+        }
         tokens.seek(0);
-        int[][] xr = new int[1024][];
+        long[][] xr = new long[1024][];
         int top = 0;
         trailer = null;
         byte[] line = new byte[64];
         for (; ; ) {
-            int pos = tokens.getFilePointer();
+            long pos = tokens.getFilePointerLong();
             if (!tokens.readLineSegment(line)) {
                 break;
             }
@@ -2344,7 +2565,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                 }
                 tokens.seek(pos);
                 tokens.nextToken();
-                pos = tokens.getFilePointer();
+                pos = tokens.getFilePointerLong();
                 try {
                     PdfDictionary dic = (PdfDictionary) readPRObject();
                     if (dic.get(PdfName.ROOT) != null) {
@@ -2364,7 +2585,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                 int gen = obj[1];
                 if (num >= xr.length) {
                     int newLength = num * 2;
-                    int[][] xr2 = new int[newLength][];
+                    long[][] xr2 = new long[newLength][];
                     System.arraycopy(xr, 0, xr2, 0, top);
                     xr = xr2;
                 }
@@ -2372,23 +2593,69 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     top = num + 1;
                 }
                 if (xr[num] == null || gen >= xr[num][1]) {
-                    obj[0] = pos;
-                    xr[num] = obj;
+                    xr[num] = new long[]{pos, gen};
                 }
             }
         }
         if (trailer == null) {
             throw new InvalidPdfException(MessageLocalization.getComposedMessage("trailer.not.found"));
         }
-        xref = new int[top * 2];
+        xref = new long[top * 2];
         for (int k = 0; k < top; ++k) {
-            int[] obj = xr[k];
+            long[] obj = xr[k];
             if (obj != null) {
                 xref[k * 2] = obj[0];
             }
         }
     }
 
+    /**
+     * Rebuilds the cross reference from the object headers and the trailers found by scanning the file in chunks.
+     *
+     * @param chunks the scanned chunks in file order
+     * @throws IOException on error
+     */
+    void rebuildXref(XrefScanner[] chunks) throws IOException {
+        int top = 0;
+        for (XrefScanner chunk : chunks) {
+            for (int k = 0; k < chunk.getObjectCount(); ++k) {
+                top = Math.max(top, chunk.getNumber(k) + 1);
+            }
+        }
+        long[] positions = new long[top * 2];
+        int[] gens = new int[top];
+        Arrays.fill(gens, Integer.MIN_VALUE);
+        for (XrefScanner chunk : chunks) {
+            for (int k = 0; k < chunk.getObjectCount(); ++k) {
+                int num = chunk.getNumber(k);
+                int gen = chunk.getGeneration(k);
+                if (gen >= gens[num]) {
+                    gens[num] = gen;
+                    positions[num * 2] = chunk.getPosition(k);
+                }
+            }
+        }
+        trailer = null;
+        for (XrefScanner chunk : chunks) {
+            for (long pos : chunk.getTrailers()) {
+                tokens.seek(pos);
+                tokens.nextToken();
+                try {
+                    PdfDictionary dic = (PdfDictionary) readPRObject();
+                    if (dic.get(PdfName.ROOT) != null) {
+                        trailer = dic;
+                    }
+                } catch (Exception e) {
+                    // not a trailer, keep looking
+                }
+            }
+        }
+        if (trailer == null) {
+            throw new InvalidPdfException(MessageLocalization.getComposedMessage("trailer.not.found"));
+        }
+        xref = positions;
+    }
+
     protected PdfDictionary readDictionary() throws IOException {
         PdfDictionary dic = new PdfDictionary();
         while (true) {
@@ -2400,7 +2667,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                 tokens.throwError(MessageLocalization
                         .getComposedMessage("dictionary.key.is.not.a.name"));
             }
-            PdfName name = new PdfName(tokens.getStringValue(), false);
+            PdfName name = tokens.getCanonicalName();
             PdfObject obj = readPRObject();
             int type = obj.type();
             if (-type == PRTokeniser.TK_END_DIC) {
@@ -2441,14 +2708,14 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                 ++readDepth;
                 PdfDictionary dic = readDictionary();
                 --readDepth;
-                int pos = tokens.getFilePointer();
+                long pos = tokens.getFilePointerLong();
                 // be careful in the trailer. May not be a "next" token.
                 boolean hasNext;
                 do {
                     hasNext = tokens.nextToken();
                 } while (hasNext && tokens.getTokenType() == PRTokeniser.TK_COMMENT);
 
-                if (hasNext && tokens.getStringValue().equals("stream")) {
+                if (hasNext && tokens.tokenEquals("stream")) {
                     // skip whitespaces
                     int ch;
                     do {
@@ -2460,7 +2727,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     if (ch != '\n') {
                         tokens.backOnePosition(ch);
                     }
-                    PRStream stream = new PRStream(this, tokens.getFilePointer());
+                    PRStream stream = new PRStream(owner, tokens.getFilePointerLong());
                     stream.putAll(dic);
                     // crypto handling
                     stream.setObjNum(objNum, objGen);
@@ -2478,7 +2745,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                 return arr;
             }
             case PRTokeniser.TK_NUMBER:
-                return new PdfNumber(tokens.getStringValue());
+                return tokens.getPdfNumber();
             case PRTokeniser.TK_STRING:
                 PdfString str = new PdfString(tokens.getStringValue(), null)
                         .setHexWriting(tokens.isHexString());
@@ -2490,36 +2757,34 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
 
                 return str;
             case PRTokeniser.TK_NAME: {
-                PdfName cachedName = PdfName.staticNames.get(tokens
-                        .getStringValue());
-                if (readDepth > 0 && cachedName != null) {
+                PdfName cachedName = readDepth > 0 ? tokens.getStaticName() : null;
+                if (cachedName != null) {
                     return cachedName;
                 } else {
                     // an indirect name (how odd...), or a non-standard one
-                    return new PdfName(tokens.getStringValue(), false);
+                    return tokens.getPdfName();
                 }
             }
             case PRTokeniser.TK_REF:
                 int num = tokens.getReference();
-                PRIndirectReference ref = new PRIndirectReference(this, num,
+                PRIndirectReference ref = new PRIndirectReference(owner, num,
                         tokens.getGeneration());
                 return ref;
             case PRTokeniser.TK_ENDOFFILE:
                 throw new IOException(
                         MessageLocalization.getComposedMessage("unexpected.end.of.file"));
             default:
-                String sv = tokens.getStringValue();
-                if ("null".equals(sv)) {
+                if (tokens.tokenEquals("null")) {
                     if (readDepth == 0) {
                         return new PdfNull();
                     } // else
                     return PdfNull.PDFNULL;
-                } else if ("true".equals(sv)) {
+                } else if (tokens.tokenEquals("true")) {
                     if (readDepth == 0) {
                         return new PdfBoolean(true);
                     } // else
                     return PdfBoolean.PDFTRUE;
-                } else if ("false".equals(sv)) {
+                } else if (tokens.tokenEquals("false")) {
                     if (readDepth == 0) {
                         return new PdfBoolean(false);
                     } // else
@@ -2549,8 +2814,10 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         if (dic == null) {
             return null;
         }
-        if (appendable) {
-            dic.setIndRef(pageRefs.getPageOrigRef(pageNum));
+        if (appendable && dic.getIndRef() == null) {
+            PRIndirectReference ref = pageRefs.getPageOrigRef(pageNum);
+            setIndRefToDirectObjects(dic, ref);
+            dic.setIndRef(ref);
         }
         return dic;
     }
@@ -2660,7 +2927,11 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         switch (obj.type()) {
             case PdfObject.INDIRECT: {
                 int xr = ((PRIndirectReference) obj).getNumber();
-                obj = xrefObj.get(xr);
+                try {
+                    obj = getLoadedObject(xr);
+                } catch (IOException e) {
+                    throw new ExceptionConverter(e);
+                }
                 xrefObj.set(xr, null);
                 freeXref = xr;
                 killXref(obj);
@@ -2711,8 +2982,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         freeXref = -1;
         killXref(contents);
         if (freeXref == -1) {
-            xrefObj.add(null);
-            freeXref = xrefObj.size() - 1;
+            freeXref = xrefObj.add(null);
         }
         page.put(PdfName.CONTENTS, new PRIndirectReference(this, freeXref));
         xrefObj.set(freeXref, new PRStream(this, content, compressionLevel));
@@ -2769,9 +3039,8 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             return;
         }
         for (int k = 0; k < newStreams.size(); ++k) {
-            xrefObj.add(newStreams.get(k));
             PRIndirectReference ref = (PRIndirectReference) newRefs.get(k);
-            ref.setNumber(xrefObj.size() - 1, 0);
+            ref.setNumber(xrefObj.add(newStreams.get(k)), 0);
         }
     }
 
@@ -2825,8 +3094,19 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * Gets the byte address of the last xref table.
      *
      * @return the byte address of the last xref table
+     * @deprecated the address may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getLastXrefLong()}
      */
+    @Deprecated
     public int getLastXref() {
+        return RandomAccessFileOrArray.toIntOffset(lastXref);
+    }
+
+    /**
+     * Gets the byte address of the last xref table.
+     *
+     * @return the byte address of the last xref table
+     */
+    public long getLastXrefLong() {
         return lastXref;
     }
 
@@ -2843,8 +3123,19 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * Gets the byte address of the %%EOF marker.
      *
      * @return the byte address of the %%EOF marker
+     * @deprecated the address may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getEofPosLong()}
      */
+    @Deprecated
     public int getEofPos() {
+        return RandomAccessFileOrArray.toIntOffset(eofPos);
+    }
+
+    /**
+     * Gets the byte address of the %%EOF marker.
+     *
+     * @return the byte address of the %%EOF marker
+     */
+    public long getEofPosLong() {
         return eofPos;
     }
 
@@ -3400,6 +3691,19 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     @Override
     public void close() {
+        closeParsers();
+        if (objectStreams != null) {
+            synchronized (objectStreams) {
+                if (objectStreamsFile != null) {
+                    try {
+                        objectStreamsFile.close();
+                    } catch (IOException e) {
+                        throw new ExceptionConverter(e);
+                    }
+                    objectStreamsFile = null;
+                }
+            }
+        }
         if (!partial) {
             return;
         }
@@ -3463,7 +3767,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     PdfObject v = ar.get(k);
                     if (v.isIndirect()) {
                         int num = ((PRIndirectReference) v).getNumber();
-                        if (num < 0 || num >= xrefObj.size() || (!partial && xrefObj.get(num) == null)) {
+                        if (num < 0 || num >= xrefObj.size() || (!partial && getPdfObject(num) == null)) {
                             ar.set(k, PdfNull.PDFNULL);
                             continue;
                         }
@@ -3483,7 +3787,7 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     PdfObject v = dic.get(key);
                     if (v.isIndirect()) {
                         int num = ((PRIndirectReference) v).getNumber();
-                        if (num < 0 || num >= xrefObj.size() || (!partial && xrefObj.get(num) == null)) {
+                        if (num < 0 || num >= xrefObj.size() || (!partial && getPdfObject(num) == null)) {
                             dic.put(key, PdfNull.PDFNULL);
                             continue;
                         }
@@ -3678,6 +3982,95 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         return this.appendable;
     }
 
+    /**
+     * Gets the memory budget of the objects resolved in partial mode.
+     *
+     * @return the budget in bytes, 0 if the objects are kept until they are released
+     */
+    public long getObjectCacheBudget() {
+        return xrefObj.getBudget();
+    }
+
+    /**
+     * Limits the memory used by the objects resolved from now on when the document was opened in partial mode.
+     * <p>
+     * The least recently used objects are dropped when their estimated size exceeds <CODE>budget</CODE>. Dropped
+     * objects stay softly reachable and are read again from the file when they are needed and the garbage collector
+     * reclaimed them, so a pass over all the pages of a huge document runs in a bounded amount of memory. Objects
+     * read while opening the document, the pages and the nodes of the page tree, which hold the attributes inherited by
+     * the pages, and the objects changed through an {@link #setAppendable(boolean) appendable} reader are never dropped.
+     * Any other dropped object read again is a new instance: changes made to it may be lost. Use it to read, not to
+     * stamp.
+     * Reading an object held in memory takes no lock, so the budget doesn't serialize the threads of a reader with
+     * {@link #setConcurrentAccess(boolean) concurrent access}.
+     * <p>
+     * It has no effect if the document was not opened in partial mode.
+     *
+     * @param budget the budget in bytes, 0 to keep the objects until they are released
+     */
+    public void setObjectCacheBudget(long budget) {
+        if (partial) {
+            xrefObj.setBudget(budget);
+        }
+    }
+
+    /**
+     * Getter for property concurrentAccess.
+     *
+     * @return <CODE>true</CODE> if several threads may read pages from this reader at the same time
+     */
+    public boolean isConcurrentAccess() {
+        return concurrentAccess;
+    }
+
+    /**
+     * Allows several threads to read pages, page content and objects from this reader at the same time.
+     * <p>
+     * Each thread parses with its own file pointer and the objects it reads are shared with the other threads. The page
+     * tree is read when the concurrent access is enabled and objects are no longer released in partial mode. Modifying
+     * the document, for example with {@link #setPageContent(int, byte[])} or {@link #killIndirect(PdfObject)}, is not
+     * supported while other threads are reading.
+     *
+     * @param concurrentAccess <CODE>true</CODE> to allow concurrent reading
+     */
+    public synchronized void setConcurrentAccess(boolean concurrentAccess) {
+        if (concurrentAccess == this.concurrentAccess) {
+            return;
+        }
+        if (concurrentAccess) {
+            pageRefs.readPages();
+            allParsers = new ArrayList<>();
+            parsers = ThreadLocal.withInitial(() -> {
+                PdfReader parser = newParser(this);
+                synchronized (allParsers) {
+                    allParsers.add(parser);
+                }
+                return parser;
+            });
+            lastXrefPartial = -1;
+        } else {
+            closeParsers();
+            parsers = null;
+        }
+        this.concurrentAccess = concurrentAccess;
+    }
+
+    private void closeParsers() {
+        if (allParsers == null) {
+            return;
+        }
+        synchronized (allParsers) {
+            for (PdfReader parser : allParsers) {
+                try {
+                    parser.tokens.close();
+                } catch (IOException ignored) {
+                    // the file was only read
+                }
+            }
+            allParsers.clear();
+        }
+    }
+
     /**
      * Setter for property appendable.
      *
@@ -3685,11 +4078,34 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      */
     public void setAppendable(boolean appendable) {
         this.appendable = appendable;
+        changedObjects = appendable ? new IntHashtable() : null;
         if (appendable) {
             getPdfObject(trailer.get(PdfName.ROOT));
         }
     }
 
+    /**
+     * Records that an object of the document was changed. The changes are only recorded when the reader is
+     * appendable.
+     *
+     * @param number the number of the object
+     */
+    void markChanged(int number) {
+        if (changedObjects != null) {
+            changedObjects.put(number, 1);
+            xrefObj.pin(number);
+        }
+    }
+
+    /**
+     * Gets the numbers of the objects of the document changed since the reader was made appendable.
+     *
+     * @return the object numbers, empty if the reader is not appendable
+     */
+    int[] getChangedObjects() {
+        return changedObjects == null ? new int[0] : changedObjects.getKeys();
+    }
+
     /**
      * Getter for property newXrefType.
      *
@@ -3703,8 +4119,19 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
      * Getter for property fileLength.
      *
      * @return Value of property fileLength.
+     * @deprecated the length may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getFileLengthLong()}
      */
+    @Deprecated
     public int getFileLength() {
+        return RandomAccessFileOrArray.toIntOffset(fileLength);
+    }
+
+    /**
+     * Getter for property fileLength.
+     *
+     * @return Value of property fileLength.
+     */
+    public long getFileLengthLong() {
         return fileLength;
     }
 
@@ -3859,6 +4286,20 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
         return com.lowagie.text.DocWriter.getISOBytes(o.toString());
     }
 
+    /**
+     * The content of an object stream and the address of each of its objects.
+     */
+    private static final class DecodedObjectStream {
+
+        private final byte[] bytes;
+        private final int[] addresses;
+
+        private DecodedObjectStream(byte[] bytes, int[] addresses) {
+            this.bytes = bytes;
+            this.addresses = addresses;
+        }
+    }
+
     static class PageRefs {
 
         private final PdfReader reader;
@@ -4110,6 +4551,17 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             pageInh.remove(pageInh.size() - 1);
         }
 
+        /**
+         * Adds the attributes a page inherits from the page tree and doesn't define itself.
+         */
+        private static void inherit(PdfDictionary page, PdfDictionary inherited) {
+            for (PdfName key : inherited.getKeys()) {
+                if (page.get(key) == null) {
+                    page.putUntracked(key, inherited.get(key));
+                }
+            }
+        }
+
         private void iteratePages(PRIndirectReference rpage) {
             PdfDictionary page = (PdfDictionary) getPdfObject(rpage);
             if (page == null) {
@@ -4118,24 +4570,21 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
             PdfArray kidsPR = page.getAsArray(PdfName.KIDS);
             // reference to a leaf
             if (kidsPR == null) {
-                page.put(PdfName.TYPE, PdfName.PAGE);
+                // the reader completes the page, it is not a change to write in append mode
+                page.putUntracked(PdfName.TYPE, PdfName.PAGE);
                 PdfDictionary dic = pageInh.get(pageInh.size() - 1);
-                PdfName key;
-                for (Object o : dic.getKeys()) {
-                    key = (PdfName) o;
-                    if (page.get(key) == null) {
-                        page.put(key, dic.get(key));
-                    }
-                }
+                inherit(page, dic);
                 if (page.get(PdfName.MEDIABOX) == null) {
                     PdfArray arr = new PdfArray(new float[]{0, 0,
                             PageSize.LETTER.getRight(), PageSize.LETTER.getTop()});
-                    page.put(PdfName.MEDIABOX, arr);
+                    page.putUntracked(PdfName.MEDIABOX, arr);
                 }
+                reader.xrefObj.pin(rpage.getNumber());
                 refsn.add(rpage);
             } else {
                 // reference to a branch
-                page.put(PdfName.TYPE, PdfName.PAGES);
+                page.putUntracked(PdfName.TYPE, PdfName.PAGES);
+                reader.xrefObj.pin(rpage.getNumber());
                 pushPageAttributes(page);
                 for (int k = 0; k < kidsPR.size(); ++k) {
                     PdfObject obj = kidsPR.getPdfObject(k);
@@ -4203,7 +4652,9 @@ public class PdfReader implements PdfViewerPreferences, Closeable {
                     }
                     if (n < base + acn) {
                         if (count == null) {
-                            dic.mergeDifferent(acc);
+                            inherit(dic, acc);
+                            // the inherited attributes are only in memory, the page must not be read again
+                            reader.xrefObj.pin(ref.getNumber());
                             return ref;
                         }
                         reader.releaseLastXrefPartial();
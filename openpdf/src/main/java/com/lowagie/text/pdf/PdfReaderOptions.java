@@ -0,0 +1,83 @@
+package com.lowagie.text.pdf;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The options of a {@link PdfReader} that apply while the document is opened. The options are read when the reader is
+ * created, changing them afterwards has no effect on it.
+ * <pre>
+ * PdfReaderOptions options = new PdfReaderOptions();
+ * options.setLazyObjectStreams(true);
+ * PdfReader reader = new PdfReader("document.pdf", null, options);
+ * </pre>
+ */
+public class PdfReaderOptions {
+
+    private boolean lazyObjectStreams;
+    private boolean parallelXrefRebuild;
+    private Executor xrefRebuildExecutor;
+
+    /**
+     * Tells whether the object streams of a document opened in full mode are decoded when one of their objects is first
+     * needed.
+     *
+     * @return <CODE>true</CODE> if the object streams are read lazily
+     */
+    public boolean isLazyObjectStreams() {
+        return lazyObjectStreams;
+    }
+
+    /**
+     * Sets whether the object streams of a document opened in full mode are decoded when one of their objects is first
+     * needed instead of while opening. Opening a compressed document to read its page count or its metadata then only
+     * costs the cross reference and the objects actually read. The unused objects are not removed when opening, call
+     * {@link PdfReader#removeUnusedObjects()} if needed. The file stays open to read the object streams until the reader
+     * is closed.
+     *
+     * @param lazyObjectStreams <CODE>true</CODE> to read the object streams lazily, the default is <CODE>false</CODE>
+     */
+    public void setLazyObjectStreams(boolean lazyObjectStreams) {
+        this.lazyObjectStreams = lazyObjectStreams;
+    }
+
+    /**
+     * Tells whether a damaged cross reference is rebuilt by scanning the file in parallel.
+     *
+     * @return <CODE>true</CODE> if the cross reference is rebuilt in parallel
+     */
+    public boolean isParallelXrefRebuild() {
+        return parallelXrefRebuild;
+    }
+
+    /**
+     * Sets whether a damaged cross reference is rebuilt by scanning the file in chunks of at least one megabyte, one per
+     * available processor, in parallel. Each chunk reads the file through a view of its own. The objects found are
+     * merged in file order, the last definition of an object with the highest generation being kept as with the
+     * sequential scan.
+     *
+     * @param parallelXrefRebuild <CODE>true</CODE> to rebuild the cross reference in parallel, the default is
+     *                            <CODE>false</CODE>
+     */
+    public void setParallelXrefRebuild(boolean parallelXrefRebuild) {
+        this.parallelXrefRebuild = parallelXrefRebuild;
+    }
+
+    /**
+     * Gets the executor scanning the chunks of a cross reference rebuilt in parallel.
+     *
+     * @return the executor or <CODE>null</CODE>
+     */
+    public Executor getXrefRebuildExecutor() {
+        return xrefRebuildExecutor;
+    }
+
+    /**
+     * Sets the executor scanning the chunks of a cross reference rebuilt in parallel.
+     *
+     * @param xrefRebuildExecutor the executor or <CODE>null</CODE> to scan the chunks on threads started for the rebuild
+     *                            and stopped after it
+     */
+    public void setXrefRebuildExecutor(Executor xrefRebuildExecutor) {
+        this.xrefRebuildExecutor = xrefRebuildExecutor;
+    }
+}
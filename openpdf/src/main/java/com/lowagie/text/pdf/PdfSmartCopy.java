@@ -55,9 +55,13 @@ import com.lowagie.text.DocumentException;
 import com.lowagie.text.ExceptionConverter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
-import java.util.Arrays;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -65,14 +69,29 @@ import java.util.Map;
  * PdfSmartCopy has the same functionality as PdfCopy, but when resources (such as fonts, images,...) are encountered, a
  * reference to these resources is saved in a cache, so that they can be reused. This requires more memory, but reduces
  * the file size of the resulting PDF document.
+ * <p>
+ * The resources are the streams, the font dictionaries and the ICC based color spaces. They are known by a 128-bit
+ * digest of everything they use, the raw bytes of the streams being read straight from the file. The digest of an
+ * indirect object is computed once for each reader, so that the objects shared by several resources are only read
+ * once. The cache holds the resources of all the documents copied.
  */
 
 public class PdfSmartCopy extends PdfCopy {
 
     /**
-     * the cache with the streams and references.
+     * the cache with the digests of the resources and their references.
      */
-    private Map<ByteStore, PdfIndirectReference> streamMap = null;
+    private Map<ObjectDigest, PdfIndirectReference> streamMap = null;
+
+    /**
+     * the digests of the indirect objects of each reader.
+     */
+    private final Map<PdfReader, Map<RefKey, ObjectDigest>> digestMap = new HashMap<>();
+
+    /**
+     * the file of each reader the streams are digested from, open until the reader is freed.
+     */
+    private final Map<PdfReader, RandomAccessFileOrArray> fileMap = new HashMap<>();
 
     /**
      * Creates a PdfSmartCopy instance.
@@ -89,29 +108,29 @@ public class PdfSmartCopy extends PdfCopy {
     /**
      * Translate a PRIndirectReference to a PdfIndirectReference In addition, translates the object numbers, and copies
      * the referenced object to the output file if it wasn't available in the cache yet. If it's in the cache, the
-     * reference to the already used stream is returned.
+     * reference to the already used resource is returned.
      * <p>
      * NB: PRIndirectReferences (and PRIndirectObjects) really need to know what file they came from, because each file
      * has its own namespace. The translation we do from their namespace to ours is *at best* heuristic, and guaranteed
      * to fail under some circumstances.
      */
     protected PdfIndirectReference copyIndirect(PRIndirectReference in) throws IOException, BadPdfFormatException {
+        PdfIndirectReference fontRef = copyMergedFont(in);
+        if (fontRef != null) {
+            return fontRef;
+        }
         PdfObject srcObj = PdfReader.getPdfObjectRelease(in);
-        ByteStore streamKey = null;
-        boolean validStream = false;
+        ObjectDigest digest = null;
         if (srcObj == null) {
             return null;
         }
-        if (srcObj.isStream()) {
-            try {
-                streamKey = new ByteStore((PRStream) srcObj);
-                validStream = true;
-                PdfIndirectReference streamRef = streamMap.get(streamKey);
+        if (isResource(srcObj)) {
+            digest = getDigest(in);
+            if (digest != null) {
+                PdfIndirectReference streamRef = streamMap.get(digest);
                 if (streamRef != null) {
                     return streamRef;
                 }
-            } catch (IOException ioe) {
-                //
             }
         }
 
@@ -136,8 +155,8 @@ public class PdfSmartCopy extends PdfCopy {
         }
         iRef.setCopied();
 
-        if (validStream) {
-            streamMap.put(streamKey, theRef);
+        if (digest != null) {
+            streamMap.put(digest, theRef);
         }
 
         PdfObject obj = copyObject(srcObj);
@@ -145,94 +164,298 @@ public class PdfSmartCopy extends PdfCopy {
         return theRef;
     }
 
-    static class ByteStore {
+    /**
+     * Writes the reader to the document and frees the memory used by it, including the digests of its objects.
+     *
+     * @param reader the <CODE>PdfReader</CODE> to free
+     * @throws IOException on error
+     */
+    @Override
+    public void freeReader(PdfReader reader) throws IOException {
+        digestMap.remove(reader);
+        closeFile(fileMap.remove(reader));
+        super.freeReader(reader);
+    }
 
-        private final int MAX_LEVELS = 100;
-        private byte[] b;
-        private int hash;
-        private MessageDigest md5;
+    /**
+     * Signals that the <CODE>Document</CODE> was closed, also closing the files opened to digest the streams of the
+     * readers not freed.
+     */
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            for (RandomAccessFileOrArray file : fileMap.values()) {
+                closeFile(file);
+            }
+            fileMap.clear();
+        }
+    }
 
-        ByteStore(PRStream str) throws IOException {
+    private static void closeFile(RandomAccessFileOrArray file) {
+        if (file != null) {
             try {
-                md5 = MessageDigest.getInstance("MD5");
-            } catch (Exception e) {
-                throw new ExceptionConverter(e);
+                file.close();
+            } catch (IOException e) {
+                // empty on purpose
             }
-            ByteBuffer bb = new ByteBuffer();
-            int level = MAX_LEVELS;
-            serObject(str, level, bb);
-            this.b = bb.toByteArray();
-            md5 = null;
         }
+    }
 
-        private void serObject(PdfObject obj, int level, ByteBuffer bb) throws IOException {
-            if (level <= 0) {
-                throw new IOException("Max level reached");
+    /**
+     * Checks if an object is shared through the cache: a stream, a font, a font descriptor or an ICC based color
+     * space.
+     */
+    private static boolean isResource(PdfObject obj) {
+        if (obj.isStream()) {
+            return true;
+        }
+        if (obj.isDictionary()) {
+            PdfObject type = PdfReader.getPdfObjectRelease(((PdfDictionary) obj).get(PdfName.TYPE));
+            return PdfName.FONT.equals(type) || PdfName.FONTDESCRIPTOR.equals(type);
+        }
+        if (obj.isArray()) {
+            PdfArray array = (PdfArray) obj;
+            return array.size() == 2 && PdfName.ICCBASED.equals(array.getPdfObject(0));
+        }
+        return false;
+    }
+
+    /**
+     * Gets the digest of an indirect object.
+     *
+     * @return the digest or <CODE>null</CODE> if the object can't be shared
+     */
+    private ObjectDigest getDigest(PRIndirectReference ref) {
+        PdfReader reader = ref.getReader();
+        Map<RefKey, ObjectDigest> digests = digestMap.computeIfAbsent(reader, r -> new HashMap<>());
+        try {
+            RandomAccessFileOrArray file = fileMap.get(reader);
+            if (file == null) {
+                file = reader.getSafeFile();
+                file.reOpen();
+                fileMap.put(reader, file);
             }
-            if (obj == null) {
-                bb.append("$Lnull");
-                return;
+            ObjectDigest digest = new Digester(digests, file).digest(ref);
+            return digest == ObjectDigest.INVALID ? null : digest;
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * The 128-bit digest of an object, the first half of its SHA-256 hash.
+     */
+    static final class ObjectDigest {
+
+        /**
+         * Marks the objects that can't be shared, being part of a loop, too deep or using a page.
+         */
+        static final ObjectDigest INVALID = new ObjectDigest(new byte[16]);
+
+        /**
+         * Marks the objects being digested.
+         */
+        static final ObjectDigest PENDING = new ObjectDigest(new byte[16]);
+
+        private final long high;
+        private final long low;
+
+        ObjectDigest(byte[] b) {
+            long h = 0;
+            long l = 0;
+            for (int k = 0; k < 8; ++k) {
+                h = (h << 8) | (b[k] & 0xff);
+                l = (l << 8) | (b[k + 8] & 0xff);
             }
-            obj = PdfReader.getPdfObject(obj);
-            if (obj.isStream()) {
-                bb.append("$B");
-                serDic((PdfDictionary) obj, level - 1, bb);
-                md5.reset();
-                bb.append(md5.digest(PdfReader.getStreamBytesRaw((PRStream) obj)));
-            } else if (obj.isDictionary()) {
-                serDic((PdfDictionary) obj, level - 1, bb);
-            } else if (obj.isArray()) {
-                serArray((PdfArray) obj, level - 1, bb);
-            } else if (obj.isString()) {
-                bb.append("$S").append(obj.toString());
-            } else if (obj.isName()) {
-                bb.append("$N").append(obj.toString());
-            } else {
-                bb.append("$L").append(obj.toString());
-            }
-        }
-
-        private void serDic(PdfDictionary dic, int level, ByteBuffer bb) throws IOException {
-            bb.append("$D");
-            if (level <= 0) {
-                throw new IOException("Max level reached");
+            high = h;
+            low = l;
+        }
+
+        void update(MessageDigest md) {
+            for (int k = 56; k >= 0; k -= 8) {
+                md.update((byte) (high >>> k));
             }
-            Object[] keys = dic.getKeys().toArray();
-            Arrays.sort(keys);
-            for (Object key : keys) {
-                serObject((PdfObject) key, level, bb);
-                serObject(dic.get((PdfName) key), level, bb);
+            for (int k = 56; k >= 0; k -= 8) {
+                md.update((byte) (low >>> k));
             }
         }
 
-        private void serArray(PdfArray array, int level, ByteBuffer bb) throws IOException {
-            bb.append("$A");
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ObjectDigest)) {
+                return false;
+            }
+            ObjectDigest other = (ObjectDigest) obj;
+            return high == other.high && low == other.low;
+        }
+
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
+
+    /**
+     * Computes the digests of the indirect objects of a reader. An indirect object is digested from its contents, the
+     * indirect objects it uses being replaced by their own digest.
+     */
+    static class Digester {
+
+        private static final int MAX_LEVELS = 100;
+        private final Map<RefKey, ObjectDigest> digests;
+        private final RandomAccessFileOrArray file;
+
+        /**
+         * Creates a digester.
+         *
+         * @param digests the digests already computed for the reader, to be completed
+         * @param file    the open file of the reader, the streams are read from
+         */
+        Digester(Map<RefKey, ObjectDigest> digests, RandomAccessFileOrArray file) {
+            this.digests = digests;
+            this.file = file;
+        }
+
+        /**
+         * Gets the digest of an indirect object.
+         *
+         * @param ref the reference to the object
+         * @return the digest or <CODE>ObjectDigest.INVALID</CODE> if the object can't be shared
+         * @throws IOException on error
+         */
+        ObjectDigest digest(PRIndirectReference ref) throws IOException {
+            return digest(ref, MAX_LEVELS);
+        }
+
+        /**
+         * Gets the digest of an indirect object, the objects it uses counting against the same nesting levels. An object
+         * not digested yet and found too deep can't be shared, nor can the objects using it.
+         */
+        private ObjectDigest digest(PRIndirectReference ref, int level) throws IOException {
+            RefKey key = new RefKey(ref);
+            ObjectDigest digest = digests.get(key);
+            if (digest == ObjectDigest.PENDING) {
+                return ObjectDigest.INVALID;
+            }
+            if (digest != null) {
+                return digest;
+            }
             if (level <= 0) {
-                throw new IOException("Max level reached");
+                return ObjectDigest.INVALID;
             }
-            for (int k = 0; k < array.size(); ++k) {
-                serObject(array.getPdfObject(k), level, bb);
+            digests.put(key, ObjectDigest.PENDING);
+            digest = ObjectDigest.INVALID;
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                if (update(md, PdfReader.getPdfObject(ref), level)) {
+                    digest = new ObjectDigest(md.digest());
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new ExceptionConverter(e);
+            } finally {
+                digests.put(key, digest);
             }
+            return digest;
         }
 
-
-        public boolean equals(Object obj) {
-            if (!(obj instanceof ByteStore)) {
+        /**
+         * Adds an object to a digest.
+         *
+         * @return <CODE>false</CODE> if the object can't be shared
+         */
+        private boolean update(MessageDigest md, PdfObject obj, int level) throws IOException {
+            if (level <= 0) {
                 return false;
             }
-            if (hashCode() != obj.hashCode()) {
-                return false;
+            if (obj == null) {
+                md.update((byte) PdfObject.NULL);
+                return true;
+            }
+            md.update((byte) obj.type());
+            switch (obj.type()) {
+                case PdfObject.INDIRECT:
+                    ObjectDigest digest = digest((PRIndirectReference) obj, level - 1);
+                    if (digest == ObjectDigest.INVALID) {
+                        return false;
+                    }
+                    digest.update(md);
+                    return true;
+                case PdfObject.STREAM:
+                    if (!updateDictionary(md, (PdfDictionary) obj, level)) {
+                        return false;
+                    }
+                    updateStream(md, (PdfStream) obj);
+                    return true;
+                case PdfObject.DICTIONARY:
+                    PdfObject type = ((PdfDictionary) obj).get(PdfName.TYPE);
+                    if (PdfName.PAGE.equals(type) || PdfName.PAGES.equals(type)) {
+                        return false;
+                    }
+                    return updateDictionary(md, (PdfDictionary) obj, level);
+                case PdfObject.ARRAY:
+                    PdfArray array = (PdfArray) obj;
+                    updateLength(md, array.size());
+                    for (PdfObject element : array.getElements()) {
+                        if (!update(md, element, level - 1)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                default:
+                    byte[] b = obj.getBytes();
+                    if (b == null) {
+                        b = PdfEncodings.convertToBytes(obj.toString(), null);
+                    }
+                    updateLength(md, b.length);
+                    md.update(b);
+                    return true;
             }
-            return Arrays.equals(b, ((ByteStore) obj).b);
         }
 
-        public int hashCode() {
-            if (hash == 0) {
-                for (byte b1 : b) {
-                    hash = hash * 31 + (b1 & 0xff);
+        private boolean updateDictionary(MessageDigest md, PdfDictionary dic, int level) throws IOException {
+            List<PdfName> keys = new ArrayList<>(dic.getKeys());
+            Collections.sort(keys);
+            updateLength(md, keys.size());
+            for (PdfName key : keys) {
+                update(md, key, level - 1);
+                if (!update(md, dic.get(key), level - 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Adds the raw bytes of a stream to a digest, reading them straight from the file when they weren't changed
+         * and aren't encrypted.
+         */
+        private void updateStream(MessageDigest md, PdfStream stream) throws IOException {
+            if (!(stream instanceof PRStream)) {
+                byte[] b = stream.getBytes();
+                updateLength(md, b == null ? 0 : b.length);
+                if (b != null) {
+                    md.update(b);
                 }
+                return;
+            }
+            PRStream prStream = (PRStream) stream;
+            PdfReader reader = prStream.getReader();
+            if (prStream.getOffsetLong() < 0 || reader.getDecrypt() != null) {
+                byte[] b = PdfReader.getStreamBytesRaw(prStream);
+                updateLength(md, b.length);
+                md.update(b);
+                return;
             }
-            return hash;
+            updateLength(md, prStream.getLength());
+            file.transferTo(prStream.getOffsetLong(), prStream.getLength(),
+                    new DigestOutputStream(OutputStream.nullOutputStream(), md));
+        }
+
+        private static void updateLength(MessageDigest md, int length) {
+            md.update((byte) (length >>> 24));
+            md.update((byte) (length >>> 16));
+            md.update((byte) (length >>> 8));
+            md.update((byte) length);
         }
     }
-}
\ No newline at end of file
+}
@@ -122,8 +122,8 @@ public class PdfStamper
      * @param reader     the original document. It cannot be reused
      * @param os         the output stream
      * @param pdfVersion the new pdf version or '\0' to keep the same version as the original document
-     * @param append     if <CODE>true</CODE> appends the document changes as a new revision. This is only useful for
-     *                   multiple signatures as nothing is gained in speed or memory
+     * @param append     if <CODE>true</CODE> appends the document changes as a new revision. Only the objects of
+     *                   the reader that were changed and the new objects are written after the original bytes
      * @throws DocumentException on error
      * @throws IOException       on error
      */
@@ -805,6 +805,26 @@ public class PdfStamper
         stamper.setFullCompression();
     }
 
+    /**
+     * Sets how the objects are packed in object streams in full compression mode.
+     *
+     * @param objectStreamPolicy the policy or <CODE>null</CODE> for the default policy
+     * @see PdfWriter#setObjectStreamPolicy(PdfObjectStreamPolicy)
+     */
+    public void setObjectStreamPolicy(PdfObjectStreamPolicy objectStreamPolicy) {
+        stamper.setObjectStreamPolicy(objectStreamPolicy);
+    }
+
+    /**
+     * Sets the most bytes of buffers kept to be reused for the compressed streams.
+     *
+     * @param maxRetainedBytes the most bytes of buffers kept, 0 to allocate new buffers, the default
+     * @see PdfWriter#setByteBufferPoolSize(long)
+     */
+    public void setByteBufferPoolSize(long maxRetainedBytes) {
+        stamper.setByteBufferPoolSize(maxRetainedBytes);
+    }
+
     /**
      * Sets the open and close page additional action.
      *
@@ -839,7 +859,8 @@ public class PdfStamper
     }
 
     /**
-     * To indicate that an object has been changed.
+     * To indicate that an object has been changed. In append mode the dictionaries, arrays and streams of the reader
+     * track their changes, this is only needed for objects changed in other ways.
      *
      * @param obj to be marked as used (=dirty)
      */
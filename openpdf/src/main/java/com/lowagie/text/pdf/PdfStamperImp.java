@@ -148,7 +148,7 @@ class PdfStamperImp extends PdfWriter {
                 this.os.write(buf, 0, n);
             }
             file.close();
-            prevxref = reader.getLastXref();
+            prevxref = reader.getLastXrefLong();
             reader.setAppendable(true);
         } else {
             if (pdfVersion == 0) {
@@ -228,6 +228,7 @@ class PdfStamperImp extends PdfWriter {
         }
         addFieldResources();
         PdfDictionary catalog = reader.getCatalog();
+        // the page tree may have been changed before the reader was appendable, when no change was recorded
         PdfDictionary pages = (PdfDictionary) PdfReader.getPdfObject(catalog.get(PdfName.PAGES));
         markUsed(pages);
         PdfObject acroFormObject = PdfReader.getPdfObject(catalog.get(PdfName.ACROFORM), reader.getCatalog());
@@ -357,6 +358,10 @@ class PdfStamperImp extends PdfWriter {
             alterContents();
             int rootN = ((PRIndirectReference) reader.trailer.get(PdfName.ROOT)).getNumber();
             if (append) {
+                // the objects changed through the reader are written with the ones marked by hand
+                for (int changed : reader.getChangedObjects()) {
+                    marked.put(changed, 1);
+                }
                 int[] keys = marked.getKeys();
                 for (int j : keys) {
                     PdfObject obj = reader.getPdfObjectRelease(j);
@@ -534,7 +539,7 @@ class PdfStamperImp extends PdfWriter {
                 out.append(PdfContents.SAVESTATE);
             }
             PdfStream stream = new PdfStream(out.toByteArray());
-            stream.flateCompress(compressionLevel);
+            stream.flateCompress(compressionLevel, this);
             ar.addFirst(addToBody(stream).getIndirectReference());
             out.reset();
             if (ps.over != null) {
@@ -547,7 +552,7 @@ class PdfStamperImp extends PdfWriter {
                 out.append(buf.getBuffer(), ps.replacePoint, buf.size() - ps.replacePoint);
                 out.append(PdfContents.RESTORESTATE);
                 stream = new PdfStream(out.toByteArray());
-                stream.flateCompress(compressionLevel);
+                stream.flateCompress(compressionLevel, this);
                 ar.add(addToBody(stream).getIndirectReference());
             }
             alterResources(ps);
@@ -125,6 +125,19 @@ public class PdfStream extends PdfDictionary {
     protected long inputStreamLength = -1;
     protected PdfWriter writer;
     protected long rawLength;
+    /**
+     * The compression was requested with {@link #flateCompress(int, PdfWriter)} and is left to the compression
+     * executor of the writer.
+     */
+    private boolean compressionDeferred;
+    /**
+     * The pool of the writer the compressed content takes its array from, or <CODE>null</CODE>.
+     */
+    private ByteBufferPool pool;
+    /**
+     * <CODE>true</CODE> once the content was given back to the pool, after the stream was written.
+     */
+    private boolean released;
 
     // constructors
 
@@ -249,7 +262,8 @@ public class PdfStream extends PdfDictionary {
         }
         try {
             // compress
-            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            ByteArrayOutputStream stream = pool == null ? new ByteArrayOutputStream()
+                    : new ByteBufferPool.PooledOutputStream(pool, getContentSize() >> 1);
             Deflater deflater = new Deflater(compressionLevel);
             DeflaterOutputStream zip = new DeflaterOutputStream(stream, deflater);
             if (streamBytes != null) {
@@ -260,6 +274,7 @@ public class PdfStream extends PdfDictionary {
             zip.close();
             deflater.end();
             // update the object
+            releaseStreamBytes();
             streamBytes = stream;
             bytes = null;
             put(PdfName.LENGTH, new PdfNumber(streamBytes.size()));
@@ -276,6 +291,72 @@ public class PdfStream extends PdfDictionary {
         }
     }
 
+    /**
+     * Compresses the stream, or leaves the compression to the compression executor of the writer when it has one and
+     * the stream is at least {@link PdfWriter#PARALLEL_COMPRESSION_MIN_SIZE} bytes long. A stream left to the executor
+     * keeps its uncompressed content until the body of the writer compresses it, and is compressed when it is written
+     * at the latest. The compressed content takes its array from the buffer pool of the writer, if it has one.
+     *
+     * @param compressionLevel the compression level (0 = best speed, 9 = best compression, -1 is default)
+     * @param writer           the writer the stream is added to, or <CODE>null</CODE>
+     */
+    void flateCompress(int compressionLevel, PdfWriter writer) {
+        if (writer != null) {
+            pool = writer.getByteBufferPool();
+        }
+        if (writer == null || writer.getCompressionExecutor() == null || inputStream != null
+                || getContentSize() < PdfWriter.PARALLEL_COMPRESSION_MIN_SIZE) {
+            flateCompress(compressionLevel);
+            return;
+        }
+        if (Document.compress && !compressed) {
+            this.compressionLevel = compressionLevel;
+            compressionDeferred = true;
+        }
+    }
+
+    /**
+     * Tells whether the compression of the stream is left to the compression executor of a writer.
+     *
+     * @return <CODE>true</CODE> if the stream is still to be compressed
+     */
+    boolean isCompressionDeferred() {
+        return compressionDeferred;
+    }
+
+    /**
+     * Does the compression left to the compression executor. The stream must not be used by other threads meanwhile.
+     */
+    void compressDeferred() {
+        if (compressionDeferred) {
+            compressionDeferred = false;
+            flateCompress(compressionLevel);
+        }
+    }
+
+    /**
+     * Gives the array of the content back to the pool of the writer when the content came from it. It is called when
+     * the stream is written and empties the content, the stream can't be written again.
+     */
+    void releaseStreamBytes() {
+        if (streamBytes instanceof ByteBufferPool.PooledOutputStream) {
+            ((ByteBufferPool.PooledOutputStream) streamBytes).release();
+            released = true;
+        }
+    }
+
+    /**
+     * Gets the size of the content held in memory.
+     *
+     * @return the size in bytes
+     */
+    int getContentSize() {
+        if (streamBytes != null) {
+            return streamBytes.size();
+        }
+        return bytes == null ? 0 : bytes.length;
+    }
+
 //    public int getStreamLength(PdfWriter writer) {
 //        if (dicBytes == null)
 //            toPdf(writer);
@@ -293,6 +374,11 @@ public class PdfStream extends PdfDictionary {
      * @see com.lowagie.text.pdf.PdfDictionary#toPdf(com.lowagie.text.pdf.PdfWriter, java.io.OutputStream)
      */
     public void toPdf(PdfWriter writer, OutputStream os) throws IOException {
+        if (released) {
+            throw new IllegalStateException(MessageLocalization.getComposedMessage(
+                    "the.stream.content.went.back.to.the.buffer.pool.when.it.was.written"));
+        }
+        compressDeferred();
         if (inputStream != null && compressed) {
             put(PdfName.FILTER, PdfName.FLATEDECODE);
         }
@@ -382,6 +468,7 @@ public class PdfStream extends PdfDictionary {
      * @throws IOException on error
      */
     public void writeContent(OutputStream os) throws IOException {
+        compressDeferred();
         if (streamBytes != null) {
             streamBytes.writeTo(os);
         } else if (bytes != null) {
@@ -0,0 +1,613 @@
+package com.lowagie.text.pdf;
+
+import com.lowagie.text.error_messages.MessageLocalization;
+import com.lowagie.text.exceptions.UnsupportedPdfException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes the content of PDF streams with few intermediate copies.
+ * <p>
+ * {@link #openStream(PRStream)} chains the filters of a stream as input streams, so the decoded content can be
+ * consumed without ever being held as a whole, and {@link #decode(PRStream, ByteBuffer)} writes it into a buffer
+ * supplied by the caller. The array based decoding used by {@link PdfReader#getStreamBytes(PRStream)} sizes the
+ * output of the last filter from the <CODE>/DL</CODE> entry when no predictor follows it and applies the predictors in
+ * place. Both decode the predictor rows the same way. {@link Inflater} instances are pooled and reused.
+ */
+public final class PdfStreamDecoder {
+
+    private static final int MAX_POOLED_INFLATERS = 16;
+    private static final ArrayDeque<Inflater> inflaters = new ArrayDeque<>();
+
+    private PdfStreamDecoder() {
+    }
+
+    /**
+     * Opens the content of a stream with all its filters applied.
+     * <p>
+     * The stream bytes are read and decrypted at once, the filters are applied while the returned stream is read.
+     * Reading a corrupted Flate stream throws an <CODE>IOException</CODE> where the error is found, use
+     * {@link PdfReader#getStreamBytes(PRStream)} to recover as much as possible of such a stream.
+     *
+     * @param stream the stream
+     * @return the decoded content
+     * @throws IOException on error
+     */
+    public static InputStream openStream(PRStream stream) throws IOException {
+        InputStream in = new ByteArrayInputStream(PdfReader.getStreamBytesRaw(stream));
+        List<PdfObject> filters = getFilters(stream);
+        List<PdfObject> dp = getDecodeParms(stream);
+        for (int j = 0; j < filters.size(); ++j) {
+            String name = PdfReader.getPdfObjectRelease(filters.get(j)).toString();
+            PdfObject dicParam = j < dp.size() ? dp.get(j) : null;
+            switch (name) {
+                case "/FlateDecode":
+                case "/Fl":
+                    in = openPredictor(new FlateInputStream(in), dicParam);
+                    break;
+                case "/ASCIIHexDecode":
+                case "/AHx":
+                    in = new ASCIIHexInputStream(in);
+                    break;
+                case "/ASCII85Decode":
+                case "/A85":
+                    in = new ByteArrayInputStream(PdfReader.ASCII85Decode(readAll(in)));
+                    break;
+                case "/LZWDecode":
+                    in = openPredictor(new ByteArrayInputStream(PdfReader.LZWDecode(readAll(in))), dicParam);
+                    break;
+                case "/Crypt":
+                    break;
+                default:
+                    in.close();
+                    throw new UnsupportedPdfException(
+                            MessageLocalization.getComposedMessage("the.filter.1.is.not.supported", name));
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Writes the decoded content of a stream into <CODE>out</CODE>, starting at its position.
+     *
+     * @param stream the stream
+     * @param out    the buffer receiving the content
+     * @return the number of bytes written
+     * @throws IOException             on error
+     * @throws BufferOverflowException if the content does not fit in the remaining space of <CODE>out</CODE>
+     */
+    public static int decode(PRStream stream, ByteBuffer out) throws IOException {
+        int start = out.position();
+        try (InputStream in = openStream(stream)) {
+            if (out.hasArray()) {
+                byte[] array = out.array();
+                int offset = out.arrayOffset();
+                int n;
+                while (out.hasRemaining()
+                        && (n = in.read(array, offset + out.position(), out.remaining())) >= 0) {
+                    out.position(out.position() + n);
+                }
+            } else {
+                byte[] chunk = new byte[8192];
+                int n;
+                while (out.hasRemaining() && (n = in.read(chunk, 0, Math.min(chunk.length, out.remaining()))) >= 0) {
+                    out.put(chunk, 0, n);
+                }
+            }
+            if (!out.hasRemaining() && in.read() >= 0) {
+                throw new BufferOverflowException();
+            }
+        }
+        return out.position() - start;
+    }
+
+    /**
+     * Gets the expected length of the decoded content, taken from the <CODE>/DL</CODE> entry.
+     *
+     * @param stream the stream
+     * @return the decoded length or -1 if it is not known
+     */
+    public static int getDecodedLengthHint(PdfDictionary stream) {
+        PdfObject dl = PdfReader.getPdfObjectRelease(stream.get(PdfName.DL));
+        if (dl != null && dl.isNumber()) {
+            int n = ((PdfNumber) dl).intValue();
+            if (n >= 0) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the decode parameters of a filter ask for a supported predictor.
+     *
+     * @param dicPar the decode parameters or <CODE>null</CODE>
+     * @return <CODE>true</CODE> if a predictor is applied after the filter
+     */
+    static boolean hasPredictor(PdfObject dicPar) {
+        return dicPar != null && dicPar.isDictionary() && Predictor.of((PdfDictionary) dicPar) != null;
+    }
+
+    static List<PdfObject> getFilters(PdfDictionary stream) {
+        PdfObject filter = PdfReader.getPdfObjectRelease(stream.get(PdfName.FILTER));
+        List<PdfObject> filters = new ArrayList<>();
+        if (filter != null) {
+            if (filter.isName()) {
+                filters.add(filter);
+            } else if (filter.isArray()) {
+                filters = ((PdfArray) filter).getElements();
+            }
+        }
+        return filters;
+    }
+
+    static List<PdfObject> getDecodeParms(PdfDictionary stream) {
+        List<PdfObject> dp = new ArrayList<>();
+        PdfObject dpo = PdfReader.getPdfObjectRelease(stream.get(PdfName.DECODEPARMS));
+        if (dpo == null || (!dpo.isDictionary() && !dpo.isArray())) {
+            dpo = PdfReader.getPdfObjectRelease(stream.get(PdfName.DP));
+        }
+        if (dpo != null) {
+            if (dpo.isDictionary()) {
+                dp.add(dpo);
+            } else if (dpo.isArray()) {
+                dp = ((PdfArray) dpo).getElements();
+            }
+        }
+        return dp;
+    }
+
+    /**
+     * Inflates <CODE>in</CODE> in a single pass with a pooled {@link Inflater}. A stream that is corrupted or cut
+     * short is decoded again with {@link PdfReader#FlateDecode(byte[], boolean)} to recover as much as possible.
+     *
+     * @param in       the compressed data
+     * @param sizeHint the expected decoded length, or -1 if not known
+     * @return the decoded data
+     */
+    static byte[] inflate(byte[] in, int sizeHint) {
+        Inflater inflater = obtainInflater();
+        try {
+            inflater.setInput(in);
+            // a deflated byte never expands to more than 1032 bytes, do not trust larger hints
+            long size = sizeHint > 0 ? Math.min(sizeHint, in.length * 1032L + 64) : Math.min(in.length * 4L, 1 << 26);
+            byte[] out = new byte[(int) Math.max(64, size)];
+            int len = 0;
+            while (true) {
+                if (len == out.length) {
+                    out = Arrays.copyOf(out, Math.max(out.length * 2, 64));
+                }
+                int n = inflater.inflate(out, len, out.length - len);
+                len += n;
+                if (inflater.finished() || inflater.needsDictionary()) {
+                    break;
+                }
+                if (n == 0 && len < out.length) {
+                    // the input ended before the end of the data
+                    return PdfReader.FlateDecode(in, false);
+                }
+            }
+            return len == out.length ? out : Arrays.copyOf(out, len);
+        } catch (DataFormatException e) {
+            return PdfReader.FlateDecode(in, false);
+        } finally {
+            releaseInflater(inflater);
+        }
+    }
+
+    /**
+     * Applies the PNG or TIFF predictor of <CODE>dicPar</CODE>, if any, to <CODE>in</CODE>. The rows are decoded in
+     * place, a last incomplete row is dropped.
+     *
+     * @param in      the data to decode
+     * @param dicPar  the decode parameters
+     * @param inPlace <CODE>true</CODE> if the content of <CODE>in</CODE> may be overwritten
+     * @return the decoded data
+     */
+    static byte[] decodePredictor(byte[] in, PdfObject dicPar, boolean inPlace) {
+        if (dicPar == null || !dicPar.isDictionary()) {
+            return in;
+        }
+        Predictor predictor = Predictor.of((PdfDictionary) dicPar);
+        if (predictor == null) {
+            return in;
+        }
+        if (!inPlace) {
+            in = in.clone();
+        }
+        int bytesPerRow = predictor.bytesPerRow;
+        int encodedRowLength = predictor.getEncodedRowLength();
+        int len = 0;
+        for (int pos = 0; bytesPerRow > 0 && pos + encodedRowLength <= in.length; pos += encodedRowLength) {
+            // the decoded rows are moved down over the filter type bytes already read
+            predictor.decodeRow(in, pos, in, len, len - bytesPerRow);
+            len += bytesPerRow;
+        }
+        return len == in.length ? in : Arrays.copyOf(in, len);
+    }
+
+    private static InputStream openPredictor(InputStream in, PdfObject dicPar) {
+        if (dicPar == null || !dicPar.isDictionary()) {
+            return in;
+        }
+        Predictor predictor = Predictor.of((PdfDictionary) dicPar);
+        if (predictor == null) {
+            return in;
+        }
+        if (predictor.bytesPerRow == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return new PredictorInputStream(in, predictor);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Inflater obtainInflater() {
+        synchronized (inflaters) {
+            Inflater inflater = inflaters.poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater();
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        synchronized (inflaters) {
+            if (inflaters.size() < MAX_POOLED_INFLATERS) {
+                inflaters.push(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * The PNG and TIFF predictor parameters of a stream.
+     */
+    private static final class Predictor {
+
+        final boolean png;
+        final int bytesPerPixel;
+        final int bytesPerRow;
+        final int bpc;
+
+        private Predictor(boolean png, int colors, int bpc, int width) {
+            this.png = png;
+            this.bpc = bpc;
+            this.bytesPerPixel = colors * bpc / 8;
+            this.bytesPerRow = (colors * width * bpc + 7) / 8;
+        }
+
+        static Predictor of(PdfDictionary dic) {
+            PdfObject obj = PdfReader.getPdfObject(dic.get(PdfName.PREDICTOR));
+            if (obj == null || !obj.isNumber()) {
+                return null;
+            }
+            int predictor = ((PdfNumber) obj).intValue();
+            if (predictor < 10 && predictor != 2) {
+                return null;
+            }
+            int width = 1;
+            obj = PdfReader.getPdfObject(dic.get(PdfName.COLUMNS));
+            if (obj != null && obj.isNumber()) {
+                width = ((PdfNumber) obj).intValue();
+            }
+            int colors = 1;
+            obj = PdfReader.getPdfObject(dic.get(PdfName.COLORS));
+            if (obj != null && obj.isNumber()) {
+                colors = ((PdfNumber) obj).intValue();
+            }
+            int bpc = 8;
+            obj = PdfReader.getPdfObject(dic.get(PdfName.BITSPERCOMPONENT));
+            if (obj != null && obj.isNumber()) {
+                bpc = ((PdfNumber) obj).intValue();
+            }
+            if (predictor == 2 && bpc != 8 && bpc != 16) {
+                // only whole byte samples are supported for the TIFF predictor
+                return null;
+            }
+            Predictor p = new Predictor(predictor >= 10, colors, bpc, width);
+            return p.bytesPerRow >= 0 ? p : null;
+        }
+
+        /**
+         * Gets the length of an encoded row, with the filter type byte of the PNG predictors.
+         */
+        int getEncodedRowLength() {
+            return png ? bytesPerRow + 1 : bytesPerRow;
+        }
+
+        /**
+         * Decodes the encoded row at <CODE>src</CODE> into the row at <CODE>curr</CODE> of <CODE>b</CODE>, which may
+         * be the same array with <CODE>curr</CODE> not after <CODE>src</CODE>. The previous decoded row is at
+         * <CODE>prior</CODE> or, for the first row, <CODE>prior</CODE> is negative.
+         */
+        void decodeRow(byte[] encoded, int src, byte[] b, int curr, int prior) {
+            if (png) {
+                int filter = encoded[src] & 0xff;
+                System.arraycopy(encoded, src + 1, b, curr, bytesPerRow);
+                decodePngRow(b, curr, prior, filter);
+            } else {
+                System.arraycopy(encoded, src, b, curr, bytesPerRow);
+                decodeTiffRow(b, curr);
+            }
+        }
+
+        private void decodePngRow(byte[] b, int curr, int prior, int filter) {
+            switch (filter) {
+                case 0: // PNG_FILTER_NONE
+                    break;
+                case 1: // PNG_FILTER_SUB
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        b[curr + i] += b[curr + i - bytesPerPixel];
+                    }
+                    break;
+                case 2: // PNG_FILTER_UP
+                    if (prior >= 0) {
+                        for (int i = 0; i < bytesPerRow; i++) {
+                            b[curr + i] += b[prior + i];
+                        }
+                    }
+                    break;
+                case 3: // PNG_FILTER_AVERAGE
+                    for (int i = 0; i < bytesPerPixel && i < bytesPerRow; i++) {
+                        b[curr + i] += (byte) (prior(b, prior, i) / (byte) 2);
+                    }
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        b[curr + i] = (byte) ((b[curr + i] + (b[curr + i - bytesPerPixel] & 0xff)
+                                + (prior(b, prior, i) & 0xff)) / 2);
+                    }
+                    break;
+                case 4: // PNG_FILTER_PAETH
+                    for (int i = 0; i < bytesPerPixel && i < bytesPerRow; i++) {
+                        b[curr + i] += prior(b, prior, i);
+                    }
+                    for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                        int a = b[curr + i - bytesPerPixel] & 0xff;
+                        int bp = prior(b, prior, i) & 0xff;
+                        int c = prior(b, prior, i - bytesPerPixel) & 0xff;
+                        int p = a + bp - c;
+                        int pa = Math.abs(p - a);
+                        int pb = Math.abs(p - bp);
+                        int pc = Math.abs(p - c);
+                        int ret;
+                        if ((pa <= pb) && (pa <= pc)) {
+                            ret = a;
+                        } else if (pb <= pc) {
+                            ret = bp;
+                        } else {
+                            ret = c;
+                        }
+                        b[curr + i] += (byte) (ret);
+                    }
+                    break;
+                default:
+                    // Error -- unknown filter type
+                    throw new RuntimeException(MessageLocalization.getComposedMessage("png.filter.unknown"));
+            }
+        }
+
+        private static byte prior(byte[] b, int prior, int i) {
+            return prior < 0 ? 0 : b[prior + i];
+        }
+
+        private void decodeTiffRow(byte[] b, int row) {
+            if (bpc == 8) {
+                for (int i = bytesPerPixel; i < bytesPerRow; i++) {
+                    b[row + i] += b[row + i - bytesPerPixel];
+                }
+            } else {
+                for (int i = bytesPerPixel; i + 1 < bytesPerRow; i += 2) {
+                    int left = ((b[row + i - bytesPerPixel] & 0xff) << 8) | (b[row + i - bytesPerPixel + 1] & 0xff);
+                    int v = (((b[row + i] & 0xff) << 8) | (b[row + i + 1] & 0xff)) + left;
+                    b[row + i] = (byte) (v >> 8);
+                    b[row + i + 1] = (byte) v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inflates with a pooled {@link Inflater}, returned to the pool when the stream is closed.
+     */
+    private static final class FlateInputStream extends InflaterInputStream {
+
+        private boolean released;
+
+        FlateInputStream(InputStream in) {
+            super(in, obtainInflater(), 4096);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (released) {
+                return -1;
+            }
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                releaseInflater(inf);
+            }
+            super.close();
+        }
+    }
+
+    /**
+     * Applies a predictor row by row, reusing two row buffers.
+     */
+    private static final class PredictorInputStream extends FilterInputStream {
+
+        private final Predictor predictor;
+        private byte[] row;
+        private final byte[] raw;
+        private int pos;
+        private int rowLength;
+        private boolean first = true;
+
+        PredictorInputStream(InputStream in, Predictor predictor) {
+            super(in);
+            this.predictor = predictor;
+            // the previous row is kept in front of the current one
+            this.row = new byte[predictor.bytesPerRow * 2];
+            this.raw = new byte[predictor.bytesPerRow + 1];
+        }
+
+        private boolean nextRow() throws IOException {
+            int bytesPerRow = predictor.bytesPerRow;
+            int want = predictor.getEncodedRowLength();
+            int n = in.readNBytes(raw, 0, want);
+            if (n < want) {
+                return false;
+            }
+            System.arraycopy(row, bytesPerRow, row, 0, bytesPerRow);
+            predictor.decodeRow(raw, 0, row, bytesPerRow, first ? -1 : 0);
+            first = false;
+            pos = 0;
+            rowLength = bytesPerRow;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == rowLength && !nextRow()) {
+                return -1;
+            }
+            return row[predictor.bytesPerRow + pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos == rowLength && !nextRow()) {
+                return -1;
+            }
+            int n = Math.min(len, rowLength - pos);
+            System.arraycopy(row, predictor.bytesPerRow + pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && read() >= 0) {
+                ++skipped;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return rowLength - pos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Decodes ASCIIHexDecode while reading.
+     */
+    private static final class ASCIIHexInputStream extends FilterInputStream {
+
+        private boolean eod;
+
+        ASCIIHexInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (eod) {
+                return -1;
+            }
+            int n1 = nextDigit();
+            if (n1 < 0) {
+                eod = true;
+                return -1;
+            }
+            int n2 = nextDigit();
+            if (n2 < 0) {
+                eod = true;
+                return (n1 << 4) & 0xff;
+            }
+            return ((n1 << 4) + n2) & 0xff;
+        }
+
+        private int nextDigit() throws IOException {
+            while (true) {
+                int ch = in.read();
+                if (ch < 0 || ch == '>') {
+                    return -1;
+                }
+                if (PRTokeniser.isWhitespace(ch)) {
+                    continue;
+                }
+                int n = PRTokeniser.getHex(ch);
+                if (n == -1) {
+                    throw new RuntimeException(
+                            MessageLocalization.getComposedMessage("illegal.character.in.asciihexdecode"));
+                }
+                return n;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            int c;
+            while (n < len && (c = read()) >= 0) {
+                b[off + n++] = (byte) c;
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && read() >= 0) {
+                ++skipped;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
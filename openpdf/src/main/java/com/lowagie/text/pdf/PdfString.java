@@ -225,9 +225,11 @@ public class PdfString extends PdfObject {
         PdfEncryption decrypt = reader.getDecrypt();
         if (decrypt != null) {
             originalValue = value;
-            decrypt.setHashKey(objNum, objGen);
             bytes = PdfEncodings.convertToBytes(value, null);
-            bytes = decrypt.decryptByteArray(bytes);
+            synchronized (decrypt) {
+                decrypt.setHashKey(objNum, objGen);
+                bytes = decrypt.decryptByteArray(bytes);
+            }
             value = PdfEncodings.convertToString(bytes, null);
         }
     }
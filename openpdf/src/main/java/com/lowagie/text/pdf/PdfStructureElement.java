@@ -50,6 +50,7 @@
 package com.lowagie.text.pdf;
 
 import com.lowagie.text.error_messages.MessageLocalization;
+import java.io.IOException;
 
 /**
  * This is a node in a document logical structure. It may contain a mark point or it may contain other nodes.
@@ -69,6 +70,13 @@ public class PdfStructureElement extends PdfDictionary {
      */
     private PdfIndirectReference reference;
 
+    /**
+     * The last page marked, to write the element with it when the structures are incremental.
+     */
+    private int markedPage = -1;
+
+    private boolean written;
+
     /**
      * Creates a new instance of PdfStructureElement.
      *
@@ -76,11 +84,15 @@ public class PdfStructureElement extends PdfDictionary {
      * @param structureType the type of structure. It may be a standard type or a user type mapped by the role map
      */
     public PdfStructureElement(PdfStructureElement parent, PdfName structureType) {
+        if (parent.written) {
+            throw new IllegalStateException(MessageLocalization.getComposedMessage(
+                    "the.structure.element.was.already.written.it.can.t.get.new.kids"));
+        }
         top = parent.top;
         init(parent, structureType);
         this.parent = parent;
         put(PdfName.P, parent.reference);
-        put(PdfName.TYPE, new PdfName("StructElem"));
+        put(PdfName.TYPE, PdfName.STRUCTELEM);
     }
 
     /**
@@ -93,7 +105,7 @@ public class PdfStructureElement extends PdfDictionary {
         top = parent;
         init(parent, structureType);
         put(PdfName.P, parent.getReference());
-        put(PdfName.TYPE, new PdfName("StructElem"));
+        put(PdfName.TYPE, PdfName.STRUCTELEM);
     }
 
     private void init(PdfDictionary parent, PdfName structureType) {
@@ -124,10 +136,18 @@ public class PdfStructureElement extends PdfDictionary {
     }
 
     void setPageMark(int page, int mark) {
+        if (written) {
+            throw new IllegalStateException(
+                    MessageLocalization.getComposedMessage("the.structure.element.was.already.written"));
+        }
         if (mark >= 0) {
             put(PdfName.K, new PdfNumber(mark));
         }
         top.setPageMark(page, reference);
+        if (markedPage != page && top.getWriter().isIncrementalStructures()) {
+            markedPage = page;
+            top.addPageElement(this);
+        }
     }
 
     /**
@@ -139,4 +159,41 @@ public class PdfStructureElement extends PdfDictionary {
     public PdfIndirectReference getReference() {
         return this.reference;
     }
+
+    /**
+     * Checks if the element was written with its page.
+     *
+     * @return <CODE>true</CODE> if the element was written
+     */
+    boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Writes the element, its page being done, and puts its reference in the kids of its parent. The kids not written
+     * yet are replaced by their references and written later, with their page or at the end of the document.
+     *
+     * @throws IOException on error
+     */
+    void writeElement() throws IOException {
+        PdfArray kids = (PdfArray) (parent == null ? top : parent).get(PdfName.K);
+        for (int k = kids.size() - 1; k >= 0; --k) {
+            if (kids.getPdfObject(k) == this) {
+                kids.set(k, reference);
+                break;
+            }
+        }
+        PdfObject obj = get(PdfName.K);
+        if (obj != null && obj.isArray()) {
+            PdfArray ownKids = (PdfArray) obj;
+            for (int k = 0; k < ownKids.size(); ++k) {
+                if (ownKids.getPdfObject(k) instanceof PdfStructureElement kid) {
+                    ownKids.set(k, kid.getReference());
+                    top.addPendingElement(kid);
+                }
+            }
+        }
+        written = true;
+        top.getWriter().addToBody(this, reference);
+    }
 }
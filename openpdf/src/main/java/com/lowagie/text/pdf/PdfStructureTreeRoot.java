@@ -49,6 +49,7 @@
 package com.lowagie.text.pdf;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -68,6 +69,12 @@ public class PdfStructureTreeRoot extends PdfDictionary {
     /** Map which connects [page number] with corresponding [parentTree entry key]  */
     private final Map<Integer, Integer> pageKeysMap = new HashMap<>();
 
+    /** The elements marked on the current page, written with the page by a writer with incremental structures */
+    private final ArrayList<PdfStructureElement> pageElements = new ArrayList<>();
+
+    /** The elements not written yet whose parent was written with its page */
+    private final ArrayList<PdfStructureElement> pendingElements = new ArrayList<>();
+
     /**
      * Holds value of property writer.
      */
@@ -135,6 +142,42 @@ public class PdfStructureTreeRoot extends PdfDictionary {
         pageArray.add(reference);
     }
 
+    /**
+     * Adds an element marked on the current page, to write it when the page is done.
+     *
+     * @param element the element
+     */
+    void addPageElement(PdfStructureElement element) {
+        pageElements.add(element);
+    }
+
+    /**
+     * Adds an element whose parent was written before it, to write it at the end of the document if it is not
+     * written with a page before.
+     *
+     * @param element the element
+     */
+    void addPendingElement(PdfStructureElement element) {
+        pendingElements.add(element);
+    }
+
+    /**
+     * Writes the parent tree entry of a page that is done and the elements marked on it.
+     *
+     * @param pageNumber the number of the page
+     * @throws IOException on error
+     */
+    void flushPage(int pageNumber) throws IOException {
+        Integer key = pageKeysMap.remove(pageNumber);
+        if (key != null) {
+            parentTree.put(key, writer.addToBody(parentTree.get(key)).getIndirectReference());
+        }
+        for (PdfStructureElement element : pageElements) {
+            element.writeElement();
+        }
+        pageElements.clear();
+    }
+
     /**
      * Returns array ID for a page-related entry or creates a new one if not exists.
      * Can be used for STRUCTPARENTS tag value
@@ -162,7 +205,7 @@ public class PdfStructureTreeRoot extends PdfDictionary {
                 .get(0).isNumber()) {
             PdfArray ar = (PdfArray) obj;
             for (int k = 0; k < ar.size(); ++k) {
-                PdfObject pdfObj = ar.getDirectObject(k);
+                PdfObject pdfObj = ar.getPdfObject(k);
 
                 if (pdfObj instanceof PdfStructureElement e) {
                     ar.set(k, e.getReference());
@@ -194,5 +237,11 @@ public class PdfStructureTreeRoot extends PdfDictionary {
         }
 
         nodeProcess(this, reference);
+        for (PdfStructureElement element : pendingElements) {
+            if (!element.isWritten()) {
+                nodeProcess(element, element.getReference());
+            }
+        }
+        pendingElements.clear();
     }
 }
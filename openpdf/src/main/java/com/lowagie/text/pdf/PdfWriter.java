@@ -78,19 +78,24 @@ import java.awt.color.ICC_Profile;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Formatter;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -117,6 +122,11 @@ public class PdfWriter extends DocWriter implements
      */
     public static final int GENERATION_MAX = 65535;
 
+    /**
+     * The smallest stream that is compressed on the compression executor, smaller streams are compressed at once.
+     */
+    static final int PARALLEL_COMPRESSION_MIN_SIZE = 16 * 1024;
+
 // INNER CLASSES
     /**
      * possible PDF version (header)
@@ -548,7 +558,7 @@ public class PdfWriter extends DocWriter implements
     /**
      * A number referring to the previous Cross-Reference Table.
      */
-    protected int prevxref = 0;
+    protected long prevxref = 0;
     protected List newBookmarks;
     /**
      * Stores the version information for the header and the catalog.
@@ -566,12 +576,36 @@ public class PdfWriter extends DocWriter implements
      * Holds value of property fullCompression.
      */
     protected boolean fullCompression = false;
+    /**
+     * How the objects are packed in object streams in full compression mode.
+     */
+    protected PdfObjectStreamPolicy objectStreamPolicy = new PdfObjectStreamPolicy();
     /**
      * The compression level of the content streams.
      *
      * @since 2.1.3
      */
     protected int compressionLevel = PdfStream.DEFAULT_COMPRESSION;
+    /**
+     * The executor compressing the large streams, or <CODE>null</CODE> to compress them on the calling thread.
+     */
+    protected Executor compressionExecutor;
+    /**
+     * The pool of the arrays of the buffers of this writer, or <CODE>null</CODE> if the arrays are not reused.
+     */
+    private ByteBufferPool byteBufferPool;
+    /**
+     * The size past which the direct contents of a page are flushed to temporary files, or 0.
+     */
+    private int pageContentFlushSize;
+    /**
+     * The temporary files of the direct contents, deleted if writing a page fails and when the document is closed.
+     */
+    private final List<ContentSpillFile> spillFiles = new ArrayList<>();
+    /**
+     * <CODE>true</CODE> if the page tree, the outlines and the structure tree are written as the document goes.
+     */
+    private boolean incrementalStructures;
     /**
      * The fonts of this document
      */
@@ -1156,8 +1190,13 @@ public class PdfWriter extends DocWriter implements
         PdfIndirectObject object;
         try {
             object = addToBody(contents);
+            contents.writeSpilledLength();
         } catch (IOException ioe) {
+            deleteSpillFiles();
             throw new ExceptionConverter(ioe);
+        } catch (RuntimeException e) {
+            deleteSpillFiles();
+            throw e;
         }
         page.add(object.getIndirectReference());
         // [U5]
@@ -1252,6 +1291,8 @@ public class PdfWriter extends DocWriter implements
                 throw new IllegalStateException(MessageLocalization
                         .getComposedMessage("you.should.call.document.close.instead"));
             }
+            // the pages are written, whatever happens next
+            deleteSpillFiles();
             if ((currentPageNumber - 1) != pageReferences.size()) {
                 // 2019-04-26: If you get this error, it could be that you are using OpenPDF or
                 // another library such as flying-saucer's ITextRenderer in a non-threadsafe way.
@@ -1955,6 +1996,25 @@ public class PdfWriter extends DocWriter implements
         setAtLeastPdfVersion(VERSION_1_5);
     }
 
+    /**
+     * Gets how the objects are packed in object streams in full compression mode.
+     *
+     * @return the policy
+     */
+    public PdfObjectStreamPolicy getObjectStreamPolicy() {
+        return objectStreamPolicy;
+    }
+
+    /**
+     * Use this method to set how the objects are packed in object streams in full compression mode. It applies to the
+     * objects added after it is set.
+     *
+     * @param objectStreamPolicy the policy or <CODE>null</CODE> for the default policy
+     */
+    public void setObjectStreamPolicy(PdfObjectStreamPolicy objectStreamPolicy) {
+        this.objectStreamPolicy = objectStreamPolicy == null ? new PdfObjectStreamPolicy() : objectStreamPolicy;
+    }
+
     /**
      * Returns the compression level used for streams written by this writer.
      *
@@ -1979,6 +2039,143 @@ public class PdfWriter extends DocWriter implements
         }
     }
 
+    /**
+     * Returns the executor compressing the large streams written by this writer.
+     *
+     * @return the executor or <CODE>null</CODE> if the streams are compressed on the calling thread
+     */
+    public Executor getCompressionExecutor() {
+        return compressionExecutor;
+    }
+
+    /**
+     * Use this method to compress the large streams written by this writer, the page contents, the images, the
+     * embedded fonts and the object streams, on an executor while the document is being built.
+     * <p>
+     * The compressed streams are written in the order they were added. Until then they are held in memory, up to a
+     * bounded number and size, while the other objects are written as they are added. The output only depends on the
+     * order the objects are added, not on the executor. The executor is not shut down by the writer. It should be set
+     * before the document is opened.
+     *
+     * @param compressionExecutor the executor or <CODE>null</CODE> to compress the streams on the calling thread, the
+     *                            default
+     */
+    public void setCompressionExecutor(Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+    }
+
+    /**
+     * Returns the most bytes of buffers kept by this writer to be reused.
+     *
+     * @return the number of bytes, 0 if the buffers are not reused
+     */
+    public long getByteBufferPoolSize() {
+        return byteBufferPool == null ? 0 : byteBufferPool.getMaxRetainedBytes();
+    }
+
+    /**
+     * Use this method to reuse the buffers of the page contents, of the tables and of the object streams, and of the
+     * compressed streams once they are written, instead of allocating new ones. The buffers are kept in a pool of this
+     * writer, up to a number of bytes, and the pool goes away with the writer. It should be set before the document is
+     * opened.
+     *
+     * @param maxRetainedBytes the most bytes of buffers kept, 0 to allocate new buffers, the default
+     */
+    public void setByteBufferPoolSize(long maxRetainedBytes) {
+        if (maxRetainedBytes <= 0) {
+            byteBufferPool = null;
+        } else if (byteBufferPool == null) {
+            byteBufferPool = new ByteBufferPool(maxRetainedBytes);
+        } else {
+            byteBufferPool.setMaxRetainedBytes(maxRetainedBytes);
+        }
+    }
+
+    /**
+     * Returns the size past which the direct contents of a page are flushed to temporary files.
+     *
+     * @return the size in bytes, 0 if the direct contents are kept in memory
+     */
+    public int getPageContentFlushSize() {
+        return pageContentFlushSize;
+    }
+
+    /**
+     * Use this method to keep the memory used by very large pages flat. When the direct content or the direct content
+     * under of a page holds more than <CODE>size</CODE> bytes, its bytes are moved to a temporary file. When the page
+     * is done the content stream of the page is read from the files and compressed straight to the output, with an
+     * indirect <CODE>/Length</CODE>, and the files are deleted. The bytes moved to the files are no longer in
+     * {@link PdfContentByte#getInternalBuffer()}. The files left by a page that fails to be written are deleted, and
+     * so are all of them when the document is closed. It should be set before the document is opened.
+     *
+     * @param size the size in bytes, 0 to keep the direct contents in memory, the default
+     */
+    public void setPageContentFlushSize(int size) {
+        pageContentFlushSize = Math.max(size, 0);
+        for (PdfContentByte cb : new PdfContentByte[]{directContent, directContentUnder}) {
+            ByteBuffer content = cb.getInternalBuffer();
+            ContentSpillFile spill = content.getSpill();
+            if (spill == null && pageContentFlushSize > 0) {
+                spill = new ContentSpillFile();
+                spillFiles.add(spill);
+            }
+            // a content already flushed is kept to the end of the page
+            content.setSpill(spill, pageContentFlushSize > 0 ? pageContentFlushSize : Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the direct contents and closes the streams reading them.
+     */
+    void deleteSpillFiles() {
+        for (ContentSpillFile spill : spillFiles) {
+            spill.delete();
+        }
+    }
+
+    /**
+     * Checks if the page tree, the outlines and the structure tree are written as the document goes.
+     *
+     * @return <CODE>true</CODE> if they are written as the document goes
+     */
+    public boolean isIncrementalStructures() {
+        return incrementalStructures;
+    }
+
+    /**
+     * Use this method to keep the memory used by long documents flat. Instead of being kept to the close of the
+     * document:
+     * <ul>
+     * <li>the leaves of the page tree are written as soon as they are full;</li>
+     * <li>the structure elements with marked content on a page are written when the page is done, with the entry of
+     * the page in the parent tree. Such an element can't be marked again or get new kids on a later page, its kids
+     * not written yet are written with their page or at the close of the document;</li>
+     * <li>an outline is written when its next sibling is created, its kids being written first. Such an outline can't
+     * be changed or get new kids afterwards.</li>
+     * </ul>
+     * Page reordering is only possible with a linear page tree. It must be called before open.
+     *
+     * @param incrementalStructures <CODE>true</CODE> to write the structures as the document goes
+     * @throws IllegalStateException if the document is already open
+     */
+    public void setIncrementalStructures(boolean incrementalStructures) {
+        if (open) {
+            throw new IllegalStateException(MessageLocalization
+                    .getComposedMessage("incremental.structures.must.be.set.before.opening.the.document"));
+        }
+        this.incrementalStructures = incrementalStructures;
+        root.setIncremental(incrementalStructures);
+    }
+
+    /**
+     * Gets the pool of the arrays of the buffers of this writer.
+     *
+     * @return the pool or <CODE>null</CODE> if the arrays are not reused
+     */
+    ByteBufferPool getByteBufferPool() {
+        return byteBufferPool;
+    }
+
     /**
      * Adds a <CODE>BaseFont</CODE> to the document but not to the page resources. It is used for templates.
      *
@@ -2109,14 +2306,15 @@ public class PdfWriter extends DocWriter implements
 //  [U1] page size
 
     /**
-     * Use this method to gets the current document size. This size only includes the data already written to the output
-     * stream, it does not include templates or fonts. It is useful if used with <CODE>freeReader()</CODE> when
-     * concatenating many documents and an idea of the current size is needed.
+     * Use this method to gets the current document size. This size includes the data already written to the output
+     * stream and the streams still being compressed on the compression executor, these counting with their
+     * uncompressed size until they are compressed. It does not include templates or fonts. It is useful if used with
+     * <CODE>freeReader()</CODE> when concatenating many documents and an idea of the current size is needed.
      *
      * @return the approximate size without fonts or templates
      */
     public long getCurrentDocumentSize() {
-        return body.offset() + (long) body.size() * 20L + 0x48;
+        return body.offset() + body.pendingSize() + (long) body.size() * 20L + 0x48;
     }
 
     protected int getNewObjectNumber(PdfReader reader, int number, int generation) {
@@ -2755,7 +2953,7 @@ public class PdfWriter extends DocWriter implements
                     PdfName mname = images.get(maskImage.getMySerialId());
                     maskRef = getImageReference(mname);
                 }
-                PdfImage i = new PdfImage(image, "img" + images.size(), maskRef);
+                PdfImage i = new PdfImage(image, "img" + images.size(), maskRef, this);
                 if (image instanceof ImgJBIG2) {
                     byte[] globals = ((ImgJBIG2) image).getGlobalBytes();
                     if (globals != null) {
@@ -2953,14 +3151,39 @@ public class PdfWriter extends DocWriter implements
      */
     public static class PdfBody {
 
-        private static final int OBJSINSTREAM = 200;
+        /**
+         * The length of an entry of a cross-reference table.
+         */
+        private static final int XREF_ENTRY_LENGTH = 20;
+
+        /**
+         * The most streams being compressed on the compression executor before the first of them is waited for.
+         */
+        private static final int MAX_PENDING_STREAMS = 64;
+
+        /**
+         * The most uncompressed bytes of the streams being compressed before the first of them is waited for.
+         */
+        private static final long MAX_PENDING_BYTES = 64L << 20;
 
         // membervariables
 
         /**
-         * array containing the cross-reference table of the normal objects.
+         * Type of entry of the cross-reference table for a number without entry.
+         */
+        private static final byte NO_ENTRY = -1;
+
+        /**
+         * The cross-reference table of the normal objects, indexed by object number: the type of each entry, its
+         * offset or the number of its object stream, and its generation or its index in the object stream.
+         */
+        private byte[] xrefTypes;
+        private long[] xrefOffsets;
+        private int[] xrefGenerations;
+        /**
+         * the highest object number with an entry.
          */
-        private final TreeSet<PdfCrossReference> xrefs;
+        private int lastXref;
         private final PdfWriter writer;
         private int refnum;
         /**
@@ -2971,6 +3194,15 @@ public class PdfWriter extends DocWriter implements
         private ByteBuffer streamObjects;
         private int currentObjNum;
         private int numObj = 0;
+        /**
+         * The references of the objects packed by content, when they are deduplicated.
+         */
+        private final HashMap<PdfSmartCopy.ObjectDigest, PdfIndirectReference> sharedObjects = new HashMap<>();
+        /**
+         * The streams being compressed on the compression executor, in the order they are to be written.
+         */
+        private final ArrayDeque<PendingStream> pendingStreams = new ArrayDeque<>();
+        private long pendingBytes;
 
         // constructors
 
@@ -2980,8 +3212,11 @@ public class PdfWriter extends DocWriter implements
          * @param writer
          */
         PdfBody(PdfWriter writer) {
-            xrefs = new TreeSet<>();
-            xrefs.add(new PdfCrossReference(0, 0, GENERATION_MAX));
+            xrefTypes = new byte[1024];
+            xrefOffsets = new long[1024];
+            xrefGenerations = new int[1024];
+            Arrays.fill(xrefTypes, NO_ENTRY);
+            setXref(0, 0, 0, GENERATION_MAX, false);
             position = writer.getOs().getCounter();
             refnum = 1;
             this.writer = writer;
@@ -2993,25 +3228,81 @@ public class PdfWriter extends DocWriter implements
             this.refnum = refnum;
         }
 
-        private PdfWriter.PdfBody.PdfCrossReference addToObjStm(PdfObject obj, int nObj) throws IOException {
-            if (numObj >= OBJSINSTREAM) {
-                flushObjStm();
+        /**
+         * Sets the entry of an object in the cross-reference table.
+         *
+         * @param number     the object number
+         * @param type       0 for a free entry, 1 for an object in the file, 2 for an object in an object stream
+         * @param offset     the offset of the object or the number of its object stream
+         * @param generation the generation of the object or its index in the object stream
+         * @param replace    <CODE>false</CODE> to keep an existing entry
+         */
+        private void setXref(int number, int type, long offset, int generation, boolean replace) {
+            if (number >= xrefTypes.length) {
+                int length = Math.max(number + 1, xrefTypes.length * 2);
+                int old = xrefTypes.length;
+                xrefTypes = Arrays.copyOf(xrefTypes, length);
+                xrefOffsets = Arrays.copyOf(xrefOffsets, length);
+                xrefGenerations = Arrays.copyOf(xrefGenerations, length);
+                Arrays.fill(xrefTypes, old, length, NO_ENTRY);
             }
-            if (index == null) {
-                index = new ByteBuffer();
-                streamObjects = new ByteBuffer();
-                currentObjNum = getIndirectReferenceNumber();
-                numObj = 0;
+            if (!replace && xrefTypes[number] != NO_ENTRY) {
+                return;
             }
+            xrefTypes[number] = (byte) type;
+            xrefOffsets[number] = offset;
+            xrefGenerations[number] = generation;
+            lastXref = Math.max(lastXref, number);
+        }
+
+        private void addToObjStm(PdfObject obj, int nObj) throws IOException {
+            startObjStmObject();
             int p = streamObjects.size();
-            int idx = numObj++;
             PdfEncryption enc = writer.crypto;
             writer.crypto = null;
             obj.toPdf(writer, streamObjects);
             writer.crypto = enc;
+            endObjStmObject(p, nObj);
+        }
+
+        private void addToObjStm(ByteBuffer objectBytes, int nObj) throws IOException {
+            startObjStmObject();
+            int p = streamObjects.size();
+            streamObjects.append(objectBytes.getBuffer(), 0, objectBytes.size());
+            endObjStmObject(p, nObj);
+        }
+
+        private void startObjStmObject() throws IOException {
+            if (numObj >= writer.getObjectStreamPolicy().getMaxObjects()) {
+                flushObjStm();
+            }
+            if (index == null) {
+                startObjStm();
+            }
+        }
+
+        private void endObjStmObject(int p, int nObj) throws IOException {
+            PdfObjectStreamPolicy policy = writer.getObjectStreamPolicy();
+            if (numObj > 0 && policy.getMaxBytes() > 0 && streamObjects.size() > policy.getMaxBytes()) {
+                // the object goes to the next stream
+                byte[] objectBytes = Arrays.copyOfRange(streamObjects.getBuffer(), p, streamObjects.size());
+                streamObjects.setSize(p);
+                flushObjStm();
+                startObjStm();
+                streamObjects.append(objectBytes);
+                p = 0;
+            }
             streamObjects.append(' ');
+            int idx = numObj++;
             index.append(nObj).append(' ').append(p).append(' ');
-            return new PdfWriter.PdfBody.PdfCrossReference(2, nObj, currentObjNum, idx);
+            setXref(nObj, 2, currentObjNum, idx, true);
+        }
+
+        private void startObjStm() {
+            index = new ByteBuffer(128, writer.getByteBufferPool());
+            streamObjects = new ByteBuffer(128, writer.getByteBufferPool());
+            currentObjNum = getIndirectReferenceNumber();
+            numObj = 0;
         }
 
         private void flushObjStm() throws IOException {
@@ -3019,9 +3310,13 @@ public class PdfWriter extends DocWriter implements
                 return;
             }
             int first = index.size();
-            index.append(streamObjects);
-            PdfStream stream = new PdfStream(index.toByteArray());
-            stream.flateCompress(writer.getCompressionLevel());
+            byte[] content = new byte[first + streamObjects.size()];
+            System.arraycopy(index.getBuffer(), 0, content, 0, first);
+            System.arraycopy(streamObjects.getBuffer(), 0, content, first, streamObjects.size());
+            index.release();
+            streamObjects.release();
+            PdfStream stream = new PdfStream(content);
+            stream.flateCompress(writer.getCompressionLevel(), writer);
             stream.put(PdfName.TYPE, PdfName.OBJSTM);
             stream.put(PdfName.N, new PdfNumber(numObj));
             stream.put(PdfName.FIRST, new PdfNumber(first));
@@ -3043,13 +3338,52 @@ public class PdfWriter extends DocWriter implements
          * @throws IOException
          */
         PdfIndirectObject add(PdfObject object) throws IOException {
-            return add(object, getIndirectReferenceNumber());
+            return add(object, true);
         }
 
         PdfIndirectObject add(PdfObject object, boolean inObjStm) throws IOException {
+            if (inObjStm && writer.getObjectStreamPolicy().isDeduplicating() && canPack(object)) {
+                return addShared(object);
+            }
             return add(object, getIndirectReferenceNumber(), inObjStm);
         }
 
+        private boolean canPack(PdfObject object) {
+            return object.canBeInObjStm() && writer.isFullCompression()
+                    && writer.getObjectStreamPolicy().canPack(object);
+        }
+
+        /**
+         * Packs an object in an object stream under a new number, unless an identical object was packed before: the
+         * object is then given the reference of the first one. The objects are compared by the digest of their bytes.
+         */
+        private PdfIndirectObject addShared(PdfObject object) throws IOException {
+            ByteBuffer objectBytes = new ByteBuffer(128);
+            PdfEncryption enc = writer.crypto;
+            writer.crypto = null;
+            try {
+                object.toPdf(writer, objectBytes);
+            } finally {
+                writer.crypto = enc;
+            }
+            PdfSmartCopy.ObjectDigest digest;
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                md.update(objectBytes.getBuffer(), 0, objectBytes.size());
+                digest = new PdfSmartCopy.ObjectDigest(md.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new ExceptionConverter(e);
+            }
+            PdfIndirectReference shared = sharedObjects.get(digest);
+            if (shared != null) {
+                return new PdfIndirectObject(shared, object, writer);
+            }
+            int refNumber = getIndirectReferenceNumber();
+            sharedObjects.put(digest, new PdfIndirectReference(0, refNumber));
+            addToObjStm(objectBytes, refNumber);
+            return new PdfIndirectObject(refNumber, object, writer);
+        }
+
         /**
          * Gets a PdfIndirectReference for an object that will be created in the future.
          *
@@ -3061,7 +3395,7 @@ public class PdfWriter extends DocWriter implements
 
         int getIndirectReferenceNumber() {
             int n = refnum++;
-            xrefs.add(new PdfCrossReference(n, 0, GENERATION_MAX));
+            setXref(n, 0, 0, GENERATION_MAX, false);
             return n;
         }
 
@@ -3091,27 +3425,91 @@ public class PdfWriter extends DocWriter implements
         }
 
         PdfIndirectObject add(PdfObject object, int refNumber, boolean inObjStm) throws IOException {
-            if (inObjStm && object.canBeInObjStm() && writer.isFullCompression()) {
-                PdfCrossReference pxref = addToObjStm(object, refNumber);
-                PdfIndirectObject indirect = new PdfIndirectObject(refNumber, object, writer);
-                if (!xrefs.add(pxref)) {
-                    xrefs.remove(pxref);
-                    xrefs.add(pxref);
-                }
-                return indirect;
+            if (inObjStm && canPack(object)) {
+                addToObjStm(object, refNumber);
+                return new PdfIndirectObject(refNumber, object, writer);
+            } else if (object instanceof PdfStream && ((PdfStream) object).isCompressionDeferred()
+                    && writer.getCompressionExecutor() != null && addPendingStream((PdfStream) object, refNumber)) {
+                return new PdfIndirectObject(refNumber, object, writer);
             } else {
-                PdfIndirectObject indirect = new PdfIndirectObject(refNumber, object, writer);
-                PdfCrossReference pxref = new PdfCrossReference(refNumber, position);
-                if (!xrefs.add(pxref)) {
-                    xrefs.remove(pxref);
-                    xrefs.add(pxref);
+                return write(object, refNumber);
+            }
+        }
+
+        private PdfIndirectObject write(PdfObject object, int refNumber) throws IOException {
+            PdfIndirectObject indirect = new PdfIndirectObject(refNumber, object, writer);
+            setXref(refNumber, 1, position, 0, true);
+            indirect.writeTo(writer.getOs());
+            position = writer.getOs().getCounter();
+            if (object instanceof PdfStream) {
+                ((PdfStream) object).releaseStreamBytes();
+            }
+            return indirect;
+        }
+
+        /**
+         * Hands a stream to the compression executor, waiting for the first pending streams and writing them while too
+         * many are pending.
+         *
+         * @return <CODE>false</CODE> if the executor rejected the stream
+         */
+        private boolean addPendingStream(PdfStream stream, int refNumber) throws IOException {
+            int size = stream.getContentSize();
+            CompletableFuture<Void> compression;
+            try {
+                compression = CompletableFuture.runAsync(stream::compressDeferred, writer.getCompressionExecutor());
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+            pendingStreams.add(new PendingStream(refNumber, stream, size, compression));
+            pendingBytes += size;
+            while (pendingStreams.size() > MAX_PENDING_STREAMS || pendingBytes > MAX_PENDING_BYTES) {
+                writeNextPendingStream();
+            }
+            return true;
+        }
+
+        private void writeNextPendingStream() throws IOException {
+            PendingStream pending = pendingStreams.remove();
+            pendingBytes -= pending.size;
+            try {
+                pending.compression.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
                 }
-                indirect.writeTo(writer.getOs());
-                position = writer.getOs().getCounter();
-                return indirect;
+                throw (RuntimeException) e.getCause();
+            }
+            write(pending.stream, pending.number);
+        }
+
+        /**
+         * Waits for the streams being compressed on the compression executor and writes them.
+         *
+         * @throws IOException on error
+         */
+        void writePendingStreams() throws IOException {
+            while (!pendingStreams.isEmpty()) {
+                writeNextPendingStream();
             }
         }
 
+        /**
+         * Returns the size of the streams not written yet because they are compressed on the compression executor. A
+         * stream still being compressed counts with its uncompressed size.
+         *
+         * @return the size in bytes
+         */
+        long pendingSize() {
+            long size = 0;
+            for (PendingStream pending : pendingStreams) {
+                CompletableFuture<Void> compression = pending.compression;
+                size += compression.isDone() && !compression.isCompletedExceptionally()
+                        ? pending.stream.getContentSize() : pending.size;
+            }
+            return size;
+        }
+
         /**
          * Returns the offset of the Cross-Reference table.
          *
@@ -3127,7 +3525,7 @@ public class PdfWriter extends DocWriter implements
          * @return a number of objects
          */
         int size() {
-            return Math.max((xrefs.last()).getRefnum() + 1, refnum);
+            return Math.max(lastXref + 1, refnum);
         }
 
         /**
@@ -3143,40 +3541,44 @@ public class PdfWriter extends DocWriter implements
          */
 
         void writeCrossReferenceTable(OutputStream os, PdfIndirectReference root, PdfIndirectReference info,
-                PdfIndirectReference encryption, PdfObject fileID, int prevxref) throws IOException {
+                PdfIndirectReference encryption, PdfObject fileID, long prevxref) throws IOException {
             int refNumber = 0;
+            flushObjStm();
+            writePendingStreams();
             // Old-style xref tables limit object offsets to 10 digits
             boolean useNewXrefFormat = writer.isFullCompression() || position > 9_999_999_999L;
             if (useNewXrefFormat) {
-                flushObjStm();
                 refNumber = getIndirectReferenceNumber();
-                xrefs.add(new PdfCrossReference(refNumber, position));
+                setXref(refNumber, 1, position, 0, false);
             }
-            PdfCrossReference entry = xrefs.first();
-            int first = entry.getRefnum();
-            int len = 0;
             ArrayList<Integer> sections = new ArrayList<>();
-            for (PdfCrossReference xref1 : xrefs) {
-                entry = xref1;
-                if (first + len == entry.getRefnum()) {
-                    ++len;
-                } else {
-                    sections.add(first);
-                    sections.add(len);
-                    first = entry.getRefnum();
-                    len = 1;
+            int first = -1;
+            for (int k = 0; k <= lastXref; ++k) {
+                if (xrefTypes[k] == NO_ENTRY) {
+                    if (first >= 0) {
+                        sections.add(first);
+                        sections.add(k - first);
+                        first = -1;
+                    }
+                } else if (first < 0) {
+                    first = k;
                 }
             }
             sections.add(first);
-            sections.add(len);
+            sections.add(lastXref + 1 - first);
             PdfTrailer trailer = new PdfTrailer(size(), root, info, encryption, fileID, prevxref);
             if (useNewXrefFormat) {
                 int mid = 8 - (Long.numberOfLeadingZeros(position) >> 3);
-                ByteBuffer buf = new ByteBuffer();
-
-                for (PdfCrossReference xref : xrefs) {
-                    entry = xref;
-                    entry.toPdf(mid, buf);
+                ByteBuffer buf = new ByteBuffer((lastXref + 1) * (mid + 3));
+                for (int k = 0; k <= lastXref; ++k) {
+                    if (xrefTypes[k] != NO_ENTRY) {
+                        buf.append_i(xrefTypes[k]);
+                        for (int m = mid - 1; m >= 0; --m) {
+                            buf.append_i((int) (xrefOffsets[k] >>> (8 * m)) & 0xff);
+                        }
+                        buf.append_i((xrefGenerations[k] >>> 8) & 0xff);
+                        buf.append_i(xrefGenerations[k] & 0xff);
+                    }
                 }
                 PdfStream xr = new PdfStream(buf.toByteArray());
                 xr.flateCompress(writer.getCompressionLevel());
@@ -3195,26 +3597,65 @@ public class PdfWriter extends DocWriter implements
                 writer.crypto = enc;
             } else {
                 os.write(getISOBytes("xref\n"));
-                Iterator<PdfCrossReference> i = xrefs.iterator();
+                ByteBuffer buf = new ByteBuffer(XREF_ENTRY_LENGTH * 512);
                 for (int k = 0; k < sections.size(); k += 2) {
                     first = sections.get(k);
-                    len = sections.get(k + 1);
-                    os.write(getISOBytes(String.valueOf(first)));
-                    os.write(getISOBytes(" "));
-                    os.write(getISOBytes(String.valueOf(len)));
-                    os.write('\n');
-                    while (len-- > 0) {
-                        entry = i.next();
-                        entry.toPdf(os);
+                    int len = sections.get(k + 1);
+                    buf.append(first).append(' ').append(len).append('\n');
+                    for (int n = first; n < first + len; ++n) {
+                        appendXrefEntry(buf, xrefOffsets[n], xrefGenerations[n]);
+                        if (buf.size() >= XREF_ENTRY_LENGTH * 511) {
+                            buf.writeTo(os);
+                            buf.reset();
+                        }
                     }
                 }
+                buf.writeTo(os);
                 // make the trailer
                 trailer.toPdf(writer, os);
             }
         }
 
+        /**
+         * Appends an entry of a cross-reference table, as {@link PdfCrossReference#toPdf(OutputStream)} writes it.
+         */
+        private static void appendXrefEntry(ByteBuffer buf, long offset, int generation) {
+            appendPadded(buf, offset, 10);
+            buf.append(' ');
+            appendPadded(buf, generation, 5);
+            buf.append(' ');
+            buf.append(generation == GENERATION_MAX ? 'f' : 'n');
+            buf.append(" \n");
+        }
+
+        private static void appendPadded(ByteBuffer buf, long value, int width) {
+            String digits = Long.toString(value);
+            for (int k = digits.length(); k < width; ++k) {
+                buf.append('0');
+            }
+            buf.append(digits);
+        }
+
         // inner classes
 
+        /**
+         * A stream written once its compression is done.
+         */
+        private static final class PendingStream {
+
+            private final int number;
+            private final PdfStream stream;
+            private final int size;
+            private final CompletableFuture<Void> compression;
+
+            private PendingStream(int number, PdfStream stream, int size, CompletableFuture<Void> compression) {
+                this.number = number;
+                this.stream = stream;
+                this.size = size;
+                this.compression = compression;
+            }
+        }
+
         /**
          * <CODE>PdfCrossReference</CODE> is an entry in the PDF Cross-Reference table.
          */
@@ -3364,7 +3805,7 @@ public class PdfWriter extends DocWriter implements
          */
 
         PdfTrailer(int size, PdfIndirectReference root, PdfIndirectReference info, PdfIndirectReference encryption,
-                PdfObject fileID, int prevxref) {
+                PdfObject fileID, long prevxref) {
             put(PdfName.SIZE, new PdfNumber(size));
             put(PdfName.ROOT, root);
             if (info != null) {
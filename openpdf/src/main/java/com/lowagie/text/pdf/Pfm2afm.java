@@ -624,7 +624,7 @@ public final class Pfm2afm {
         kernpairs = in.readIntLE();
         res2 = in.readIntLE();
         fontname = in.readIntLE();
-        if (h_len != in.length() || extlen != 30 || fontname < 75 || fontname > 512) {
+        if (h_len != in.lengthLong() || extlen != 30 || fontname < 75 || fontname > 512) {
             throw new IOException(MessageLocalization.getComposedMessage("not.a.valid.pfm.file"));
         }
         in.seek(psext + 14);
@@ -61,9 +61,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.net.URL;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * An implementation of a RandomAccessFile for input only that accepts a file or a byte array as data source.
@@ -80,6 +83,11 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
     int arrayInPtr;
     byte back;
     boolean isBack = false;
+    RandomAccessSource source;
+    long sourcePtr;
+    byte[] sourceBuf;
+    long sourceBufStart;
+    int sourceBufLen;
 
     /**
      * Holds value of property startOffset.
@@ -133,7 +141,9 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
             return;
         }
         this.filename = filename;
-        if (plainRandomAccess) {
+        if (plainRandomAccess || file.length() > Integer.MAX_VALUE) {
+            // a single mapping cannot address more than 2 GB, larger files are read with a plain RandomAccessFile
+            this.plainRandomAccess = true;
             trf = new RandomAccessFile(filename, "r");
         } else {
             rf = new MappedRandomAccessFile(filename, "r");
@@ -154,13 +164,42 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
         this.arrayIn = arrayIn;
     }
 
+    /**
+     * Reads from a {@link RandomAccessSource}. The source is shared with every copy made of this instance and is not
+     * closed by {@link #close()}.
+     *
+     * @param source the source of the bytes
+     */
+    public RandomAccessFileOrArray(RandomAccessSource source) {
+        this.source = source;
+    }
+
     public RandomAccessFileOrArray(RandomAccessFileOrArray file) {
         filename = file.filename;
         arrayIn = file.arrayIn;
+        source = file.source;
         startOffset = file.startOffset;
         plainRandomAccess = file.plainRandomAccess;
     }
 
+    /**
+     * Creates a copy reading from the file already opened by this instance, with positional reads on its channel,
+     * instead of opening the file again like {@link #RandomAccessFileOrArray(RandomAccessFileOrArray)}. The copy must
+     * not be used once this instance is closed. A copy of an instance whose file is not open opens it again.
+     *
+     * @return the copy
+     * @throws IOException on error
+     */
+    RandomAccessFileOrArray getSharedCopy() throws IOException {
+        if (source != null || filename == null || !isOpen()) {
+            return new RandomAccessFileOrArray(this);
+        }
+        FileChannel channel = rf != null ? rf.getChannel() : trf.getChannel();
+        RandomAccessFileOrArray copy = new RandomAccessFileOrArray(new FileChannelRandomAccessSource(channel));
+        copy.startOffset = startOffset;
+        return copy;
+    }
+
     public static byte[] InputStreamToArray(InputStream is) throws IOException {
         byte[] b = new byte[8192];
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -185,6 +224,17 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
             isBack = false;
             return back & 0xff;
         }
+        if (source != null) {
+            int idx = (int) (sourcePtr - sourceBufStart);
+            if (idx < 0 || idx >= sourceBufLen) {
+                if (!fillSourceBuffer()) {
+                    return -1;
+                }
+                idx = 0;
+            }
+            ++sourcePtr;
+            return sourceBuf[idx] & 0xff;
+        }
         if (arrayIn == null) {
             return plainRandomAccess ? trf.read() : rf.read();
         } else {
@@ -211,6 +261,23 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
                 --len;
             }
         }
+        if (source != null) {
+            int idx = (int) (sourcePtr - sourceBufStart);
+            int copied = 0;
+            if (idx >= 0 && idx < sourceBufLen) {
+                copied = Math.min(len, sourceBufLen - idx);
+                System.arraycopy(sourceBuf, idx, b, off, copied);
+                sourcePtr += copied;
+            }
+            if (copied < len) {
+                int read = source.get(sourcePtr, b, off + copied, len - copied);
+                if (read > 0) {
+                    sourcePtr += read;
+                    copied += read;
+                }
+            }
+            return copied == 0 ? (n == 0 ? -1 : n) : copied + n;
+        }
         if (arrayIn == null) {
             return (plainRandomAccess ? trf.read(b, off, len) : rf.read(b, off, len)) + n;
         } else {
@@ -263,12 +330,12 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
                 adj = 1;
             }
         }
-        int pos;
-        int len;
-        int newpos;
+        long pos;
+        long len;
+        long newpos;
 
-        pos = getFilePointer();
-        len = length();
+        pos = getFilePointerLong();
+        len = lengthLong();
         newpos = pos + n;
         if (newpos > len) {
             newpos = len;
@@ -276,12 +343,28 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
         seek(newpos);
 
         /* return the actual number of bytes skipped */
-        return newpos - pos + adj;
+        return (int) (newpos - pos) + adj;
+    }
+
+    /**
+     * Reads the bytes following the current position of a source backed instance into the read buffer.
+     *
+     * @return <CODE>false</CODE> at the end of the source
+     */
+    private boolean fillSourceBuffer() throws IOException {
+        if (sourceBuf == null) {
+            sourceBuf = new byte[4096];
+        }
+        int read = source.get(sourcePtr, sourceBuf, 0, sourceBuf.length);
+        sourceBufStart = sourcePtr;
+        sourceBufLen = Math.max(read, 0);
+        return read > 0;
     }
 
     public void reOpen() throws IOException {
         if (filename != null && rf == null && trf == null) {
-            if (plainRandomAccess) {
+            if (plainRandomAccess || new File(filename).length() > Integer.MAX_VALUE) {
+                plainRandomAccess = true;
                 trf = new RandomAccessFile(filename, "r");
             } else {
                 rf = new MappedRandomAccessFile(filename, "r");
@@ -302,6 +385,12 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
 
     public void close() throws IOException {
         isBack = false;
+        if (source != null) {
+            // the source belongs to its creator, only the read buffer is released
+            sourceBuf = null;
+            sourceBufLen = 0;
+            return;
+        }
         if (rf != null) {
             rf.close();
             rf = null;
@@ -315,19 +404,52 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
         }
     }
 
+    /**
+     * Returns the length of the data source, not counting the bytes before the start offset.
+     *
+     * @return the length in bytes
+     * @throws IOException on error
+     * @deprecated the length may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #lengthLong()}
+     */
+    @Deprecated
     public int length() throws IOException {
+        return toIntOffset(lengthLong());
+    }
+
+    /**
+     * Returns the length of the data source, not counting the bytes before the start offset.
+     *
+     * @return the length in bytes; may exceed <CODE>Integer.MAX_VALUE</CODE> for file backed sources
+     * @throws IOException on error
+     */
+    public long lengthLong() throws IOException {
+        if (source != null) {
+            return source.length() - startOffset;
+        }
         if (arrayIn == null) {
             insureOpen();
-            return (int) (plainRandomAccess ? trf.length() : rf.length()) - startOffset;
+            return (plainRandomAccess ? trf.length() : rf.length()) - startOffset;
         } else {
             return arrayIn.length - startOffset;
         }
     }
 
     public void seek(int pos) throws IOException {
+        seek((long) pos);
+    }
+
+    /**
+     * Sets the file pointer, measured from the start offset, at which the next read occurs.
+     *
+     * @param pos the offset position
+     * @throws IOException on error
+     */
+    public void seek(long pos) throws IOException {
         pos += startOffset;
         isBack = false;
-        if (arrayIn == null) {
+        if (source != null) {
+            sourcePtr = pos;
+        } else if (arrayIn == null) {
             insureOpen();
             if (plainRandomAccess) {
                 trf.seek(pos);
@@ -335,24 +457,56 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
                 rf.seek(pos);
             }
         } else {
-            arrayInPtr = pos;
+            arrayInPtr = (int) Math.min(pos, Integer.MAX_VALUE);
         }
     }
 
-    public void seek(long pos) throws IOException {
-        seek((int) pos);
+    /**
+     * Returns the current offset, measured from the start offset.
+     *
+     * @return the offset in bytes
+     * @throws IOException on error
+     * @deprecated the offset may exceed <CODE>Integer.MAX_VALUE</CODE>, use {@link #getFilePointerLong()}
+     */
+    @Deprecated
+    public int getFilePointer() throws IOException {
+        return toIntOffset(getFilePointerLong());
     }
 
-    public int getFilePointer() throws IOException {
+    /**
+     * Returns the current offset, measured from the start offset.
+     *
+     * @return the offset in bytes
+     * @throws IOException on error
+     */
+    public long getFilePointerLong() throws IOException {
         insureOpen();
         int n = isBack ? 1 : 0;
+        if (source != null) {
+            return sourcePtr - n - startOffset;
+        }
         if (arrayIn == null) {
-            return (int) (plainRandomAccess ? trf.getFilePointer() : rf.getFilePointer()) - n - startOffset;
+            return (plainRandomAccess ? trf.getFilePointer() : rf.getFilePointer()) - n - startOffset;
         } else {
             return arrayInPtr - n - startOffset;
         }
     }
 
+    /**
+     * Converts an offset or a length to an <CODE>int</CODE> for the methods that return one.
+     *
+     * @param offset the offset
+     * @return the offset as an <CODE>int</CODE>
+     * @throws ArithmeticException if the offset exceeds <CODE>Integer.MAX_VALUE</CODE>
+     */
+    static int toIntOffset(long offset) {
+        if (offset != (int) offset) {
+            throw new ArithmeticException(
+                    MessageLocalization.getComposedMessage("the.offset.1.does.not.fit.in.an.int", offset));
+        }
+        return (int) offset;
+    }
+
     public boolean readBoolean() throws IOException {
         int ch = this.read();
         if (ch < 0) {
@@ -595,7 +749,7 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
                     break;
                 case '\r':
                     eol = true;
-                    int cur = getFilePointer();
+                    long cur = getFilePointerLong();
                     if ((read()) != '\n') {
                         seek(cur);
                     }
@@ -635,20 +789,100 @@ public class RandomAccessFileOrArray implements DataInput, Closeable {
     }
 
     /**
+     * Writes a range of the data to a stream without reading the range into an array of its size. The file backed
+     * data goes through <CODE>FileChannel.transferTo</CODE> and the data in memory is written where it is.
+     *
+     * @param position the position of the first byte, measured from the start offset
+     * @param length   the number of bytes
+     * @param os       the stream
+     * @throws IOException on error or if the range goes past the end of the data
+     */
+    public void transferTo(long position, long length, OutputStream os) throws IOException {
+        position += startOffset;
+        if (arrayIn != null) {
+            if (position + length > arrayIn.length) {
+                throw new EOFException();
+            }
+            os.write(arrayIn, (int) position, (int) length);
+            return;
+        }
+        FileChannel channel = null;
+        if (source instanceof FileChannelRandomAccessSource fileSource) {
+            channel = fileSource.getChannel();
+        } else if (source == null) {
+            insureOpen();
+            channel = plainRandomAccess ? trf.getChannel() : rf.getChannel();
+        }
+        if (channel != null) {
+            WritableByteChannel target = Channels.newChannel(os);
+            long end = position + length;
+            while (position < end) {
+                long n = channel.transferTo(position, end - position, target);
+                if (n <= 0) {
+                    throw new EOFException();
+                }
+                position += n;
+            }
+            return;
+        }
+        byte[] buf = new byte[(int) Math.min(length, 8192)];
+        while (length > 0) {
+            int n = source.get(position, buf, 0, (int) Math.min(length, buf.length));
+            if (n <= 0) {
+                throw new EOFException();
+            }
+            os.write(buf, 0, n);
+            position += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Gets the whole data as a buffer. A file is mapped and the bytes of a source that is not backed by a file are read
+     * in chunks. A buffer holds at most <CODE>Integer.MAX_VALUE</CODE> bytes, larger data must be read with
+     * {@link #transferTo(long, long, OutputStream)} or through its source.
+     *
      * @return a ByteBuffer
-     * @throws IOException on error
+     * @throws IOException on error or if the data doesn't fit in a buffer
      * @since 2.0.8
      */
     public java.nio.ByteBuffer getNioByteBuffer() throws IOException {
-        if (filename != null) {
-            FileChannel channel;
-            if (plainRandomAccess) {
-                channel = trf.getChannel();
-            } else {
-                channel = rf.getChannel();
+        if (source instanceof ByteBufferRandomAccessSource) {
+            return ((ByteBufferRandomAccessSource) source).getByteBuffer();
+        }
+        if (source instanceof FileChannelRandomAccessSource) {
+            return map(((FileChannelRandomAccessSource) source).getChannel());
+        }
+        if (source instanceof MappedWindowRandomAccessSource) {
+            return map(((MappedWindowRandomAccessSource) source).getChannel());
+        }
+        if (source != null) {
+            byte[] b = new byte[checkBufferSize(source.length())];
+            int read = 0;
+            while (read < b.length) {
+                int n = source.get(read, b, read, Math.min(b.length - read, 1 << 20));
+                if (n <= 0) {
+                    throw new EOFException();
+                }
+                read += n;
             }
-            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return java.nio.ByteBuffer.wrap(b);
+        }
+        if (filename != null) {
+            insureOpen();
+            return map(plainRandomAccess ? trf.getChannel() : rf.getChannel());
         }
         return java.nio.ByteBuffer.wrap(arrayIn);
     }
+
+    private static java.nio.ByteBuffer map(FileChannel channel) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, checkBufferSize(channel.size()));
+    }
+
+    private static int checkBufferSize(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(MessageLocalization.getComposedMessage("1.bytes.do.not.fit.in.a.bytebuffer", size));
+        }
+        return (int) size;
+    }
 }
@@ -0,0 +1,50 @@
+package com.lowagie.text.pdf;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A positional, read-only source of bytes that a {@link RandomAccessFileOrArray}, a {@link PRTokeniser} or a
+ * {@link PdfReader} can read from.
+ * <p>
+ * Implementations keep no file pointer: every read names its absolute position, so a single source may be shared by
+ * several readers. Buffering and the current position are handled by the {@link RandomAccessFileOrArray} wrapping the
+ * source.
+ * <p>
+ * A source is not closed by the readers using it. The code that created the source is responsible for closing it once
+ * all readers are done.
+ *
+ * @see ByteBufferRandomAccessSource
+ * @see FileChannelRandomAccessSource
+ * @see MappedWindowRandomAccessSource
+ */
+public interface RandomAccessSource extends Closeable {
+
+    /**
+     * Reads a single byte.
+     *
+     * @param position the absolute position of the byte
+     * @return the byte as an unsigned value or -1 if the position is at or beyond the end of the source
+     * @throws IOException on error
+     */
+    int get(long position) throws IOException;
+
+    /**
+     * Reads up to <CODE>len</CODE> bytes.
+     *
+     * @param position the absolute position of the first byte
+     * @param bytes    the destination array
+     * @param off      the offset in the destination array
+     * @param len      the maximum number of bytes to read
+     * @return the number of bytes read or -1 if the position is at or beyond the end of the source
+     * @throws IOException on error
+     */
+    int get(long position, byte[] bytes, int off, int len) throws IOException;
+
+    /**
+     * Returns the number of bytes of this source.
+     *
+     * @return the length in bytes
+     */
+    long length();
+}
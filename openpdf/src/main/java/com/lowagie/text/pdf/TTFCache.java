@@ -1,11 +1,11 @@
 package com.lowagie.text.pdf;
 
+import com.lowagie.text.DocumentException;
 import com.lowagie.text.ExceptionConverter;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import org.apache.fop.fonts.apps.TTFReader;
 import org.apache.fop.fonts.truetype.FontFileReader;
 import org.apache.fop.fonts.truetype.TTFFile;
@@ -15,24 +15,35 @@ import org.apache.fop.fonts.truetype.TTFFile;
  */
 public class TTFCache {
 
-    private static Map<String, TTFFile> ttfFileMap = new ConcurrentHashMap<>();
+    private static final FontResourceCache<String, TTFFile> ttfFileMap = new FontResourceCache<>(64L << 20,
+            TTFCache::getCacheWeight);
 
     public static TTFFile getTTFFile(String fileName, TrueTypeFontUnicode ttu) {
-
-        if (ttfFileMap.containsKey(fileName)) {
-            return ttfFileMap.get(fileName);
-        }
-        TTFReader app = new TTFReader();
-        TTFFile ttf = null;
         try {
-            ttf = loadTTF(app, fileName, ttu);
-            ttfFileMap.put(fileName, ttf);
-            return ttf;
-        } catch (IOException e) {
+            return ttfFileMap.get(fileName, () -> loadTTF(new TTFReader(), fileName, ttu));
+        } catch (IOException | DocumentException e) {
             throw new ExceptionConverter(e);
         }
     }
 
+    /**
+     * Gets the cache of the parsed fonts used for the glyph substitutions. Its maximum weight, an estimate of the
+     * memory used by the fonts in bytes, can be changed and its counters read.
+     *
+     * @return the cache of the parsed fonts
+     */
+    public static FontResourceCache<String, TTFFile> getCache() {
+        return ttfFileMap;
+    }
+
+    private static long getCacheWeight(TTFFile ttf) {
+        long weight = 4096 + 64L * ttf.getMtx().size() + 16L * ttf.getCMaps().size();
+        for (Map<Integer, Integer> kerning : ttf.getKerning().values()) {
+            weight += 32L * kerning.size();
+        }
+        return weight;
+    }
+
     private static TTFFile loadTTF(TTFReader app, String fileName, TrueTypeFontUnicode ttu) throws IOException {
 
         try {
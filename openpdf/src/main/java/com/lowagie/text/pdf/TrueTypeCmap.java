@@ -0,0 +1,194 @@
+package com.lowagie.text.pdf;
+
+import java.util.Arrays;
+
+/**
+ * A map of the table 'cmap' from the character codes to the glyph numbers. The map is kept as sorted ranges of
+ * consecutive codes mapped to consecutive glyphs, searched by binary search, so a font with tens of thousands of
+ * characters takes a few arrays of <CODE>int</CODE> instead of a map entry per character.
+ */
+final class TrueTypeCmap {
+
+    private final int[] startCodes;
+    private final int[] endCodes;
+    private final int[] startGlyphs;
+    private final int size;
+
+    private TrueTypeCmap(int[] startCodes, int[] endCodes, int[] startGlyphs, int size) {
+        this.startCodes = startCodes;
+        this.endCodes = endCodes;
+        this.startGlyphs = startGlyphs;
+        this.size = size;
+    }
+
+    /**
+     * Gets the glyph of a character code.
+     *
+     * @param code the character code
+     * @return the glyph number or -1 if the code is not mapped
+     */
+    int getGlyph(int code) {
+        int low = 0;
+        int high = startCodes.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (code < startCodes[mid]) {
+                high = mid - 1;
+            } else if (code > endCodes[mid]) {
+                low = mid + 1;
+            } else {
+                return startGlyphs[mid] + (code - startCodes[mid]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of character codes mapped.
+     *
+     * @return the number of character codes mapped
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the memory used by the map, in bytes.
+     *
+     * @return the memory used by the map
+     */
+    long getMemory() {
+        return 12L * startCodes.length;
+    }
+
+    /**
+     * Calls <CODE>consumer</CODE> for every code mapped, in increasing order of code.
+     *
+     * @param consumer receives the codes and their glyphs
+     */
+    void forEach(Consumer consumer) {
+        for (int k = 0; k < startCodes.length; ++k) {
+            for (int code = startCodes[k], glyph = startGlyphs[k]; code <= endCodes[k] && code >= startCodes[k];
+                    ++code, ++glyph) {
+                consumer.accept(code, glyph);
+            }
+        }
+    }
+
+    /**
+     * Receives the codes of a map and their glyphs.
+     */
+    interface Consumer {
+
+        /**
+         * Receives a code and its glyph.
+         *
+         * @param code  the character code
+         * @param glyph the glyph number
+         */
+        void accept(int code, int glyph);
+    }
+
+    /**
+     * Builds a map from the mappings in the order read. A code mapped twice keeps the last glyph.
+     */
+    static class Builder {
+
+        private int[] startCodes = new int[16];
+        private int[] endCodes = new int[16];
+        private int[] startGlyphs = new int[16];
+        private int count;
+        private boolean sorted = true;
+
+        /**
+         * Maps a character code to a glyph.
+         *
+         * @param code  the character code
+         * @param glyph the glyph number
+         */
+        void add(int code, int glyph) {
+            addRange(code, code, glyph);
+        }
+
+        /**
+         * Maps a range of character codes to consecutive glyphs.
+         *
+         * @param startCode  the first character code
+         * @param endCode    the last character code, the range is empty if lower than <CODE>startCode</CODE>
+         * @param startGlyph the glyph of the first character code
+         */
+        void addRange(int startCode, int endCode, int startGlyph) {
+            if (endCode < startCode) {
+                return;
+            }
+            if (count > 0) {
+                int last = count - 1;
+                if (startCode <= endCodes[last]) {
+                    sorted = false;
+                } else if (sorted && startCode == endCodes[last] + 1
+                        && startGlyph == startGlyphs[last] + (startCode - startCodes[last])) {
+                    endCodes[last] = endCode;
+                    return;
+                }
+            }
+            if (count == startCodes.length) {
+                int length = count * 2;
+                startCodes = Arrays.copyOf(startCodes, length);
+                endCodes = Arrays.copyOf(endCodes, length);
+                startGlyphs = Arrays.copyOf(startGlyphs, length);
+            }
+            startCodes[count] = startCode;
+            endCodes[count] = endCode;
+            startGlyphs[count] = startGlyph;
+            ++count;
+        }
+
+        /**
+         * Builds the map.
+         *
+         * @return the map
+         */
+        TrueTypeCmap build() {
+            if (!sorted) {
+                return sort();
+            }
+            int size = 0;
+            for (int k = 0; k < count; ++k) {
+                size += endCodes[k] - startCodes[k] + 1;
+            }
+            return new TrueTypeCmap(Arrays.copyOf(startCodes, count), Arrays.copyOf(endCodes, count),
+                    Arrays.copyOf(startGlyphs, count), size);
+        }
+
+        /**
+         * Sorts the mappings read out of order, the last mapping of a code replacing the others.
+         */
+        private TrueTypeCmap sort() {
+            int total = 0;
+            for (int k = 0; k < count; ++k) {
+                total += endCodes[k] - startCodes[k] + 1;
+            }
+            long[] order = new long[total];
+            int[] glyphs = new int[total];
+            int n = 0;
+            for (int k = 0; k < count; ++k) {
+                for (int code = startCodes[k]; code <= endCodes[k] && code >= startCodes[k]; ++code) {
+                    // the code, then the order of the mapping
+                    order[n] = ((long) code << 32) | n;
+                    glyphs[n] = startGlyphs[k] + (code - startCodes[k]);
+                    ++n;
+                }
+            }
+            Arrays.sort(order);
+            Builder builder = new Builder();
+            for (int k = 0; k < total; ++k) {
+                int code = (int) (order[k] >> 32);
+                if (k + 1 < total && (int) (order[k + 1] >> 32) == code) {
+                    continue;
+                }
+                builder.add(code, glyphs[(int) order[k]]);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -56,9 +56,9 @@ import com.lowagie.text.error_messages.MessageLocalization;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 
 /**
@@ -189,22 +189,23 @@ class TrueTypeFont extends BaseFont {
      */
     protected int[] GlyphWidths;
 
+    /**
+     * The bounding boxes of the glyphs, normalized to 1000 units. They are read from the tables 'loca' and 'glyf' the
+     * first time they are needed by an embedded font, see <CODE>getBboxes()</CODE>.
+     */
     protected int[][] bboxes;
+
+    private volatile boolean bboxesRead;
     /**
-     * The map containing the code information for the table 'cmap', encoding 1.0. The key is the code and the value is
-     * an <CODE>int[2]</CODE> where position 0 is the glyph number and position 1 is the glyph width normalized to 1000
-     * units.
+     * The map from the codes to the glyph numbers for the table 'cmap', encoding 1.0.
      */
-    protected HashMap<Integer, int[]> cmap10;
+    protected TrueTypeCmap cmap10;
     /**
-     * The map containing the code information for the table 'cmap', encoding 3.1 in Unicode.
-     * <p>
-     * The key is the code and the value is an <CODE>int</CODE>[2] where position 0 is the glyph number and position 1
-     * is the glyph width normalized to 1000 units.
+     * The map from the codes to the glyph numbers for the table 'cmap', encoding 3.1 in Unicode.
      */
-    protected HashMap<Integer, int[]> cmap31;
+    protected TrueTypeCmap cmap31;
 
-    protected HashMap<Integer, int[]> cmapExt;
+    protected TrueTypeCmap cmapExt;
 
     /**
      * The map containing the kerning information. It represents the content of table 'kern'. The key is an
@@ -514,7 +515,7 @@ class TrueTypeFont extends BaseFont {
             int length = rf.readUnsignedShort();
             int offset = rf.readUnsignedShort();
             if (nameID == id) {
-                int pos = rf.getFilePointer();
+                int pos = (int) rf.getFilePointerLong();
                 rf.seek(table_location[0] + startOfStorage + offset);
                 String name;
                 if (platformID == 0 || platformID == 3 || (platformID == 2 && platformEncodingID == 1)) {
@@ -557,7 +558,7 @@ class TrueTypeFont extends BaseFont {
             int nameID = rf.readUnsignedShort();
             int length = rf.readUnsignedShort();
             int offset = rf.readUnsignedShort();
-            int pos = rf.getFilePointer();
+            int pos = (int) rf.getFilePointerLong();
             rf.seek(table_location[0] + startOfStorage + offset);
             String name;
             if (platformID == 0 || platformID == 3 || (platformID == 2 && platformEncodingID == 1)) {
@@ -650,7 +651,10 @@ class TrueTypeFont extends BaseFont {
                 readGlyphWidths();
                 readCMaps();
                 readKerning();
-                readBbox();
+                if (!embedded) {
+                    // the file is not kept to read them later
+                    readBbox(rf);
+                }
             }
         } finally {
             if (rf != null) {
@@ -729,7 +733,7 @@ class TrueTypeFont extends BaseFont {
         return GlyphWidths[glyph];
     }
 
-    private void readBbox() throws DocumentException, IOException {
+    private void readBbox(RandomAccessFileOrArray rf) throws DocumentException, IOException {
         int[] tableLocation = tables.get("head");
         if (tableLocation == null) {
             throw new DocumentException(
@@ -762,7 +766,7 @@ class TrueTypeFont extends BaseFont {
                     MessageLocalization.getComposedMessage("table.1.does.not.exist.in.2", "glyf", fileName + style));
         }
         int tableGlyphOffset = tableLocation[0];
-        bboxes = new int[locaTable.length - 1][];
+        int[][] bboxes = new int[locaTable.length - 1][];
         for (int glyph = 0; glyph < locaTable.length - 1; ++glyph) {
             int start = locaTable[glyph];
             if (start != locaTable[glyph + 1]) {
@@ -774,6 +778,45 @@ class TrueTypeFont extends BaseFont {
                         (rf.readShort() * 1000) / head.unitsPerEm};
             }
         }
+        this.bboxes = bboxes;
+    }
+
+    /**
+     * Gets the bounding boxes of the glyphs, reading them the first time for an embedded font.
+     *
+     * @return the bounding boxes of the glyphs, normalized to 1000 units, or <CODE>null</CODE> if the font has none or
+     * its file can't be read again
+     */
+    int[][] getBboxes() {
+        if (!bboxesRead) {
+            synchronized (this) {
+                if (!bboxesRead) {
+                    if (bboxes == null && rf != null) {
+                        RandomAccessFileOrArray rf2 = null;
+                        try {
+                            // a closed file is reopened without mapping, much slower for the many small reads
+                            rf2 = rf.filename == null ? new RandomAccessFileOrArray(rf)
+                                    : new RandomAccessFileOrArray(rf.filename, false, Document.plainRandomAccess);
+                            rf2.reOpen();
+                            readBbox(rf2);
+                        } catch (DocumentException | IOException e) {
+                            // the boxes are optional, the font is used without them
+                            bboxes = null;
+                        } finally {
+                            try {
+                                if (rf2 != null) {
+                                    rf2.close();
+                                }
+                            } catch (IOException e) {
+                                // empty on purpose
+                            }
+                        }
+                    }
+                    bboxesRead = true;
+                }
+            }
+        }
+        return bboxes;
     }
 
     /**
@@ -862,8 +905,8 @@ class TrueTypeFont extends BaseFont {
         }
     }
 
-    HashMap<Integer, int[]> readFormat12() throws IOException {
-        HashMap<Integer, int[]> h = new HashMap<>();
+    TrueTypeCmap readFormat12() throws IOException {
+        TrueTypeCmap.Builder h = new TrueTypeCmap.Builder();
         rf.skipBytes(2);
         rf.readInt();
         rf.skipBytes(4);
@@ -872,45 +915,36 @@ class TrueTypeFont extends BaseFont {
             int startCharCode = rf.readInt();
             int endCharCode = rf.readInt();
             int startGlyphID = rf.readInt();
-            for (int i = startCharCode; i <= endCharCode; i++) {
-                int[] r = new int[2];
-                r[0] = startGlyphID;
-                r[1] = getGlyphWidth(r[0]);
-                h.put(i, r);
-                startGlyphID++;
-            }
+            h.addRange(startCharCode, endCharCode, startGlyphID);
         }
-        return h;
+        return h.build();
     }
 
     /**
      * The information in the maps of the table 'cmap' is coded in several formats. Format 0 is the Apple standard
      * character to glyph index mapping table.
      *
-     * @return a <CODE>HashMap</CODE> representing this map
+     * @return a <CODE>TrueTypeCmap</CODE> representing this map
      * @throws IOException the font file could not be read
      */
-    HashMap<Integer, int[]> readFormat0() throws IOException {
-        HashMap<Integer, int[]> h = new HashMap<>();
+    TrueTypeCmap readFormat0() throws IOException {
+        TrueTypeCmap.Builder h = new TrueTypeCmap.Builder();
         rf.skipBytes(4);
         for (int k = 0; k < 256; ++k) {
-            int[] r = new int[2];
-            r[0] = rf.readUnsignedByte();
-            r[1] = getGlyphWidth(r[0]);
-            h.put(k, r);
+            h.add(k, rf.readUnsignedByte());
         }
-        return h;
+        return h.build();
     }
 
     /**
      * The information in the maps of the table 'cmap' is coded in several formats. Format 4 is the Microsoft standard
      * character to glyph index mapping table.
      *
-     * @return a <CODE>HashMap</CODE> representing this map
+     * @return a <CODE>TrueTypeCmap</CODE> representing this map
      * @throws IOException the font file could not be read
      */
-    HashMap<Integer, int[]> readFormat4() throws IOException {
-        HashMap<Integer, int[]> h = new HashMap<>();
+    TrueTypeCmap readFormat4() throws IOException {
+        TrueTypeCmap.Builder h = new TrueTypeCmap.Builder();
         int table_lenght = rf.readUnsignedShort();
         rf.skipBytes(2);
         int segCount = rf.readUnsignedShort() / 2;
@@ -948,34 +982,28 @@ class TrueTypeFont extends BaseFont {
                     }
                     glyph = (glyphId[idx] + idDelta[k]) & 0xFFFF;
                 }
-                int[] r = new int[2];
-                r[0] = glyph;
-                r[1] = getGlyphWidth(r[0]);
-                h.put(fontSpecific ? ((j & 0xff00) == 0xf000 ? j & 0xff : j) : j, r);
+                h.add(fontSpecific ? ((j & 0xff00) == 0xf000 ? j & 0xff : j) : j, glyph);
             }
         }
-        return h;
+        return h.build();
     }
 
     /**
      * The information in the maps of the table 'cmap' is coded in several formats. Format 6 is a trimmed table mapping.
      * It is similar to format 0 but can have less than 256 entries.
      *
-     * @return a <CODE>HashMap</CODE> representing this map
+     * @return a <CODE>TrueTypeCmap</CODE> representing this map
      * @throws IOException the font file could not be read
      */
-    HashMap<Integer, int[]> readFormat6() throws IOException {
-        HashMap<Integer, int[]> h = new HashMap<>();
+    TrueTypeCmap readFormat6() throws IOException {
+        TrueTypeCmap.Builder h = new TrueTypeCmap.Builder();
         rf.skipBytes(4);
         int start_code = rf.readUnsignedShort();
         int code_count = rf.readUnsignedShort();
         for (int k = 0; k < code_count; ++k) {
-            int[] r = new int[2];
-            r[0] = rf.readUnsignedShort();
-            r[1] = getGlyphWidth(r[0]);
-            h.put(k + start_code, r);
+            h.add(k + start_code, rf.readUnsignedShort());
         }
-        return h;
+        return h.build();
     }
 
     /**
@@ -1170,12 +1198,32 @@ class TrueTypeFont extends BaseFont {
         return dic;
     }
 
+    @Override
+    long getCacheWeight() {
+        long weight = super.getCacheWeight() + 16L * kerning.size();
+        if (GlyphWidths != null) {
+            weight += 4L * GlyphWidths.length;
+        }
+        if (bboxes != null) {
+            weight += 32L * bboxes.length;
+        }
+        for (TrueTypeCmap cmap : Arrays.asList(cmap10, cmap31, cmapExt)) {
+            if (cmap != null) {
+                weight += cmap.getMemory();
+            }
+        }
+        if (rf != null && rf.arrayIn != null) {
+            weight += rf.arrayIn.length;
+        }
+        return weight;
+    }
+
     protected byte[] getFullFont() throws IOException {
         RandomAccessFileOrArray rf2 = null;
         try {
             rf2 = new RandomAccessFileOrArray(rf);
             rf2.reOpen();
-            byte[] b = new byte[rf2.length()];
+            byte[] b = new byte[(int) rf2.lengthLong()];
             rf2.readFully(b);
             return b;
         } finally {
@@ -1188,11 +1236,18 @@ class TrueTypeFont extends BaseFont {
         }
     }
 
-    protected void addRangeUni(Map<Integer, int[]> longTag, boolean includeMetrics, boolean subsetp) {
+    /**
+     * Adds to the glyphs used the glyphs of the characters in the subset ranges, when the font is not subset by the
+     * glyphs used only.
+     *
+     * @param usedGlyphs the glyphs used
+     * @param subsetp    <CODE>true</CODE> if the font is subset by the glyphs used
+     */
+    void addRangeUni(UsedGlyphs usedGlyphs, boolean subsetp) {
         if (!subsetp && (subsetRanges != null || directoryOffset > 0)) {
             int[] rg =
                     (subsetRanges == null && directoryOffset > 0) ? new int[]{0, 0xffff} : compactRanges(subsetRanges);
-            Map<Integer, int[]> usemap;
+            TrueTypeCmap usemap;
             if (!fontSpecific && cmap31 != null) {
                 usemap = cmap31;
             } else if (fontSpecific && cmap10 != null) {
@@ -1202,13 +1257,10 @@ class TrueTypeFont extends BaseFont {
             } else {
                 usemap = cmap10;
             }
-            for (Map.Entry<Integer, int[]> e : usemap.entrySet()) {
-                int[] v = e.getValue();
-                Integer gi = v[0];
-                if (longTag.containsKey(gi)) {
-                    continue;
+            usemap.forEach((c, gi) -> {
+                if (usedGlyphs.contains(gi)) {
+                    return;
                 }
-                int c = e.getKey();
                 boolean skip = true;
                 for (int k = 0; k < rg.length; k += 2) {
                     if (c >= rg[k] && rg.length > k + 1 && c <= rg[k + 1]) {
@@ -1217,9 +1269,9 @@ class TrueTypeFont extends BaseFont {
                     }
                 }
                 if (!skip) {
-                    longTag.put(gi, includeMetrics ? new int[]{v[0], v[1], c} : null);
+                    usedGlyphs.put(gi, getGlyphWidth(gi), c);
                 }
-            }
+            });
         }
     }
 
@@ -1251,14 +1303,14 @@ class TrueTypeFont extends BaseFont {
         String subsetPrefix = "";
         if (embedded) {
             if (cff) {
-                pobj = new StreamFont(readCffFont(), "Type1C", compressionLevel);
+                pobj = new StreamFont(readCffFont(), "Type1C", compressionLevel, writer);
                 obj = writer.addToBody(pobj);
                 ind_font = obj.getIndirectReference();
             } else {
                 if (subsetp) {
                     subsetPrefix = createSubsetPrefix();
                 }
-                HashMap<Integer, int[]> glyphs = new HashMap<>();
+                UsedGlyphs glyphs = new UsedGlyphs();
                 for (int k = firstChar; k <= lastChar; ++k) {
                     if (shortTag[k] != 0) {
                         int[] metrics = null;
@@ -1275,11 +1327,11 @@ class TrueTypeFont extends BaseFont {
                             }
                         }
                         if (metrics != null) {
-                            glyphs.put(metrics[0], null);
+                            glyphs.add(metrics[0], metrics[1], UsedGlyphs.NO_CODE);
                         }
                     }
                 }
-                addRangeUni(glyphs, false, subsetp);
+                addRangeUni(glyphs, subsetp);
                 byte[] b = null;
                 if (subsetp || directoryOffset != 0 || subsetRanges != null) {
                     TrueTypeFontSubSet sb = new TrueTypeFontSubSet(fileName, new RandomAccessFileOrArray(rf), glyphs,
@@ -1289,7 +1341,7 @@ class TrueTypeFont extends BaseFont {
                     b = getFullFont();
                 }
                 int[] lengths = new int[]{b.length};
-                pobj = new StreamFont(b, lengths, compressionLevel);
+                pobj = new StreamFont(b, lengths, compressionLevel, writer);
                 obj = writer.addToBody(pobj);
                 ind_font = obj.getIndirectReference();
             }
@@ -1404,22 +1456,36 @@ class TrueTypeFont extends BaseFont {
      * @return an <CODE>int</CODE> array with {glyph index, width}
      */
     public int[] getMetricsTT(int c) {
+        TrueTypeCmap map;
         if (cmapExt != null) {
-            return cmapExt.get(c);
-        }
-        if (!fontSpecific && cmap31 != null) {
-            return cmap31.get(c);
-        }
-        if (fontSpecific && cmap10 != null) {
-            return cmap10.get(c);
-        }
-        if (cmap31 != null) {
-            return cmap31.get(c);
+            map = cmapExt;
+        } else if (!fontSpecific && cmap31 != null) {
+            map = cmap31;
+        } else if (fontSpecific && cmap10 != null) {
+            map = cmap10;
+        } else if (cmap31 != null) {
+            map = cmap31;
+        } else if (cmap10 != null) {
+            map = cmap10;
+        } else {
+            return null;
         }
-        if (cmap10 != null) {
-            return cmap10.get(c);
+        return getMetrics(map, c);
+    }
+
+    /**
+     * Gets the glyph index and width for a code of a map.
+     *
+     * @param map  the map
+     * @param code the code
+     * @return an <CODE>int</CODE> array with {glyph index, width} or <CODE>null</CODE> if the code is not mapped
+     */
+    int[] getMetrics(TrueTypeCmap map, int code) {
+        int glyph = map.getGlyph(code);
+        if (glyph < 0) {
+            return null;
         }
-        return null;
+        return new int[]{glyph, getGlyphWidth(glyph)};
     }
 
     /**
@@ -1537,7 +1603,7 @@ class TrueTypeFont extends BaseFont {
     }
 
     protected int[] getRawCharBBox(int c, String name) {
-        Map<Integer, int[]> map;
+        TrueTypeCmap map;
         if (name == null || cmap31 == null) {
             map = cmap10;
         } else {
@@ -1546,11 +1612,12 @@ class TrueTypeFont extends BaseFont {
         if (map == null) {
             return null;
         }
-        int[] metric = map.get(c);
-        if (metric == null || bboxes == null) {
+        int glyph = map.getGlyph(c);
+        int[][] boxes = glyph < 0 ? null : getBboxes();
+        if (boxes == null) {
             return null;
         }
-        return bboxes[metric[0]];
+        return boxes[glyph];
     }
 
     /**
@@ -102,7 +102,7 @@ class TrueTypeFontSubSet {
     protected boolean includeExtras;
     protected boolean locaShortTable;
     protected int[] locaTable;
-    protected HashMap<Integer, int[]> glyphsUsed;
+    protected UsedGlyphs glyphsUsed;
     protected ArrayList<Integer> glyphsInList;
     protected int tableGlyphOffset;
     protected int[] newLocaTable;
@@ -122,7 +122,7 @@ class TrueTypeFontSubSet {
      * @param glyphsUsed      the glyphs used
      * @param includeCmap     <CODE>true</CODE> if the table cmap is to be included in the generated font
      */
-    TrueTypeFontSubSet(String fileName, RandomAccessFileOrArray rf, HashMap<Integer, int[]> glyphsUsed,
+    TrueTypeFontSubSet(String fileName, RandomAccessFileOrArray rf, UsedGlyphs glyphsUsed,
             int directoryOffset, boolean includeCmap, boolean includeExtras) {
         this.fileName = fileName;
         this.rf = rf;
@@ -130,7 +130,10 @@ class TrueTypeFontSubSet {
         this.includeCmap = includeCmap;
         this.includeExtras = includeExtras;
         this.directoryOffset = directoryOffset;
-        glyphsInList = new ArrayList<>(glyphsUsed.keySet());
+        glyphsInList = new ArrayList<>();
+        for (int glyph : glyphsUsed.getGlyphs()) {
+            glyphsInList.add(glyph);
+        }
     }
 
     /**
@@ -348,10 +351,8 @@ class TrueTypeFontSubSet {
             throw new DocumentException(
                     MessageLocalization.getComposedMessage("table.1.does.not.exist.in.2", "glyf", fileName));
         }
-        Integer glyph0 = 0;
-        if (!glyphsUsed.containsKey(glyph0)) {
-            glyphsUsed.put(glyph0, null);
-            glyphsInList.add(glyph0);
+        if (glyphsUsed.add(0, 0, UsedGlyphs.NO_CODE)) {
+            glyphsInList.add(0);
         }
         tableGlyphOffset = tableLocation[TABLE_OFFSET];
         for (int k = 0; k < glyphsInList.size(); ++k) {
@@ -375,9 +376,8 @@ class TrueTypeFontSubSet {
         rf.skipBytes(8);
         for (; ; ) {
             int flags = rf.readUnsignedShort();
-            Integer cGlyph = rf.readUnsignedShort();
-            if (!glyphsUsed.containsKey(cGlyph)) {
-                glyphsUsed.put(cGlyph, null);
+            int cGlyph = rf.readUnsignedShort();
+            if (glyphsUsed.add(cGlyph, 0, UsedGlyphs.NO_CODE)) {
                 glyphsInList.add(cGlyph);
             }
             if ((flags & MORE_COMPONENTS) == 0) {
@@ -57,9 +57,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Represents a True Type font with Unicode encoding. All the character in the font can be used directly by using the
@@ -77,7 +75,17 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
      */
     boolean vertical;
 
-    Map<Integer, Integer> inverseCmap;
+    /**
+     * The codes of the glyphs in the Unicode map, built the first time a code is asked for. A glyph without code has
+     * -1.
+     */
+    private volatile int[] inverseCmap;
+
+    /**
+     * The advances set by <CODE>setCharAdvance</CODE>, by code of the map, replacing the widths of the glyphs. The
+     * table is replaced, not changed, by <CODE>setCharAdvance</CODE>.
+     */
+    private volatile IntHashtable charAdvances;
 
     /**
      * Creates a new TrueType font addressed by Unicode characters. The font will always be embedded.
@@ -154,29 +162,27 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
         return "[<" + toHex4(high) + toHex4(low) + ">]";
     }
 
-    @Override
-    void readCMaps() throws DocumentException, IOException {
-        super.readCMaps();
-
-        Map<Integer, int[]> cmap = null;
-        if (cmapExt != null) {
-            cmap = cmapExt;
-        } else if (cmap31 != null) {
-            cmap = cmap31;
-        }
-
-        if (cmap != null) {
-            inverseCmap = new HashMap<>();
-            for (Map.Entry<Integer, int[]> entry : cmap.entrySet()) {
-                Integer code = entry.getKey();
-                int[] metrics = entry.getValue();
-                inverseCmap.put(metrics[0], code);
+    protected Integer getCharacterCode(int code) {
+        int[] inverse = inverseCmap;
+        if (inverse == null) {
+            TrueTypeCmap cmap = cmapExt != null ? cmapExt : cmap31;
+            int[] glyphs = new int[1];
+            if (cmap != null) {
+                cmap.forEach((c, glyph) -> glyphs[0] = Math.max(glyphs[0], glyph + 1));
             }
+            int[] codes = new int[glyphs[0]];
+            Arrays.fill(codes, -1);
+            if (cmap != null) {
+                // the highest code of a glyph is kept
+                cmap.forEach((c, glyph) -> {
+                    if (glyph >= 0) {
+                        codes[glyph] = c;
+                    }
+                });
+            }
+            inverseCmap = inverse = codes;
         }
-    }
-
-    protected Integer getCharacterCode(int code) {
-        return inverseCmap == null ? null : inverseCmap.get(code);
+        return code < 0 || code >= inverse.length || inverse[code] < 0 ? null : inverse[code];
     }
 
 
@@ -432,13 +438,11 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
      * @throws DocumentException error in generating the object
      */
     @Override
-    @SuppressWarnings("unchecked")
     void writeFont(PdfWriter writer, PdfIndirectReference ref, Object[] params) throws DocumentException, IOException {
-        HashMap<Integer, int[]> longTag = (HashMap<Integer, int[]>) params[0];
-        Map<Integer, int[]> fillerCmap = (Map<Integer, int[]>) params[2];
-        addRangeUni(longTag, true, subset);
-        int[][] metrics = longTag.values().toArray(new int[0][]);
-        Arrays.sort(metrics, this);
+        UsedGlyphs longTag = (UsedGlyphs) params[0];
+        UsedGlyphs fillerCmap = (UsedGlyphs) params[2];
+        addRangeUni(longTag, subset);
+        int[][] metrics = longTag.getMetrics();
         PdfIndirectReference indFont;
         PdfObject pobj;
         PdfIndirectObject obj;
@@ -464,10 +468,10 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
         if (cff) {
             byte[] b = readCffFont();
             if (subset || subsetRanges != null) {
-                CFFFontSubset cff = new CFFFontSubset(new RandomAccessFileOrArray(b), longTag);
+                CFFFontSubset cff = new CFFFontSubset(new RandomAccessFileOrArray(b), longTag.toMap());
                 b = cff.Process(cff.getNames()[0]);
             }
-            pobj = new StreamFont(b, "CIDFontType0C", compressionLevel);
+            pobj = new StreamFont(b, "CIDFontType0C", compressionLevel, writer);
             obj = writer.addToBody(pobj);
             indFont = obj.getIndirectReference();
         } else {
@@ -480,7 +484,7 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
                 b = getFullFont();
             }
             int[] lengths = new int[]{b.length};
-            pobj = new StreamFont(b, lengths, compressionLevel);
+            pobj = new StreamFont(b, lengths, compressionLevel, writer);
             obj = writer.addToBody(pobj);
             indFont = obj.getIndirectReference();
         }
@@ -508,18 +512,25 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
         writer.addToBody(pobj, ref);
     }
 
-    public int[][] mergeMetricsAndFillerCmap(int[][] metric, Map<Integer, int[]> fillerCmap) {
-        Map<Integer, int[]> result = new HashMap<>();
-        for (int[] ints : metric) {
-            result.put(ints[0], ints);
+    /**
+     * Adds to the metrics the glyphs missing in the cmap, with a width of 0.
+     *
+     * @param metrics    the metrics of the glyphs used in increasing order of glyph
+     * @param fillerCmap the glyphs missing in the cmap and their Unicode code
+     * @return the metrics with the glyphs missing in the cmap, in increasing order of glyph
+     */
+    int[][] mergeMetricsAndFillerCmap(int[][] metrics, UsedGlyphs fillerCmap) {
+        if (fillerCmap.size() == 0) {
+            return metrics;
         }
-
-        for (Map.Entry<Integer, int[]> entry : fillerCmap.entrySet()) {
-            int[] row = entry.getValue();
-            result.put(entry.getKey(), new int[]{row[0], 0, row[1]});
+        UsedGlyphs merged = new UsedGlyphs();
+        for (int[] metric : metrics) {
+            merged.put(metric[0], metric[1], metric.length > 2 ? metric[2] : UsedGlyphs.NO_CODE);
         }
-
-        return result.values().toArray(new int[0][]);
+        for (int glyph : fillerCmap.getGlyphs()) {
+            merged.put(glyph, 0, fillerCmap.getCode(glyph));
+        }
+        return merged.getMetrics();
     }
 
     /**
@@ -561,9 +572,9 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
     @Override
     public int[] getMetricsTT(int c) {
         if (cmapExt != null) {
-            return cmapExt.get(c);
+            return getMetrics(cmapExt, c);
         }
-        Map<Integer, int[]> map;
+        TrueTypeCmap map;
         if (fontSpecific) {
             map = cmap10;
         } else {
@@ -574,15 +585,25 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
         }
         if (fontSpecific) {
             if ((c & 0xffffff00) == 0 || (c & 0xffffff00) == 0xf000) {
-                return map.get(c & 0xff);
+                return getMetrics(map, c & 0xff);
             } else {
                 return null;
             }
         } else {
-            return map.get(c);
+            return getMetrics(map, c);
         }
     }
 
+    @Override
+    int[] getMetrics(TrueTypeCmap map, int code) {
+        int[] metrics = super.getMetrics(map, code);
+        IntHashtable advances = charAdvances;
+        if (metrics != null && advances != null && advances.containsKey(code)) {
+            metrics[1] = advances.get(code);
+        }
+        return metrics;
+    }
+
     /**
      * Checks if a character exists in this font.
      *
@@ -609,20 +630,25 @@ class TrueTypeFontUnicode extends TrueTypeFont implements Comparator<int[]> {
         if (m == null) {
             return false;
         }
-        m[1] = advance;
+        synchronized (this) {
+            IntHashtable advances = charAdvances == null ? new IntHashtable() : (IntHashtable) charAdvances.clone();
+            advances.put(cmapExt == null && fontSpecific ? c & 0xff : c, advance);
+            charAdvances = advances;
+        }
         return true;
     }
 
     @Override
     public int[] getCharBBox(int c) {
-        if (bboxes == null) {
+        int[][] boxes = getBboxes();
+        if (boxes == null) {
             return null;
         }
         int[] m = getMetricsTT(c);
         if (m == null) {
             return null;
         }
-        return bboxes[m[0]];
+        return boxes[m[0]];
     }
 
 }
@@ -0,0 +1,152 @@
+package com.lowagie.text.pdf;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * The glyphs of a font used in a document, with their width and their Unicode code. The glyphs are kept in a bit set
+ * with the widths and the codes in arrays indexed by the glyph, so recording a glyph allocates nothing once the arrays
+ * have grown to the highest glyph used.
+ */
+final class UsedGlyphs {
+
+    /**
+     * The code of a glyph that doesn't map to a character.
+     */
+    static final int NO_CODE = -1;
+
+    private final BitSet glyphs = new BitSet();
+    private int[] widths;
+    private int[] codes;
+
+    /**
+     * Creates an empty set of glyphs.
+     */
+    UsedGlyphs() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty set of glyphs.
+     *
+     * @param capacity the number of glyphs the arrays hold before growing
+     */
+    UsedGlyphs(int capacity) {
+        capacity = Math.max(capacity, 1);
+        widths = new int[capacity];
+        codes = new int[capacity];
+    }
+
+    /**
+     * Checks if a glyph is used.
+     *
+     * @param glyph the glyph
+     * @return <CODE>true</CODE> if the glyph is used
+     */
+    boolean contains(int glyph) {
+        return glyph >= 0 && glyphs.get(glyph);
+    }
+
+    /**
+     * Adds a glyph if it is not already used.
+     *
+     * @param glyph the glyph
+     * @param width the width of the glyph
+     * @param code  the Unicode code of the glyph or <CODE>NO_CODE</CODE>
+     * @return <CODE>true</CODE> if the glyph was added
+     */
+    boolean add(int glyph, int width, int code) {
+        if (contains(glyph)) {
+            return false;
+        }
+        put(glyph, width, code);
+        return true;
+    }
+
+    /**
+     * Adds a glyph, replacing its width and its code if it is already used.
+     *
+     * @param glyph the glyph
+     * @param width the width of the glyph
+     * @param code  the Unicode code of the glyph or <CODE>NO_CODE</CODE>
+     */
+    void put(int glyph, int width, int code) {
+        if (glyph >= widths.length) {
+            int length = Math.max(widths.length * 2, glyph + 1);
+            widths = Arrays.copyOf(widths, length);
+            codes = Arrays.copyOf(codes, length);
+        }
+        glyphs.set(glyph);
+        widths[glyph] = width;
+        codes[glyph] = code;
+    }
+
+    /**
+     * Gets the width of a glyph used.
+     *
+     * @param glyph the glyph
+     * @return the width
+     */
+    int getWidth(int glyph) {
+        return widths[glyph];
+    }
+
+    /**
+     * Gets the Unicode code of a glyph used.
+     *
+     * @param glyph the glyph
+     * @return the code or <CODE>NO_CODE</CODE>
+     */
+    int getCode(int glyph) {
+        return codes[glyph];
+    }
+
+    /**
+     * Gets the number of glyphs used.
+     *
+     * @return the number of glyphs used
+     */
+    int size() {
+        return glyphs.cardinality();
+    }
+
+    /**
+     * Gets the glyphs used in increasing order.
+     *
+     * @return the glyphs used
+     */
+    int[] getGlyphs() {
+        return glyphs.stream().toArray();
+    }
+
+    /**
+     * Gets the metrics of the glyphs used in increasing order of glyph. Each entry is <CODE>{glyph, width, code}</CODE>
+     * or <CODE>{glyph, width}</CODE> if the glyph has no code.
+     *
+     * @return the metrics of the glyphs used
+     */
+    int[][] getMetrics() {
+        int[][] metrics = new int[size()][];
+        int k = 0;
+        for (int glyph = glyphs.nextSetBit(0); glyph >= 0; glyph = glyphs.nextSetBit(glyph + 1)) {
+            metrics[k++] = codes[glyph] == NO_CODE ? new int[]{glyph, widths[glyph]}
+                    : new int[]{glyph, widths[glyph], codes[glyph]};
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the glyphs used as a map from the glyph to its metrics, in the form taken by the font subsetters.
+     *
+     * @return the glyphs used
+     */
+    HashMap<Integer, int[]> toMap() {
+        int[][] metrics = getMetrics();
+        HashMap<Integer, int[]> map = new HashMap<>(Math.max(16, metrics.length * 4 / 3 + 1));
+        for (int[] metric : metrics) {
+            map.put(metric[0], metric);
+        }
+        return map;
+    }
+}
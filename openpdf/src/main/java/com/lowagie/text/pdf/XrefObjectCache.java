@@ -0,0 +1,381 @@
+package com.lowagie.text.pdf;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The objects of a {@link PdfReader} indexed by object number.
+ * <p>
+ * Every slot is read and written atomically, so an object resolved by one thread is safely published to all others.
+ * {@link #setIfAbsent(int, PdfObject)} lets concurrent readers resolving the same object agree on a single instance.
+ * Appending is synchronized and grows the table when needed.
+ * <p>
+ * A budget may be set for the objects that can be read again from the file. Those objects are then tracked in the
+ * order they were read with an estimate of their size, and the least recently used are evicted when the budget is
+ * exceeded. Reading an object only stamps its slot from an atomic access counter, the lock is taken when objects are
+ * read from the file, evicted or restored. An object used since it was last queued gets a second chance at the end of
+ * the queue instead of being evicted. An evicted object is kept softly reachable, it is restored if the garbage
+ * collector did not reclaim it and read again from the file otherwise.
+ */
+final class XrefObjectCache {
+
+    private volatile AtomicReferenceArray<PdfObject> slots;
+    private volatile int size;
+    private volatile boolean bounded;
+    private long budget;
+    private long weight;
+    private LinkedHashMap<Integer, Resident> resident;
+    private volatile Map<Integer, EvictedObject> evicted;
+    private ReferenceQueue<PdfObject> cleared;
+    private final AtomicLong clock = new AtomicLong();
+    private volatile AtomicLongArray accessed;
+
+    /**
+     * Creates a table with <CODE>size</CODE> empty slots.
+     *
+     * @param size the number of slots
+     */
+    XrefObjectCache(int size) {
+        this.slots = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PdfObject get(int idx) {
+        checkIndex(idx);
+        PdfObject obj = slots.get(idx);
+        if (bounded) {
+            if (obj != null) {
+                touch(idx);
+            } else {
+                obj = restore(idx);
+            }
+        }
+        return obj;
+    }
+
+    void set(int idx, PdfObject obj) {
+        checkIndex(idx);
+        if (bounded) {
+            synchronized (this) {
+                slots.set(idx, obj);
+                untrack(idx);
+            }
+        } else {
+            slots.set(idx, obj);
+        }
+    }
+
+    /**
+     * Stores <CODE>obj</CODE> unless another object was stored in the slot first.
+     *
+     * @param idx the object number
+     * @param obj the object just read
+     * @return the object now held by the slot
+     */
+    PdfObject setIfAbsent(int idx, PdfObject obj) {
+        checkIndex(idx);
+        if (slots.compareAndSet(idx, null, obj)) {
+            return obj;
+        }
+        PdfObject current = slots.get(idx);
+        return current == null ? obj : current;
+    }
+
+    /**
+     * Appends an object after the last slot.
+     *
+     * @param obj the object
+     * @return the object number of the new slot
+     */
+    synchronized int add(PdfObject obj) {
+        AtomicReferenceArray<PdfObject> current = slots;
+        if (size == current.length()) {
+            AtomicReferenceArray<PdfObject> grown = new AtomicReferenceArray<>(current.length() * 2);
+            for (int k = 0; k < size; ++k) {
+                grown.set(k, current.get(k));
+            }
+            slots = grown;
+            current = grown;
+        }
+        current.set(size, obj);
+        AtomicLongArray stamps = accessed;
+        if (stamps != null && size == stamps.length()) {
+            accessed = grow(stamps, current.length());
+        }
+        return size++;
+    }
+
+    /**
+     * Sets the estimated number of bytes the objects read with {@link #loaded(int, PdfObject)} may use.
+     *
+     * @param budget the budget in bytes, 0 for no limit
+     */
+    synchronized void setBudget(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("The object cache budget can not be negative.");
+        }
+        this.budget = budget;
+        if (budget == 0) {
+            bounded = false;
+            resident = null;
+            evicted = null;
+            cleared = null;
+            accessed = null;
+            weight = 0;
+            return;
+        }
+        if (resident == null) {
+            resident = new LinkedHashMap<>(64);
+            evicted = new ConcurrentHashMap<>();
+            cleared = new ReferenceQueue<>();
+            accessed = new AtomicLongArray(slots.length());
+        }
+        bounded = true;
+        evict(-1);
+    }
+
+    synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Checks if an object is in the queue of the objects counted in the budget.
+     *
+     * @param idx the object number
+     * @return <CODE>true</CODE> if the object is counted in the budget
+     */
+    synchronized boolean isResident(int idx) {
+        return resident != null && resident.containsKey(idx);
+    }
+
+    /**
+     * Records an object that was just read from the file and can be read again, evicting the least recently used
+     * objects if the budget is exceeded. Does nothing if no budget is set.
+     *
+     * @param idx the object number
+     * @param obj the object stored in the slot
+     */
+    void loaded(int idx, PdfObject obj) {
+        if (!bounded) {
+            return;
+        }
+        synchronized (this) {
+            if (slots.get(idx) != obj) {
+                return;
+            }
+            enqueue(idx, obj);
+            evict(idx);
+        }
+    }
+
+    /**
+     * Stops counting an object in the budget, so it stays in its slot until it is replaced or released. An evicted
+     * object that was not reclaimed yet is put back in its slot first.
+     *
+     * @param idx the object number
+     */
+    void pin(int idx) {
+        if (!bounded) {
+            return;
+        }
+        synchronized (this) {
+            if (!bounded) {
+                return;
+            }
+            purge();
+            EvictedObject ref = evicted.get(idx);
+            PdfObject obj = ref == null ? null : ref.get();
+            if (obj != null) {
+                slots.compareAndSet(idx, null, obj);
+            }
+            untrack(idx);
+        }
+    }
+
+    /**
+     * Stamps the slot of an object being read with the next value of the access counter, without locking.
+     */
+    private void touch(int idx) {
+        AtomicLongArray stamps = accessed;
+        if (stamps != null && idx < stamps.length()) {
+            stamps.lazySet(idx, clock.incrementAndGet());
+        }
+    }
+
+    /**
+     * Restores an evicted object that was not reclaimed yet. The lock is only taken if the object was evicted.
+     */
+    private PdfObject restore(int idx) {
+        Map<Integer, EvictedObject> candidates = evicted;
+        if (candidates == null || !candidates.containsKey(idx)) {
+            return slots.get(idx);
+        }
+        synchronized (this) {
+            if (!bounded) {
+                return slots.get(idx);
+            }
+            purge();
+            EvictedObject ref = evicted.remove(idx);
+            if (ref == null) {
+                return slots.get(idx);
+            }
+            PdfObject obj = ref.get();
+            if (obj != null && slots.compareAndSet(idx, null, obj)) {
+                enqueue(idx, obj);
+                evict(idx);
+            }
+        }
+        return slots.get(idx);
+    }
+
+    private void enqueue(int idx, PdfObject obj) {
+        long w = estimateSize(obj, 0);
+        touch(idx);
+        Resident old = resident.remove(idx);
+        resident.put(idx, new Resident(w, stamp(idx)));
+        weight += w - (old == null ? 0 : old.weight);
+    }
+
+    private long stamp(int idx) {
+        AtomicLongArray stamps = accessed;
+        return stamps != null && idx < stamps.length() ? stamps.get(idx) : 0;
+    }
+
+    private void untrack(int idx) {
+        Resident r = resident.remove(idx);
+        if (r != null) {
+            weight -= r.weight;
+        }
+        evicted.remove(idx);
+    }
+
+    /**
+     * Evicts the objects at the head of the queue until the budget is met. An object read since it was queued is queued
+     * again instead, once per object in the queue, and the object <CODE>keep</CODE> just read always stays.
+     */
+    private void evict(int keep) {
+        purge();
+        int chances = resident.size();
+        while (weight > budget && resident.size() > 1) {
+            Map.Entry<Integer, Resident> eldest = resident.entrySet().iterator().next();
+            int idx = eldest.getKey();
+            Resident r = eldest.getValue();
+            long stamp = stamp(idx);
+            if (idx == keep || (chances > 0 && stamp > r.stamp)) {
+                --chances;
+                resident.remove(idx);
+                r.stamp = stamp;
+                resident.put(idx, r);
+                continue;
+            }
+            resident.remove(idx);
+            weight -= r.weight;
+            PdfObject obj = slots.getAndSet(idx, null);
+            if (obj != null) {
+                evicted.put(idx, new EvictedObject(idx, obj, cleared));
+            }
+        }
+    }
+
+    private static AtomicLongArray grow(AtomicLongArray stamps, int length) {
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int k = 0; k < stamps.length(); ++k) {
+            grown.set(k, stamps.get(k));
+        }
+        return grown;
+    }
+
+    private void purge() {
+        EvictedObject ref;
+        while ((ref = (EvictedObject) cleared.poll()) != null) {
+            evicted.remove(ref.idx, ref);
+        }
+    }
+
+    /**
+     * Estimates the heap used by an object and the direct objects it contains.
+     *
+     * @param obj   the object
+     * @param depth the nesting level of the object
+     * @return the estimated size in bytes
+     */
+    static long estimateSize(PdfObject obj, int depth) {
+        if (obj == null) {
+            return 0;
+        }
+        long size;
+        switch (obj.type()) {
+            case PdfObject.STREAM:
+                byte[] b = obj.getBytes();
+                size = 64 + (b == null ? 0 : b.length) + estimateEntries((PdfDictionary) obj, depth);
+                break;
+            case PdfObject.DICTIONARY:
+                size = 48 + estimateEntries((PdfDictionary) obj, depth);
+                break;
+            case PdfObject.ARRAY:
+                size = 40;
+                if (depth < 16) {
+                    for (PdfObject element : ((PdfArray) obj).getElements()) {
+                        size += 8 + estimateSize(element, depth + 1);
+                    }
+                }
+                break;
+            case PdfObject.STRING:
+                size = 56 + 2L * obj.toString().length();
+                break;
+            default:
+                size = 24;
+        }
+        return size;
+    }
+
+    private static long estimateEntries(PdfDictionary dic, int depth) {
+        long size = 0;
+        if (depth < 16) {
+            for (PdfName key : dic.getKeys()) {
+                size += 32 + estimateSize(dic.get(key), depth + 1);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The estimated size of a resident object and the value of its access stamp when it was queued.
+     */
+    private static final class Resident {
+
+        final long weight;
+        long stamp;
+
+        Resident(long weight, long stamp) {
+            this.weight = weight;
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class EvictedObject extends SoftReference<PdfObject> {
+
+        private final int idx;
+
+        EvictedObject(int idx, PdfObject obj, ReferenceQueue<PdfObject> queue) {
+            super(obj, queue);
+            this.idx = idx;
+        }
+    }
+
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= size) {
+            throw new IndexOutOfBoundsException("Index " + idx + " out of bounds for length " + size);
+        }
+    }
+}
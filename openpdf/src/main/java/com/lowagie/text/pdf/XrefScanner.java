@@ -0,0 +1,403 @@
+package com.lowagie.text.pdf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Scans a damaged file for object headers and trailers, as {@link PdfReader#rebuildXref()} does with
+ * {@link PRTokeniser#readLineSegment(byte[])}, but in chunks that are scanned in parallel, each through a view of the
+ * file of its own.
+ * <p>
+ * A chunk owns the lines whose first non whitespace byte lies in it. The scan of a chunk starts after the last end of
+ * line before the chunk, where the lines of the sequential scan start, and ends with the first line owned by the next
+ * chunk, so that a line crossing a boundary is found exactly once. The lines are split eight bytes at a time and only
+ * the lines holding the <CODE>obj</CODE> keyword are tokenised.
+ */
+final class XrefScanner {
+
+    /**
+     * The smallest chunk scanned by a thread of its own.
+     */
+    static final int MIN_CHUNK = 1 << 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of bytes of a line that are checked, the size of the line buffer of {@link PdfReader#rebuildXref()}.
+     */
+    private static final int LINE_SIZE = 64;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long LFS = ONES * '\n';
+    private static final long CRS = ONES * '\r';
+
+    private static final byte[] TRAILER = PdfEncodings.convertToBytes("trailer", null);
+
+    private final RandomAccessFileOrArray file;
+    private final long length;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart;
+    private int bufferLength;
+    private final byte[] line = new byte[LINE_SIZE];
+
+    private long[] objects = new long[3 * 256];
+    private int objectCount;
+    private long[] trailers = new long[4];
+    private int trailerCount;
+
+    private XrefScanner(RandomAccessFileOrArray file, long length) {
+        this.file = file;
+        this.length = length;
+    }
+
+    /**
+     * Scans a file with one chunk per available processor, a chunk being at least {@link #MIN_CHUNK} bytes.
+     *
+     * @param file     the file
+     * @param executor the executor scanning the chunks or <CODE>null</CODE> to start threads for the scan
+     * @return the chunks in file order
+     * @throws IOException on error
+     */
+    static XrefScanner[] scan(RandomAccessFileOrArray file, Executor executor) throws IOException {
+        long length = file.lengthLong();
+        long chunks = Math.min(Runtime.getRuntime().availableProcessors(), (length + MIN_CHUNK - 1) / MIN_CHUNK);
+        return scan(file, (int) Math.max(chunks, 1), executor);
+    }
+
+    /**
+     * Scans a file in a number of chunks. Each chunk reads the file through a copy of <CODE>file</CODE>, with its own
+     * position and buffer.
+     *
+     * @param file     the file
+     * @param chunks   the number of chunks
+     * @param executor the executor scanning the chunks or <CODE>null</CODE> to start threads for the scan, a single
+     *                 chunk being scanned on the calling thread
+     * @return the chunks in file order
+     * @throws IOException on error
+     */
+    static XrefScanner[] scan(RandomAccessFileOrArray file, int chunks, Executor executor) throws IOException {
+        long length = file.lengthLong();
+        long size = length / chunks + 1;
+        if (chunks == 1 && executor == null) {
+            return new XrefScanner[]{scanChunk(new RandomAccessFileOrArray(file), length, 0, length)};
+        }
+        ExecutorService pool = null;
+        if (executor == null) {
+            pool = Executors.newFixedThreadPool(chunks);
+            executor = pool;
+        }
+        try {
+            List<CompletableFuture<XrefScanner>> futures = new ArrayList<>(chunks);
+            for (int k = 0; k < chunks; ++k) {
+                RandomAccessFileOrArray view = new RandomAccessFileOrArray(file);
+                long start = Math.min(k * size, length);
+                long end = Math.min((k + 1) * size, length);
+                futures.add(CompletableFuture.supplyAsync(() -> scanChunk(view, length, start, end), executor));
+            }
+            XrefScanner[] scanners = new XrefScanner[chunks];
+            for (int k = 0; k < chunks; ++k) {
+                try {
+                    scanners[k] = futures.get(k).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) e.getCause()).getCause();
+                    }
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+            return scanners;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static XrefScanner scanChunk(RandomAccessFileOrArray view, long length, long start, long end) {
+        XrefScanner scanner = new XrefScanner(view, length);
+        try {
+            scanner.scanChunk(start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                view.close();
+            } catch (IOException e) {
+                // empty on purpose
+            }
+        }
+        return scanner;
+    }
+
+    /**
+     * Gets the number of object headers found in the chunk.
+     *
+     * @return the number of headers
+     */
+    int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Gets the object number of a header.
+     *
+     * @param k the index of the header, in file order
+     * @return the object number
+     */
+    int getNumber(int k) {
+        return (int) objects[3 * k];
+    }
+
+    /**
+     * Gets the generation of a header.
+     *
+     * @param k the index of the header, in file order
+     * @return the generation
+     */
+    int getGeneration(int k) {
+        return (int) objects[3 * k + 1];
+    }
+
+    /**
+     * Gets the position of the line of a header, before its leading whitespace.
+     *
+     * @param k the index of the header, in file order
+     * @return the position
+     */
+    long getPosition(int k) {
+        return objects[3 * k + 2];
+    }
+
+    /**
+     * Gets the positions of the lines starting with <CODE>trailer</CODE>, in file order.
+     *
+     * @return the positions
+     */
+    long[] getTrailers() {
+        return Arrays.copyOf(trailers, trailerCount);
+    }
+
+    private void scanChunk(long start, long end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+        long p = start == 0 ? 0 : lineStartBefore(start);
+        boolean first = true;
+        while (true) {
+            long pos = p;
+            int c;
+            while (PRTokeniser.isWhitespace(c = byteAt(p))) {
+                ++p;
+            }
+            if (c == -1 || p >= end) {
+                return;
+            }
+            long contentStart = p;
+            boolean owned = contentStart >= start;
+            if (owned && first && pos > 0) {
+                pos = lineStartOf(contentStart);
+            }
+            first = false;
+            int len;
+            long eol = indexOfEol(contentStart, Math.min(contentStart + LINE_SIZE, length));
+            if (eol >= 0) {
+                len = (int) (eol - contentStart);
+            } else if (contentStart + LINE_SIZE >= length) {
+                len = (int) (length - contentStart);
+            } else {
+                len = LINE_SIZE;
+                eol = indexOfEol(contentStart + LINE_SIZE, length);
+            }
+            p = eol < 0 ? length : afterEol(eol);
+            if (owned) {
+                checkLine(pos, contentStart, len);
+            }
+        }
+    }
+
+    /**
+     * Checks a line as {@link PdfReader#rebuildXref()} does, the line buffer holding the start of the line followed
+     * by <CODE>" X"</CODE> when there is room.
+     */
+    private void checkLine(long pos, long contentStart, int len) throws IOException {
+        int first = byteAt(contentStart);
+        if (first == 't') {
+            if (len >= TRAILER.length && startsWith(contentStart, TRAILER)) {
+                if (trailerCount == trailers.length) {
+                    trailers = Arrays.copyOf(trailers, trailerCount * 2);
+                }
+                trailers[trailerCount++] = pos;
+            }
+        } else if (first >= '0' && first <= '9') {
+            if (!containsObj(contentStart, len)) {
+                return;
+            }
+            for (int k = 0; k < len; ++k) {
+                line[k] = (byte) byteAt(contentStart + k);
+            }
+            if (len + 2 <= LINE_SIZE) {
+                line[len] = (byte) ' ';
+                line[len + 1] = (byte) 'X';
+            }
+            int[] obj = PRTokeniser.checkObjectStart(line);
+            if (obj == null) {
+                return;
+            }
+            if (objectCount * 3 == objects.length) {
+                objects = Arrays.copyOf(objects, objects.length * 2);
+            }
+            objects[3 * objectCount] = obj[0];
+            objects[3 * objectCount + 1] = obj[1];
+            objects[3 * objectCount + 2] = pos;
+            ++objectCount;
+        }
+    }
+
+    private boolean startsWith(long p, byte[] prefix) throws IOException {
+        for (int k = 0; k < prefix.length; ++k) {
+            if (byteAt(p + k) != prefix[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a line holds <CODE>obj</CODE>, a line without it cannot start an object.
+     */
+    private boolean containsObj(long p, int len) throws IOException {
+        for (int k = 2; k < len; ++k) {
+            if (byteAt(p + k) == 'j' && byteAt(p + k - 1) == 'b' && byteAt(p + k - 2) == 'o') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds where the sequential scan starts the line holding <CODE>contentStart</CODE>: after the end of the
+     * previous line or at the start of the file.
+     */
+    private long lineStartOf(long contentStart) throws IOException {
+        long q = contentStart - 1;
+        while (q >= 0 && PRTokeniser.isWhitespace(byteBefore(q))) {
+            --q;
+        }
+        if (q < 0) {
+            return 0;
+        }
+        long eol = indexOfEol(q + 1, contentStart);
+        return eol < 0 ? contentStart : afterEol(eol);
+    }
+
+    /**
+     * Finds the position after the last end of line before <CODE>p</CODE>, or the start of the file.
+     */
+    private long lineStartBefore(long p) throws IOException {
+        for (long q = p - 1; q >= 0; --q) {
+            int c = byteBefore(q);
+            if (c == '\n' || c == '\r') {
+                return afterEol(q);
+            }
+        }
+        return 0;
+    }
+
+    private long afterEol(long eol) throws IOException {
+        if (byteAt(eol) == '\r' && byteAt(eol + 1) == '\n') {
+            return eol + 2;
+        }
+        return eol + 1;
+    }
+
+    /**
+     * Finds the first <CODE>'\n'</CODE> or <CODE>'\r'</CODE> in a range, eight bytes at a time.
+     *
+     * @return the position or -1 if there is none
+     */
+    private long indexOfEol(long from, long to) throws IOException {
+        long p = from;
+        while (p < to) {
+            if (p < bufferStart || p >= bufferStart + bufferLength) {
+                fill(p, false);
+            }
+            int start = (int) (p - bufferStart);
+            int limit = (int) Math.min(bufferLength, to - bufferStart);
+            int k = indexOfEol(buffer, start, limit);
+            if (k >= 0) {
+                return bufferStart + k;
+            }
+            p = bufferStart + limit;
+        }
+        return -1;
+    }
+
+    static int indexOfEol(byte[] b, int from, int to) {
+        int k = from;
+        for (; k + 8 <= to; k += 8) {
+            long word = (long) LONGS.get(b, k);
+            if (hasByte(word, LFS) || hasByte(word, CRS)) {
+                break;
+            }
+        }
+        for (; k < to; ++k) {
+            if (b[k] == '\n' || b[k] == '\r') {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Tells whether one of the bytes of a word equals the byte repeated in <CODE>pattern</CODE>.
+     */
+    private static boolean hasByte(long word, long pattern) {
+        long x = word ^ pattern;
+        return ((x - ONES) & ~x & HIGHS) != 0;
+    }
+
+    private int byteAt(long p) throws IOException {
+        if (p >= length) {
+            return -1;
+        }
+        if (p < bufferStart || p >= bufferStart + bufferLength) {
+            fill(p, false);
+        }
+        return buffer[(int) (p - bufferStart)] & 0xff;
+    }
+
+    private int byteBefore(long p) throws IOException {
+        if (p < bufferStart || p >= bufferStart + bufferLength) {
+            fill(p, true);
+        }
+        return buffer[(int) (p - bufferStart)] & 0xff;
+    }
+
+    /**
+     * Reads the buffer starting at <CODE>p</CODE>, or ending with it when scanning backwards.
+     */
+    private void fill(long p, boolean backwards) throws IOException {
+        long start = backwards ? Math.max(0, p - BUFFER_SIZE + 1) : p;
+        int len = (int) Math.min(BUFFER_SIZE, length - start);
+        file.seek(start);
+        file.readFully(buffer, 0, len);
+        bufferStart = start;
+        bufferLength = len;
+    }
+}
@@ -25,6 +25,7 @@ package com.lowagie.text.pdf.fonts.cmaps;
 import com.lowagie.text.error_messages.MessageLocalization;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -113,6 +114,24 @@ public class CMap {
         return result;
     }
 
+    /**
+     * Gets the mappings of the one byte codes.
+     *
+     * @return the mappings, by code
+     */
+    public Map<Integer, String> getSingleByteMappings() {
+        return Collections.unmodifiableMap(singleByteMappings);
+    }
+
+    /**
+     * Gets the mappings of the two bytes codes.
+     *
+     * @return the mappings, by code
+     */
+    public Map<Integer, String> getDoubleByteMappings() {
+        return Collections.unmodifiableMap(doubleByteMappings);
+    }
+
     /**
      * This will add a mapping.
      *
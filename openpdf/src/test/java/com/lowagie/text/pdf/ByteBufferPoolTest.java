@@ -0,0 +1,120 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class ByteBufferPoolTest {
+
+    @Test
+    void shouldReuseArraysUpToTheLimit() {
+        ByteBufferPool pool = new ByteBufferPool(4096);
+        byte[] array = pool.acquire(1000);
+        assertThat(array).hasSize(1024);
+        pool.release(array);
+        assertThat(pool.getRetainedBytes()).isEqualTo(1024);
+        assertThat(pool.acquire(600)).isSameAs(array);
+        assertThat(pool.getRetainedBytes()).isZero();
+
+        pool.release(new byte[8192]);
+        pool.release(new byte[1000]);
+        assertThat(pool.getRetainedBytes()).isZero();
+
+        pool.release(new byte[2048]);
+        pool.release(new byte[1024]);
+        pool.release(new byte[1024]);
+        assertThat(pool.getRetainedBytes()).isEqualTo(4096);
+        pool.setMaxRetainedBytes(2048);
+        assertThat(pool.getRetainedBytes()).isEqualTo(2048);
+        assertThat(pool.acquire(2048)).hasSize(2048);
+    }
+
+    @Test
+    void shouldGrowAndReleaseBuffersThroughThePool() {
+        ByteBufferPool pool = new ByteBufferPool(1 << 20);
+        ByteBuffer buf = new ByteBuffer(16, pool);
+        for (int k = 0; k < 1000; ++k) {
+            buf.append(k).append(' ');
+        }
+        String content = buf.toString();
+        assertThat(content).startsWith("0 1 2 3").endsWith("998 999 ");
+        assertThat(pool.getRetainedBytes()).isPositive();
+        long retained = pool.getRetainedBytes();
+        buf.release();
+        assertThat(buf.size()).isZero();
+        assertThat(pool.getRetainedBytes()).isGreaterThan(retained);
+        buf.append("reused");
+        assertThat(buf.toString()).isEqualTo("reused");
+    }
+
+    @Test
+    void shouldWriteTheSameContentWithPooledBuffers() throws IOException {
+        byte[] allocated = createPdf(0);
+        byte[] pooled = createPdf(1 << 20);
+        try (PdfReader expected = new PdfReader(allocated); PdfReader actual = new PdfReader(pooled)) {
+            assertThat(actual.getNumberOfPages()).isEqualTo(expected.getNumberOfPages());
+            for (int page = 1; page <= expected.getNumberOfPages(); ++page) {
+                assertThat(actual.getPageContent(page)).isEqualTo(expected.getPageContent(page));
+            }
+        }
+    }
+
+    @Test
+    void shouldNotPoolTheTemplates() {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setByteBufferPoolSize(1 << 20);
+        document.open();
+        long retained = writer.getByteBufferPool().getRetainedBytes();
+        PdfTemplate template = writer.getDirectContent().createTemplate(100, 100);
+        for (int k = 0; k < 1000; ++k) {
+            template.moveTo(k, k);
+        }
+        assertThat(writer.getByteBufferPool().getRetainedBytes()).isEqualTo(retained);
+        document.add(new Paragraph("template"));
+        document.close();
+    }
+
+    @Test
+    void shouldNotWriteAReleasedStreamAgain() throws IOException {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setByteBufferPoolSize(1 << 20);
+        document.open();
+        PdfStream stream = new PdfStream(new byte[1000]);
+        stream.flateCompress(PdfStream.BEST_COMPRESSION, writer);
+        writer.addToBody(stream);
+        assertThatThrownBy(() -> writer.addToBody(stream)).isInstanceOf(IllegalStateException.class);
+        document.add(new Paragraph("stream"));
+        document.close();
+    }
+
+    private static byte[] createPdf(long poolSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setByteBufferPoolSize(poolSize);
+        writer.setFullCompression();
+        assertThat(writer.getByteBufferPoolSize()).isEqualTo(poolSize);
+        document.open();
+        for (int page = 0; page < 10; ++page) {
+            document.add(new Paragraph("Page " + page));
+            PdfPTable table = new PdfPTable(3);
+            for (int cell = 0; cell < 300; ++cell) {
+                table.addCell("cell " + page + "/" + cell);
+            }
+            document.add(table);
+            document.newPage();
+        }
+        document.close();
+        if (poolSize > 0) {
+            assertThat(writer.getByteBufferPool().getRetainedBytes()).isPositive();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ByteBufferTest {
+
+    @AfterEach
+    void resetPrecision() {
+        ByteBuffer.HIGH_PRECISION = false;
+        ByteBuffer.setHighPrecisionDecimals(6);
+    }
+
+    @Test
+    void shouldFormatNumbersWithFewDecimals() {
+        assertThat(ByteBuffer.formatDouble(0)).isEqualTo("0");
+        assertThat(ByteBuffer.formatDouble(0.00001)).isEqualTo("0");
+        assertThat(ByteBuffer.formatDouble(0.00002)).isEqualTo("0.00002");
+        assertThat(ByteBuffer.formatDouble(-0.5)).isEqualTo("-0.5");
+        assertThat(ByteBuffer.formatDouble(12)).isEqualTo("12");
+        assertThat(ByteBuffer.formatDouble(1234.5678)).isEqualTo("1234.57");
+        assertThat(ByteBuffer.formatDouble(-595.3)).isEqualTo("-595.3");
+        assertThat(ByteBuffer.formatDouble(40000.6)).isEqualTo("40001");
+    }
+
+    @Test
+    void shouldAppendNumbersToTheBuffer() {
+        ByteBuffer buf = new ByteBuffer(1);
+        buf.append(1.5).append(' ').append(-0.25).append(' ').append(841.89f);
+        assertThat(buf.toString()).isEqualTo("1.5 -0.25 841.89");
+    }
+
+    @Test
+    void shouldRoundHalfEvenInHighPrecision() {
+        ByteBuffer.HIGH_PRECISION = true;
+        assertThat(ByteBuffer.formatDouble(1.0 / 128)).isEqualTo("0.007812");
+        assertThat(ByteBuffer.formatDouble(3.0 / 128)).isEqualTo("0.023438");
+        assertThat(ByteBuffer.formatDouble(1234.5678)).isEqualTo("1234.5678");
+        assertThat(ByteBuffer.formatDouble(-0.0000001)).isEqualTo("-0");
+        assertThat(ByteBuffer.formatDouble(1e20)).isEqualTo("100000000000000000000");
+    }
+
+    @Test
+    void shouldWriteTheConfiguredDecimals() {
+        ByteBuffer.HIGH_PRECISION = true;
+        ByteBuffer.setHighPrecisionDecimals(2);
+        assertThat(ByteBuffer.getHighPrecisionDecimals()).isEqualTo(2);
+        assertThat(ByteBuffer.formatDouble(0.125)).isEqualTo("0.12");
+        assertThat(ByteBuffer.formatDouble(0.375)).isEqualTo("0.38");
+        assertThat(ByteBuffer.formatDouble(2.004)).isEqualTo("2");
+        ByteBuffer.setHighPrecisionDecimals(42);
+        assertThat(ByteBuffer.getHighPrecisionDecimals()).isEqualTo(9);
+        ByteBuffer.setHighPrecisionDecimals(-1);
+        assertThat(ByteBuffer.getHighPrecisionDecimals()).isZero();
+        assertThat(ByteBuffer.formatDouble(2.5)).isEqualTo("2");
+    }
+}
@@ -50,9 +50,11 @@ class FontDetailsTest {
         String filename = "src/test/resources/fonts/liberation/LiberationSerif-Regular.ttf";
         BaseFont baseFont = BaseFont.createFont(filename, BaseFont.IDENTITY_H, BaseFont.NOT_EMBEDDED);
         FontDetails fontDetails = new FontDetails(null, null, baseFont);
-        assertThat(fontDetails.getFillerCmap()).isNotNull().isEmpty();
-        fontDetails.putFillerCmap(1, new int[]{1, 2, 3});
-        assertThat(fontDetails.getFillerCmap()).hasSize(1);
+        assertThat(fontDetails.getFillerCmap()).isNotNull();
+        assertThat(fontDetails.getFillerCmap().size()).isZero();
+        fontDetails.putFillerCmap(1, 3);
+        assertThat(fontDetails.getFillerCmap().size()).isEqualTo(1);
+        assertThat(fontDetails.getFillerCmap().getCode(1)).isEqualTo(3);
     }
 
 }
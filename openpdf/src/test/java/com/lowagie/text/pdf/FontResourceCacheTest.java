@@ -0,0 +1,160 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.DocumentException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+class FontResourceCacheTest {
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedValuesBeyondTheMaximumWeight() throws Exception {
+        FontResourceCache<String, byte[]> cache = new FontResourceCache<>(300, value -> value.length);
+        cache.get("a", () -> new byte[100]);
+        cache.get("b", () -> new byte[100]);
+        cache.get("c", () -> new byte[100]);
+        cache.get("a", () -> new byte[100]);
+        cache.get("d", () -> new byte[100]);
+        assertThat(cache.contains("a")).isTrue();
+        assertThat(cache.contains("b")).isFalse();
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.getWeight()).isEqualTo(300);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(4);
+        assertThat(cache.getLoadCount()).isEqualTo(4);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+
+        cache.get("e", () -> new byte[1000]);
+        assertThat(cache.contains("e")).isFalse();
+        cache.setMaximumWeight(100);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.contains("d")).isTrue();
+        cache.invalidate("d");
+        assertThat(cache.getWeight()).isZero();
+    }
+
+    @Test
+    void shouldGiveTheValuesStillInUse() throws Exception {
+        FontResourceCache<String, byte[]> cache = new FontResourceCache<>(100, value -> value.length);
+        byte[] a = cache.get("a", () -> new byte[100]);
+        cache.get("b", () -> new byte[100]);
+        assertThat(cache.contains("a")).isFalse();
+        assertThat(cache.get("a", () -> new byte[100])).isSameAs(a);
+        assertThat(cache.contains("a")).isTrue();
+
+        byte[] heavy = cache.get("heavy", () -> new byte[1000]);
+        assertThat(cache.contains("heavy")).isFalse();
+        assertThat(cache.get("heavy", () -> new byte[1000])).isSameAs(heavy);
+        assertThat(cache.getLoadCount()).isEqualTo(3);
+
+        cache.invalidate("heavy");
+        assertThat(cache.get("heavy", () -> new byte[1000])).isNotSameAs(heavy);
+    }
+
+    @Test
+    void shouldLoadOnceWhenAskedByManyThreads() throws Exception {
+        FontResourceCache<String, Object> cache = new FontResourceCache<>(1000, value -> 1);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int k = 0; k < 8; ++k) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("font", () -> {
+                        loads.incrementAndGet();
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                        return new Object();
+                    });
+                }));
+            }
+            start.countDown();
+            Object font = results.get(0).get();
+            for (Future<Object> result : results) {
+                assertThat(result.get()).isSameAs(font);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+        assertThat(cache.getTotalLoadTime()).isPositive();
+    }
+
+    @Test
+    void shouldNotCacheTheFailedLoads() throws Exception {
+        FontResourceCache<String, String> cache = new FontResourceCache<>(1000, value -> 1);
+        assertThatThrownBy(() -> cache.get("font", () -> {
+            throw new IOException("missing");
+        })).isInstanceOf(IOException.class).hasMessage("missing");
+        assertThatThrownBy(() -> cache.get("font", () -> {
+            throw new DocumentException("invalid");
+        })).isInstanceOf(DocumentException.class);
+        assertThat(cache.get("font", () -> null)).isNull();
+        assertThat(cache.getLoadFailureCount()).isEqualTo(2);
+        assertThat(cache.get("font", () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.contains("font")).isTrue();
+    }
+
+    @Test
+    void shouldDropTheLoadOfAnInvalidatedKey() throws Exception {
+        FontResourceCache<String, String> cache = new FontResourceCache<>(1000, value -> 1);
+        assertThat(cache.get("font", () -> {
+            cache.invalidate("font");
+            return "stale";
+        })).isEqualTo("stale");
+        assertThat(cache.contains("font")).isFalse();
+        assertThat(cache.get("font", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void shouldShareTheCachedFonts() throws Exception {
+        FontResourceCache<String, BaseFont> cache = BaseFont.getFontCache();
+        long hits = cache.getHitCount();
+        BaseFont font = BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_H,
+                BaseFont.EMBEDDED, BaseFont.CACHED, getLiberationFontBytes(), null);
+        assertThat(BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_H,
+                BaseFont.EMBEDDED, BaseFont.CACHED, null, null)).isSameAs(font);
+        assertThat(cache.getHitCount()).isGreaterThan(hits);
+        assertThat(cache.getWeight()).isGreaterThanOrEqualTo(font.getCacheWeight());
+        cache.invalidate("LiberationSerif-Regular.ttf\nIdentity-H\ntrue");
+        assertThat(BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_H,
+                BaseFont.EMBEDDED, BaseFont.CACHED, getLiberationFontBytes(), null)).isNotSameAs(font);
+    }
+
+    @Test
+    void shouldShareTheFontsTooHeavyToBeCached() throws Exception {
+        FontResourceCache<String, BaseFont> cache = BaseFont.getFontCache();
+        long maximumWeight = cache.getMaximumWeight();
+        cache.setMaximumWeight(1);
+        try {
+            BaseFont font = BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_V,
+                    BaseFont.EMBEDDED, BaseFont.CACHED, getLiberationFontBytes(), null);
+            assertThat(cache.contains("LiberationSerif-Regular.ttf\nIdentity-V\ntrue")).isFalse();
+            // a document using the font embeds it once
+            assertThat(BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_V,
+                    BaseFont.EMBEDDED, BaseFont.CACHED, getLiberationFontBytes(), null)).isSameAs(font);
+        } finally {
+            cache.setMaximumWeight(maximumWeight);
+        }
+    }
+
+    private static byte[] getLiberationFontBytes() throws IOException {
+        try (InputStream stream = BaseFont.getResourceStream("fonts/liberation/LiberationSerif-Regular.ttf", null)) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class IncrementalStructuresTest {
+
+    @Test
+    void shouldWriteTheSameStructuresAsTheWholeDocument() throws IOException {
+        for (int pages : new int[]{1, 10, 101, 345}) {
+            try (PdfReader expected = new PdfReader(createPdf(false, pages));
+                    PdfReader actual = new PdfReader(createPdf(true, pages))) {
+                assertThat(actual.isRebuilt()).isFalse();
+                assertThat(actual.getNumberOfPages()).isEqualTo(pages);
+                for (int page = 1; page <= pages; ++page) {
+                    assertThat(actual.getPageContent(page)).isEqualTo(expected.getPageContent(page));
+                }
+                assertThat(SimpleBookmark.getBookmarkList(actual))
+                        .isEqualTo(SimpleBookmark.getBookmarkList(expected));
+                assertThat(structure(actual)).isEqualTo(structure(expected));
+            }
+        }
+    }
+
+    @Test
+    void shouldRefuseToChangeWrittenObjects() {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setTagged();
+        writer.setIncrementalStructures(true);
+        assertThat(writer.isIncrementalStructures()).isTrue();
+        document.open();
+        PdfOutline first = new PdfOutline(writer.getRootOutline(), new PdfDestination(PdfDestination.FIT), "first");
+        new PdfOutline(writer.getRootOutline(), new PdfDestination(PdfDestination.FIT), "second");
+        assertThat(writer.getRootOutline().getKids()).hasSize(1);
+        assertThatThrownBy(() -> new PdfOutline(first, new PdfDestination(PdfDestination.FIT), "late"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("first");
+        PdfStructureElement element = new PdfStructureElement(writer.getStructureTreeRoot(), PdfName.P);
+        writer.getDirectContent().beginMarkedContentSequence(element);
+        writer.getDirectContent().endMarkedContentSequence();
+        document.add(new Paragraph("page"));
+        document.newPage();
+        assertThatThrownBy(() -> writer.getDirectContent().beginMarkedContentSequence(element))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> writer.setIncrementalStructures(false))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldWriteTheKidsMarkedAfterTheirParent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setTagged();
+        writer.setIncrementalStructures(true);
+        document.open();
+        PdfContentByte cb = writer.getDirectContent();
+        PdfStructureElement parent = new PdfStructureElement(writer.getStructureTreeRoot(), PdfName.SECT);
+        for (int k = 0; k < 2; ++k) {
+            cb.beginMarkedContentSequence(parent);
+            cb.endMarkedContentSequence();
+        }
+        PdfStructureElement kid = new PdfStructureElement(parent, PdfName.P);
+        PdfStructureElement unmarked = new PdfStructureElement(parent, PdfName.P);
+        new PdfStructureElement(unmarked, PdfName.SPAN);
+        document.add(new Paragraph("page 1"));
+        document.newPage();
+        assertThatThrownBy(() -> new PdfStructureElement(parent, PdfName.P))
+                .isInstanceOf(IllegalStateException.class);
+        cb.beginMarkedContentSequence(kid);
+        cb.endMarkedContentSequence();
+        document.add(new Paragraph("page 2"));
+        document.close();
+
+        try (PdfReader reader = new PdfReader(out.toByteArray())) {
+            assertThat(structure(reader)).isEqualTo("/Sect(0 1() /P(0 ) /P(/Span() ) ) 2");
+        }
+    }
+
+    private static String structure(PdfReader reader) {
+        StringBuilder buf = new StringBuilder();
+        PdfDictionary root = reader.getCatalog().getAsDict(PdfName.STRUCTTREEROOT);
+        appendKids(root, buf);
+        PdfDictionary parentTree = root.getAsDict(PdfName.PARENTTREE);
+        buf.append(PdfNumberTree.readTree(parentTree).size());
+        return buf.toString();
+    }
+
+    private static void appendKids(PdfDictionary dictionary, StringBuilder buf) {
+        PdfObject kids = PdfReader.getPdfObject(dictionary.get(PdfName.K));
+        if (kids == null) {
+            return;
+        }
+        if (kids.isNumber()) {
+            buf.append(kids).append(' ');
+            return;
+        }
+        PdfArray array = (PdfArray) kids;
+        for (int k = 0; k < array.size(); ++k) {
+            PdfObject kid = array.getDirectObject(k);
+            if (kid.isDictionary()) {
+                PdfDictionary element = (PdfDictionary) kid;
+                PdfObject mcid = element.get(PdfName.MCID);
+                buf.append(mcid == null ? element.get(PdfName.S) : mcid).append('(');
+                appendKids(element, buf);
+                buf.append(") ");
+            } else {
+                buf.append(kid).append(' ');
+            }
+        }
+    }
+
+    private static byte[] createPdf(boolean incremental, int pages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setTagged();
+        writer.setIncrementalStructures(incremental);
+        document.open();
+        PdfStructureElement top = new PdfStructureElement(writer.getStructureTreeRoot(), PdfName.DOCUMENT);
+        PdfOutline chapter = null;
+        PdfOutline section = null;
+        for (int page = 0; page < pages; ++page) {
+            if (page % 7 == 0) {
+                chapter = new PdfOutline(writer.getRootOutline(), new PdfDestination(PdfDestination.FIT),
+                        "Chapter " + page, page % 2 == 0);
+            }
+            if (page % 7 == 0 || page % 3 == 0) {
+                section = new PdfOutline(chapter, new PdfDestination(PdfDestination.FIT), "Section " + page);
+            }
+            new PdfOutline(section, new PdfDestination(PdfDestination.FIT), "Page " + page);
+            PdfContentByte cb = writer.getDirectContent();
+            PdfStructureElement sect = new PdfStructureElement(top, PdfName.SECT);
+            for (int k = 0; k < 3; ++k) {
+                PdfStructureElement paragraph = new PdfStructureElement(sect, PdfName.P);
+                cb.beginMarkedContentSequence(paragraph);
+                cb.rectangle(50, 700 - k * 20, 100, 10);
+                cb.fill();
+                cb.endMarkedContentSequence();
+                if (k == 1) {
+                    cb.beginMarkedContentSequence(paragraph);
+                    cb.endMarkedContentSequence();
+                }
+            }
+            document.add(new Paragraph("page " + page));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -1,5 +1,6 @@
 package com.lowagie.text.pdf;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.lowagie.text.Document;
@@ -14,8 +15,7 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 /**
- * This will create a file which is > 2 GB, then attempt to read it. This will crash, because OpenPDF doesn't support
- * reading PDF files larger than 2 GB now.
+ * This will create a file which is > 2 GB, then read it back, both completely and in partial mode.
  */
 class LargePdfTest {
 
@@ -53,10 +53,25 @@ class LargePdfTest {
         document.close();
 
         String canonicalPath = largeFile.getCanonicalPath();
+        assertThat(largeFile.length()).isGreaterThan(Integer.MAX_VALUE);
 
-        // This will fail now.
-        assertThatThrownBy(() -> new PdfReader(canonicalPath))
-                .isInstanceOf(PdfException.class);
+        try (PdfReader reader = new PdfReader(canonicalPath)) {
+            assertThat(reader.getNumberOfPages()).isPositive();
+            assertThat(reader.getFileLengthLong()).isEqualTo(largeFile.length());
+        }
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(canonicalPath), null)) {
+            assertThat(reader.getNumberOfPages()).isPositive();
+            assertThat(reader.getLastXrefLong()).isGreaterThan(Integer.MAX_VALUE);
+            assertThatThrownBy(reader::getLastXref).isInstanceOf(ArithmeticException.class);
+            assertThat(reader.getPageContent(reader.getNumberOfPages())).isNotEmpty();
+        }
     }
 
+    @Test
+    void shouldRefuseIntOffsetsBeyondTwoGigabytes() {
+        PRStream stream = new PRStream(null, 3_000_000_000L);
+        assertThat(stream.getOffsetLong()).isEqualTo(3_000_000_000L);
+        assertThatThrownBy(stream::getOffset).isInstanceOf(ArithmeticException.class);
+        assertThat(new PRStream(null, 1000).getOffset()).isEqualTo(1000);
+    }
 }
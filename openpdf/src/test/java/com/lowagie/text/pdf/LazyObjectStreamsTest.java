@@ -0,0 +1,31 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class LazyObjectStreamsTest {
+
+    private static final String PDF = "src/test/resources/openpdf_bug_test.pdf";
+
+    @Test
+    void shouldResolveCompressedObjectsOnDemand() throws IOException {
+        PdfReaderOptions options = new PdfReaderOptions();
+        options.setLazyObjectStreams(true);
+        try (PdfReader eager = new PdfReader(PDF);
+                PdfReader lazy = new PdfReader(PDF, null, options)) {
+            assertThat(lazy.dumpPerc()).isLessThan(eager.dumpPerc());
+            assertThat(lazy.getNumberOfPages()).isEqualTo(eager.getNumberOfPages());
+            assertThat(lazy.getInfo()).isEqualTo(eager.getInfo());
+            for (int k = 1; k <= eager.getNumberOfPages(); ++k) {
+                assertThat(lazy.getPageContent(k)).isEqualTo(eager.getPageContent(k));
+                assertThat(lazy.getPageSize(k).getWidth()).isEqualTo(eager.getPageSize(k).getWidth());
+                assertThat(lazy.getPageSize(k).getHeight()).isEqualTo(eager.getPageSize(k).getHeight());
+            }
+            try (PdfReader copy = new PdfReader(lazy)) {
+                assertThat(copy.getPageContent(1)).isEqualTo(eager.getPageContent(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PRTokeniserTest {
+
+    @Test
+    void shouldExposeTokensAsBytes() throws IOException {
+        PRTokeniser tokeniser = tokeniser("/Type#20A -12.50 obj (a\\)b)");
+        assertThat(tokeniser.nextToken()).isTrue();
+        assertThat(tokeniser.getTokenType()).isEqualTo(PRTokeniser.TK_NAME);
+        assertThat(new String(tokeniser.getTokenBytes(), 0, tokeniser.getTokenLength(), StandardCharsets.ISO_8859_1))
+                .isEqualTo("Type A");
+        assertThat(tokeniser.getPdfName()).isEqualTo(new PdfName("Type A"));
+        assertThat(tokeniser.nextToken()).isTrue();
+        assertThat(tokeniser.doubleValue()).isEqualTo(-12.5);
+        PdfNumber number = tokeniser.getPdfNumber();
+        assertThat(number.doubleValue()).isEqualTo(-12.5);
+        assertThat(number.toString()).isEqualTo("-12.50");
+        assertThat(tokeniser.nextToken()).isTrue();
+        assertThat(tokeniser.tokenEquals("obj")).isTrue();
+        assertThat(tokeniser.tokenEquals("ob")).isFalse();
+        assertThat(tokeniser.nextToken()).isTrue();
+        assertThat(tokeniser.getStringValue()).isEqualTo("a)b");
+    }
+
+    @Test
+    void shouldReadReferencesAndNumbers() throws IOException {
+        PRTokeniser tokeniser = tokeniser("12 0 R 7 3 ]");
+        tokeniser.nextValidToken();
+        assertThat(tokeniser.getTokenType()).isEqualTo(PRTokeniser.TK_REF);
+        assertThat(tokeniser.getReference()).isEqualTo(12);
+        assertThat(tokeniser.getGeneration()).isZero();
+        tokeniser.nextValidToken();
+        assertThat(tokeniser.getTokenType()).isEqualTo(PRTokeniser.TK_NUMBER);
+        assertThat(tokeniser.intValue()).isEqualTo(7);
+        tokeniser.nextValidToken();
+        assertThat(tokeniser.getStringValue()).isEqualTo("3");
+    }
+
+    @Test
+    void shouldFindStaticNames() throws IOException {
+        PRTokeniser tokeniser = tokeniser("/Font /NotAStaticName");
+        tokeniser.nextToken();
+        assertThat(tokeniser.getStaticName()).isSameAs(PdfName.FONT);
+        tokeniser.nextToken();
+        assertThat(tokeniser.getStaticName()).isNull();
+    }
+
+    @Test
+    void shouldParseNumbersAsStrings() {
+        for (String number : new String[]{"0", "-0", "+3", ".5", "-.25", "5.", "123456789012345", "0.0000001",
+                "3.14159265358979323846", "1234567890123456789"}) {
+            byte[] bytes = number.getBytes(StandardCharsets.ISO_8859_1);
+            double value = PRTokeniser.parseReal(bytes, bytes.length);
+            if (!Double.isNaN(value)) {
+                assertThat(value).isEqualTo(Double.parseDouble(number));
+            }
+        }
+        assertThat(PRTokeniser.parseReal(new byte[]{'1', '.', '.'}, 3)).isNaN();
+        assertThat(PRTokeniser.parseInt(new byte[]{'-', '4', '2'}, 3)).isEqualTo(-42);
+        assertThat(PRTokeniser.parseLong("8589934592".getBytes(StandardCharsets.ISO_8859_1), 10))
+                .isEqualTo(8589934592L);
+    }
+
+    @Test
+    void shouldParseContentWithSameOperands() throws IOException {
+        PdfContentParser parser = new PdfContentParser(tokeniser("/F1 12 Tf [(a) -0.5 (b)] TJ"));
+        List<PdfObject> operands = new ArrayList<>();
+        parser.parse(operands);
+        assertThat(operands).hasSize(3);
+        assertThat(operands.get(0)).isEqualTo(new PdfName("F1"));
+        assertThat(operands.get(1).toString()).isEqualTo("12");
+        assertThat(operands.get(2).toString()).isEqualTo("Tf");
+        parser.parse(operands);
+        assertThat(((PdfArray) operands.get(0)).getAsNumber(1).floatValue()).isEqualTo(-0.5f);
+        assertThat(operands.get(1).toString()).isEqualTo("TJ");
+    }
+
+    private static PRTokeniser tokeniser(String content) {
+        return new PRTokeniser(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,141 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import java.awt.Graphics2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PageContentFlushTest {
+
+    @Test
+    void shouldWriteTheSameContentFromTheFlushedFiles() throws IOException {
+        byte[] inMemory = createPdf(0);
+        byte[] flushed = createPdf(4096);
+        try (PdfReader expected = new PdfReader(inMemory); PdfReader actual = new PdfReader(flushed)) {
+            assertThat(actual.isRebuilt()).isFalse();
+            assertThat(actual.getNumberOfPages()).isEqualTo(expected.getNumberOfPages());
+            for (int page = 1; page <= expected.getNumberOfPages(); ++page) {
+                assertThat(actual.getPageContent(page)).isEqualTo(expected.getPageContent(page));
+            }
+        }
+        assertThat(countIndirectLengths(flushed)).isEqualTo(2);
+        assertThat(countIndirectLengths(inMemory)).isZero();
+    }
+
+    @Test
+    void shouldKeepSmallPagesInMemory() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setPageContentFlushSize(1 << 20);
+        assertThat(writer.getPageContentFlushSize()).isEqualTo(1 << 20);
+        document.open();
+        writer.getDirectContent().rectangle(10, 10, 100, 100);
+        writer.getDirectContent().stroke();
+        document.add(new Paragraph("small"));
+        document.close();
+        assertThat(countIndirectLengths(out.toByteArray())).isZero();
+    }
+
+    @Test
+    void shouldDeleteTheFilesWhenThePageFails() {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setPageContentFlushSize(1024);
+        writer.setPageEvent(new PdfPageEventHelper() {
+            @Override
+            public void onEndPage(PdfWriter writer, Document document) {
+                throw new IllegalStateException("failed page");
+            }
+        });
+        document.open();
+        PdfContentByte cb = writer.getDirectContent();
+        for (int k = 0; k < 1000; ++k) {
+            cb.rectangle(k, k, 10, 10);
+        }
+        cb.fill();
+        File file = cb.getInternalBuffer().getSpill().getFile();
+        assertThat(file).exists();
+        assertThatThrownBy(document::close).isInstanceOf(RuntimeException.class);
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void shouldDeleteTheFilesWhenTheDocumentIsClosed() {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setPageContentFlushSize(1024);
+        document.open();
+        PdfContentByte under = writer.getDirectContentUnder();
+        for (int k = 0; k < 1000; ++k) {
+            under.rectangle(k, k, 10, 10);
+        }
+        under.fill();
+        File file = under.getInternalBuffer().getSpill().getFile();
+        assertThat(file).exists();
+        document.close();
+        assertThat(file).doesNotExist();
+    }
+
+    private static int countIndirectLengths(byte[] pdf) {
+        Matcher matcher = Pattern.compile("/Length \\d+ 0 R").matcher(new String(pdf, StandardCharsets.ISO_8859_1));
+        int count = 0;
+        while (matcher.find()) {
+            ++count;
+        }
+        return count;
+    }
+
+    private static byte[] createPdf(int flushSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setPageContentFlushSize(flushSize);
+        document.open();
+        Random random = new Random(42);
+        for (int page = 0; page < 2; ++page) {
+            PdfContentByte cb = writer.getDirectContent();
+            PdfContentByte under = writer.getDirectContentUnder();
+            for (int k = 0; k < 5000; ++k) {
+                cb.moveTo(random.nextFloat() * 500, random.nextFloat() * 800);
+                cb.lineTo(random.nextFloat() * 500, random.nextFloat() * 800);
+                under.rectangle(random.nextFloat() * 500, random.nextFloat() * 800, 2, 2);
+            }
+            cb.stroke();
+            under.fill();
+            Graphics2D graphics = cb.createGraphicsShapes(500, 800);
+            for (int k = 0; k < 2000; ++k) {
+                if (k % 500 == 0) {
+                    Graphics2D child = (Graphics2D) graphics.create();
+                    child.drawLine(k % 500, 0, 0, k % 800);
+                    child.dispose();
+                }
+                graphics.drawLine(random.nextInt(500), random.nextInt(800), random.nextInt(500), random.nextInt(800));
+            }
+            graphics.dispose();
+            PdfPTable table = new PdfPTable(3);
+            for (int cell = 0; cell < 30; ++cell) {
+                PdfPCell pdfCell = new PdfPCell(new Phrase("cell " + cell));
+                pdfCell.setRotation(cell % 2 == 0 ? 90 : 180);
+                table.addCell(pdfCell);
+            }
+            table.setTotalWidth(300);
+            table.writeSelectedRows(0, -1, 50, 700, cb);
+            document.add(new Paragraph("page " + page));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Image;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ParallelCompressionTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldWriteSameContentAsSequentialCompression() throws IOException {
+        for (boolean fullCompression : new boolean[]{false, true}) {
+            byte[] sequential = createPdf(null, fullCompression);
+            byte[] parallel = createPdf(executor, fullCompression);
+            try (PdfReader expected = new PdfReader(sequential); PdfReader actual = new PdfReader(parallel)) {
+                assertThat(actual.isRebuilt()).isFalse();
+                assertThat(actual.getNumberOfPages()).isEqualTo(expected.getNumberOfPages());
+                for (int k = 1; k <= expected.getNumberOfPages(); ++k) {
+                    assertThat(actual.getPageContent(k)).isEqualTo(expected.getPageContent(k));
+                }
+                assertThat(PdfReader.getStreamBytes(getImage(actual))).isEqualTo(
+                        PdfReader.getStreamBytes(getImage(expected)));
+                assertThat(getImage(actual).get(PdfName.FILTER)).isEqualTo(PdfName.FLATEDECODE);
+            }
+        }
+    }
+
+    @Test
+    void shouldNotDependOnExecutor() {
+        Executor direct = Runnable::run;
+        assertThat(createPdf(executor, true)).isEqualTo(createPdf(direct, true));
+        assertThat(createPdf(executor, false)).isEqualTo(createPdf(direct, false));
+    }
+
+    @Test
+    void shouldCountPendingStreamsInDocumentSize() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, new ByteArrayOutputStream());
+        writer.setCompressionExecutor(tasks::add);
+        document.open();
+        long before = writer.getCurrentDocumentSize();
+        PdfStream stream = new PdfStream(new byte[100_000]);
+        stream.flateCompress(PdfStream.DEFAULT_COMPRESSION, writer);
+        writer.addToBody(stream);
+        assertThat(tasks).hasSize(1);
+        assertThat(writer.getCurrentDocumentSize() - before).isGreaterThanOrEqualTo(100_000);
+        tasks.get(0).run();
+        assertThat(writer.getCurrentDocumentSize() - before).isBetween(1L, 1_000L);
+        document.add(new Paragraph("page"));
+        document.close();
+    }
+
+    private static PRStream getImage(PdfReader reader) {
+        PdfDictionary xObjects = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+        return (PRStream) PdfReader.getPdfObject(xObjects.get(xObjects.getKeys().iterator().next()));
+    }
+
+    private static byte[] createPdf(Executor executor, boolean fullCompression) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCompressionExecutor(executor);
+        if (fullCompression) {
+            writer.setFullCompression();
+        }
+        document.open();
+        PdfDate date = new PdfDate(new GregorianCalendar(2020, 0, 1));
+        writer.getInfo().put(PdfName.CREATIONDATE, date);
+        writer.getInfo().put(PdfName.MODDATE, date);
+        writer.getInfo().put(PdfName.FILEID, PdfEncryption.createInfoId(new byte[16], new byte[16]));
+        byte[] pixels = new byte[128 * 128 * 3];
+        for (int k = 0; k < pixels.length; ++k) {
+            pixels[k] = (byte) (k % 251);
+        }
+        document.add(Image.getInstance(128, 128, 3, 8, pixels));
+        for (int page = 0; page < 10; ++page) {
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < 1500; ++k) {
+                text.append("word").append(k * page).append(' ');
+            }
+            document.add(new Paragraph(text.toString()));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
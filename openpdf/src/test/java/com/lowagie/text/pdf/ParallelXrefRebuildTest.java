@@ -0,0 +1,65 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class ParallelXrefRebuildTest {
+
+    private static final String PDF = "src/test/resources/merge-acroforms.pdf";
+
+    @Test
+    void shouldRebuildSameXrefAsSequentialScan() throws IOException {
+        byte[] damaged = damage(Files.readAllBytes(Paths.get(PDF)));
+        try (PdfReader sequential = new PdfReader(new RandomAccessFileOrArray(damaged), null)) {
+            assertThat(sequential.isRebuilt()).isTrue();
+            PdfReaderOptions options = new PdfReaderOptions();
+            options.setParallelXrefRebuild(true);
+            try (PdfReader parallel = new PdfReader(new RandomAccessFileOrArray(damaged), null, options)) {
+                assertThat(parallel.isRebuilt()).isTrue();
+                assertThat(parallel.xref).isNotNull().isEqualTo(sequential.xref);
+                assertThat(parallel.getNumberOfPages()).isEqualTo(sequential.getNumberOfPages());
+                assertThat(parallel.getPageContent(1)).isEqualTo(sequential.getPageContent(1));
+            }
+        }
+    }
+
+    @Test
+    void shouldFindLinesCrossingChunkBoundaries() throws IOException {
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(PDF), null)) {
+            reader.rebuildXref();
+            long[] expected = reader.xref.clone();
+            PdfDictionary trailer = reader.trailer;
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                for (int chunks : new int[]{1, 2, 7, 100}) {
+                    reader.rebuildXref(XrefScanner.scan(reader.tokens.getFile(), chunks, null));
+                    assertThat(reader.xref).isEqualTo(expected);
+                    assertThat(reader.trailer.toString()).isEqualTo(trailer.toString());
+                    reader.rebuildXref(XrefScanner.scan(reader.tokens.getFile(), chunks, executor));
+                    assertThat(reader.xref).isEqualTo(expected);
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void shouldFindLineEnds() {
+        byte[] line = "0123456789abcdef\r".getBytes(StandardCharsets.ISO_8859_1);
+        assertThat(XrefScanner.indexOfEol(line, 0, line.length)).isEqualTo(16);
+        assertThat(XrefScanner.indexOfEol(line, 0, 16)).isEqualTo(-1);
+    }
+
+    private static byte[] damage(byte[] pdf) {
+        String content = new String(pdf, StandardCharsets.ISO_8859_1);
+        return content.replace("startxref", "startxrex").getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class PdfBodyCrossReferenceTest {
+
+    @Test
+    void shouldWriteCrossReferenceTable() throws IOException {
+        byte[] pdf = createPdf(false);
+        String content = new String(pdf, StandardCharsets.ISO_8859_1);
+        assertThat(content).contains("xref\n0 ", "0000000000 65535 f \n");
+        try (PdfReader reader = new PdfReader(pdf)) {
+            assertThat(reader.isRebuilt()).isFalse();
+            assertThat(reader.getNumberOfPages()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void shouldWriteCrossReferenceStream() throws IOException {
+        try (PdfReader reader = new PdfReader(createPdf(true))) {
+            assertThat(reader.isRebuilt()).isFalse();
+            assertThat(reader.getNumberOfPages()).isEqualTo(3);
+            assertThat(reader.isNewXrefType()).isTrue();
+        }
+    }
+
+    @Test
+    void shouldWriteSectionsForSparseObjects() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfReader reader = new PdfReader(createPdf(false))) {
+            PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+            stamper.setInfoDictionary(Collections.singletonMap("Title", "updated"));
+            stamper.close();
+        }
+        String content = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        String update = content.substring(content.lastIndexOf("\nxref\n") + 1);
+        assertThat(update).startsWith("xref\n0 1\n0000000000 65535 f \n");
+        try (PdfReader reader = new PdfReader(out.toByteArray())) {
+            assertThat(reader.isRebuilt()).isFalse();
+            assertThat(reader.getInfo().get("Title")).isEqualTo("updated");
+        }
+    }
+
+    private static byte[] createPdf(boolean fullCompression) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        if (fullCompression) {
+            writer.setFullCompression();
+        }
+        document.open();
+        for (int k = 1; k <= 3; ++k) {
+            document.add(new Paragraph("Page " + k));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
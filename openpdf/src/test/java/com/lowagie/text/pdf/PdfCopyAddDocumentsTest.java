@@ -0,0 +1,158 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class PdfCopyAddDocumentsTest {
+
+    @Test
+    void shouldCopyTheSamePagesAsOneByOne() throws Exception {
+        List<byte[]> pdfs = new ArrayList<>();
+        for (int k = 0; k < 40; ++k) {
+            pdfs.add(createPdf(k));
+        }
+        byte[] expected = copyOneByOne(pdfs);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertSamePages(copy(pdfs, executor), expected);
+            assertSamePages(copy(pdfs, null), expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldReportTheErrorOfASource() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Callable<PdfReader>> sources = new ArrayList<>();
+            sources.add(() -> new PdfReader(createPdf(1)));
+            sources.add(() -> {
+                throw new IOException("missing");
+            });
+            Document document = new Document();
+            PdfCopy copy = new PdfCopy(document, new ByteArrayOutputStream());
+            document.open();
+            assertThatThrownBy(() -> copy.addDocuments(sources, executor))
+                    .hasMessageContaining("missing");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCloseAllTheReadersWhenACopyFails() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (Executor e : new Executor[]{executor, null}) {
+                Set<PdfReader> opened = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                Set<PdfReader> closed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                List<Callable<PdfReader>> sources = new ArrayList<>();
+                for (int k = 0; k < 6; ++k) {
+                    boolean failing = k == 1;
+                    byte[] pdf = createPdf(k);
+                    sources.add(() -> {
+                        PdfReader reader = new PdfReader(pdf) {
+                            @Override
+                            public PRIndirectReference getPageOrigRef(int pageNum) {
+                                if (failing) {
+                                    throw new IllegalStateException("broken page");
+                                }
+                                return super.getPageOrigRef(pageNum);
+                            }
+
+                            @Override
+                            public void close() {
+                                closed.add(this);
+                                super.close();
+                            }
+                        };
+                        opened.add(reader);
+                        return reader;
+                    });
+                }
+                Document document = new Document();
+                PdfCopy copy = new PdfCopy(document, new ByteArrayOutputStream());
+                document.open();
+                assertThatThrownBy(() -> copy.addDocuments(sources, e)).hasMessageContaining("broken page");
+                assertThat(opened).isNotEmpty();
+                assertThat(closed).isEqualTo(opened);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertSamePages(byte[] actual, byte[] expected) throws IOException {
+        try (PdfReader expectedReader = new PdfReader(expected); PdfReader actualReader = new PdfReader(actual)) {
+            assertThat(actualReader.getNumberOfPages()).isEqualTo(expectedReader.getNumberOfPages());
+            for (int page = 1; page <= expectedReader.getNumberOfPages(); ++page) {
+                assertThat(actualReader.getPageContent(page)).isEqualTo(expectedReader.getPageContent(page));
+                assertThat(actualReader.getPageN(page).getAsArray(PdfName.ANNOTS).size())
+                        .isEqualTo(expectedReader.getPageN(page).getAsArray(PdfName.ANNOTS).size());
+            }
+        }
+    }
+
+    private static byte[] copy(List<byte[]> pdfs, Executor executor) throws Exception {
+        List<Callable<PdfReader>> sources = new ArrayList<>();
+        for (byte[] pdf : pdfs) {
+            sources.add(() -> new PdfReader(pdf));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfCopy copy = new PdfCopy(document, out);
+        document.open();
+        copy.addDocuments(sources, executor);
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] copyOneByOne(List<byte[]> pdfs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfCopy copy = new PdfCopy(document, out);
+        document.open();
+        for (byte[] pdf : pdfs) {
+            PdfReader reader = new PdfReader(pdf);
+            for (int page = 1; page <= reader.getNumberOfPages(); ++page) {
+                copy.addPage(copy.getImportedPage(reader, page));
+            }
+            copy.freeReader(reader);
+        }
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] createPdf(int number) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        document.open();
+        for (int page = 1; page <= number % 3 + 1; ++page) {
+            document.add(new Paragraph("document " + number + " page " + page));
+            writer.addAnnotation(PdfAnnotation.createLink(writer, new Rectangle(50, 50, 100, 100),
+                    PdfAnnotation.HIGHLIGHT_INVERT, PdfAction.gotoLocalPage(1, new PdfDestination(PdfDestination.FIT),
+                            writer)));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
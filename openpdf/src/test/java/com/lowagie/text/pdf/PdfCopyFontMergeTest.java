@@ -0,0 +1,152 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.Font;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PdfCopyFontMergeTest {
+
+    private static final String[] TEXTS = {"Hello world", "Quick brown fox", "Jumps over 123 lazy dogs"};
+
+    @Test
+    void shouldEmbedEachFontOnceWhenMergingTheSubsets() throws IOException {
+        List<byte[]> documents = new ArrayList<>();
+        for (String text : TEXTS) {
+            documents.add(createPdf(text));
+        }
+        byte[] merged = copy(documents, true);
+        assertThat(fontPrograms(copy(documents, false))).hasSize(2 * TEXTS.length);
+        List<byte[]> programs = fontPrograms(merged);
+        assertThat(programs).hasSize(2);
+        for (byte[] program : programs) {
+            assertThat(checksum(program)).isEqualTo(0xB1B0AFBA);
+        }
+        try (PdfReader reader = new PdfReader(merged)) {
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            for (int k = 0; k < TEXTS.length; ++k) {
+                assertThat(extractor.getTextFromPage(k + 1)).contains(TEXTS[k] + " " + TEXTS[k]);
+            }
+        }
+    }
+
+    @Test
+    void shouldMergeTheSubsetsWithSmartCopy() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfSmartCopy copy = new PdfSmartCopy(document, out);
+        copy.setMergeFontSubsets(true);
+        assertThat(copy.isMergeFontSubsets()).isTrue();
+        document.open();
+        for (String text : TEXTS) {
+            try (PdfReader reader = new PdfReader(createPdf(text))) {
+                copy.addPage(copy.getImportedPage(reader, 1));
+            }
+        }
+        document.close();
+        assertThat(fontPrograms(out.toByteArray())).hasSize(2);
+    }
+
+    @Test
+    void shouldCopyTheMalformedFontsAsTheyAre() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfCopy copy = new PdfCopy(document, out);
+        copy.setMergeFontSubsets(true);
+        document.open();
+        for (int k = 0; k < TEXTS.length; ++k) {
+            try (PdfReader reader = new PdfReader(createPdf(TEXTS[k]))) {
+                for (int n = 1; n < reader.getXrefSize(); ++n) {
+                    PdfObject obj = reader.getPdfObject(n);
+                    if (k == 0 && obj instanceof PdfDictionary
+                            && ((PdfDictionary) obj).get(PdfName.FONTFILE2) != null) {
+                        // a table longer than the font program
+                        PRStream stream = (PRStream) ((PdfDictionary) obj).getAsStream(PdfName.FONTFILE2);
+                        byte[] program = PdfReader.getStreamBytes(stream);
+                        program[24] = (byte) 0x7f;
+                        stream.setData(program);
+                    } else if (k == 1 && obj instanceof PdfDictionary
+                            && ((PdfDictionary) obj).get(PdfName.TOUNICODE) != null) {
+                        PRStream stream = (PRStream) ((PdfDictionary) obj).getAsStream(PdfName.TOUNICODE);
+                        stream.setData("1 beginbfchar <00G1> <0041> endbfchar".getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                }
+                copy.addPage(copy.getImportedPage(reader, 1));
+            }
+        }
+        document.close();
+        // the two fonts of the first document and the Identity-H font of the second are copied as they are
+        assertThat(fontPrograms(out.toByteArray())).hasSize(5);
+    }
+
+    private static byte[] copy(List<byte[]> documents, boolean mergeFontSubsets) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfCopy copy = new PdfCopy(document, out);
+        copy.setMergeFontSubsets(mergeFontSubsets);
+        document.open();
+        for (byte[] pdf : documents) {
+            try (PdfReader reader = new PdfReader(pdf)) {
+                copy.addPage(copy.getImportedPage(reader, 1));
+            }
+        }
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static int checksum(byte[] program) {
+        int sum = 0;
+        for (int k = 0; k < program.length; k += 4) {
+            int value = 0;
+            for (int j = k; j < k + 4; ++j) {
+                value = (value << 8) | (j < program.length ? program[j] & 0xff : 0);
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static List<byte[]> fontPrograms(byte[] pdf) throws IOException {
+        List<byte[]> programs = new ArrayList<>();
+        try (PdfReader reader = new PdfReader(pdf)) {
+            for (int k = 1; k < reader.getXrefSize(); ++k) {
+                PdfObject obj = reader.getPdfObject(k);
+                if (obj instanceof PdfDictionary && ((PdfDictionary) obj).get(PdfName.FONTFILE2) != null) {
+                    PRStream stream = (PRStream) ((PdfDictionary) obj).getAsStream(PdfName.FONTFILE2);
+                    programs.add(PdfReader.getStreamBytes(stream));
+                }
+            }
+        }
+        return programs;
+    }
+
+    private static byte[] createPdf(String text) throws IOException {
+        byte[] liberation;
+        try (InputStream stream = BaseFont.getResourceStream("fonts/liberation/LiberationSerif-Regular.ttf", null)) {
+            liberation = stream.readAllBytes();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        BaseFont identity = BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.IDENTITY_H,
+                BaseFont.EMBEDDED, true, liberation, null);
+        BaseFont winAnsi = BaseFont.createFont("LiberationSerif-Regular.ttf", BaseFont.WINANSI,
+                BaseFont.EMBEDDED, true, liberation, null);
+        Paragraph paragraph = new Paragraph(text + " ", new Font(identity, 12));
+        paragraph.add(new Chunk(text, new Font(winAnsi, 12)));
+        document.add(paragraph);
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,36 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+class PdfInspectionTest {
+
+    private static final String PDF = "src/test/resources/merge-acroforms.pdf";
+
+    @Test
+    void shouldReportSameAsReader() throws IOException {
+        try (PdfReader reader = new PdfReader(PDF)) {
+            PdfInspection inspection = PdfInspection.inspect(PDF);
+            assertThat(inspection.getNumberOfPages()).isEqualTo(reader.getNumberOfPages());
+            assertThat(inspection.isPageCountFromTree()).isFalse();
+            assertThat(inspection.getPdfVersion()).isEqualTo(reader.getPdfVersion());
+            assertThat(inspection.getInfo()).isEqualTo(reader.getInfo());
+            assertThat(inspection.getMetadata()).isEqualTo(reader.getMetadata());
+            assertThat(inspection.isEncrypted()).isEqualTo(reader.isEncrypted());
+            assertThat(inspection.getPermissions()).isEqualTo(reader.getPermissions());
+            assertThat(inspection.getFileLength()).isEqualTo(reader.getFileLengthLong());
+        }
+    }
+
+    @Test
+    void shouldInspectBytes() throws IOException {
+        byte[] pdf = Files.readAllBytes(Paths.get(PDF));
+        PdfInspection inspection = PdfInspection.inspect(pdf, null);
+        assertThat(inspection.getNumberOfPages()).isEqualTo(PdfInspection.inspect(PDF).getNumberOfPages());
+        assertThat(inspection.isRebuilt()).isFalse();
+    }
+}
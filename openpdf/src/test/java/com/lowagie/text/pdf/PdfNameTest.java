@@ -0,0 +1,50 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PdfNameTest {
+
+    @Test
+    void shouldRegisterEveryConstant() throws IllegalAccessException {
+        int flags = Modifier.STATIC | Modifier.PUBLIC | Modifier.FINAL;
+        int constants = 0;
+        for (Field field : PdfName.class.getDeclaredFields()) {
+            if ((field.getModifiers() & flags) == flags && field.getType().equals(PdfName.class)) {
+                PdfName name = (PdfName) field.get(null);
+                String decoded = PdfName.decodeName(name.toString());
+                byte[] key = decoded.getBytes(StandardCharsets.ISO_8859_1);
+                assertThat(PdfName.staticNames.get(decoded)).isSameAs(name);
+                assertThat(PdfName.findStaticName(key, key.length)).isSameAs(name);
+                ++constants;
+            }
+        }
+        assertThat(PdfName.staticNames).hasSize(constants);
+        assertThat(new PdfName("NotAConstant")).isNotSameAs(PdfName.staticNames.get("NotAConstant"));
+    }
+
+    @Test
+    void shouldParseWellKnownNamesAsConstants() throws IOException {
+        PdfContentParser parser = new PdfContentParser(
+                new PRTokeniser("/Span <</MCID 0 /Lang (en)>> BDC".getBytes(StandardCharsets.ISO_8859_1)));
+        List<PdfObject> operands = new ArrayList<>();
+        parser.parse(operands);
+        assertThat(operands.get(0)).isSameAs(PdfName.SPAN);
+        assertThat(((PdfDictionary) operands.get(1)).getKeys()).allMatch(
+                key -> key == PdfName.MCID || key == PdfName.LANG);
+    }
+
+    @Test
+    void shouldEncodeNames() {
+        assertThat(new PdfName("A B#").getBytes()).isEqualTo("/A#20B#23".getBytes(StandardCharsets.ISO_8859_1));
+        byte[] name = {'A', 10, 'B'};
+        assertThat(PdfName.encodeName(name, 3)).isEqualTo(PdfName.encodeName("A\nB"));
+    }
+}
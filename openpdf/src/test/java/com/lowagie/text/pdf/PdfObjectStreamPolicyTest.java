@@ -0,0 +1,127 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PdfObjectStreamPolicyTest {
+
+    @Test
+    void shouldLimitObjectsAndBytesPerStream() throws IOException {
+        PdfObjectStreamPolicy byCount = new PdfObjectStreamPolicy();
+        byCount.setMaxObjects(5);
+        PdfObjectStreamPolicy byBytes = new PdfObjectStreamPolicy();
+        byBytes.setMaxBytes(300);
+        int objectStreams = countObjectStreams(createPdf(null, new ArrayList<>()));
+        for (PdfObjectStreamPolicy policy : new PdfObjectStreamPolicy[]{byCount, byBytes}) {
+            byte[] pdf = createPdf(policy, new ArrayList<>());
+            assertThat(countObjectStreams(pdf)).isGreaterThan(objectStreams);
+            try (PdfReader reader = new PdfReader(pdf)) {
+                assertThat(reader.isRebuilt()).isFalse();
+                assertThat(reader.getNumberOfPages()).isEqualTo(20);
+                for (int k = 1; k < reader.getXrefSize(); ++k) {
+                    PdfObject object = reader.getPdfObject(k);
+                    if (object != null && object.isStream() && PdfName.OBJSTM.equals(
+                            ((PdfDictionary) object).get(PdfName.TYPE))) {
+                        PRStream stream = (PRStream) object;
+                        int n = stream.getAsNumber(PdfName.N).intValue();
+                        int objectsLength = PdfReader.getStreamBytes(stream).length
+                                - stream.getAsNumber(PdfName.FIRST).intValue();
+                        if (policy == byCount) {
+                            assertThat(n).isLessThanOrEqualTo(5);
+                        } else if (n > 1) {
+                            assertThat(objectsLength).isLessThanOrEqualTo(300);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepExcludedTypesOutOfStreams() throws IOException {
+        PdfObjectStreamPolicy policy = new PdfObjectStreamPolicy();
+        policy.excludeType(PdfName.PAGE);
+        byte[] pdf = createPdf(policy, new ArrayList<>());
+        String content = new String(pdf, StandardCharsets.ISO_8859_1);
+        try (PdfReader reader = new PdfReader(pdf)) {
+            for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+                assertThat(content).contains("\n" + reader.getPageOrigRef(k).getNumber() + " 0 obj");
+            }
+            assertThat(content).doesNotContain("\n" + reader.getCatalog().getAsIndirectObject(PdfName.PAGES)
+                    .getNumber() + " 0 obj");
+        }
+    }
+
+    @Test
+    void shouldShareIdenticalObjects() throws IOException {
+        List<PdfIndirectReference> shared = new ArrayList<>();
+        PdfObjectStreamPolicy policy = new PdfObjectStreamPolicy();
+        policy.setMaxObjects(5);
+        byte[] plain = createPdf(policy, shared);
+        policy.setDeduplicating(true);
+        List<PdfIndirectReference> deduplicated = new ArrayList<>();
+        byte[] pdf = createPdf(policy, deduplicated);
+        assertThat(pdf.length).isLessThan(plain.length);
+        for (PdfIndirectReference ref : deduplicated) {
+            assertThat(ref.getNumber()).isEqualTo(deduplicated.get(0).getNumber());
+        }
+        // a partial reader keeps the objects that are not referenced
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(pdf), null)) {
+            PdfDictionary dictionary = (PdfDictionary) reader.getPdfObject(deduplicated.get(0).getNumber());
+            assertThat(dictionary.getAsString(PdfName.CONTENTS).toUnicodeString())
+                    .isEqualTo("the same object added many times");
+            for (int k = 1; k < reader.getXrefSize(); ++k) {
+                PdfObject object = reader.getPdfObject(k);
+                if (object != null && object.isStream() && PdfName.OBJSTM.equals(
+                        ((PdfDictionary) object).get(PdfName.TYPE))) {
+                    assertIncreasingOffsets((PRStream) object);
+                }
+            }
+        }
+    }
+
+    private static void assertIncreasingOffsets(PRStream stream) throws IOException {
+        String index = new String(PdfReader.getStreamBytes(stream), 0, stream.getAsNumber(PdfName.FIRST).intValue(),
+                StandardCharsets.ISO_8859_1);
+        String[] numbers = index.trim().split(" ");
+        for (int k = 3; k < numbers.length; k += 2) {
+            assertThat(Integer.parseInt(numbers[k])).isGreaterThan(Integer.parseInt(numbers[k - 2]));
+        }
+    }
+
+    private static int countObjectStreams(byte[] pdf) {
+        String content = new String(pdf, StandardCharsets.ISO_8859_1);
+        int count = 0;
+        for (int k = content.indexOf("/ObjStm"); k >= 0; k = content.indexOf("/ObjStm", k + 1)) {
+            ++count;
+        }
+        return count;
+    }
+
+    private static byte[] createPdf(PdfObjectStreamPolicy policy, List<PdfIndirectReference> shared)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setFullCompression();
+        writer.setObjectStreamPolicy(policy);
+        document.open();
+        for (int k = 0; k < 20; ++k) {
+            PdfDictionary dictionary = new PdfDictionary();
+            dictionary.put(PdfName.CONTENTS, new PdfString("the same object added many times"));
+            shared.add(writer.addToBody(dictionary).getIndirectReference());
+            document.add(new Paragraph("Page " + k));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class PdfReaderConcurrentAccessTest {
+
+    private static final String PDF = "src/test/resources/merge-acroforms.pdf";
+
+    @Test
+    void shouldReadPagesFromSeveralThreads() throws Exception {
+        List<byte[]> expected = new ArrayList<>();
+        try (PdfReader reader = new PdfReader(PDF)) {
+            for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+                expected.add(reader.getPageContent(k));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(PDF), null)) {
+            reader.setConcurrentAccess(true);
+            assertThat(reader.isConcurrentAccess()).isTrue();
+            int pages = reader.getNumberOfPages();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                final int shift = t * 5;
+                results.add(executor.submit(() -> {
+                    for (int k = 0; k < pages; ++k) {
+                        int page = (k + shift) % pages + 1;
+                        if (reader.getPageN(page) == null) {
+                            return false;
+                        }
+                        byte[] content = reader.getPageContent(page);
+                        if (!Arrays.equals(expected.get(page - 1), content)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldKeepTheObjectsReleasedWhileReadingConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(PDF), null)) {
+            reader.setConcurrentAccess(true);
+            PRIndirectReference ref = (PRIndirectReference) reader.getPageN(1).get(PdfName.CONTENTS);
+            PdfObject contents = reader.getPdfObject(ref.getNumber());
+            reader.releaseLastXrefPartial();
+            List<Future<PdfObject>> results = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                results.add(executor.submit(() -> {
+                    PdfObject obj = null;
+                    for (int k = 0; k < 100; ++k) {
+                        obj = PdfReader.getPdfObjectRelease(ref);
+                        reader.releaseLastXrefPartial();
+                    }
+                    return obj;
+                }));
+            }
+            for (Future<PdfObject> result : results) {
+                assertThat(result.get()).isSameAs(contents);
+            }
+            assertThat(reader.getPdfObject(ref.getNumber())).isSameAs(contents);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class PdfReaderObjectCacheBudgetTest {
+
+    private static final String PDF = "src/test/resources/merge-acroforms.pdf";
+
+    @Test
+    void shouldReadEvictedObjectsAgain() throws Exception {
+        List<byte[]> expected = new ArrayList<>();
+        try (PdfReader reader = new PdfReader(PDF)) {
+            for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+                expected.add(reader.getPageContent(k));
+            }
+        }
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(PDF), null)) {
+            reader.setObjectCacheBudget(1);
+            assertThat(reader.getObjectCacheBudget()).isEqualTo(1);
+            for (int pass = 0; pass < 2; ++pass) {
+                for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+                    assertThat(reader.getPageN(k)).isNotNull();
+                    assertThat(reader.getPageContent(k)).isEqualTo(expected.get(k - 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldReadEvictedObjectsFromSeveralThreads() throws Exception {
+        List<byte[]> expected = new ArrayList<>();
+        try (PdfReader reader = new PdfReader(PDF)) {
+            for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+                expected.add(reader.getPageContent(k));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(PDF), null)) {
+            reader.setConcurrentAccess(true);
+            reader.setObjectCacheBudget(4096);
+            int pages = reader.getNumberOfPages();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; ++t) {
+                final int shift = t * 3;
+                results.add(executor.submit(() -> {
+                    for (int pass = 0; pass < 5; ++pass) {
+                        for (int k = 0; k < pages; ++k) {
+                            int page = (k + shift) % pages + 1;
+                            if (!Arrays.equals(expected.get(page - 1), reader.getPageContent(page))) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldKeepTheAttributesInheritedFromThePageTree() throws Exception {
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(inheritingPages(4)), null)) {
+            reader.setObjectCacheBudget(1);
+            int pages = reader.getNumberOfPages();
+            for (int k = 1; k <= pages; ++k) {
+                assertThat(reader.getPageN(k)).isNotNull();
+            }
+            for (int k = 1; k <= pages; ++k) {
+                assertThat(reader.getPageContent(k)).isNotEmpty();
+            }
+            // as if the garbage collector reclaimed the evicted objects
+            clearEvicted(reader);
+            for (int k = 1; k <= pages; ++k) {
+                assertThat(reader.getPageN(k).get(PdfName.RESOURCES)).isNotNull();
+                assertThat(reader.getPageSize(k).getWidth()).isEqualTo(200);
+                assertThat(reader.getPageSize(k).getHeight()).isEqualTo(300);
+                assertThat(reader.getPageRotation(k)).isEqualTo(90);
+            }
+        }
+    }
+
+    @Test
+    void shouldGiveTheObjectsReadSinceQueuedASecondChance() {
+        XrefObjectCache cache = new XrefObjectCache(3);
+        // room for two numbers
+        cache.setBudget(50);
+        PdfNumber[] numbers = {new PdfNumber(0), new PdfNumber(1), new PdfNumber(2)};
+        for (int k = 0; k < 2; ++k) {
+            cache.set(k, numbers[k]);
+            cache.loaded(k, numbers[k]);
+        }
+        assertThat(cache.get(0)).isSameAs(numbers[0]);
+        cache.set(2, numbers[2]);
+        cache.loaded(2, numbers[2]);
+        assertThat(cache.isResident(0)).isTrue();
+        assertThat(cache.isResident(1)).isFalse();
+        assertThat(cache.isResident(2)).isTrue();
+    }
+
+    @Test
+    void shouldIgnoreBudgetWhenNotPartial() throws Exception {
+        try (PdfReader reader = new PdfReader(PDF)) {
+            reader.setObjectCacheBudget(1);
+            assertThat(reader.getObjectCacheBudget()).isZero();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void clearEvicted(PdfReader reader) throws Exception {
+        Field cache = PdfReader.class.getDeclaredField("xrefObj");
+        cache.setAccessible(true);
+        Field evicted = XrefObjectCache.class.getDeclaredField("evicted");
+        evicted.setAccessible(true);
+        Map<Integer, Reference<?>> objects = (Map<Integer, Reference<?>>) evicted.get(cache.get(reader));
+        objects.values().forEach(Reference::clear);
+    }
+
+    /**
+     * A document whose pages inherit their /MediaBox, /Resources and /Rotate from the root of the page tree.
+     */
+    private static byte[] inheritingPages(int pages) {
+        List<String> objects = new ArrayList<>();
+        objects.add("<< /Type /Catalog /Pages 2 0 R >>");
+        StringBuilder kids = new StringBuilder();
+        for (int k = 0; k < pages; ++k) {
+            kids.append(3 + 2 * k).append(" 0 R ");
+        }
+        objects.add("<< /Type /Pages /Kids [" + kids + "] /Count " + pages
+                + " /MediaBox [0 0 200 300] /Rotate 90 /Resources << /ProcSet [/PDF] >> >>");
+        for (int k = 0; k < pages; ++k) {
+            objects.add("<< /Type /Page /Parent 2 0 R /Contents " + (4 + 2 * k) + " 0 R >>");
+            String content = "0 0 m " + k + " " + k + " l S";
+            objects.add("<< /Length " + content.length() + " >>\nstream\n" + content + "\nendstream");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder xref = new StringBuilder("xref\n0 " + (objects.size() + 1) + "\n0000000000 65535 f \n");
+        write(out, "%PDF-1.4\n");
+        for (int k = 0; k < objects.size(); ++k) {
+            xref.append(String.format("%010d 00000 n \n", out.size()));
+            write(out, (k + 1) + " 0 obj\n" + objects.get(k) + "\nendobj\n");
+        }
+        int start = out.size();
+        write(out, xref + "trailer\n<< /Size " + (objects.size() + 1) + " /Root 1 0 R >>\nstartxref\n" + start
+                + "\n%%EOF\n");
+        return out.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, String s) {
+        byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(b, 0, b.length);
+    }
+}
@@ -3,6 +3,7 @@ package com.lowagie.text.pdf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.lowagie.text.Document;
+import com.lowagie.text.Image;
 import com.lowagie.text.Paragraph;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -10,6 +11,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.time.Duration;
+import java.util.HashMap;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -107,4 +109,82 @@ public class PdfSmartCopyTest {
             }
         }
     }
+
+    @Test
+    void shouldShareTheFontsAndImagesOfAllTheDocuments() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfCopy copy = new PdfSmartCopy(document, outputStream);
+        document.open();
+        for (int k = 0; k < 3; ++k) {
+            PdfReader reader = new PdfReader(createPdfWithImage());
+            for (int page = 1; page <= reader.getNumberOfPages(); ++page) {
+                copy.addPage(copy.getImportedPage(reader, page));
+            }
+            copy.freeReader(reader);
+        }
+        document.close();
+        try (PdfReader reader = new PdfReader(outputStream.toByteArray())) {
+            assertEquals(6, reader.getNumberOfPages());
+            int fonts = 0;
+            int images = 0;
+            for (int k = 1; k < reader.getXrefSize(); ++k) {
+                PdfObject obj = reader.getPdfObject(k);
+                if (obj instanceof PdfDictionary) {
+                    PdfDictionary dictionary = (PdfDictionary) obj;
+                    if (PdfName.FONT.equals(dictionary.get(PdfName.TYPE))) {
+                        ++fonts;
+                    } else if (PdfName.IMAGE.equals(dictionary.get(PdfName.SUBTYPE))) {
+                        ++images;
+                    }
+                }
+            }
+            assertEquals(1, fonts);
+            assertEquals(1, images);
+        }
+    }
+
+    @Test
+    void shouldStopDigestingLongChainsOfIndirectObjects() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        document.open();
+        document.add(new Paragraph("Chain"));
+        PdfIndirectReference next = null;
+        for (int k = 0; k < 100000; ++k) {
+            PdfDictionary dictionary = new PdfDictionary();
+            if (next != null) {
+                dictionary.put(PdfName.NEXT, next);
+            }
+            next = writer.addToBody(dictionary).getIndirectReference();
+        }
+        document.close();
+        // a partial reader keeps the objects that are not referenced
+        try (PdfReader reader = new PdfReader(new RandomAccessFileOrArray(outputStream.toByteArray()), null)) {
+            PdfSmartCopy.Digester digester = new PdfSmartCopy.Digester(new HashMap<>(), reader.getSafeFile());
+            PRIndirectReference head = new PRIndirectReference(reader, next.getNumber());
+            assertEquals(PdfSmartCopy.ObjectDigest.INVALID, digester.digest(head));
+            PRIndirectReference tail = new PRIndirectReference(reader, next.getNumber() - 99999);
+            Assertions.assertNotEquals(PdfSmartCopy.ObjectDigest.INVALID, digester.digest(tail));
+        }
+    }
+
+    private static byte[] createPdfWithImage() throws Exception {
+        byte[] pixels = new byte[64 * 64 * 3];
+        for (int k = 0; k < pixels.length; ++k) {
+            pixels[k] = (byte) (k * 7);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, outputStream);
+        document.open();
+        for (int page = 1; page <= 2; ++page) {
+            document.add(new Paragraph("Page " + page));
+            document.add(Image.getInstance(64, 64, 3, 8, pixels));
+            document.newPage();
+        }
+        document.close();
+        return outputStream.toByteArray();
+    }
 }
@@ -0,0 +1,151 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class PdfStamperAppendModeTest {
+
+    @Test
+    void shouldOnlyAppendTheInfoWhenNothingChanged() throws IOException {
+        byte[] original = createPdf();
+        PdfReader reader = new PdfReader(original);
+        int info = ((PRIndirectReference) reader.getTrailer().get(PdfName.INFO)).getNumber();
+        int pages = ((PRIndirectReference) reader.getCatalog().get(PdfName.PAGES)).getNumber();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        stamper.close();
+        assertThat(appendedObjects(original, out.toByteArray())).containsExactlyInAnyOrder(pages, info);
+    }
+
+    @Test
+    void shouldAppendThePageTreeChangedBeforeTheStamper() throws IOException {
+        byte[] original = createPdf();
+        PdfReader reader = new PdfReader(original);
+        reader.selectPages("1-2");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        stamper.close();
+        try (PdfReader result = new PdfReader(out.toByteArray())) {
+            assertThat(result.getNumberOfPages()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldNotAppendThePagesCompletedWithTheInheritedAttributes() throws IOException {
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(createInheritingPdf()), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+            assertThat(reader.getPageN(k).get(PdfName.MEDIABOX)).isNotNull();
+        }
+        assertThat(reader.getChangedObjects()).isEmpty();
+        stamper.close();
+    }
+
+    @Test
+    void shouldAppendTheArraysChangedThroughTheirIterator() throws IOException {
+        byte[] original = createPdf();
+        PdfReader reader = new PdfReader(original);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        ListIterator<PdfObject> box = reader.getPageN(2).getAsArray(PdfName.MEDIABOX).listIterator();
+        box.next();
+        box.set(new PdfNumber(10));
+        int page2 = reader.getPageOrigRef(2).getNumber();
+        stamper.close();
+        assertThat(appendedObjects(original, out.toByteArray())).contains(page2);
+    }
+
+    @Test
+    void shouldAppendTheObjectsChangedThroughTheReader() throws IOException {
+        byte[] original = createPdf();
+        PdfReader reader = new PdfReader(original);
+        int info = ((PRIndirectReference) reader.getTrailer().get(PdfName.INFO)).getNumber();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        reader.getPageN(2).put(PdfName.ROTATE, new PdfNumber(90));
+        reader.getPageN(3).getAsDict(PdfName.RESOURCES).put(PdfName.PROPERTIES, new PdfDictionary());
+        int page2 = reader.getPageOrigRef(2).getNumber();
+        int page3 = reader.getPageOrigRef(3).getNumber();
+        stamper.close();
+
+        byte[] appended = out.toByteArray();
+        int pages = ((PRIndirectReference) reader.getCatalog().get(PdfName.PAGES)).getNumber();
+        assertThat(appendedObjects(original, appended)).containsExactlyInAnyOrder(pages, page2, page3, info);
+        try (PdfReader result = new PdfReader(appended)) {
+            assertThat(result.getPageRotation(1)).isZero();
+            assertThat(result.getPageRotation(2)).isEqualTo(90);
+            assertThat(result.getPageN(3).getAsDict(PdfName.RESOURCES).get(PdfName.PROPERTIES)).isNotNull();
+        }
+    }
+
+    @Test
+    void shouldNotAppendTheObjectsGivenTheSameValues() throws IOException {
+        byte[] original = createPdf();
+        PdfReader reader = new PdfReader(original);
+        int info = ((PRIndirectReference) reader.getTrailer().get(PdfName.INFO)).getNumber();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out, '\0', true);
+        PdfDictionary page = reader.getPageN(2);
+        page.put(PdfName.TYPE, new PdfName("Page"));
+        page.put(PdfName.CONTENTS, page.get(PdfName.CONTENTS));
+        page.remove(PdfName.ROTATE);
+        page.put(PdfName.ROTATE, null);
+        int pages = ((PRIndirectReference) reader.getCatalog().get(PdfName.PAGES)).getNumber();
+        stamper.close();
+        assertThat(appendedObjects(original, out.toByteArray())).containsExactlyInAnyOrder(pages, info);
+    }
+
+    private static Set<Integer> appendedObjects(byte[] original, byte[] appended) {
+        String update = new String(appended, original.length, appended.length - original.length,
+                StandardCharsets.ISO_8859_1);
+        Matcher matcher = Pattern.compile("(?m)^(\\d+) 0 obj").matcher(update);
+        Set<Integer> objects = new TreeSet<>();
+        while (matcher.find()) {
+            objects.add(Integer.parseInt(matcher.group(1)));
+        }
+        return objects;
+    }
+
+    /**
+     * A document whose pages inherit their /MediaBox and /Resources from the root of the page tree.
+     */
+    private static byte[] createInheritingPdf() throws IOException {
+        PdfReader reader = new PdfReader(createPdf());
+        PdfDictionary pages = (PdfDictionary) PdfReader.getPdfObject(reader.getCatalog().get(PdfName.PAGES));
+        pages.put(PdfName.MEDIABOX, reader.getPageN(1).get(PdfName.MEDIABOX));
+        pages.put(PdfName.RESOURCES, reader.getPageN(1).get(PdfName.RESOURCES));
+        for (int k = 1; k <= reader.getNumberOfPages(); ++k) {
+            reader.getPageN(k).remove(PdfName.MEDIABOX);
+            reader.getPageN(k).remove(PdfName.RESOURCES);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfStamper stamper = new PdfStamper(reader, out);
+        stamper.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] createPdf() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (int page = 1; page <= 3; ++page) {
+            document.add(new Paragraph("page " + page));
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
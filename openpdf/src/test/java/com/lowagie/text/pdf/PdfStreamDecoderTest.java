@@ -0,0 +1,91 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class PdfStreamDecoderTest {
+
+    private static final String PDF = "src/test/resources/HelloWorldMeta.pdf";
+
+    @Test
+    void shouldStreamSameContentAsGetStreamBytes() throws IOException {
+        try (PdfReader reader = new PdfReader(PDF)) {
+            PRStream stream = (PRStream) PdfReader.getPdfObject(reader.getPageN(1).get(PdfName.CONTENTS));
+            byte[] expected = PdfReader.getStreamBytes(stream);
+            try (InputStream in = PdfStreamDecoder.openStream(stream)) {
+                assertThat(in.readAllBytes()).isEqualTo(expected);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length);
+            assertThat(PdfStreamDecoder.decode(stream, buffer)).isEqualTo(expected.length);
+            byte[] decoded = new byte[expected.length];
+            buffer.flip().get(decoded);
+            assertThat(decoded).isEqualTo(expected);
+            assertThatThrownBy(() -> PdfStreamDecoder.decode(stream, ByteBuffer.allocate(expected.length - 1)))
+                    .isInstanceOf(BufferOverflowException.class);
+        }
+    }
+
+    @Test
+    void shouldApplyPredictors() throws IOException {
+        // two rows of three bytes, PNG Sub then PNG Up
+        byte[] encoded = {1, 1, 1, 1, 2, 1, 1, 1};
+        byte[] expected = {1, 2, 3, 2, 3, 4};
+        try (PdfReader reader = new PdfReader(PDF)) {
+            PRStream stream = new PRStream(reader, encoded);
+            stream.put(PdfName.DECODEPARMS, predictor(12, 3));
+            assertThat(PdfReader.getStreamBytes(stream)).isEqualTo(expected);
+            try (InputStream in = PdfStreamDecoder.openStream(stream)) {
+                assertThat(in.readAllBytes()).isEqualTo(expected);
+            }
+        }
+        assertThat(PdfReader.decodePredictor(encoded, predictor(12, 3))).isEqualTo(expected);
+        assertThat(encoded[0]).isEqualTo((byte) 1);
+        // TIFF predictor 2 adds the sample to the left
+        assertThat(PdfReader.decodePredictor(new byte[]{1, 1, 1, 5, 1, 1}, predictor(2, 3)))
+                .isEqualTo(new byte[]{1, 2, 3, 5, 6, 7});
+    }
+
+    @Test
+    void shouldApplyTheTiffPredictorTheSameWayEverywhere() throws IOException {
+        // two rows of three 8 bit samples, /DL gives the length after the predictor
+        byte[] encoded = {1, 1, 1, 5, 1, 1};
+        byte[] expected = {1, 2, 3, 5, 6, 7};
+        assertThat(PdfReader.decodePredictor(encoded, predictor(2, 3))).isEqualTo(expected);
+        try (PdfReader reader = new PdfReader(PDF)) {
+            PRStream stream = new PRStream(reader, encoded);
+            stream.put(PdfName.DECODEPARMS, predictor(2, 3));
+            stream.put(PdfName.DL, new PdfNumber(expected.length));
+            assertThat(PdfReader.getStreamBytes(stream)).isEqualTo(expected);
+            try (InputStream in = PdfStreamDecoder.openStream(stream)) {
+                assertThat(in.readAllBytes()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldThrowReadingACorruptedFlateStream() throws IOException {
+        try (PdfReader reader = new PdfReader(PDF)) {
+            PRStream stream = new PRStream(reader, new byte[0]);
+            // a zlib header followed by a block of a reserved type
+            stream.setData(new byte[]{0x78, (byte) 0x9c, (byte) 0xff, (byte) 0xff}, false);
+            stream.put(PdfName.FILTER, PdfName.FLATEDECODE);
+            assertThat(PdfReader.getStreamBytes(stream)).isEmpty();
+            try (InputStream in = PdfStreamDecoder.openStream(stream)) {
+                assertThatThrownBy(in::readAllBytes).isInstanceOf(IOException.class);
+            }
+        }
+    }
+
+    private static PdfDictionary predictor(int predictor, int columns) {
+        PdfDictionary dic = new PdfDictionary();
+        dic.put(PdfName.PREDICTOR, new PdfNumber(predictor));
+        dic.put(PdfName.COLUMNS, new PdfNumber(columns));
+        return dic;
+    }
+}
@@ -0,0 +1,123 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+class RandomAccessSourceTest {
+
+    private static final Path PDF = Paths.get("src/test/resources/HelloWorldMeta.pdf");
+
+    @Test
+    void shouldReadSameBytesFromAllSources() throws IOException {
+        byte[] expected = Files.readAllBytes(PDF);
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+        direct.put(expected).flip();
+        try (RandomAccessSource buffer = new ByteBufferRandomAccessSource(direct);
+                RandomAccessSource channel = new FileChannelRandomAccessSource(PDF);
+                RandomAccessSource windows = new MappedWindowRandomAccessSource(PDF, 100, 2)) {
+            for (RandomAccessSource source : new RandomAccessSource[]{buffer, channel, windows}) {
+                assertThat(source.length()).isEqualTo(expected.length);
+                byte[] read = new byte[expected.length];
+                assertThat(source.get(0, read, 0, read.length)).isEqualTo(expected.length);
+                assertThat(read).isEqualTo(expected);
+                assertThat(source.get(150)).isEqualTo(expected[150] & 0xff);
+                assertThat(source.get(expected.length)).isEqualTo(-1);
+            }
+        }
+    }
+
+    @Test
+    void shouldReadSingleBytesAndWholeBufferFromAllSources() throws IOException {
+        byte[] expected = Files.readAllBytes(PDF);
+        try (RandomAccessSource channel = new FileChannelRandomAccessSource(PDF);
+                RandomAccessSource windows = new MappedWindowRandomAccessSource(PDF, 100, 2)) {
+            RandomAccessSource chunks = new RandomAccessSource() {
+                @Override
+                public int get(long position) throws IOException {
+                    return channel.get(position);
+                }
+
+                @Override
+                public int get(long position, byte[] bytes, int off, int len) throws IOException {
+                    return channel.get(position, bytes, off, Math.min(len, 7));
+                }
+
+                @Override
+                public long length() {
+                    return channel.length();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            for (RandomAccessSource source : new RandomAccessSource[]{channel, windows, chunks}) {
+                for (int k = 0; k < expected.length; ++k) {
+                    assertThat(source.get(k)).isEqualTo(expected[k] & 0xff);
+                }
+                for (int k = expected.length - 1; k >= 0; k -= 13) {
+                    assertThat(source.get(k)).isEqualTo(expected[k] & 0xff);
+                }
+                ByteBuffer buffer = new RandomAccessFileOrArray(source).getNioByteBuffer();
+                byte[] read = new byte[buffer.remaining()];
+                buffer.get(read);
+                assertThat(read).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldTrackPositionOverSource() throws IOException {
+        byte[] expected = Files.readAllBytes(PDF);
+        try (RandomAccessSource source = new MappedWindowRandomAccessSource(PDF, 64, 1)) {
+            RandomAccessFileOrArray file = new RandomAccessFileOrArray(source);
+            file.seek(60);
+            assertThat(file.read()).isEqualTo(expected[60] & 0xff);
+            byte[] b = new byte[10];
+            file.readFully(b);
+            assertThat(file.getFilePointerLong()).isEqualTo(71);
+            assertThat(b[9]).isEqualTo(expected[70]);
+            RandomAccessFileOrArray copy = new RandomAccessFileOrArray(file);
+            copy.seek(0);
+            assertThat(copy.read()).isEqualTo('%');
+            assertThat(file.getFilePointerLong()).isEqualTo(71);
+        }
+    }
+
+    @Test
+    void shouldShareTheOpenFileWithACopy() throws IOException {
+        byte[] expected = Files.readAllBytes(PDF);
+        try (RandomAccessFileOrArray file = new RandomAccessFileOrArray(PDF.toString(), false, true)) {
+            file.seek(60);
+            RandomAccessFileOrArray copy = file.getSharedCopy();
+            assertThat(copy.source).isNotNull();
+            copy.seek(0);
+            byte[] read = new byte[expected.length];
+            copy.readFully(read);
+            assertThat(read).isEqualTo(expected);
+            copy.close();
+            assertThat(file.isOpen()).isTrue();
+            assertThat(file.getFilePointerLong()).isEqualTo(60);
+            assertThat(file.read()).isEqualTo(expected[60] & 0xff);
+        }
+    }
+
+    @Test
+    void shouldReadDocumentFromSource() throws IOException {
+        try (RandomAccessSource source = new FileChannelRandomAccessSource(PDF);
+                PdfReader full = new PdfReader(source, null, false);
+                PdfReader partial = new PdfReader(source, null, true);
+                PdfReader reference = new PdfReader(PDF.toString())) {
+            assertThat(full.getNumberOfPages()).isEqualTo(reference.getNumberOfPages());
+            assertThat(partial.getNumberOfPages()).isEqualTo(reference.getNumberOfPages());
+            assertThat(partial.getPageContent(1)).isEqualTo(reference.getPageContent(1));
+            assertThat(full.getInfo()).isEqualTo(reference.getInfo());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class StreamTransferTest {
+
+    @Test
+    void shouldTransferARangeOfTheFile() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(7).nextBytes(data);
+        Path path = Files.createTempFile("transfer", ".bin");
+        try {
+            Files.write(path, data);
+            for (RandomAccessFileOrArray file : new RandomAccessFileOrArray[]{
+                    new RandomAccessFileOrArray(path.toString(), false, true),
+                    new RandomAccessFileOrArray(path.toString()),
+                    new RandomAccessFileOrArray(data)}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                file.transferTo(123, 90000, out);
+                file.close();
+                byte[] expected = new byte[90000];
+                System.arraycopy(data, 123, expected, 0, expected.length);
+                assertThat(out.toByteArray()).isEqualTo(expected);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void shouldCopyTheStreamsOfAFileUnchanged() throws IOException {
+        Path path = Files.createTempFile("transfer", ".pdf");
+        try {
+            Files.write(path, createPdf());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (PdfReader reader = new PdfReader(path.toString())) {
+                Document document = new Document();
+                PdfCopy copy = new PdfCopy(document, out);
+                document.open();
+                for (int page = 1; page <= reader.getNumberOfPages(); ++page) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                document.close();
+            }
+            try (PdfReader expected = new PdfReader(path.toString());
+                    PdfReader actual = new PdfReader(out.toByteArray())) {
+                assertThat(actual.isRebuilt()).isFalse();
+                assertThat(actual.getNumberOfPages()).isEqualTo(expected.getNumberOfPages());
+                for (int page = 1; page <= expected.getNumberOfPages(); ++page) {
+                    assertThat(actual.getPageContent(page)).isEqualTo(expected.getPageContent(page));
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static byte[] createPdf() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (int page = 0; page < 3; ++page) {
+            for (int k = 0; k < 200; ++k) {
+                document.add(new Paragraph("page " + page + " line " + k));
+            }
+            document.newPage();
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
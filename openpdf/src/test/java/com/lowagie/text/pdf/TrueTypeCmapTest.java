@@ -0,0 +1,54 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TrueTypeCmapTest {
+
+    @Test
+    void shouldMergeTheConsecutiveMappings() {
+        TrueTypeCmap.Builder builder = new TrueTypeCmap.Builder();
+        for (int code = 0x20; code < 0x80; ++code) {
+            builder.add(code, code - 29);
+        }
+        builder.addRange(0x4E00, 0x9FFF, 1000);
+        builder.addRange(0xA000, 0x9000, 5);
+        TrueTypeCmap cmap = builder.build();
+        assertThat(cmap.size()).isEqualTo(0x60 + 0x5200);
+        assertThat(cmap.getMemory()).isEqualTo(24);
+        assertThat(cmap.getGlyph(0x41)).isEqualTo(36);
+        assertThat(cmap.getGlyph(0x4E00)).isEqualTo(1000);
+        assertThat(cmap.getGlyph(0x9FFF)).isEqualTo(1000 + 0x51FF);
+        assertThat(cmap.getGlyph(0x1F)).isEqualTo(-1);
+        assertThat(cmap.getGlyph(0x80)).isEqualTo(-1);
+        assertThat(cmap.getGlyph(0xA000)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldKeepTheLastGlyphOfTheMappingsOutOfOrder() {
+        TrueTypeCmap.Builder builder = new TrueTypeCmap.Builder();
+        builder.add(0x42, 7);
+        builder.add(0x41, 3);
+        builder.addRange(0x40, 0x43, 10);
+        builder.add(0x41, 4);
+        TrueTypeCmap cmap = builder.build();
+        List<String> mappings = new ArrayList<>();
+        cmap.forEach((code, glyph) -> mappings.add(Integer.toHexString(code) + "=" + glyph));
+        assertThat(mappings).containsExactly("40=10", "41=4", "42=12", "43=13");
+        assertThat(cmap.size()).isEqualTo(4);
+        assertThat(cmap.getGlyph(0x41)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldReadTheGlyphBoxesOfAnEmbeddedFont() throws Exception {
+        BaseFont font = BaseFont.createFont("fonts/liberation/LiberationSerif-Regular.ttf", BaseFont.IDENTITY_H,
+                BaseFont.EMBEDDED, BaseFont.NOT_CACHED, null, null);
+        assertThat(font.getCharBBox('H')).isNotNull();
+        assertThat(font.getCharBBox(' ')).isNull();
+        int[] metrics = ((TrueTypeFont) font).getMetricsTT('H');
+        assertThat(metrics[1]).isEqualTo(font.getWidth('H'));
+    }
+}
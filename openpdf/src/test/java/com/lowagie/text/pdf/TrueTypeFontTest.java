@@ -2,6 +2,10 @@ package com.lowagie.text.pdf;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import org.junit.jupiter.api.Test;
 
 class TrueTypeFontTest {
@@ -21,4 +25,15 @@ class TrueTypeFontTest {
     void testGetTtcName() {
         assertThat(TrueTypeFont.getTTCName("font.ttc,123456")).isEqualTo("font.ttc");
     }
+
+    @Test
+    void shouldHaveNoCharBoxWhenTheFontFileIsGone() throws Exception {
+        Path file = Files.createTempFile("font", ".ttf");
+        Files.copy(Paths.get("src/test/resources/fonts/liberation/LiberationSerif-Regular.ttf"), file,
+                StandardCopyOption.REPLACE_EXISTING);
+        BaseFont font = BaseFont.createFont(file.toString(), BaseFont.IDENTITY_H, BaseFont.EMBEDDED,
+                BaseFont.NOT_CACHED, null, null);
+        Files.delete(file);
+        assertThat(font.getCharBBox('A')).isNull();
+    }
 }
@@ -0,0 +1,41 @@
+package com.lowagie.text.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+
+class UsedGlyphsTest {
+
+    @Test
+    void shouldKeepTheFirstMetricsOfAnAddedGlyph() {
+        UsedGlyphs glyphs = new UsedGlyphs(4);
+        assertThat(glyphs.add(3000, 500, 0x4E00)).isTrue();
+        assertThat(glyphs.add(3000, 600, 0x4E01)).isFalse();
+        assertThat(glyphs.add(7, 250, UsedGlyphs.NO_CODE)).isTrue();
+        assertThat(glyphs.contains(3000)).isTrue();
+        assertThat(glyphs.contains(8)).isFalse();
+        assertThat(glyphs.contains(-1)).isFalse();
+        assertThat(glyphs.size()).isEqualTo(2);
+        assertThat(glyphs.getWidth(3000)).isEqualTo(500);
+        assertThat(glyphs.getCode(3000)).isEqualTo(0x4E00);
+
+        glyphs.put(3000, 600, 0x4E01);
+        assertThat(glyphs.getCode(3000)).isEqualTo(0x4E01);
+        assertThat(glyphs.getGlyphs()).containsExactly(7, 3000);
+    }
+
+    @Test
+    void shouldListTheMetricsInIncreasingOrderOfGlyph() {
+        UsedGlyphs glyphs = new UsedGlyphs();
+        glyphs.add(40, 400, 0x41);
+        glyphs.add(2, 200, UsedGlyphs.NO_CODE);
+        int[][] metrics = glyphs.getMetrics();
+        assertThat(metrics.length).isEqualTo(2);
+        assertThat(metrics[0]).containsExactly(2, 200);
+        assertThat(metrics[1]).containsExactly(40, 400, 0x41);
+        HashMap<Integer, int[]> map = glyphs.toMap();
+        assertThat(map.keySet()).containsExactlyInAnyOrder(2, 40);
+        assertThat(map.get(40)).containsExactly(40, 400, 0x41);
+    }
+}
@@ -35,21 +35,14 @@
 
 package com.lowagie.toolbox.plugins;
 
-import com.lowagie.text.Document;
-import com.lowagie.text.pdf.PdfCopy;
-import com.lowagie.text.pdf.PdfImportedPage;
-import com.lowagie.text.pdf.PdfReader;
-import com.lowagie.text.pdf.SimpleBookmark;
 import com.lowagie.toolbox.AbstractTool;
 import com.lowagie.toolbox.arguments.AbstractArgument;
 import com.lowagie.toolbox.arguments.FileArgument;
 import com.lowagie.toolbox.arguments.FileArrayArgument;
 import com.lowagie.toolbox.arguments.filters.PdfFilter;
+import com.lowagie.tools.ConcatPdf;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import javax.swing.JInternalFrame;
 
 /**
@@ -115,48 +108,9 @@ public class ConcatN extends AbstractTool {
                         "You need to choose a destination file");
             }
             File pdf_file = (File) getValue("destfile");
-            int pageOffset = 0;
-            List<Map<String, Object>> master = new ArrayList<>();
-            Document document = null;
-            PdfCopy writer = null;
-            for (int i = 0; i < files.length; i++) {
-                // we create a reader for a certain document
-                PdfReader reader = new PdfReader(files[i].getAbsolutePath());
-                reader.consolidateNamedDestinations();
-                // we retrieve the total number of pages
-                int n = reader.getNumberOfPages();
-                List<Map<String, Object>> bookmarks = SimpleBookmark.getBookmarkList(reader);
-                if (bookmarks != null) {
-                    if (pageOffset != 0) {
-                        SimpleBookmark.shiftPageNumbersInRange(bookmarks, pageOffset, null);
-                    }
-                    master.addAll(bookmarks);
-                }
-                pageOffset += n;
-                System.out.println("There are " + n + " pages in " + files[i]);
-                if (i == 0) {
-                    // step 1: creation of a document-object
-                    document = new Document(reader.getPageSizeWithRotation(1));
-                    // step 2: we create a writer that listens to the document
-                    writer = new PdfCopy(document,
-                            new FileOutputStream(pdf_file));
-                    // step 3: we open the document
-                    document.open();
-                }
-                // step 4: we add content
-                PdfImportedPage page;
-                for (int p = 0; p < n; ) {
-                    ++p;
-                    page = writer.getImportedPage(reader, p);
-                    writer.addPage(page);
-                    System.out.println("Processed page " + p);
-                }
-            }
-            if (!master.isEmpty()) {
-                writer.setOutlines(master);
-            }
-            // step 5: we close the document
-            document.close();
+            // the documents are opened in parallel and their readers closed even if the copy fails,
+            // the writer keeps its default version and compression
+            ConcatPdf.concat(Arrays.asList(files), pdf_file, false);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -119,7 +119,7 @@ public class PdfInformationPanel extends JPanel implements PropertyChangeListene
                 sb.append("PDF Version: ").append(reader.getPdfVersion()).append("<p>");
                 sb.append("Number of pages: ").append(reader.getNumberOfPages()).append("<p>");
                 sb.append("Number of PDF objects: ").append(reader.getXrefSize()).append("<p>");
-                sb.append("File length: ").append(reader.getFileLength()).append("<p>");
+                sb.append("File length: ").append(reader.getFileLengthLong()).append("<p>");
                 sb.append("Encrypted= ").append(reader.isEncrypted()).append("<p>");
                 if (pdfinfo.get("Title") != null) {
                     sb.append("Title= ").append(pdfinfo.get("Title")).append("<p>");
@@ -51,19 +51,24 @@ package com.lowagie.tools;
 
 import com.lowagie.text.Document;
 import com.lowagie.text.pdf.PdfCopy;
-import com.lowagie.text.pdf.PdfImportedPage;
 import com.lowagie.text.pdf.PdfReader;
 import com.lowagie.text.pdf.PdfStream;
 import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
 import com.lowagie.text.pdf.SimpleBookmark;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Tool that can be used to concatenate existing PDF files.
@@ -94,7 +99,30 @@ public class ConcatPdf {
         }
     }
 
+    /**
+     * Concatenates PDF files into a PDF 1.7 document with compressed cross-reference and object streams, at the best
+     * compression level.
+     *
+     * @param sources the files to concatenate, in order
+     * @param target  the file to write
+     * @throws IOException on error
+     */
     public static void concat(List<File> sources, File target) throws IOException {
+        concat(sources, target, true);
+    }
+
+    /**
+     * Concatenates PDF files.
+     *
+     * @param sources         the files to concatenate, in order
+     * @param target          the file to write
+     * @param fullCompression <CODE>true</CODE> to write a PDF 1.7 document with compressed cross-reference and object
+     *                        streams, at the best compression level, <CODE>false</CODE> to keep the default version
+     *                        and compression of the writer, with the size of the first page of the first file as the
+     *                        page size of the document
+     * @throws IOException on error
+     */
+    public static void concat(List<File> sources, File target, boolean fullCompression) throws IOException {
 
         for (File source : sources) {
             if (!source.isFile() || !source.canRead()) {
@@ -102,42 +130,79 @@ public class ConcatPdf {
             }
         }
 
-        int pageOffset = 0;
-        List<Map<String, Object>> master = new ArrayList<>();
+        int count = sources.size();
+        List<List<Map<String, Object>>> bookmarks = new ArrayList<>(Collections.nCopies(count, null));
+        int[] numberOfPages = new int[count];
+        List<Callable<PdfReader>> readers = new ArrayList<>();
+        for (int k = 0; k < count; ++k) {
+            File source = sources.get(k);
+            int index = k;
+            readers.add(() -> {
+                // we create a reader for a certain document
+                PdfReader reader = new PdfReader(new BufferedInputStream(Files.newInputStream(source.toPath())));
+                reader.consolidateNamedDestinations();
+                // we retrieve the total number of pages and the bookmarks
+                numberOfPages[index] = reader.getNumberOfPages();
+                bookmarks.set(index, SimpleBookmark.getBookmarkList(reader));
+                return reader;
+            });
+        }
 
-        Document document = new Document();
-        PdfCopy writer = new PdfCopy(document, new BufferedOutputStream(Files.newOutputStream(target.toPath())));
-        writer.setPdfVersion(PdfWriter.VERSION_1_7);
-        writer.setFullCompression();
-        writer.setCompressionLevel(PdfStream.BEST_COMPRESSION);
-        document.open();
-        for (File source : sources) {
-            // we create a reader for a certain document
-            PdfReader reader = new PdfReader(new BufferedInputStream(Files.newInputStream(source.toPath())));
-            reader.consolidateNamedDestinations();
-            // we retrieve the total number of pages
-            int numberOfPages = reader.getNumberOfPages();
-            List<Map<String, Object>> bookmarks = SimpleBookmark.getBookmarkList(reader);
-            if (bookmarks != null) {
-                if (pageOffset != 0) {
-                    SimpleBookmark.shiftPageNumbersInRange(bookmarks, pageOffset, null);
+        Document document;
+        if (fullCompression || sources.isEmpty()) {
+            document = new Document();
+        } else {
+            // only the first page is read
+            try (PdfReader first = new PdfReader(new RandomAccessFileOrArray(sources.get(0).getPath()), null)) {
+                document = new Document(first.getPageSizeWithRotation(1));
+            }
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(target.toPath()));
+        boolean done = false;
+        try {
+            PdfCopy writer = new PdfCopy(document, out);
+            if (fullCompression) {
+                writer.setPdfVersion(PdfWriter.VERSION_1_7);
+                writer.setFullCompression();
+                writer.setCompressionLevel(PdfStream.BEST_COMPRESSION);
+            }
+            document.open();
+            // the documents are read on several threads and copied in order
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                writer.addDocuments(readers, executor);
+            } finally {
+                executor.shutdown();
+            }
+            int pageOffset = 0;
+            List<Map<String, Object>> master = new ArrayList<>();
+            for (int k = 0; k < count; ++k) {
+                List<Map<String, Object>> documentBookmarks = bookmarks.get(k);
+                if (documentBookmarks != null) {
+                    if (pageOffset != 0) {
+                        SimpleBookmark.shiftPageNumbersInRange(documentBookmarks, pageOffset, null);
+                    }
+                    master.addAll(documentBookmarks);
                 }
-                master.addAll(bookmarks);
+                pageOffset += numberOfPages[k];
             }
-            pageOffset += numberOfPages;
-
-            // we add content
-            PdfImportedPage page;
-            for (int i = 1; i <= numberOfPages; i++) {
-                page = writer.getImportedPage(reader, i);
-                writer.addPage(page);
+            if (!master.isEmpty()) {
+                writer.setOutlines(master);
+            }
+            // we close the document
+            document.close();
+            done = true;
+        } finally {
+            if (!done) {
+                if (document.isOpen()) {
+                    try {
+                        document.close();
+                    } catch (RuntimeException e) {
+                        // empty on purpose, the copy already failed
+                    }
+                }
+                out.close();
             }
-            writer.freeReader(reader);
-        }
-        if (!master.isEmpty()) {
-            writer.setOutlines(master);
         }
-        // we close the document
-        document.close();
     }
 }
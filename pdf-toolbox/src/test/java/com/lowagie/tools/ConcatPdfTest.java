@@ -4,6 +4,7 @@ import com.lowagie.text.pdf.PdfReader;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
@@ -46,6 +47,21 @@ public class ConcatPdfTest {
         Assertions.assertEquals(5, countPages(target));
     }
 
+    @Test
+    public void testConcatWithTheDefaultCompression() throws IOException {
+
+        List<File> sources = new ArrayList<>();
+        sources.add(new File("src/test/resources/groups.pdf"));
+        sources.add(new File("src/test/resources/layers.pdf"));
+
+        File target = new File("target/test-pdfs/concat3.pdf");
+        target.getParentFile().mkdirs();
+        ConcatPdf.concat(sources, target, false);
+
+        Assertions.assertEquals(2, countPages(target));
+        String pdf = new String(Files.readAllBytes(target.toPath()), StandardCharsets.ISO_8859_1);
+        Assertions.assertFalse(pdf.contains("/ObjStm"));
+    }
 
     private int countPages(File file) {
 